@@ -0,0 +1,89 @@
+package benchmark;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import compiler.CompilerSession;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import parser.Parser;
+import syntaxtree.ProgramNode;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for compiling a batch of small programs back to back, each with a new Parser, scanner and symbol
+ * table or all with one CompilerSession. Run with the GC profiler from BenchmarkMain to compare what each allocates
+ * per program.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class BatchCompileBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    @Param({"simplest", "money", "1K"})
+    public String input;
+
+    private static final int BATCH = 100;
+
+    private String program;
+    private CompilerSession session;
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Reads the input and takes a session for the whole trial.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        program = Inputs.program(input);
+        session = CompilerSession.acquire();
+    }
+
+    /**
+     * Gives the session back.
+     */
+    @TearDown
+    public void tearDown() {
+        session.close();
+    }
+
+    /**
+     * Compiles the batch with a new Parser, CodeFolding and CodeGeneration for every program.
+     *
+     * @param blackhole Consumes the assembly code
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void fresh(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            Parser parser = new Parser(program);
+            ProgramNode tree = new CodeFolding().foldProgram(parser.program());
+            blackhole.consume(new CodeGeneration(tree, parser.getSymbolTable()).generateCode());
+        }
+    }
+
+    /**
+     * Compiles the batch with one session reset for every program.
+     *
+     * @param blackhole Consumes the assembly code
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void session(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(session.compile(program));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the compiler benchmarks with the GC profiler, which adds the allocation rate and bytes allocated per operation
+ * to every result. With no arguments every benchmark in the package runs on every input. The first argument narrows
+ * it to benchmarks matching a regular expression and any more arguments are the inputs to use, for example:
+ * <p>
+ * java -cp ... benchmark.BenchmarkMain Parser 10K 100K
+ */
+public class BenchmarkMain {
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args Optional benchmark pattern followed by optional inputs
+     * @throws RunnerException if JMH fails to run a benchmark
+     */
+    public static void main(String[] args) throws RunnerException {
+        String pattern = args.length > 0 ? args[0] : "";
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include("benchmark\\..*" + pattern + ".*")
+                .addProfiler(GCProfiler.class);
+        if (args.length > 1) {
+            String[] inputs = new String[args.length - 1];
+            System.arraycopy(args, 1, inputs, 0, inputs.length);
+            options.param("input", inputs);
+        }
+        new Runner(options.build()).run();
+    }
+}
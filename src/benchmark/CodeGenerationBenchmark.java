@@ -0,0 +1,63 @@
+package benchmark;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import scanner.Source;
+import scanner.TokenStream;
+import symboltable.SymbolTable;
+import syntaxtree.ProgramNode;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for CodeGeneration.generateCode over the sample programs and the synthetic ones from Inputs. The
+ * input is parsed and folded once. Generating code only sets the same memory addresses in the symbol table every
+ * time, so each invocation gets a new CodeGeneration over the same tree and table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class CodeGenerationBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    @Param({"arrays", "example", "money", "recursive", "simple", "simplest", "test", "1K", "10K", "100K", "1M"})
+    public String input;
+
+    private ProgramNode tree;
+    private SymbolTable symbolTable;
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Parses and folds the input.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Parser parser = new Parser(TokenStream.lex(Source.of(Inputs.program(input))));
+        tree = new CodeFolding().foldProgram(parser.program());
+        symbolTable = parser.getSymbolTable();
+    }
+
+    /**
+     * Generates the assembly for the tree.
+     *
+     * @return The assembly code
+     */
+    @Benchmark
+    public String generateCode() {
+        return new CodeGeneration(tree, symbolTable).generateCode();
+    }
+}
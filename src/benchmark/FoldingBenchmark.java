@@ -0,0 +1,66 @@
+package benchmark;
+
+import codefolding.CodeFolding;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import scanner.Source;
+import scanner.TokenStream;
+import syntaxtree.ProgramNode;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for CodeFolding.foldProgram over the sample programs and the synthetic ones from Inputs. Folding
+ * changes the tree it is given, so a fresh tree is parsed before every invocation and only the folding is timed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class FoldingBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    @Param({"arrays", "example", "money", "recursive", "simple", "simplest", "test", "1K", "10K", "100K", "1M"})
+    public String input;
+
+    private TokenStream tokens;
+    private ProgramNode tree;
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Loads and scans the input once.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        tokens = TokenStream.lex(Source.of(Inputs.program(input)));
+    }
+
+    /**
+     * Parses a tree that has not been folded yet.
+     */
+    @Setup(Level.Invocation)
+    public void parse() {
+        tree = new Parser(tokens).program();
+    }
+
+    /**
+     * Folds the tree parsed for this invocation.
+     *
+     * @return The folded tree
+     */
+    @Benchmark
+    public ProgramNode foldProgram() {
+        return new CodeFolding().foldProgram(tree);
+    }
+}
@@ -0,0 +1,72 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import scanner.IncrementalLexer;
+import scanner.Source;
+import scanner.TokenStream;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for IncrementalLexer.relex after a one character edit in the middle of the input, next to scanning the
+ * whole edited input again. Only the tokens around the edit are scanned again, but the text and the token arrays are
+ * still copied on every edit, so both scores grow with the size of the input and the gap between them is the scanning
+ * saved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class IncrementalLexerBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    @Param({"1K", "10K", "100K", "1M"})
+    public String input;
+
+    private TokenStream tokens;
+    private Source edited;
+    private int offset;
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Scans the input once and picks a space near its middle to insert another one after.
+     *
+     * @throws IOException never, the inputs are generated
+     */
+    @Setup
+    public void setUp() throws IOException {
+        String text = Inputs.program(input);
+        tokens = TokenStream.lex(Source.of(text));
+        offset = text.indexOf(' ', text.length() / 2);
+        edited = tokens.getSource().replace(offset, 0, " ");
+    }
+
+    /**
+     * Applies the edit to the old tokens, scanning only the ones near it again.
+     *
+     * @return The result of the edit
+     */
+    @Benchmark
+    public IncrementalLexer.Result relex() {
+        return IncrementalLexer.relex(tokens, offset, 0, " ");
+    }
+
+    /**
+     * Scans the whole edited input, what an editor would do without IncrementalLexer.
+     *
+     * @return The tokens of the edited input
+     */
+    @Benchmark
+    public TokenStream lex() {
+        return TokenStream.lex(edited);
+    }
+}
@@ -0,0 +1,95 @@
+package benchmark;
+
+import compiler.ProgramGenerator;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * The programs the benchmarks run on. An input is either the name of one of the samples in src/pascalfiles, read from
+ * disk, or a size such as 10K, 100K or 1M for a program with about that many lines from ProgramGenerator.
+ * <p>
+ * The parser reads lists of declarations and statements recursively, so the largest inputs need a thread stack of a
+ * few hundred megabytes. The benchmarks ask for one in their @Fork settings.
+ */
+final class Inputs {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private static final String SAMPLE_DIRECTORY = "src/pascalfiles/";
+    private static final long SEED = 42;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Only static methods, never instantiated.
+     */
+    private Inputs() {
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Gets the text of an input.
+     *
+     * @param name A sample name or a size like 10K or 1M
+     * @return The program text
+     * @throws IOException if a sample can not be read
+     */
+    static String program(String name) throws IOException {
+        char last = name.charAt(name.length() - 1);
+        if (Character.isDigit(name.charAt(0)) && (last == 'K' || last == 'M' || Character.isDigit(last))) {
+            return synthetic(lines(name));
+        }
+        byte[] bytes = Files.readAllBytes(Paths.get(SAMPLE_DIRECTORY + name + ".pas"));
+        return new String(bytes, Charset.defaultCharset());
+    }
+
+    /**
+     * Turns a size like 10K or 1M into a number of lines.
+     *
+     * @param size The size
+     * @return The number of lines
+     */
+    static int lines(String size) {
+        char last = size.charAt(size.length() - 1);
+        if (last == 'K') return Integer.parseInt(size.substring(0, size.length() - 1)) * 1_000;
+        if (last == 'M') return Integer.parseInt(size.substring(0, size.length() - 1)) * 1_000_000;
+        return Integer.parseInt(size);
+    }
+
+    /**
+     * Counts the lines of a program.
+     *
+     * @param program The program text
+     * @return The number of lines
+     */
+    static int countLines(String program) {
+        int lines = 1;
+        for (int i = 0; i < program.length(); i++) {
+            if (program.charAt(i) == '\n') lines++;
+        }
+        return lines;
+    }
+
+    /**
+     * Generates a program of about the given number of lines with ProgramGenerator's default settings and a fixed
+     * seed, so every run measures the same program.
+     *
+     * @param lines How many lines the program should have
+     * @return The program text
+     */
+    static String synthetic(int lines) {
+        ProgramGenerator generator = new ProgramGenerator(SEED);
+        generator.setLines(lines);
+        return generator.generate();
+    }
+}
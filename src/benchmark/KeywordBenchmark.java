@@ -0,0 +1,155 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import scanner.Keywords;
+import scanner.MyScanner;
+import scanner.Source;
+import scanner.Token;
+import scanner.Type;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for keyword classification in the scanner. The legacy benchmarks rebuild what MyScanner used to do,
+ * a 41 entry HashMap filled in every constructor and a String created and hashed for every identifier, so the numbers
+ * before and after the switch to Keywords can be compared in one run.
+ * <p>
+ * Run with the JMH runner on the classpath: java -cp ... org.openjdk.jmh.Main benchmark.KeywordBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    // Mostly identifiers with a keyword now and then, like the bodies of generated programs
+    private static final String[] WORDS = {"alpha", "count", "total", "begin", "end", "if", "then", "else", "while",
+            "do", "value", "index", "result", "integer", "procedure", "x1", "y2", "sum", "temp", "counter"};
+
+    private char[] buffer;
+    private int[] starts;
+    private int[] lengths;
+    private Source source;
+    private HashMap<String, Type> legacyTable;
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Builds an identifier-heavy source of about 1 MB and remembers where every word starts.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        int count = 150_000;
+        starts = new int[count];
+        lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            starts[i] = text.length();
+            lengths[i] = word.length();
+            text.append(word).append(random.nextInt(8) == 0 ? '\n' : ' ');
+        }
+        source = Source.of(text.toString());
+        buffer = source.getText();
+        legacyTable = legacyTable();
+    }
+
+    /**
+     * The keyword table MyScanner used to build in its constructor.
+     *
+     * @return A HashMap of every keyword and symbol
+     */
+    private static HashMap<String, Type> legacyTable() {
+        HashMap<String, Type> tokenTypes = new HashMap<>();
+        String[] symbols = {";", ",", ".", ":", "[", "]", "(", ")", "+", "-", "=", "<>", "<", "<=", ">", ">=", "*", "/", ":="};
+        Type[] symbolTypes = {Type.SEMI, Type.COMMA, Type.PERIOD, Type.COLON, Type.LBRACE, Type.RBRACE, Type.LPAREN,
+                Type.RPAREN, Type.PLUS, Type.MINUS, Type.EQUAL, Type.NOTEQ, Type.LTHAN, Type.LTHANEQ, Type.GTHAN,
+                Type.GTHANEQ, Type.ASTERISK, Type.FSLASH, Type.ASSIGN};
+        for (Type t : Type.values()) {
+            String text = Token.fixedLexeme(t);
+            if (text != null && Character.isLetter(text.charAt(0))) tokenTypes.put(text, t);
+        }
+        for (int i = 0; i < symbols.length; i++) {
+            tokenTypes.put(symbols[i], symbolTypes[i]);
+        }
+        return tokenTypes;
+    }
+
+    /**
+     * Before: a String per identifier and a HashMap lookup.
+     *
+     * @return The number of keywords found
+     */
+    @Benchmark
+    @OperationsPerInvocation(150_000)
+    public int legacyLookup() {
+        int keywords = 0;
+        for (int i = 0; i < starts.length; i++) {
+            if (legacyTable.get(new String(buffer, starts[i], lengths[i])) != null) keywords++;
+        }
+        return keywords;
+    }
+
+    /**
+     * After: length and first character switch over the buffer.
+     *
+     * @return The number of keywords found
+     */
+    @Benchmark
+    @OperationsPerInvocation(150_000)
+    public int keywordsLookup() {
+        int keywords = 0;
+        for (int i = 0; i < starts.length; i++) {
+            if (Keywords.lookup(buffer, starts[i], lengths[i]) != null) keywords++;
+        }
+        return keywords;
+    }
+
+    /**
+     * Before: the constructor cost of filling a fresh keyword HashMap.
+     *
+     * @return The filled table
+     */
+    @Benchmark
+    public HashMap<String, Type> legacyConstructorTable() {
+        return legacyTable();
+    }
+
+    /**
+     * After: creating a scanner, which no longer builds any table.
+     *
+     * @return The new scanner
+     */
+    @Benchmark
+    public MyScanner createScanner() {
+        return new MyScanner(new StringReader(""));
+    }
+
+    /**
+     * Whole scanner throughput on the identifier-heavy source, reported as identifiers per second.
+     *
+     * @return The number of tokens scanned
+     * @throws IOException never, the source is in memory
+     */
+    @Benchmark
+    @OperationsPerInvocation(150_000)
+    public int scanIdentifiers() throws IOException {
+        MyScanner scanner = new MyScanner(source);
+        int count = 0;
+        while (scanner.nextToken() != null) count++;
+        return count;
+    }
+}
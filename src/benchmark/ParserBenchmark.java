@@ -0,0 +1,139 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import parser.TableParser;
+import scanner.Source;
+import scanner.TokenStream;
+import syntaxtree.ProgramNode;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for Parser.program over the sample programs and the synthetic ones from Inputs. One benchmark parses
+ * a TokenStream scanned during setup so only the parser is measured, the other parses from the String and includes
+ * the scanner. Two more parse the TokenStream with the subprogram bodies parsed in parallel on the common ForkJoinPool,
+ * or left unparsed in lazy mode, which is what a caller that only needs the symbol table pays. The lines counter turns the score into lines per second.
+ * programTable parses the same tokens with the table-driven TableParser, to compare it with programFromTokens.
+ * <p>
+ * The parser reads lists recursively, so the fork gets a thread stack large enough for the 1M line input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class ParserBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    @Param({"arrays", "example", "money", "recursive", "simple", "simplest", "test", "1K", "10K", "100K", "1M"})
+    public String input;
+
+    private String text;
+    private TokenStream tokens;
+    private int lineCount;
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Loads and scans the input.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        text = Inputs.program(input);
+        tokens = TokenStream.lex(Source.of(text));
+        lineCount = Inputs.countLines(text);
+    }
+
+    /**
+     * Parses the tokens scanned during setup.
+     *
+     * @param counters Where the lines parsed are added up
+     * @return The syntax tree
+     */
+    @Benchmark
+    public ProgramNode programFromTokens(Counters counters) {
+        counters.lines += lineCount;
+        return new Parser(tokens).program();
+    }
+
+    /**
+     * Parses the tokens scanned during setup with the subprogram bodies spread over the common ForkJoinPool.
+     *
+     * @param counters Where the lines parsed are added up
+     * @return The syntax tree
+     */
+    @Benchmark
+    public ProgramNode programParallel(Counters counters) {
+        counters.lines += lineCount;
+        Parser parser = new Parser(tokens);
+        parser.setPool(ForkJoinPool.commonPool());
+        return parser.program();
+    }
+
+    /**
+     * Parses the tokens scanned during setup in lazy mode, without parsing the bodies of subprograms.
+     *
+     * @param counters Where the lines parsed are added up
+     * @return The syntax tree
+     */
+    @Benchmark
+    public ProgramNode programLazy(Counters counters) {
+        counters.lines += lineCount;
+        Parser parser = new Parser(tokens);
+        parser.setLazy(true);
+        return parser.program();
+    }
+
+    /**
+     * Parses the tokens scanned during setup with the table-driven TableParser.
+     *
+     * @param counters Where the lines parsed are added up
+     * @return The syntax tree
+     */
+    @Benchmark
+    public ProgramNode programTable(Counters counters) {
+        counters.lines += lineCount;
+        return new TableParser(tokens).program();
+    }
+
+    /**
+     * Scans and parses the input String.
+     *
+     * @param counters Where the lines parsed are added up
+     * @return The syntax tree
+     */
+    @Benchmark
+    public ProgramNode programFromString(Counters counters) {
+        counters.lines += lineCount;
+        return new Parser(text).program();
+    }
+
+    /**
+     * Counts the lines parsed during an iteration. JMH divides the count by the time to report lines per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long lines;
+
+        /**
+         * Starts every iteration from zero.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            lines = 0;
+        }
+    }
+}
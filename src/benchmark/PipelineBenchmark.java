@@ -0,0 +1,72 @@
+package benchmark;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import compiler.Pipeline;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import scanner.Source;
+import scanner.TokenStream;
+import syntaxtree.ProgramNode;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for a whole compile of the synthetic programs from Inputs, parsed from the same tokens: once parsing,
+ * folding and generating one step after the other, and once in a compiler.Pipeline that folds and generates each
+ * subprogram on threads of its own while the parser goes on. The pipeline can only be faster with more than one core.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class PipelineBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    @Param({"1K", "10K", "100K", "1M"})
+    public String input;
+
+    private TokenStream tokens;
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Scans the input.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        tokens = TokenStream.lex(Source.of(Inputs.program(input)));
+    }
+
+    /**
+     * Parses, folds and generates the program one step after the other.
+     *
+     * @return The assembly code
+     */
+    @Benchmark
+    public String sequential() {
+        Parser parser = new Parser(tokens);
+        ProgramNode tree = new CodeFolding().foldProgram(parser.program());
+        return new CodeGeneration(tree, parser.getSymbolTable()).generateCode();
+    }
+
+    /**
+     * Compiles the program in a Pipeline.
+     *
+     * @return The assembly code
+     */
+    @Benchmark
+    public String pipelined() {
+        return new Pipeline(new Parser(tokens)).compile();
+    }
+}
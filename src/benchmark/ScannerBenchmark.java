@@ -0,0 +1,114 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import scanner.MyScanner;
+import scanner.Source;
+import scanner.TokenStream;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for MyScanner.nextToken over the sample programs and the synthetic ones from Inputs. The tokens
+ * counter turns the score into tokens per second next to the operations per second JMH reports.
+ * <p>
+ * Run through BenchmarkMain to get the allocation rate from the GC profiler as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class ScannerBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    @Param({"arrays", "example", "money", "recursive", "simple", "simplest", "test", "1K", "10K", "100K", "1M"})
+    public String input;
+
+    private String text;
+    private Source source;
+    private int tokenCount;
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Loads the input and counts its tokens once so every benchmark can report them.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        text = Inputs.program(input);
+        source = Source.of(text);
+        tokenCount = TokenStream.lex(source).size();
+    }
+
+    /**
+     * Scans the whole input out of the Source, creating a Token for every match.
+     *
+     * @param counters Where the tokens scanned are added up
+     * @return The number of tokens scanned
+     * @throws IOException never, the source is in memory
+     */
+    @Benchmark
+    public int nextTokenSource(Counters counters) throws IOException {
+        MyScanner scanner = new MyScanner(source);
+        int count = 0;
+        while (scanner.nextToken() != null) count++;
+        counters.tokens += count;
+        return count;
+    }
+
+    /**
+     * Scans the whole input through a Reader, the way the String and File parser constructors do.
+     *
+     * @param counters Where the tokens scanned are added up
+     * @return The number of tokens scanned
+     * @throws IOException never, the reader is in memory
+     */
+    @Benchmark
+    public int nextTokenReader(Counters counters) throws IOException {
+        MyScanner scanner = new MyScanner(new StringReader(text));
+        int count = 0;
+        while (scanner.nextToken() != null) count++;
+        counters.tokens += count;
+        return count;
+    }
+
+    /**
+     * Scans the whole input into a packed TokenStream.
+     *
+     * @param counters Where the tokens scanned are added up
+     * @return The tokens of the input
+     */
+    @Benchmark
+    public TokenStream lex(Counters counters) {
+        counters.tokens += tokenCount;
+        return TokenStream.lex(source);
+    }
+
+    /**
+     * Counts the tokens scanned during an iteration. JMH divides the count by the time to report tokens per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long tokens;
+
+        /**
+         * Starts every iteration from zero.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+}
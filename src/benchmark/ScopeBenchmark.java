@@ -0,0 +1,151 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import scanner.Type;
+import symboltable.SymbolTable;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Stack;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for lookups in a SymbolTable with 1 to 8 scopes pushed. Every scope has 16 names, and the names looked
+ * up are spread over all the scopes with one in eight not declared anywhere, so most lookups go through several
+ * scopes. Each lookup asks the questions the parser asks about an identifier: whether it exists, whether it is a
+ * variable and what its type is. The legacy benchmark does the same on a copy of the Stack of HashMaps the
+ * SymbolTable used to keep, which checked containsKey before every get, so both can be compared in one run. The
+ * numbered benchmark asks the same questions by the numbers of the symbols, looked up once beforehand, the way code
+ * generation reads the symbols of the variables the parser has already found.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScopeBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private static final int NAMES_PER_SCOPE = 16;
+    private static final int LOOKUPS = 4096;
+
+    @Param({"1", "2", "4", "8"})
+    public int depth;
+
+    private SymbolTable symbolTable;
+    private Stack<HashMap<String, Type>> legacy;
+    private String[] names;
+    private int[] ids;
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Fills both tables with the same scopes and picks the names to look up.
+     */
+    @Setup
+    public void setUp() {
+        symbolTable = new SymbolTable();
+        legacy = new Stack<>();
+        legacy.push(new HashMap<>());
+        for (int scope = 0; scope < depth; scope++) {
+            if (scope > 0) {
+                symbolTable.addNewScope();
+                legacy.push(new HashMap<>());
+            }
+            for (int i = 0; i < NAMES_PER_SCOPE; i++) {
+                String name = "s" + scope + "n" + i;
+                symbolTable.addVariable(name, Type.INTEGER);
+                legacy.peek().put(name, Type.INTEGER);
+            }
+        }
+        Random random = new Random(42);
+        names = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // new Strings, the way the parser makes them, so no lookup is helped by a cached hash
+            if (random.nextInt(8) == 0) names[i] = new String("missing" + random.nextInt(NAMES_PER_SCOPE));
+            else names[i] = new String("s" + random.nextInt(depth) + "n" + random.nextInt(NAMES_PER_SCOPE));
+        }
+        ids = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            ids[i] = symbolTable.idOf(names[i]);
+        }
+    }
+
+    /**
+     * Looks up every name in the SymbolTable.
+     *
+     * @return The number of names that are variables
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int lookup() {
+        int variables = 0;
+        for (String name : names) {
+            if (symbolTable.doesExist(name) && symbolTable.isVariableName(name) && symbolTable.getType(name) != null)
+                variables++;
+        }
+        return variables;
+    }
+
+    /**
+     * Reads the symbol of every name by its number.
+     *
+     * @return The number of names that are variables
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int numbered() {
+        int variables = 0;
+        for (int id : ids) {
+            if (id >= 0 && !symbolTable.isArray(id) && symbolTable.getType(id) != null) variables++;
+        }
+        return variables;
+    }
+
+    /**
+     * Looks up every name in the Stack of HashMaps, the way the SymbolTable used to.
+     *
+     * @return The number of names that are variables
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int legacyLookup() {
+        int variables = 0;
+        for (String name : names) {
+            if (legacyExists(name) && legacyType(name) != null && legacyType(name) != null) variables++;
+        }
+        return variables;
+    }
+
+    /**
+     * The old doesExist: a containsKey on every scope from the top of the Stack down.
+     *
+     * @param name The name
+     * @return True if a scope has it
+     */
+    private boolean legacyExists(String name) {
+        for (int i = legacy.size() - 1; i >= 0; i--) {
+            if (legacy.elementAt(i).containsKey(name)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The old getType and isVariableName: a containsKey and then a get on the scope that has the name.
+     *
+     * @param name The name
+     * @return The Type of the name, null if no scope has it
+     */
+    private Type legacyType(String name) {
+        for (int i = legacy.size() - 1; i >= 0; i--) {
+            if (legacy.elementAt(i).containsKey(name)) return legacy.elementAt(i).get(name);
+        }
+        return null;
+    }
+}
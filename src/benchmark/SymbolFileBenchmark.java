@@ -0,0 +1,105 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import scanner.Source;
+import scanner.TokenStream;
+import symboltable.SymbolFile;
+import symboltable.SymbolTable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for saving and loading the symbol table of the sample programs and the synthetic ones from Inputs.
+ * The text benchmark makes the text CompilerMain writes to the .table file, and the write benchmark writes the same
+ * table as a SymbolFile. The open benchmark opens a written SymbolFile and looks up the first global name, the way a
+ * separate compilation would load the interface of a program, and the rebuild benchmark turns it back into a
+ * SymbolTable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class SymbolFileBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    @Param({"arrays", "example", "money", "recursive", "simple", "simplest", "test", "1K", "10K", "100K", "1M"})
+    public String input;
+
+    private SymbolTable symbolTable;
+    private ByteBuffer file; // the SymbolFile of the table, off the heap like a mapped file
+    private String name; // the name of symbol 0
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Parses the input and writes its symbol table.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Parser parser = new Parser(TokenStream.lex(Source.of(Inputs.program(input))));
+        parser.program();
+        symbolTable = parser.getSymbolTable();
+        byte[] bytes = write();
+        file = ByteBuffer.allocateDirect(bytes.length);
+        file.put(bytes).flip();
+        name = SymbolFile.read(file).getName(0);
+    }
+
+    /**
+     * Makes the text of the symbol table.
+     *
+     * @return The text
+     */
+    @Benchmark
+    public String text() {
+        return symbolTable.toString();
+    }
+
+    /**
+     * Writes the symbol table as a SymbolFile.
+     *
+     * @return The bytes of the file
+     * @throws IOException never, the bytes are kept in memory
+     */
+    @Benchmark
+    public byte[] write() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SymbolFile.write(symbolTable, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Opens the SymbolFile and looks up one name.
+     *
+     * @return The number of the name
+     * @throws IOException never, the file is written in setUp
+     */
+    @Benchmark
+    public int open() throws IOException {
+        return SymbolFile.read(file).idOf(name);
+    }
+
+    /**
+     * Rebuilds the SymbolTable from the SymbolFile.
+     *
+     * @return The SymbolTable
+     * @throws IOException never, the file is written in setUp
+     */
+    @Benchmark
+    public SymbolTable rebuild() throws IOException {
+        return SymbolFile.read(file).toSymbolTable();
+    }
+}
@@ -0,0 +1,157 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+import scanner.Source;
+import scanner.TokenStream;
+import scanner.Type;
+import symboltable.SymbolTable;
+import syntaxtree.ProgramNode;
+import syntaxtree.SubProgramNode;
+import syntaxtree.SyntaxTreeNode;
+import syntaxtree.VariableNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the SymbolTable over the sample programs and the synthetic ones from Inputs. The lookup benchmark
+ * looks up every identifier of every top level function and procedure with its local table pushed, the way code
+ * generation does, and every identifier of the main body in the global table. The declare benchmark fills a new
+ * SymbolTable with the global variables and subprograms. The symbols counter turns the scores into symbols per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss512m", "-Xmx4g"})
+public class SymbolTableBenchmark {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    @Param({"arrays", "example", "money", "recursive", "simple", "simplest", "test", "1K", "10K", "100K", "1M"})
+    public String input;
+
+    private SymbolTable symbolTable;
+    private ArrayList<HashMap<String, SymbolTable.Symbol>> localTables;
+    private ArrayList<String[]> identifiers; // one array per top level subprogram, then the main body
+    private int lookupCount;
+    private VariableNode[] globals;
+    private SubProgramNode[] subprograms;
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Parses the input and gathers the identifiers inside every top level subprogram and the main body.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        TokenStream tokens = TokenStream.lex(Source.of(Inputs.program(input)));
+        Parser parser = new Parser(tokens);
+        ProgramNode program = parser.program();
+        symbolTable = parser.getSymbolTable();
+        localTables = new ArrayList<>();
+        ArrayList<SyntaxTreeNode> scopes = new ArrayList<>();
+        for (SubProgramNode subprogram : program.getFunctions().getProcs()) {
+            localTables.add(symbolTable.getLocalTable(subprogram.getName()));
+            scopes.add(subprogram);
+        }
+        scopes.add(program.getMain());
+        identifiers = identifiers(tokens, scopes);
+        lookupCount = 0;
+        for (String[] names : identifiers) {
+            lookupCount += names.length;
+        }
+        globals = program.getVariables().getVars().toArray(new VariableNode[0]);
+        subprograms = program.getFunctions().getProcs().toArray(new SubProgramNode[0]);
+    }
+
+    /**
+     * Gets the lexemes of the ID tokens inside the span of each node, in one pass over the tokens.
+     *
+     * @param tokens The tokens of the program
+     * @param nodes  Parsed nodes in the order they appear in the program
+     * @return The identifiers of each node, as new Strings the way the parser makes them
+     */
+    private static ArrayList<String[]> identifiers(TokenStream tokens, ArrayList<SyntaxTreeNode> nodes) {
+        ArrayList<String[]> all = new ArrayList<>();
+        int i = 0;
+        for (SyntaxTreeNode node : nodes) {
+            ArrayList<String> names = new ArrayList<>();
+            while (i < tokens.size() && tokens.start(i) < node.getStart()) i++;
+            for (; i < tokens.size() && tokens.start(i) < node.getEnd(); i++) {
+                if (tokens.type(i) == Type.ID) names.add(tokens.lexeme(i));
+            }
+            all.add(names.toArray(new String[0]));
+        }
+        return all;
+    }
+
+    /**
+     * Looks up every identifier in its scope.
+     *
+     * @param counters Where the lookups are added up
+     * @return The number of identifiers found
+     */
+    @Benchmark
+    public int lookup(Counters counters) {
+        int found = 0;
+        for (int i = 0; i < identifiers.size(); i++) {
+            boolean local = i < localTables.size();
+            if (local) symbolTable.pushLocalTable(localTables.get(i));
+            for (String name : identifiers.get(i)) {
+                if (symbolTable.get(name) != null) found++;
+            }
+            if (local) symbolTable.removeScope();
+        }
+        counters.symbols += lookupCount;
+        return found;
+    }
+
+    /**
+     * Declares the global variables and top level subprograms in a new SymbolTable.
+     *
+     * @param counters Where the declarations are added up
+     * @return The filled SymbolTable
+     */
+    @Benchmark
+    public SymbolTable declare(Counters counters) {
+        SymbolTable table = new SymbolTable();
+        for (VariableNode global : globals) {
+            table.addVariable(global.getName(), global.getType());
+        }
+        for (SubProgramNode subprogram : subprograms) {
+            table.addProcedure(subprogram.getName());
+        }
+        counters.symbols += globals.length + subprograms.length;
+        return table;
+    }
+
+    /**
+     * Counts the symbols looked up or declared during an iteration. JMH divides the count by the time to report
+     * symbols per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long symbols;
+
+        /**
+         * Starts every iteration from zero.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            symbols = 0;
+        }
+    }
+}
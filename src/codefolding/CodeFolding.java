@@ -29,12 +29,26 @@ public class CodeFolding {
      * @return The folded ProgramNode
      */
     public ProgramNode foldProgram(ProgramNode program) {
+        for (SubProgramNode spn : program.getFunctions().getProcs()) {
+            foldProgram(spn);
+        }
+        return foldMain(program);
+    }
+
+    /**
+     * Method to fold the main body of a program whose functions and procedures have already been folded, one at a
+     * time with foldProgram, as they were parsed.
+     *
+     * @param program The ProgramNode to be folded
+     * @return The folded ProgramNode
+     */
+    public ProgramNode foldMain(ProgramNode program) {
         SubProgramDeclarationsNode spdn = program.getFunctions();
         CompoundStatementNode comp = program.getMain();
 
         SubProgramDeclarationsNode newSpdn = new SubProgramDeclarationsNode();
         for (SubProgramNode spn : spdn.getProcs()) {
-            newSpdn.addSubProgramDeclaration((SubProgramNode) foldProgram(spn));
+            newSpdn.addSubProgramDeclaration(spn);
         }
 
         CompoundStatementNode newComp = new CompoundStatementNode();
@@ -127,18 +141,17 @@ public class CodeFolding {
         Type operation = ((UnaryOperationNode) uo).getOperation();
 
         if (ex instanceof ValueNode) {
+            ValueNode value = (ValueNode) ex;
             if (operation == Type.PLUS) {
-                uo = new ValueNode(((ValueNode) ex).getAttribute());
-                return uo;
+                return value;
             } else if (operation == Type.MINUS) {
-                return new ValueNode("-" + ((ValueNode) ex).getAttribute());
+                ValueNode negated = value.negate();
+                negated.setSpan(uo.getStart(), uo.getEnd());
+                return negated;
             } else if (operation == Type.NOT) {
-                Double val = Double.parseDouble(((ValueNode) ex).getAttribute());
-                if (val == 0) {
-                    return new ValueNode("1");
-                } else {
-                    return new ValueNode("0");
-                }
+                ValueNode not = new ValueNode(value.getDoubleValue() == 0 ? 1L : 0L);
+                not.setSpan(uo.getStart(), uo.getEnd());
+                return not;
             }
         }
         // If not a value
@@ -147,7 +160,7 @@ public class CodeFolding {
                 return ex;
             } else if (operation == Type.MINUS) {
                 OperationNode op = new OperationNode(operation);
-                op.setLeft(new ValueNode("0"));
+                op.setLeft(new ValueNode(0L));
                 op.setRight(ex);
                 return op;
             }
@@ -209,78 +222,128 @@ public class CodeFolding {
             node.setRight(foldVariable((VariableNode) node.getRight()));
         }
         if (node.getLeft() instanceof ValueNode && node.getRight() instanceof ValueNode) {
-            boolean intOp = false;
-            ExpressionNode left = node.getLeft();
-            ExpressionNode right = node.getRight();
-            if ((left.getType() == Type.INTEGER && right.getType() == Type.INTEGER)) {
-                intOp = true;
-            }
-
-            double leftVal = Double.parseDouble(((ValueNode) left).getAttribute());
-            double rightVal = Double.parseDouble(((ValueNode) right).getAttribute());
-
-            ValueNode value = null;
-            switch (node.getOperation()) {
-                case PLUS:
-                    value = new ValueNode("" + (leftVal + rightVal));
-                    break;
-                case MINUS:
-                    value = new ValueNode("" + (leftVal - rightVal));
-                    break;
-                case ASTERISK:
-                    value = new ValueNode("" + (leftVal * rightVal));
-                    break;
-                case FSLASH:
-                    value = new ValueNode("" + (leftVal / rightVal));
-                    break;
-                case DIV:
-                    value = new ValueNode("" + ((int) leftVal / (int) rightVal));
-                    break;
-                case MOD:
-                    value = new ValueNode("" + (leftVal % rightVal));
-                    break;
-                case EQUAL:
-                    if (leftVal == rightVal) value = new ValueNode("1");
-                    else value = new ValueNode("0");
-                    break;
-                case NOTEQ:
-                    if (leftVal != rightVal) value = new ValueNode("1");
-                    else value = new ValueNode("0");
-                    break;
-                case AND:
-                    if (leftVal == 0 || rightVal == 0) value = new ValueNode("0");
-                    else value = new ValueNode("1");
-                    break;
-                case OR:
-                    if (leftVal == 0 && rightVal == 0) value = new ValueNode("0");
-                    else value = new ValueNode("1");
-                    break;
-                case LTHAN:
-                    if (leftVal < rightVal) value = new ValueNode("1");
-                    else value = new ValueNode("0");
-                    break;
-                case GTHAN:
-                    if (leftVal > rightVal) value = new ValueNode("1");
-                    else value = new ValueNode("0");
-                    break;
-                case LTHANEQ:
-                    if (leftVal <= rightVal) value = new ValueNode("1");
-                    else value = new ValueNode("0");
-                    break;
-                case GTHANEQ:
-                    if (leftVal >= rightVal) value = new ValueNode("1");
-                    else value = new ValueNode("0");
-                    break;
-                default:
-                    break;
-            }
-
-            if (intOp && value != null) value = new ValueNode("" + (int) Double.parseDouble(value.getAttribute()));
-            return value;
-
+            ValueNode left = (ValueNode) node.getLeft();
+            ValueNode right = (ValueNode) node.getRight();
+            ExpressionNode folded;
+            if (left.getType() == Type.INTEGER && right.getType() == Type.INTEGER)
+                folded = foldInteger(node, left.getLongValue(), right.getLongValue());
+            else folded = foldReal(node, left.getDoubleValue(), right.getDoubleValue());
+            // the value stands for the whole operation in the source
+            folded.setSpan(node.getStart(), node.getEnd());
+            return folded;
         } else {
             return node;
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Folds an operation on two INTEGER values. Results wrap around at 32 bits like the MIPS word the program would
+     * compute them in. Division by zero is left for the program to run into.
+     *
+     * @param node  The operation being folded
+     * @param left  The value on the left
+     * @param right The value on the right
+     * @return A ValueNode with the result, or the original node if it can not be folded
+     */
+    private ExpressionNode foldInteger(OperationNode node, long left, long right) {
+        switch (node.getOperation()) {
+            case PLUS:
+                return word(left + right);
+            case MINUS:
+                return word(left - right);
+            case ASTERISK:
+                return word(left * right);
+            case FSLASH:
+            case DIV:
+                if (right == 0) return node;
+                return word(left / right);
+            case MOD:
+                if (right == 0) return node;
+                return word(left % right);
+            case EQUAL:
+                return truth(left == right);
+            case NOTEQ:
+                return truth(left != right);
+            case AND:
+                return truth(left != 0 && right != 0);
+            case OR:
+                return truth(left != 0 || right != 0);
+            case LTHAN:
+                return truth(left < right);
+            case GTHAN:
+                return truth(left > right);
+            case LTHANEQ:
+                return truth(left <= right);
+            case GTHANEQ:
+                return truth(left >= right);
+            default:
+                return node;
+        }
+    }
+
+    /**
+     * Folds an operation where at least one value is REAL. Division by zero is left for the program to run into.
+     *
+     * @param node  The operation being folded
+     * @param left  The value on the left
+     * @param right The value on the right
+     * @return A ValueNode with the result, or the original node if it can not be folded
+     */
+    private ExpressionNode foldReal(OperationNode node, double left, double right) {
+        switch (node.getOperation()) {
+            case PLUS:
+                return new ValueNode(left + right);
+            case MINUS:
+                return new ValueNode(left - right);
+            case ASTERISK:
+                return new ValueNode(left * right);
+            case FSLASH:
+                if (right == 0) return node;
+                return new ValueNode(left / right);
+            case DIV:
+                if ((long) right == 0) return node;
+                return new ValueNode((long) left / (long) right);
+            case MOD:
+                if (right == 0) return node;
+                return new ValueNode(left % right);
+            case EQUAL:
+                return truth(left == right);
+            case NOTEQ:
+                return truth(left != right);
+            case AND:
+                return truth(left != 0 && right != 0);
+            case OR:
+                return truth(left != 0 || right != 0);
+            case LTHAN:
+                return truth(left < right);
+            case GTHAN:
+                return truth(left > right);
+            case LTHANEQ:
+                return truth(left <= right);
+            case GTHANEQ:
+                return truth(left >= right);
+            default:
+                return node;
+        }
+    }
+
+    /**
+     * Creates the INTEGER value of folded arithmetic, cut down to a 32 bit word.
+     *
+     * @param value The result of the operation
+     * @return A ValueNode holding the low 32 bits of the result
+     */
+    private ValueNode word(long value) {
+        return new ValueNode((long) (int) value);
+    }
+
+    /**
+     * Creates the INTEGER value of a folded comparison or boolean operation.
+     *
+     * @param value The result of the operation
+     * @return A ValueNode holding 1 for true or 0 for false
+     */
+    private ValueNode truth(boolean value) {
+        return new ValueNode(value ? 1L : 0L);
+    }
+}
@@ -1,11 +1,12 @@
 package codegeneration;
 
 import scanner.Type;
+import symboltable.SymbolSnapshot;
 import symboltable.SymbolTable;
 import syntaxtree.*;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
  * Bob Laskowski,
@@ -14,6 +15,10 @@ import java.util.HashMap;
  * April 27th, 2017
  * <p>
  * This class will create assembly code for a pascal program.
+ * <p>
+ * The symbols are read from a SymbolSnapshot, which is never changed, so code for different subprograms can be
+ * generated on different threads over the same snapshot. The memory addresses the code gives the local variables are
+ * kept in a table of its own, by the numbers of their symbols, and a global variable's address is its name.
  *
  * @author Bob Laskowski
  */
@@ -23,7 +28,11 @@ public class CodeGeneration {
     //    Instance Variables
     ///////////////////////////////
 
-    private SymbolTable stc;
+    private SymbolSnapshot stc;
+    private SymbolSnapshot local; // local scope of the subprogram being written, null in main
+    private int[] localSymbols = new int[8]; // numbers of the local variables given addresses
+    private String[] localAddresses = new String[8]; // their addresses, at the same index
+    private int localCount;
     private ProgramNode program;
     private int currentReg;
     private int loopNum;
@@ -41,6 +50,16 @@ public class CodeGeneration {
      * @param symb Symbol table for the program
      */
     public CodeGeneration(ProgramNode pro, SymbolTable symb) {
+        this(pro, symb.snapshot());
+    }
+
+    /**
+     * Creates a code generation object over a snapshot of the symbol table.
+     *
+     * @param pro  ProgramNode generated by the parser
+     * @param symb Snapshot of the global scope of the symbol table for the program
+     */
+    public CodeGeneration(ProgramNode pro, SymbolSnapshot symb) {
         program = pro;
         stc = symb;
         currentReg = 0;
@@ -59,26 +78,53 @@ public class CodeGeneration {
      * @return A String of the assembly code.
      */
     public String generateCode() {
+        StringBuilder code = new StringBuilder();
+        code.append(generateData());
+        code.append(generateMain());
+
+        // write function code
+        for (SubProgramNode subNode : program.getFunctions().getProcs()) {
+            code.append(generateSubProgram(subNode));
+        }
+
+        return (code.toString());
+    }
+
+    /**
+     * Writes the data section with a word for every global variable, and gives the global variables their memory
+     * addresses. Has to come before the code for the main body or any subprogram.
+     *
+     * @return The data section of the assembly code
+     */
+    public String generateData() {
         StringBuilder code = new StringBuilder();
         code.append(".data\n");
         code.append("__newline__:\t.asciiz\t\"\\n\"\n");
         code.append("__input__:\t.asciiz\t\"input: \"\n");
 
         for (VariableNode var : program.getVariables().getVars()) {
-            if (stc.isArrayName(var.getName())) {
-                int aryLength = stc.get(var.getName()).getArrayLength();
+            int symbol = symbol(var);
+            if (stc.isArray(symbol)) {
+                int aryLength = stc.getArrayLength(symbol);
                 code.append(var.getName()).append(":\t.word\t");
                 for (int i = 0; i < aryLength - 1; i++) {
                     code.append("0, ");
                 }
                 code.append("0\n");
-                stc.get(var.getName()).setMemAddress(var.getName());
             } else {
                 code.append(var.getName()).append(":\t.word\t0\n");
-                stc.get(var.getName()).setMemAddress(var.getName());
             }
         }
+        return code.toString();
+    }
 
+    /**
+     * Writes the text section up to the end of the main body.
+     *
+     * @return The code for the main body of the program
+     */
+    public String generateMain() {
+        StringBuilder code = new StringBuilder();
         code.append("\n.text\n");
         code.append("main:\n");
 
@@ -92,13 +138,18 @@ public class CodeGeneration {
 
         // pop s registers, ra
         code.append(popFromStack());
+        return code.toString();
+    }
 
-        // write function code
-        for (SubProgramNode subNode : program.getFunctions().getProcs()) {
-            code.append(writeSubProgram(subNode));
-        }
-
-        return (code.toString());
+    /**
+     * Writes the code for one of the program's functions or procedures. The subprograms come after the main body, in
+     * the order they were declared.
+     *
+     * @param node SubProgramNode from the parser
+     * @return The code for the function or procedure
+     */
+    public String generateSubProgram(SubProgramNode node) {
+        return writeSubProgram(node);
     }
 
     /**
@@ -112,11 +163,14 @@ public class CodeGeneration {
         code.append("\n# Function/Procedure\n");
         code.append(node.getName()).append(":\n");
         // get the local table for the function
-        HashMap<String, SymbolTable.Symbol> localTable = stc.getLocalTable(node.getName());
-        int offset = 0;
-        if (localTable != null) offset = localTable.size();
-        // add local table to current symbol table stack
-        stc.pushLocalTable(localTable);
+        int symbol = node.getSymbol();
+        if (symbol < 0) {
+            symbol = stc.idOfSubProgram(node.getName());
+            node.setSymbol(symbol);
+        }
+        local = stc.local(symbol);
+        localCount = 0;
+        int offset = stc.getLocalCount(symbol);
 
         code.append(pushToStack());
         // move stack pointer to fp
@@ -131,15 +185,16 @@ public class CodeGeneration {
         }
 
         // add return type for function
-        if (stc.isFunctionName(node.getName())) {
-            code.append("lw\t$v0,\t").append(stc.get(node.getName()).getMemAddress()).append("\n");
+        if (stc.isFunction(symbol)) {
+            code.append("lw\t$v0,\t").append(address(local.idOf(node.getName()))).append("\n");
         }
 
         code.append("addi\t$sp,\t$sp,\t").append(offset * 4).append("\n");
         code.append("move\t$sp,\t$fp\n");
         code.append(popFromStack());
 
-        stc.removeScope();
+        local = null;
+        localCount = 0;
         return code.toString();
     }
 
@@ -235,6 +290,7 @@ public class CodeGeneration {
             code.append("li\t").append(otherReg).append(",\t").append("1\n");
             code.append("bne\t").append(reg).append(",\t").append(otherReg).append(",\t");
             code.append("else").append(ifNum).append("\n");
+            currentReg--;
         } else
             code.append(writeOperation((OperationNode) node.getTest(), reg)).append("else").append(ifNum).append("\n");
 
@@ -282,8 +338,9 @@ public class CodeGeneration {
             code.append("move\t").append(reg).append(",\t$v0\n");
 
         } else if (node instanceof VariableNode) {
-            String var = stc.get(((VariableNode) node).getName()).getMemAddress();
-            if (stc.isArrayName(((VariableNode) node).getName()))
+            int symbol = symbol((VariableNode) node);
+            String var = address(symbol);
+            if (stc.isArray(symbol))
                 code.append("la\t" + reg + ",\t" + var + "\n");
             else
                 code.append("lw\t").append(reg).append(",\t").append(var).append("\n");
@@ -302,10 +359,11 @@ public class CodeGeneration {
         code.append("mflo\t" + indexReg + "\n");
         // add indexreg and aryReg for specific mem address to store to
         String aryReg = "$s" + ++currentReg;
-        if (stc.get(node.getName()).getMemAddress().equals(node.getName()))
-            code.append("la\t" + aryReg + ",\t" + stc.get(node.getName()).getMemAddress() + "\n");
+        String address = address(symbol(node));
+        if (address.equals(node.getName()))
+            code.append("la\t" + aryReg + ",\t" + address + "\n");
         else
-            code.append("lw\t" + aryReg + ",\t" + stc.get(node.getName()).getMemAddress() + "\n");
+            code.append("lw\t" + aryReg + ",\t" + address + "\n");
         code.append("add\t" + aryReg + ",\t" + indexReg + ",\t" + aryReg + "\n");
         code.append("lw\t" + reg + ",\t0(" + aryReg + ")\n");
         currentReg -= 2;
@@ -321,7 +379,8 @@ public class CodeGeneration {
      */
     private String writeAssignment(AssignmentStatementNode node, String reg) {
         StringBuilder code = new StringBuilder();
-        if (stc.isArrayName(node.getLValue().getName())) {
+        int symbol = symbol(node.getLValue());
+        if (stc.isArray(symbol)) {
             // write RHS
             code.append(writeExpression(node.getExpression(), reg));
             // Get mem address of specified array index
@@ -334,13 +393,13 @@ public class CodeGeneration {
             code.append("mflo\t" + indexReg + "\n");
             // add indexreg and aryReg for specific mem address to store to
             String aryReg = "$s" + ++currentReg;
-            code.append("la\t" + aryReg + ",\t" + stc.get(node.getLValue().getName()).getMemAddress() + "\n");
+            code.append("la\t" + aryReg + ",\t" + address(symbol) + "\n");
             code.append("add\t" + aryReg + ",\t" + indexReg + ",\t" + aryReg + "\n");
             code.append("sw\t" + reg + ",\t0(" + aryReg + ")\n");
             currentReg -= 2;
             return code.toString();
         } else {
-            code.append("\n#Assignment\n").append(writeExpression(node.getExpression(), reg)).append("sw\t").append(reg).append(",\t").append(stc.get(node.getLValue().getName()).getMemAddress()).append("\n");
+            code.append("\n#Assignment\n").append(writeExpression(node.getExpression(), reg)).append("sw\t").append(reg).append(",\t").append(address(symbol)).append("\n");
         }
         return code.toString();
     }
@@ -417,8 +476,55 @@ public class CodeGeneration {
     ///////////////////////////////
 
     /**
-     * Assigns the memory address property in the symbol table to the name of the variable for global variables or the
-     * stack pointer offset for local variables.
+     * Get the number of the symbol a variable stands for. NameResolution sets it on every variable in the tree, and
+     * the parser on the variables it looks up. A variable in a tree that wasn't resolved is looked up by name in the
+     * local scope of the subprogram being written, or the global scope in the main body, and keeps its number.
+     *
+     * @param node A VariableNode or ArrayNode
+     * @return The number of its symbol in the symbol table
+     */
+    private int symbol(VariableNode node) {
+        int symbol = node.getSymbol();
+        if (symbol < 0) {
+            symbol = (local == null ? stc : local).idOf(node.getName());
+            node.setSymbol(symbol);
+        }
+        return symbol;
+    }
+
+    /**
+     * Get the memory address of a variable: the stack pointer offset given to it if it is a local variable of the
+     * subprogram being written, otherwise its name.
+     *
+     * @param symbol The number of the variable's symbol
+     * @return The memory address for MIPS reference
+     */
+    private String address(int symbol) {
+        // the last address given wins, and a subprogram has few locals
+        for (int i = localCount - 1; i >= 0; i--) {
+            if (localSymbols[i] == symbol) return localAddresses[i];
+        }
+        return stc.getName(symbol);
+    }
+
+    /**
+     * Gives a local variable of the subprogram being written its memory address.
+     *
+     * @param symbol  The number of the variable's symbol
+     * @param address The stack pointer offset
+     */
+    private void setAddress(int symbol, String address) {
+        if (localCount == localSymbols.length) {
+            localSymbols = Arrays.copyOf(localSymbols, localCount * 2);
+            localAddresses = Arrays.copyOf(localAddresses, localCount * 2);
+        }
+        localSymbols[localCount] = symbol;
+        localAddresses[localCount++] = address;
+    }
+
+    /**
+     * Assigns the memory address of each local variable to its stack pointer offset. Global variables have their
+     * names as addresses.
      *
      * @param node SubProgramNode from the parser
      * @return The code which executes this operation
@@ -432,13 +538,13 @@ public class CodeGeneration {
 
         for (VariableNode var : vars) {
             String reg = offset + "($sp)";
-            stc.get(var.getName()).setMemAddress(reg);
+            setAddress(symbol(var), reg);
             offset += 4;
         }
 
         for (int i = 0; i < numArgs; i++) {
             String reg = offset + "($sp)";
-            stc.get(args.get(i).getName()).setMemAddress(reg);
+            setAddress(symbol(args.get(i)), reg);
             code.append("sw\t$a").append(i).append(",\t").append(reg).append("\n");
             offset += 4;
         }
@@ -456,8 +562,10 @@ public class CodeGeneration {
      * @return The code which executes this value node.
      */
     private String writeValue(ValueNode valNode, String resultRegister) {
-        String value = valNode.getAttribute();
-        return "li\t" + resultRegister + ",\t" + value + "\n";
+        StringBuilder code = new StringBuilder("li\t").append(resultRegister).append(",\t");
+        if (valNode.getKind() == Type.REAL) code.append(valNode.getDoubleValue());
+        else code.append(valNode.getLongValue());
+        return code.append('\n').toString();
     }
 
     /**
@@ -527,7 +635,7 @@ public class CodeGeneration {
         code.append("\nla\t$a0,\t__input__\n");
         code.append("syscall\n");
 
-        Type retType = stc.get(node.getId().getName()).getType();
+        Type retType = stc.getType(symbol(node.getId()));
 
         if (retType == Type.INTEGER) {
             code.append("li\t$v0,\t5\n");
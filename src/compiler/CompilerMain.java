@@ -2,11 +2,20 @@ package compiler;
 
 import codefolding.CodeFolding;
 import codegeneration.CodeGeneration;
+import diagnostics.Diagnostics;
+import nameresolution.NameResolution;
 import parser.Parser;
+import parser.TableParser;
+import scanner.Source;
+import scanner.TokenStream;
+import symboltable.SymbolFile;
 import symboltable.SymbolTable;
 import syntaxtree.ProgramNode;
 
 import java.io.*;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 /**
  * Bob Laskowski,
@@ -19,7 +28,17 @@ import java.io.*;
  * in src/pascalfiles/money.pas.
  * <p>
  * Output will be three text files, "program name".table, "program name".tree and "program name".asm with the symbol table, syntax tree and MIPS assembly
- * code.
+ * code. Run with -Dtable=binary to write the symbol table to "program name".symbols in the binary format of SymbolFile
+ * instead of as text, so it can be loaded again without parsing the program.
+ * <p>
+ * The program is parsed by the recursive descent Parser, or by the table-driven TableParser when run with
+ * -Dparser=table. Run with -Dpipeline=true to compile in a Pipeline instead, which folds and generates each function
+ * and procedure on threads of its own as soon as the Parser has parsed it.
+ * <p>
+ * Run with "-check" and any number of files to only parse them and build their symbol tables. The error messages are
+ * printed with the name of their file, followed by a count, and the exit status is 1 if any file had an error. Nothing
+ * is folded, generated or written, so checking is much cheaper than compiling. With -Dmaxerrors=N each file is only
+ * checked up to its first N errors.
  *
  * @author Bob Laskowski
  */
@@ -29,14 +48,23 @@ public class CompilerMain {
     /**
      * Main driver function for the compiler. Pass in a program to be parsed and the syntax tree, symbol table and
      * assembly code will be written to files with the same name as the program passed in. If no file is passed in, the
-     * default file "money.pas" will be run. If "-h" or "-help" is passed in, instructions will be displayed.
+     * default file "money.pas" will be run. If "-h" or "-help" is passed in, instructions will be displayed. If "-check"
+     * is passed in, the files after it are only checked for errors.
      *
      * @param args Command line arguments
      */
     public static void main(String[] args) {
         File program = null;
+        // Check mode, for any number of files
+        if (args.length > 0 && args[0].equals("-check")) {
+            if (args.length == 1) {
+                error("Please enter the programs to check after \"-check\".");
+                System.exit(1);
+            }
+            System.exit(check(Arrays.copyOfRange(args, 1, args.length)) == 0 ? 0 : 1);
+        }
         // Default program to use if no command line arguments
-        if (args.length == 0) {
+        else if (args.length == 0) {
             program = new File("src/pascalfiles/arrays.pas");
         }
         // If one argument passed in, use that as program or help()
@@ -55,16 +83,104 @@ public class CompilerMain {
             if (!program.exists() || !program.isFile() || !program.canRead()) {
                 error("Invalid file path or permissions for input");
             } else {
-                Parser parser = new Parser(program);
-                CodeFolding cf = new CodeFolding();
-                ProgramNode tree = parser.program(); // parse the program
-                cf.foldProgram(tree); // fold the code
-                CodeGeneration cg = new CodeGeneration(tree, parser.getSymbolTable());
-                String theCode = cg.generateCode(); // generate the assembly
+                ProgramNode tree;
+                SymbolTable table;
+                String theCode;
+                try {
+                    if (Boolean.getBoolean("pipeline") && !"table".equals(System.getProperty("parser"))) {
+                        // parse, fold and generate the subprograms as they are parsed
+                        Pipeline pipeline = new Pipeline(new Parser(program.toPath()));
+                        theCode = pipeline.compile();
+                        tree = pipeline.getTree();
+                        table = pipeline.getSymbolTable();
+                    } else {
+                        if ("table".equals(System.getProperty("parser"))) {
+                            TableParser parser;
+                            try {
+                                parser = new TableParser(TokenStream.lex(Source.map(program.toPath())));
+                            } catch (IOException ex) {
+                                error("Invalid file path or permissions for input");
+                                return;
+                            }
+                            tree = parser.program(); // parse the program
+                            table = parser.getSymbolTable();
+                        } else {
+                            Parser parser = new Parser(program.toPath());
+                            tree = parser.program(); // parse the program
+                            table = parser.getSymbolTable();
+                        }
+                        new NameResolution(table).resolveProgram(tree); // bind the names to their symbols
+                        CodeFolding cf = new CodeFolding();
+                        cf.foldProgram(tree); // fold the code
+                        CodeGeneration cg = new CodeGeneration(tree, table);
+                        theCode = cg.generateCode(); // generate the assembly
+                    }
+                } catch (Parser.Stop stop) {
+                    // a name that was never declared, its error has been printed
+                    System.exit(1);
+                    return;
+                }
                 System.out.println(theCode);
-                writeToFile(tree, parser, program, theCode); // write syntax tree, symbol table and code to files
+                writeToFile(tree, table, program, theCode); // write syntax tree, symbol table and code to files
+            }
+        }
+    }
+
+    /**
+     * Checks programs without compiling them. Each one is scanned and parsed, which builds its symbol table and finds
+     * its syntax and type errors, and the error messages are printed to standard error with the name of the file in
+     * front. A count of the files and errors is printed at the end. Run with -Dmaxerrors=N to stop checking a file
+     * after its first N errors. A file that makes the parser throw is reported with the exception and the check goes on
+     * with the next file.
+     *
+     * @param files The paths of the programs to check
+     * @return The number of files with errors
+     */
+    public static int check(String... files) {
+        int limit = Integer.getInteger("maxerrors", 0);
+        int failed = 0;
+        int errors = 0;
+        for (String file : files) {
+            Diagnostics diagnostics = new Diagnostics(limit);
+            try {
+                TokenStream tokens = TokenStream.lex(Source.map(Paths.get(file)), diagnostics);
+                if ("table".equals(System.getProperty("parser"))) {
+                    TableParser parser = new TableParser(tokens);
+                    parser.setDiagnostics(diagnostics);
+                    parser.check();
+                } else {
+                    Parser parser = new Parser(tokens);
+                    parser.setDiagnostics(diagnostics);
+                    parser.check();
+                }
+            } catch (IOException | InvalidPathException ex) {
+                System.err.println(file + ": Error: File \"" + file + "\" could not be read.");
+                failed++;
+                errors++;
+                continue;
+            } catch (RuntimeException ex) {
+                // a bug in the parser stops this file, not the check of the others
+                for (Diagnostics.Diagnostic diagnostic : diagnostics.getDiagnostics()) {
+                    System.err.println(file + ": " + diagnostic);
+                    errors++;
+                }
+                System.err.println(file + ": Error: Check stopped by " + ex);
+                failed++;
+                errors++;
+                continue;
+            }
+            if (diagnostics.isEmpty()) continue;
+            failed++;
+            for (Diagnostics.Diagnostic diagnostic : diagnostics.getDiagnostics()) {
+                System.err.println(file + ": " + diagnostic);
+                errors++;
+            }
+            if (limit > 0 && diagnostics.getErrorCount() == limit) {
+                System.err.println(file + ": Stopped after " + limit + " errors.");
             }
         }
+        System.out.println("Checked " + files.length + " files: " + errors + " errors in " + failed + " files.");
+        return failed;
     }
 
     /**
@@ -72,7 +188,7 @@ public class CompilerMain {
      * line argument.
      */
     public static void help() {
-        String help = "This program parses a Mini-pascal file and generates assembly code.\n" + "To see an example, run with no command line arguments.\n" + "This will parse the \"money.pas\" file and generate assembly. To generate assembly for your own file, run with the absolute or relative path of the file as the only command line argument.\n" + "The program will output three files, one with the syntax tree, one with the contents of the symbol table and the other with the MIPS assembly code. They will be named \"YourProgramName.tree\"" + ", \"YourProgramName.table and \"YourProgramName.asm\" and located in the output folder of the compilers package.\"\n\n" + "Example usage:\njava -jar compiler.jar input.pas";
+        String help = "This program parses a Mini-pascal file and generates assembly code.\n" + "To see an example, run with no command line arguments.\n" + "This will parse the \"money.pas\" file and generate assembly. To generate assembly for your own file, run with the absolute or relative path of the file as the only command line argument.\n" + "The program will output three files, one with the syntax tree, one with the contents of the symbol table and the other with the MIPS assembly code. They will be named \"YourProgramName.tree\"" + ", \"YourProgramName.table and \"YourProgramName.asm\" and located in the output folder of the compilers package.\"\n\n" + "Example usage:\njava -jar compiler.jar input.pas\n\n" + "To parse with the table-driven LL(1) parser instead of the recursive descent one:\njava -Dparser=table -jar compiler.jar input.pas\n\n" + "To fold and generate each function and procedure on other threads while the rest of a large program is still being parsed:\njava -Dpipeline=true -jar compiler.jar input.pas\n\n" + "To write the symbol table in binary to \"YourProgramName.symbols\" instead of \"YourProgramName.table\":\njava -Dtable=binary -jar compiler.jar input.pas\n\n" + "To only check programs for errors, without generating code or writing any files, run with \"-check\" and any number of files. The exit status is 1 if any of them has an error:\njava -jar compiler.jar -check first.pas second.pas\n\n" + "To stop checking a file after its first 10 errors:\njava -Dmaxerrors=10 -jar compiler.jar -check first.pas second.pas";
         System.out.println(help);
     }
 
@@ -80,12 +196,11 @@ public class CompilerMain {
      * Function to handle the writing to file for the symbol table, syntax tree and assembly code.
      *
      * @param program The ProgramNode generated from parsing the program
-     * @param pars    The instance of the Parser created from the file passed in
+     * @param STC     The SymbolTable filled in by the parser
      * @param f       The File object passed in
      * @param code    The assembly code generated by the compiler
      */
-    private static void writeToFile(ProgramNode program, Parser pars, File f, String code) {
-        SymbolTable STC = pars.getSymbolTable();
+    private static void writeToFile(ProgramNode program, SymbolTable STC, File f, String code) {
         String name;
 
         try {
@@ -101,10 +216,18 @@ public class CompilerMain {
             error("Problem with tree output file.");
         }
 
-        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream("src/compiler/output/" + name + ".table"), "utf-8"))) {
-            writer.write(STC.toString());
-        } catch (Exception ex) {
-            error("Problem with table output file.");
+        if ("binary".equals(System.getProperty("table"))) {
+            try (OutputStream out = new FileOutputStream("src/compiler/output/" + name + ".symbols")) {
+                SymbolFile.write(STC, out);
+            } catch (Exception ex) {
+                error("Problem with table output file.");
+            }
+        } else {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream("src/compiler/output/" + name + ".table"), "utf-8"))) {
+                writer.write(STC.toString());
+            } catch (Exception ex) {
+                error("Problem with table output file.");
+            }
         }
 
         try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream("src/compiler/output/" + name + ".asm"), "utf-8"))) {
@@ -0,0 +1,203 @@
+package compiler;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import diagnostics.Diagnostics;
+import diagnostics.Diagnostics.Diagnostic;
+import nameresolution.NameResolution;
+import parser.Parser;
+import scanner.Source;
+import symboltable.SymbolTable;
+import syntaxtree.ProgramNode;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A reusable compiler for compiling many programs one after another. A session keeps one Parser, with its scanner,
+ * scan buffer and expression stacks, and resets it for every program instead of creating a new one. The errors of a
+ * compile are collected instead of printed, and a program with errors throws CompileErrors with them, so one bad
+ * program in a batch does not stop the others.
+ * <p>
+ * A session is only for one thread at a time. Sessions are pooled: acquire takes a free one or creates one, and close
+ * gives it back. The session given back last is handed out first, since its buffers are the most likely to still
+ * be in cache. The pool keeps at most one session for every available processor, and a session closed when it is full
+ * is left for the garbage collector. A batch worker can use one with try-with-resources for each program or keep one for a whole batch.
+ * The tree and symbol table of a compile can be looked at until the next compile with the same session.
+ */
+public class CompilerSession implements AutoCloseable {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private static final int MAX_POOLED = Runtime.getRuntime().availableProcessors();
+    private static final ConcurrentLinkedDeque<CompilerSession> pool = new ConcurrentLinkedDeque<>();
+    private static final AtomicInteger pooled = new AtomicInteger(); // sessions in the pool, at most MAX_POOLED
+
+    private Parser parser;
+    private final Diagnostics diagnostics = new Diagnostics(); // cleared by every reset of the parser
+    private final CodeFolding folding = new CodeFolding();
+    private ProgramNode tree;
+    private final AtomicBoolean closed = new AtomicBoolean(); // so a session closed twice is pooled only once
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a new session. The Parser is created by the first compile.
+     */
+    public CompilerSession() {
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Takes a session from the pool, or creates one if none is free.
+     *
+     * @return A session for the calling thread to use until it is closed
+     */
+    public static CompilerSession acquire() {
+        CompilerSession session = pool.pollFirst();
+        if (session == null) return new CompilerSession();
+        pooled.decrementAndGet();
+        session.closed.set(false);
+        return session;
+    }
+
+    /**
+     * Gives the session back to the pool, unless the pool is full. The session, and the tree and symbol table of its
+     * last compile, must not be used after it is closed. Closing a session that is already closed does nothing.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        tree = null;
+        if (pooled.incrementAndGet() > MAX_POOLED) {
+            pooled.decrementAndGet();
+            return;
+        }
+        pool.offerFirst(this);
+    }
+
+    /**
+     * Compiles a program read from a Reader: parses it, folds the code and generates the assembly.
+     *
+     * @param input A Reader with the program
+     * @return The MIPS assembly code
+     * @throws CompileErrors if the program has errors
+     */
+    public String compile(Reader input) {
+        if (parser == null) createParser();
+        parser.reset(input);
+        return generate();
+    }
+
+    /**
+     * Compiles a program held in a String.
+     *
+     * @param input The program text
+     * @return The MIPS assembly code
+     * @throws CompileErrors if the program has errors
+     */
+    public String compile(String input) {
+        return compile(new StringReader(input));
+    }
+
+    /**
+     * Compiles a program held in a Source, scanning straight over its text.
+     *
+     * @param input The program Source
+     * @return The MIPS assembly code
+     * @throws CompileErrors if the program has errors
+     */
+    public String compile(Source input) {
+        if (parser == null) createParser();
+        parser.reset(input);
+        return generate();
+    }
+
+    /**
+     * Creates the session's Parser, with the session's Diagnostics for its errors. Every reset of the parser clears it.
+     */
+    private void createParser() {
+        parser = new Parser(new StringReader(""));
+        parser.setDiagnostics(diagnostics);
+    }
+
+    /**
+     * Parses the input the parser was reset to, resolves the names, folds the tree and generates the assembly for it.
+     *
+     * @return The MIPS assembly code
+     * @throws CompileErrors if the program has errors
+     */
+    private String generate() {
+        tree = null;
+        try {
+            tree = parser.program();
+        } catch (Parser.Stop stop) {
+            // a name that was never declared, the errors up to it are thrown below
+        }
+        if (!diagnostics.isEmpty()) throw new CompileErrors(diagnostics);
+        new NameResolution(parser.getSymbolTable()).resolveProgram(tree);
+        folding.foldProgram(tree);
+        return new CodeGeneration(tree, parser.getSymbolTable()).generateCode();
+    }
+
+    /**
+     * Get the syntax tree of the last program compiled
+     *
+     * @return The folded syntax tree, null before the first compile or if the parse was stopped by an error
+     */
+    public ProgramNode getTree() {
+        return tree;
+    }
+
+    /**
+     * Get the symbol table of the last program compiled
+     *
+     * @return The symbol table, null before the first compile
+     */
+    public SymbolTable getSymbolTable() {
+        return parser == null ? null : parser.getSymbolTable();
+    }
+
+    /**
+     * Thrown by compile for a program with errors. It keeps the errors, since the session's own Diagnostics is cleared
+     * by the next compile.
+     */
+    public static final class CompileErrors extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Diagnostic> diagnostics;
+
+        /**
+         * Creates the exception with a copy of the errors of a compile.
+         *
+         * @param diagnostics The errors
+         */
+        CompileErrors(Diagnostics diagnostics) {
+            super(diagnostics.toString(), null, false, false);
+            this.diagnostics = Collections.unmodifiableList(new ArrayList<>(diagnostics.getDiagnostics()));
+        }
+
+        /**
+         * Get the errors of the compile
+         *
+         * @return An unmodifiable list of the errors in the order they were found
+         */
+        public List<Diagnostic> getDiagnostics() {
+            return diagnostics;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package compiler;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import nameresolution.NameResolution;
+import parser.Parser;
+import symboltable.SymbolSnapshot;
+import symboltable.SymbolTable;
+import syntaxtree.ProgramNode;
+import syntaxtree.SubProgramNode;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Compiles a program with parsing, code folding and code generation overlapped. The parser runs on the calling thread
+ * and hands each top-level function and procedure to a folding thread as soon as it has parsed it, which resolves its
+ * names with the global scope it was parsed with, folds it and hands it on to a code generation thread, so the
+ * subprograms at the top of a program are compiled while the rest is still being parsed. The threads are connected by
+ * bounded queues, so a parser that gets far ahead waits for the other threads.
+ * <p>
+ * Every compile starts two threads, which costs more than it saves on a small program, so CompilerMain only compiles
+ * in a Pipeline when run with -Dpipeline=true. The pipeline does not save memory either: the finished subprograms stay
+ * in the tree, for getTree and the .tree file, and their code is kept until the main body has been generated.
+ * <p>
+ * The main body can only be folded and generated once it has been parsed, at the very end. Its code comes before the
+ * code of the subprograms, which is kept in the order the subprograms were declared, so the assembly is the same as a
+ * compile on one thread. Every statement gives back the registers it takes, so each subprogram is generated by its
+ * own CodeGeneration starting from $s0, the same as it would be after the main body.
+ */
+public class Pipeline {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private static final int CAPACITY = 64;
+    private static final Stage END = new Stage(null, null, null); // put in a queue after the last subprogram
+
+    private final Parser parser;
+    private final CodeFolding folding = new CodeFolding();
+    private final BlockingQueue<Stage> parsed = new ArrayBlockingQueue<>(CAPACITY);
+    private final BlockingQueue<Stage> folded = new ArrayBlockingQueue<>(CAPACITY);
+    private ProgramNode tree;
+
+    // written by the code generation thread, read once it has been joined
+    private String data; // the data section, written with the first subprogram
+    private final StringBuilder subprograms = new StringBuilder();
+    private int generated; // how many subprograms have been generated
+    private volatile Throwable failure; // thrown by the folding or code generation thread
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a pipeline around a parser that has not parsed its input yet. A parser with a pool or in lazy mode does
+     * not hand over its subprograms, and the pipeline then compiles everything at the end.
+     *
+     * @param parser The parser for the program
+     */
+    public Pipeline(Parser parser) {
+        this.parser = parser;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Parses, folds and generates the program.
+     *
+     * @return The MIPS assembly code
+     */
+    public String compile() {
+        Thread fold = new Thread(this::fold, "fold");
+        Thread generate = new Thread(this::generate, "codegen");
+        fold.setDaemon(true);
+        generate.setDaemon(true);
+        fold.start();
+        generate.start();
+
+        parser.setListener((program, subprogram, globals) -> put(parsed, new Stage(program, subprogram, globals)));
+        try {
+            tree = parser.program();
+        } finally {
+            parser.setListener(null);
+            put(parsed, END);
+            join(fold);
+            join(generate);
+        }
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        if (failure instanceof Error) throw (Error) failure;
+
+        SymbolSnapshot symbols = parser.getSymbolTable().snapshot();
+        NameResolution resolution = new NameResolution(symbols);
+        resolution.resolveMain(tree);
+        folding.foldMain(tree);
+        CodeGeneration cg = new CodeGeneration(tree, symbols);
+        if (data == null) data = cg.generateData();
+        StringBuilder code = new StringBuilder(data);
+        code.append(cg.generateMain());
+        ArrayList<SubProgramNode> procs = tree.getFunctions().getProcs();
+        if (generated != procs.size()) {
+            // the parser never handed the subprograms over
+            for (SubProgramNode subNode : procs) {
+                folding.foldProgram(resolution.resolveSubProgram(subNode));
+                code.append(cg.generateSubProgram(subNode));
+            }
+        } else code.append(subprograms);
+        return code.toString();
+    }
+
+    /**
+     * Resolves the names in the subprograms from the parser, folds them and hands them on, on the folding thread.
+     */
+    private void fold() {
+        Stage stage = take(parsed);
+        while (stage != END) {
+            try {
+                if (failure == null) {
+                    new NameResolution(stage.globals).resolveSubProgram(stage.subprogram);
+                    folding.foldProgram(stage.subprogram);
+                    put(folded, stage);
+                }
+            } catch (RuntimeException | Error ex) {
+                failure = ex;
+            }
+            stage = take(parsed);
+        }
+        put(folded, END);
+    }
+
+    /**
+     * Generates the code for the folded subprograms, on the code generation thread. Each one is generated with the
+     * global scope the parser had when it finished it.
+     */
+    private void generate() {
+        Stage stage = take(folded);
+        while (stage != END) {
+            try {
+                if (failure == null) {
+                    CodeGeneration cg = new CodeGeneration(stage.program, stage.globals);
+                    if (data == null) data = cg.generateData();
+                    subprograms.append(cg.generateSubProgram(stage.subprogram));
+                    generated++;
+                }
+            } catch (RuntimeException | Error ex) {
+                failure = ex;
+            }
+            stage = take(folded);
+        }
+    }
+
+    /**
+     * Puts a stage in a queue, waiting for room.
+     *
+     * @param queue The queue
+     * @param stage The stage
+     */
+    private static void put(BlockingQueue<Stage> queue, Stage stage) {
+        try {
+            queue.put(stage);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while compiling", ex);
+        }
+    }
+
+    /**
+     * Takes the next stage from a queue, waiting for one.
+     *
+     * @param queue The queue
+     * @return The stage
+     */
+    private static Stage take(BlockingQueue<Stage> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return END;
+        }
+    }
+
+    /**
+     * Waits for a thread to finish.
+     *
+     * @param thread The thread
+     */
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while compiling", ex);
+        }
+    }
+
+    /**
+     * Get the syntax tree of the program
+     *
+     * @return The folded syntax tree, null before the compile
+     */
+    public ProgramNode getTree() {
+        return tree;
+    }
+
+    /**
+     * Get the symbol table of the program
+     *
+     * @return The symbol table populated by the parser
+     */
+    public SymbolTable getSymbolTable() {
+        return parser.getSymbolTable();
+    }
+
+    /**
+     * A subprogram on its way through the pipeline, with the program it is in and the global scope it was parsed with.
+     */
+    private static final class Stage {
+        private final ProgramNode program;
+        private final SubProgramNode subprogram;
+        private final SymbolSnapshot globals;
+
+        /**
+         * Creates a stage.
+         *
+         * @param program    The program being parsed
+         * @param subprogram The subprogram
+         * @param globals    The snapshot of the global scope
+         */
+        Stage(ProgramNode program, SubProgramNode subprogram, SymbolSnapshot globals) {
+            this.program = program;
+            this.subprogram = subprogram;
+            this.globals = globals;
+        }
+    }
+}
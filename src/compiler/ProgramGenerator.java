@@ -0,0 +1,519 @@
+package compiler;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Generates random Mini-Pascal programs for testing how the compiler scales with the size of its input. Every program
+ * follows the grammar in the Parser and passes its checks: every name is declared before it is used, every assignment
+ * has the same type on both sides and every call has the right number of INTEGER arguments. The same seed and
+ * settings always give the same program.
+ * <p>
+ * The settings are:
+ * <ul>
+ * <li>lines, about how many lines the program has</li>
+ * <li>nestingDepth, how deep functions and procedures are nested in each other and how deep if, while and begin
+ * statements are nested</li>
+ * <li>expressionDepth, how deep the operators of an expression are nested</li>
+ * <li>callDensity, from 0 to 1, how often a statement calls a procedure or an operand calls a function</li>
+ * </ul>
+ * Only the test of an if or while statement is a relational expression and there are no unary operators, since those
+ * are the expressions the code generator handles. Expressions deeper than a few levels need more than the eight $s
+ * registers, so the assembly of a generated program is for measuring the code generator, not for running.
+ * <p>
+ * Run from the command line with a number of lines and optionally a seed to print a program:
+ * <p>
+ * java compiler.ProgramGenerator 100000 42 &gt; big.pas
+ */
+public class ProgramGenerator {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private static final String[] RELOPS = {"=", "<>", "<", "<=", ">", ">="};
+    private static final String[] ADDOPS = {"+", "-", "*"};
+    private static final int MAX_PARAMETERS = 3; // Arguments are passed in $a0 to $a3
+    private static final int ARRAY_SIZE = 10;
+
+    private final long seed;
+    private int lines = 1000;
+    private int nestingDepth = 3;
+    private int expressionDepth = 4;
+    private double callDensity = 0.2;
+
+    private Random random;
+    private StringBuilder program;
+    private int lineCount;
+    private int names;
+    private Scope scope;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a ProgramGenerator with the default settings: 1000 lines, nesting depth 3, expression depth 4 and a call
+     * density of 0.2.
+     *
+     * @param seed The seed for the random choices
+     */
+    public ProgramGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Prints a generated program.
+     *
+     * @param args The number of lines and optionally the seed
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: java compiler.ProgramGenerator lines [seed]");
+            System.exit(1);
+        }
+        ProgramGenerator generator = new ProgramGenerator(args.length == 2 ? Long.parseLong(args[1]) : 0);
+        generator.setLines(Integer.parseInt(args[0]));
+        System.out.print(generator.generate());
+    }
+
+    /**
+     * Set about how many lines the program should have. A program always has at least a handful.
+     *
+     * @param lines The number of lines
+     */
+    public void setLines(int lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Set how deep subprograms and statements are nested. 0 means no nested subprograms and statement lists without
+     * any if, while or begin statements.
+     *
+     * @param nestingDepth The deepest nesting
+     */
+    public void setNestingDepth(int nestingDepth) {
+        this.nestingDepth = Math.max(0, nestingDepth);
+    }
+
+    /**
+     * Set how deep the operators of an expression are nested. 0 means every expression is a single operand.
+     *
+     * @param expressionDepth The deepest nesting of operators
+     */
+    public void setExpressionDepth(int expressionDepth) {
+        this.expressionDepth = Math.max(0, expressionDepth);
+    }
+
+    /**
+     * Set how often statements call procedures and operands call functions, when there is one to call.
+     *
+     * @param callDensity A chance from 0 to 1
+     */
+    public void setCallDensity(double callDensity) {
+        this.callDensity = Math.max(0, Math.min(1, callDensity));
+    }
+
+    /**
+     * Generates a program with the current settings.
+     *
+     * @return The text of the program, ending with a line break
+     */
+    public String generate() {
+        random = new Random(seed);
+        program = new StringBuilder(Math.max(lines, 16) * 32);
+        lineCount = 0;
+        names = 0;
+        scope = new Scope(null);
+
+        line(0, "program generated;");
+        declareVariables(0, Math.max(2, lines / 200), "integer", scope.integers);
+        declareVariables(0, 1 + lines / 1000, "real", scope.reals);
+        for (int i = 0; i <= lines / 2000; i++) {
+            String array = name("a");
+            line(0, "var " + array + ": array[0:" + (ARRAY_SIZE - 1) + "] of integer;");
+            scope.arrays.add(array);
+        }
+
+        // About a fifth of the program is the main body, the rest is functions and procedures
+        int subprogramsEnd = lines - Math.max(5, lines / 5);
+        while (lineCount < subprogramsEnd) {
+            subprogram(0, 0);
+            program.append(';');
+        }
+
+        line(0, "begin");
+        statementList(1, 0, lines - 2);
+        line(0, "end");
+        line(0, ".");
+        program.append('\n');
+        return program.toString();
+    }
+
+    /**
+     * Writes var declarations of some new variables, at most five on a line.
+     *
+     * @param indent    Indentation of the lines
+     * @param count     How many variables to declare
+     * @param type      integer or real
+     * @param variables The list of the scope to add the names to
+     */
+    private void declareVariables(int indent, int count, String type, ArrayList<String> variables) {
+        for (int i = 0; i < count; i += 5) {
+            StringBuilder declaration = new StringBuilder("var ");
+            for (int j = i; j < Math.min(count, i + 5); j++) {
+                String variable = name(type.equals("real") ? "r" : "v");
+                if (j > i) declaration.append(", ");
+                declaration.append(variable);
+                variables.add(variable);
+            }
+            line(indent, declaration.append(": ").append(type).append(';').toString());
+        }
+    }
+
+    /**
+     * Writes a function or procedure with its declarations, any nested subprograms and its body. Afterwards it can be
+     * called from the rest of the enclosing scope.
+     *
+     * @param depth  How deep this subprogram is nested
+     * @param indent Indentation of the lines
+     */
+    private void subprogram(int depth, int indent) {
+        boolean function = random.nextBoolean();
+        String name = name(function ? "f" : "p");
+        int parameters = 1 + random.nextInt(MAX_PARAMETERS);
+        Scope local = new Scope(scope);
+
+        StringBuilder head = new StringBuilder(function ? "function " : "procedure ").append(name).append('(');
+        for (int i = 0; i < parameters; i++) {
+            String parameter = name("x");
+            if (i > 0) head.append(", ");
+            head.append(parameter);
+            local.integers.add(parameter);
+        }
+        head.append(": integer)").append(function ? ": integer;" : ";");
+        line(indent, head.toString());
+
+        scope = local;
+        // A function returns by assigning to its own name
+        if (function) local.integers.add(name);
+        declareVariables(indent, 1 + random.nextInt(3), "integer", local.integers);
+        if (random.nextInt(3) == 0) declareVariables(indent, 1, "real", local.reals);
+        if (depth < nestingDepth && random.nextInt(3) == 0) {
+            for (int i = random.nextInt(2); i >= 0; i--) {
+                subprogram(depth + 1, indent + 1);
+                program.append(';');
+            }
+        }
+
+        line(indent, "begin");
+        int end = lineCount + 4 + random.nextInt(16);
+        if (function) {
+            line(indent + 1, name + " := " + integerExpression(expressionDepth) + ";");
+        }
+        statementList(indent + 1, 0, end);
+        line(indent, "end");
+        scope = local.parent;
+
+        if (function) scope.functions.add(new Callable(name, parameters));
+        else scope.procedures.add(new Callable(name, parameters));
+    }
+
+    /**
+     * Writes statements separated by semicolons until the program reaches a number of lines. There is always at least
+     * one statement.
+     *
+     * @param indent Indentation of the lines
+     * @param depth  How deep the statements are nested
+     * @param end    The line count to stop at
+     */
+    private void statementList(int indent, int depth, int end) {
+        statement(indent, depth);
+        while (lineCount < end) {
+            program.append(';');
+            statement(indent, depth);
+        }
+    }
+
+    /**
+     * Writes one random statement.
+     *
+     * @param indent Indentation of the lines
+     * @param depth  How deep the statement is nested
+     */
+    private void statement(int indent, int depth) {
+        if (random.nextDouble() < callDensity) {
+            Callable procedure = scope.pick(Scope.PROCEDURES, random);
+            if (procedure != null) {
+                line(indent, call(procedure, expressionDepth));
+                return;
+            }
+        }
+        int choice = random.nextInt(depth < nestingDepth ? 10 : 6);
+        switch (choice) {
+            case 0:
+            case 1:
+                line(indent, integerVariable() + " := " + integerExpression(expressionDepth));
+                break;
+            case 2:
+                line(indent, array() + "[" + integerExpression(1) + "] := " + integerExpression(expressionDepth));
+                break;
+            case 3:
+                line(indent, realVariable() + " := " + realExpression(expressionDepth));
+                break;
+            case 4:
+                line(indent, "write(" + integerExpression(expressionDepth) + ")");
+                break;
+            case 5:
+                line(indent, "read(" + integerVariable() + ")");
+                break;
+            case 6:
+            case 7:
+                line(indent, "if " + condition() + " then");
+                statement(indent + 1, depth + 1);
+                line(indent, "else");
+                statement(indent + 1, depth + 1);
+                break;
+            case 8:
+                line(indent, "while " + condition() + " do");
+                statement(indent + 1, depth + 1);
+                break;
+            default:
+                line(indent, "begin");
+                statementList(indent + 1, depth + 1, lineCount + 1 + random.nextInt(4));
+                line(indent, "end");
+        }
+    }
+
+    /**
+     * Makes the test of an if or while statement. The left side is a variable so that code folding never turns the
+     * whole test into a constant.
+     *
+     * @return A relational expression
+     */
+    private String condition() {
+        return integerVariable() + " " + RELOPS[random.nextInt(RELOPS.length)] + " " + integerExpression(expressionDepth - 1);
+    }
+
+    /**
+     * Makes an INTEGER expression. div and mod always divide by a number from 1 to 9.
+     *
+     * @param depth How deep its operators may still be nested
+     * @return The expression
+     */
+    private String integerExpression(int depth) {
+        if (depth <= 0 || random.nextInt(4) == 0) return integerOperand(depth);
+        switch (random.nextInt(6)) {
+            case 3:
+                return integerExpression(depth - 1) + " div " + (1 + random.nextInt(9));
+            case 4:
+                return integerExpression(depth - 1) + " mod " + (1 + random.nextInt(9));
+            case 5:
+                return "(" + integerExpression(depth - 1) + ")";
+            default:
+                return integerExpression(depth - 1) + " " + ADDOPS[random.nextInt(ADDOPS.length)] + " " + integerExpression(depth - 1);
+        }
+    }
+
+    /**
+     * Makes a number, variable, array element or function call of type INTEGER. Functions are only called while there
+     * is depth left, so arguments can not hold calls forever.
+     *
+     * @param depth How deep the operators of an index or argument may be nested
+     * @return The operand
+     */
+    private String integerOperand(int depth) {
+        if (depth > 0 && random.nextDouble() < callDensity) {
+            Callable function = scope.pick(Scope.FUNCTIONS, random);
+            if (function != null) return call(function, depth - 1);
+        }
+        switch (random.nextInt(4)) {
+            case 0:
+                return Integer.toString(random.nextInt(1000));
+            case 1:
+                return array() + "[" + integerExpression(Math.min(1, depth - 1)) + "]";
+            default:
+                return integerVariable();
+        }
+    }
+
+    /**
+     * Makes a REAL expression out of REAL variables and numbers.
+     *
+     * @param depth How deep its operators may still be nested
+     * @return The expression
+     */
+    private String realExpression(int depth) {
+        if (depth <= 0 || random.nextInt(3) == 0) {
+            if (random.nextBoolean()) return realVariable();
+            return random.nextInt(100) + "." + random.nextInt(100);
+        }
+        return realExpression(depth - 1) + " " + ADDOPS[random.nextInt(ADDOPS.length)] + " " + realExpression(depth - 1);
+    }
+
+    /**
+     * Makes a call with an INTEGER expression for every argument.
+     *
+     * @param callable The function or procedure to call
+     * @param depth    How deep the operators of the arguments may be nested
+     * @return The call
+     */
+    private String call(Callable callable, int depth) {
+        StringBuilder call = new StringBuilder(callable.name).append('(');
+        for (int i = 0; i < callable.parameters; i++) {
+            if (i > 0) call.append(", ");
+            call.append(integerExpression(depth));
+        }
+        return call.append(')').toString();
+    }
+
+    /**
+     * Picks a visible INTEGER variable, parameter or function result.
+     *
+     * @return The name of the variable
+     */
+    private String integerVariable() {
+        return scope.pick(Scope.INTEGERS, random);
+    }
+
+    /**
+     * Picks a visible REAL variable.
+     *
+     * @return The name of the variable
+     */
+    private String realVariable() {
+        return scope.pick(Scope.REALS, random);
+    }
+
+    /**
+     * Picks a global array.
+     *
+     * @return The name of the array
+     */
+    private String array() {
+        return scope.pick(Scope.ARRAYS, random);
+    }
+
+    /**
+     * Makes a name that is not used anywhere else in the program, so nothing is ever hidden by a local declaration.
+     *
+     * @param prefix The first letter of the name
+     * @return The new name
+     */
+    private String name(String prefix) {
+        return prefix + names++;
+    }
+
+    /**
+     * Starts a new line of the program.
+     *
+     * @param indent Indentation of the line
+     * @param text   The text of the line
+     */
+    private void line(int indent, String text) {
+        if (lineCount > 0) program.append('\n');
+        for (int i = 0; i < indent; i++) {
+            program.append("    ");
+        }
+        program.append(text);
+        lineCount++;
+    }
+
+    /**
+     * A function or procedure that can be called, with its number of INTEGER parameters.
+     */
+    private static final class Callable {
+
+        private final String name;
+        private final int parameters;
+
+        /**
+         * Creates a Callable
+         *
+         * @param name       The name of the function or procedure
+         * @param parameters The number of parameters
+         */
+        Callable(String name, int parameters) {
+            this.name = name;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * The names declared in the program or in one function or procedure. A scope can use its own names and the names
+     * of every scope it is nested in.
+     */
+    private static final class Scope {
+
+        private static final int INTEGERS = 0;
+        private static final int REALS = 1;
+        private static final int ARRAYS = 2;
+        private static final int FUNCTIONS = 3;
+        private static final int PROCEDURES = 4;
+
+        private final Scope parent;
+        private final ArrayList<String> integers = new ArrayList<>();
+        private final ArrayList<String> reals = new ArrayList<>();
+        private final ArrayList<String> arrays = new ArrayList<>();
+        private final ArrayList<Callable> functions = new ArrayList<>();
+        private final ArrayList<Callable> procedures = new ArrayList<>();
+
+        /**
+         * Creates an empty Scope
+         *
+         * @param parent The enclosing Scope, null for the program
+         */
+        Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * Picks one of the names of a kind visible from this scope, without gathering them into one list.
+         *
+         * @param kind   INTEGERS, REALS, ARRAYS, FUNCTIONS or PROCEDURES
+         * @param random The source of the choice
+         * @param <T>    String for variables, Callable for functions and procedures
+         * @return The name, or null if there is none
+         */
+        @SuppressWarnings("unchecked")
+        <T> T pick(int kind, Random random) {
+            int count = 0;
+            for (Scope s = this; s != null; s = s.parent) {
+                count += s.list(kind).size();
+            }
+            if (count == 0) return null;
+            int index = random.nextInt(count);
+            Scope s = this;
+            while (index >= s.list(kind).size()) {
+                index -= s.list(kind).size();
+                s = s.parent;
+            }
+            return (T) s.list(kind).get(index);
+        }
+
+        /**
+         * Get this scope's own list of one kind of name
+         *
+         * @param kind INTEGERS, REALS, ARRAYS, FUNCTIONS or PROCEDURES
+         * @return The list
+         */
+        private ArrayList<?> list(int kind) {
+            switch (kind) {
+                case INTEGERS:
+                    return integers;
+                case REALS:
+                    return reals;
+                case ARRAYS:
+                    return arrays;
+                case FUNCTIONS:
+                    return functions;
+                default:
+                    return procedures;
+            }
+        }
+    }
+}
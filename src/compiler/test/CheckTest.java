@@ -0,0 +1,126 @@
+package compiler.test;
+
+import compiler.CompilerMain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class uses the JUnit framework to test the check mode of CompilerMain: the files with errors are counted, the
+ * messages are printed with their file names, and neither a name that was never declared nor a syntax error stops the
+ * other files from being checked.
+ */
+class CheckTest {
+
+    /**
+     * Checks a correct program, one with type errors, one using an undeclared name, one with syntax errors and a file
+     * that doesn't exist.
+     *
+     * @throws IOException if the temporary files can not be written
+     */
+    @org.junit.jupiter.api.Test
+    void check() throws IOException {
+        System.out.println("-----test check mode-----");
+        Path directory = Files.createTempDirectory("check");
+        try {
+            String good = write(directory, "good.pas", "program p; var x: integer; begin x := 1 end .");
+            String typed = write(directory, "typed.pas",
+                    "program p; var x: integer; var r: real;\nbegin x := r;\nx := 2.5 end .");
+            String undeclared = write(directory, "undeclared.pas", "program p; var x: integer; begin x := y end .");
+            String syntax = write(directory, "syntax.pas", "program p; var x: integer;\n" +
+                    "var a: array [1:2.5] of integer;\nbegin x := 1 +;\nx := (x end .");
+            String missing = directory.resolve("missing.pas").toString();
+
+            String lineSeparator = System.lineSeparator();
+            String expected = typed + ": Error: type mismatch at x Line: 2" + lineSeparator +
+                    typed + ": Error: type mismatch at x Line: 3" + lineSeparator +
+                    undeclared + ": Error: y has not been declared Line: 1" + lineSeparator +
+                    syntax + ": Error: integer Line: 2" + lineSeparator +
+                    syntax + ": Error: factor Line: 3" + lineSeparator +
+                    syntax + ": Error: Match of RPAREN found END instead. Line: 4" + lineSeparator +
+                    missing + ": Error: File \"" + missing + "\" could not be read." + lineSeparator;
+            assertEquals(expected, check(4, good, typed, undeclared, syntax, missing));
+            assertEquals("", check(0, good, good));
+
+            System.setProperty("parser", "table");
+            try {
+                assertEquals(expected, check(4, good, typed, undeclared, syntax, missing));
+            } finally {
+                System.clearProperty("parser");
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.delete(directory);
+        }
+        System.out.println("Check mode tests PASSED.\n");
+    }
+
+    /**
+     * Checks a program with more errors than the limit set with -Dmaxerrors.
+     *
+     * @throws IOException if the temporary file can not be written
+     */
+    @org.junit.jupiter.api.Test
+    void errorLimit() throws IOException {
+        System.out.println("-----test check mode error limit-----");
+        Path directory = Files.createTempDirectory("check");
+        System.setProperty("maxerrors", "2");
+        try {
+            String typed = write(directory, "typed.pas",
+                    "program p; var x: integer; var r: real;\nbegin x := r;\nx := 2.5;\nx := r end .");
+            String lineSeparator = System.lineSeparator();
+            assertEquals(typed + ": Error: type mismatch at x Line: 2" + lineSeparator +
+                    typed + ": Error: type mismatch at x Line: 3" + lineSeparator +
+                    typed + ": Stopped after 2 errors." + lineSeparator, check(1, typed));
+        } finally {
+            System.clearProperty("maxerrors");
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.delete(directory);
+        }
+        System.out.println("Check mode error limit tests PASSED.\n");
+    }
+
+    /**
+     * Checks files and tests the number of files with errors.
+     *
+     * @param failed The number of files expected to have errors
+     * @param files  The files to check
+     * @return What was printed to standard error
+     */
+    private static String check(int failed, String... files) {
+        PrintStream err = System.err;
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errors));
+        try {
+            assertEquals(failed, CompilerMain.check(files));
+        } finally {
+            System.setErr(err);
+        }
+        return errors.toString();
+    }
+
+    /**
+     * Writes a program to a file.
+     *
+     * @param directory The directory to write it in
+     * @param name      The name of the file
+     * @param program   The program text
+     * @return The path of the file
+     * @throws IOException if the file can not be written
+     */
+    private static String write(Path directory, String name, String program) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, program.getBytes());
+        return file.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package compiler.test;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import compiler.CompilerSession;
+import compiler.ProgramGenerator;
+import parser.Parser;
+import scanner.Source;
+import syntaxtree.ProgramNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class uses the JUnit framework to test the CompilerSession class. Compiling with a session that is reset for
+ * every program must give the same assembly, tree and symbol table as compiling with a new Parser each time.
+ */
+class CompilerSessionTest {
+
+    /**
+     * Compiles a run of generated programs with one session, alternating between String and Source input, and checks
+     * each against a fresh compile.
+     */
+    @org.junit.jupiter.api.Test
+    void sameAsFreshCompile() {
+        System.out.println("-----test CompilerSession reuse-----");
+        try (CompilerSession session = CompilerSession.acquire()) {
+            for (int seed = 0; seed < 20; seed++) {
+                ProgramGenerator generator = new ProgramGenerator(seed);
+                generator.setLines(seed % 2 == 0 ? 50 : 300);
+                String program = generator.generate();
+                String code = seed % 2 == 0 ? session.compile(program) : session.compile(Source.of(program));
+                assertSame(program, code, session);
+            }
+        }
+        System.out.println("All reuse tests PASSED.\n");
+    }
+
+    /**
+     * Tests that a program with errors throws them instead of printing them, and does not leave anything behind for the
+     * next program compiled with the same session.
+     */
+    @org.junit.jupiter.api.Test
+    void afterError() {
+        System.out.println("-----test CompilerSession after an error-----");
+        String broken = "program p; var a, b: integer; begin a := (a + b * (b - 1 end .";
+        String undeclared = "program u; var a: integer; begin a := 1;\nb := a end .";
+        String program = "program q; var c: integer; begin c := 2 * (c + 1) end .";
+        PrintStream err = System.err;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(printed));
+        try (CompilerSession session = CompilerSession.acquire()) {
+            CompilerSession.CompileErrors errors = assertThrows(CompilerSession.CompileErrors.class,
+                    () -> session.compile(broken));
+            assertTrue(errors.getDiagnostics().size() > 0);
+            assertSame(program, session.compile(program), session);
+            assertEquals(null, session.getSymbolTable().get("a"));
+
+            errors = assertThrows(CompilerSession.CompileErrors.class, () -> session.compile(undeclared));
+            assertEquals(1, errors.getDiagnostics().size());
+            assertEquals("Error: b has not been declared Line: 2" + System.lineSeparator(), errors.getMessage());
+            assertEquals(null, session.getTree());
+            assertSame(program, session.compile(Source.of(program)), session);
+        } finally {
+            System.setErr(err);
+        }
+        assertEquals(0, printed.size());
+        System.out.println("Error reset test PASSED.\n");
+    }
+
+    /**
+     * Tests that the session closed last is the one handed out next by acquire, that a session closed twice is only
+     * handed out once, and that the pool keeps no more sessions than there are processors.
+     */
+    @org.junit.jupiter.api.Test
+    void pooled() {
+        System.out.println("-----test CompilerSession pool-----");
+        CompilerSession session = CompilerSession.acquire();
+        session.close();
+        CompilerSession again = CompilerSession.acquire();
+        assertTrue(again == session);
+        again.close();
+        again.close();
+        CompilerSession first = CompilerSession.acquire();
+        CompilerSession second = CompilerSession.acquire();
+        assertTrue(first != second);
+        first.close();
+        second.close();
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        Set<CompilerSession> closed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < processors + 2; i++) {
+            closed.add(CompilerSession.acquire());
+        }
+        for (CompilerSession each : closed) {
+            each.close();
+        }
+        int reused = 0;
+        for (int i = 0; i < processors + 2; i++) {
+            if (closed.contains(CompilerSession.acquire())) reused++;
+        }
+        assertEquals(processors, reused);
+        System.out.println("Pool test PASSED.\n");
+    }
+
+    /**
+     * Compiles a program with a new Parser and checks that the session's last compile gave the same results.
+     *
+     * @param program The program text
+     * @param code    The assembly code from the session
+     * @param session The session that compiled the program
+     */
+    private static void assertSame(String program, String code, CompilerSession session) {
+        Parser parser = new Parser(program);
+        ProgramNode tree = parser.program();
+        new CodeFolding().foldProgram(tree);
+        assertEquals(new CodeGeneration(tree, parser.getSymbolTable()).generateCode(), code);
+        assertEquals(tree.indentedToString(0), session.getTree().indentedToString(0));
+        assertEquals(parser.getSymbolTable().toString(), session.getSymbolTable().toString());
+    }
+}
@@ -0,0 +1,90 @@
+package compiler.test;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import compiler.Pipeline;
+import compiler.ProgramGenerator;
+import parser.Parser;
+import syntaxtree.ProgramNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class uses the JUnit framework to test the Pipeline class. Every program must give the same assembly, tree and
+ * symbol table as parsing, folding and generating it one step after the other.
+ */
+class PipelineTest {
+
+    /**
+     * Compiles the sample programs both ways and compares the results.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @org.junit.jupiter.api.Test
+    void samplePrograms() throws IOException {
+        System.out.println("-----test Pipeline sample programs-----");
+        File[] samples = new File("src/pascalfiles").listFiles((dir, name) -> name.endsWith(".pas"));
+        assertTrue(samples != null && samples.length > 0);
+        for (File sample : samples) {
+            assertSameCompile(new String(Files.readAllBytes(sample.toPath())));
+        }
+        System.out.println("All sample program tests PASSED.\n");
+    }
+
+    /**
+     * Compiles generated programs with many subprograms, nested subprograms and calls both ways.
+     */
+    @org.junit.jupiter.api.Test
+    void generatedPrograms() {
+        System.out.println("-----test Pipeline generated programs-----");
+        for (int seed = 0; seed < 20; seed++) {
+            ProgramGenerator generator = new ProgramGenerator(seed);
+            generator.setLines(500);
+            generator.setNestingDepth(seed % 4);
+            generator.setExpressionDepth(seed % 8);
+            generator.setCallDensity((seed % 3) / 2.0);
+            assertSameCompile(generator.generate());
+        }
+        System.out.println("All generated program tests PASSED.\n");
+    }
+
+    /**
+     * Compiles programs with if statements whose tests fold to constants, which take one more register for the test
+     * than an if statement whose test is a comparison, in the main body and in the subprograms.
+     */
+    @org.junit.jupiter.api.Test
+    void constantTests() {
+        System.out.println("-----test Pipeline constant if tests-----");
+        String subprograms = "program p; var x: integer;\n" +
+                "procedure a; begin if 1 < 2 then x := 1 else x := 2 end;\n" +
+                "procedure b; begin x := x + 1 end;\n" +
+                "function c(n: integer): integer; begin if 3 then c := n else c := 0 end;\n";
+        assertSameCompile(subprograms + "begin x := c(1) end .");
+        assertSameCompile(subprograms + "begin if 1 < 2 then x := 1 else x := 2; b end .");
+        assertSameCompile(subprograms + "begin if 1 then x := 1 else x := 2; if 0 then a else b end .");
+        assertSameCompile("program p; var x: integer; begin if 1 then x := 1 else x := 2 end .");
+        System.out.println("All constant if test tests PASSED.\n");
+    }
+
+    /**
+     * Compiles a program in a Pipeline and one step after the other, and checks that the assembly, tree and symbol
+     * table are the same.
+     *
+     * @param program The program text
+     */
+    private static void assertSameCompile(String program) {
+        Parser parser = new Parser(program);
+        ProgramNode tree = new CodeFolding().foldProgram(parser.program());
+        String expected = new CodeGeneration(tree, parser.getSymbolTable()).generateCode();
+
+        Pipeline pipeline = new Pipeline(new Parser(program));
+        assertEquals(expected, pipeline.compile());
+        assertEquals(tree.indentedToString(0), pipeline.getTree().indentedToString(0));
+        assertEquals(parser.getSymbolTable().toString(), pipeline.getSymbolTable().toString());
+    }
+}
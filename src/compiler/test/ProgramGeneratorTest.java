@@ -0,0 +1,142 @@
+package compiler.test;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import compiler.ProgramGenerator;
+import parser.Parser;
+import scanner.ParallelLexer;
+import scanner.Source;
+import scanner.TokenStream;
+import syntaxtree.ProgramNode;
+import syntaxtree.VariableNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class uses the JUnit framework to test the ProgramGenerator class and to stress the scanner, parser, symbol
+ * table, code folding and code generation with the programs it generates. A generated program must go through every
+ * stage without an error message.
+ */
+class ProgramGeneratorTest {
+
+    /**
+     * Tests that a seed always gives the same program and that different seeds give different programs.
+     */
+    @org.junit.jupiter.api.Test
+    void deterministic() {
+        System.out.println("-----test ProgramGenerator seeds-----");
+        ProgramGenerator generator = new ProgramGenerator(7);
+        String first = generator.generate();
+        assertEquals(first, generator.generate());
+        assertEquals(first, new ProgramGenerator(7).generate());
+        assertNotEquals(first, new ProgramGenerator(8).generate());
+        System.out.println("All seed tests PASSED.\n");
+    }
+
+    /**
+     * Tests that programs come out close to the number of lines asked for.
+     */
+    @org.junit.jupiter.api.Test
+    void size() {
+        System.out.println("-----test ProgramGenerator size-----");
+        int[] sizes = {100, 1000, 20000};
+        for (int lines : sizes) {
+            ProgramGenerator generator = new ProgramGenerator(lines);
+            generator.setLines(lines);
+            int actual = countLines(generator.generate());
+            assertTrue(Math.abs(actual - lines) <= lines / 10 + 20, lines + " lines asked for, " + actual + " made");
+        }
+        System.out.println("All size tests PASSED.\n");
+    }
+
+    /**
+     * Compiles generated programs over a range of every setting. Each must scan, parse, fold and generate code without
+     * any error being printed, and every global variable must end up in the symbol table.
+     */
+    @org.junit.jupiter.api.Test
+    void compilesWithoutErrors() {
+        System.out.println("-----test compiling generated programs-----");
+        for (int nesting = 0; nesting <= 4; nesting += 2) {
+            for (int expressions = 0; expressions <= 6; expressions += 3) {
+                for (int calls = 0; calls <= 2; calls++) {
+                    ProgramGenerator generator = new ProgramGenerator(nesting * 100 + expressions * 10 + calls);
+                    generator.setLines(400);
+                    generator.setNestingDepth(nesting);
+                    generator.setExpressionDepth(expressions);
+                    generator.setCallDensity(calls / 2.0);
+                    compile(generator.generate());
+                }
+            }
+        }
+        System.out.println("All generated programs compiled.\n");
+    }
+
+    /**
+     * Tests that a large generated program is scanned the same in parallel as from the beginning, and compiles.
+     */
+    @org.junit.jupiter.api.Test
+    void largeProgram() {
+        System.out.println("-----test large generated program-----");
+        ProgramGenerator generator = new ProgramGenerator(3);
+        generator.setLines(20000);
+        Source source = Source.of(generator.generate());
+        TokenStream expected = TokenStream.lex(source);
+        TokenStream actual = ParallelLexer.lex(source, 8, ForkJoinPool.commonPool());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.start(i), actual.start(i));
+            assertEquals(expected.line(i), actual.line(i));
+        }
+        compile(source.toString());
+        System.out.println("Large generated program PASSED.\n");
+    }
+
+    /**
+     * Runs a program through every stage of the compiler, failing if anything is printed to standard error.
+     *
+     * @param program The program text
+     */
+    private static void compile(String program) {
+        PrintStream err = System.err;
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errors));
+        String code;
+        Parser parser;
+        ProgramNode tree;
+        try {
+            parser = new Parser(TokenStream.lex(Source.of(program)));
+            tree = parser.program();
+            new CodeFolding().foldProgram(tree);
+            code = new CodeGeneration(tree, parser.getSymbolTable()).generateCode();
+        } finally {
+            System.setErr(err);
+        }
+        assertEquals("", errors.toString());
+        assertFalse(code.contains("ERROR"));
+        for (VariableNode global : tree.getVariables().getVars()) {
+            assertNotNull(parser.getSymbolTable().get(global.getName()));
+        }
+    }
+
+    /**
+     * Counts the lines of a program that ends with a line break.
+     *
+     * @param program The program text
+     * @return The number of lines
+     */
+    private static int countLines(String program) {
+        int lines = 0;
+        for (int i = 0; i < program.length(); i++) {
+            if (program.charAt(i) == '\n') lines++;
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,361 @@
+package diagnostics;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the errors found while scanning and parsing a program. Each error is kept as a Diagnostic with its
+ * severity, its code, the line and span in the source where it was found and the arguments of its message, and the
+ * message is only put together when it is asked for. A compiler that checks many programs or compiles them in a batch
+ * can then look at the errors afterwards instead of every one being printed as it is found.
+ * <p>
+ * A printing Diagnostics also prints every error to standard error as soon as it is added, the way the parser always
+ * has. With an error limit, adding the error that reaches the limit throws TooManyErrors to stop the parse.
+ */
+public class Diagnostics {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private final ArrayList<Diagnostic> diagnostics = new ArrayList<>();
+    private final boolean printing;
+    private final int limit;
+    private int errorCount;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a Diagnostics that collects the errors without printing them and without a limit.
+     */
+    public Diagnostics() {
+        this(false, 0);
+    }
+
+    /**
+     * Creates a Diagnostics that collects the errors without printing them, and stops the parse at a number of errors.
+     *
+     * @param limit The number of errors to stop at, 0 for no limit
+     */
+    public Diagnostics(int limit) {
+        this(false, limit);
+    }
+
+    /**
+     * Creates a Diagnostics.
+     *
+     * @param printing True to print every error as it is added
+     * @param limit    The number of errors to stop at, 0 for no limit
+     */
+    private Diagnostics(boolean printing, int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Error limit can't be negative: " + limit);
+        this.printing = printing;
+        this.limit = limit;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Creates a Diagnostics that prints every error to standard error as it is added, and collects it too.
+     *
+     * @return A printing Diagnostics without a limit
+     */
+    public static Diagnostics printing() {
+        return new Diagnostics(true, 0);
+    }
+
+    /**
+     * Adds an error.
+     *
+     * @param code  What went wrong
+     * @param line  The line it was found on
+     * @param start The offset in the source where the text it was found at starts
+     * @param end   The offset after the end of that text
+     * @param args  The arguments of the message
+     * @throws TooManyErrors if this error reaches the limit
+     */
+    public void error(Code code, int line, int start, int end, Object... args) {
+        add(new Diagnostic(Severity.ERROR, code, line, start, end, args));
+    }
+
+    /**
+     * Adds all the diagnostics of another Diagnostics, in the order they were added to it.
+     *
+     * @param other The Diagnostics to add
+     * @throws TooManyErrors if one of its errors reaches the limit
+     */
+    public void addAll(Diagnostics other) {
+        addAll(other.diagnostics);
+    }
+
+    /**
+     * Adds diagnostics collected earlier, such as the ones a ParseCache kept with a parse, in the order of the list.
+     *
+     * @param diagnostics The diagnostics to add
+     * @throws TooManyErrors if one of the errors reaches the limit
+     */
+    public void addAll(List<Diagnostic> diagnostics) {
+        for (Diagnostic diagnostic : diagnostics) {
+            add(diagnostic);
+        }
+    }
+
+    /**
+     * Adds a diagnostic, prints it if this Diagnostics is printing and checks the limit.
+     *
+     * @param diagnostic The diagnostic
+     */
+    private void add(Diagnostic diagnostic) {
+        diagnostics.add(diagnostic);
+        if (printing) System.err.println(diagnostic);
+        if (diagnostic.severity == Severity.ERROR && ++errorCount == limit) throw new TooManyErrors(limit);
+    }
+
+    /**
+     * Removes every diagnostic, for the next parse.
+     */
+    public void clear() {
+        diagnostics.clear();
+        errorCount = 0;
+    }
+
+    /**
+     * Determines whether this Diagnostics prints its errors as they are added.
+     *
+     * @return True if it prints them
+     */
+    public boolean isPrinting() {
+        return printing;
+    }
+
+    /**
+     * Determines whether anything has been added.
+     *
+     * @return True if there are no diagnostics
+     */
+    public boolean isEmpty() {
+        return diagnostics.isEmpty();
+    }
+
+    /**
+     * Get the number of errors added
+     *
+     * @return The number of errors
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Get the diagnostics in the order they were added
+     *
+     * @return An unmodifiable list of the diagnostics
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    /**
+     * Puts together the messages of all the diagnostics, the same way a printing Diagnostics prints them.
+     *
+     * @return The messages, one per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Diagnostic diagnostic : diagnostics) {
+            text.append(diagnostic).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    /**
+     * How bad a diagnostic is.
+     */
+    public enum Severity {
+        ERROR, WARNING
+    }
+
+    /**
+     * The kinds of errors, each with the text of its message. Each {} in the text is replaced by the next argument.
+     */
+    public enum Code {
+        FILE_NOT_FOUND("File \"{}\" not found. Check file name and path to ensure it exists."),
+        FILE_UNREADABLE("File \"{}\" could not be read. Check file name and path to ensure it exists."),
+        INVALID_CHARACTER("Invalid syntax found on line {}", true),
+        SCANNER_EXCEPTION("Scanner exception"),
+        PROGRAM_EXISTS("Name already exists in symbol table"),
+        ALREADY_EXISTS("{} already exists in symbol table"),
+        NOT_DECLARED("{} has not been declared"),
+        NOT_FOUND("{} not found in symbol table."),
+        EXPECTED("{}"),
+        EXPECTED_STATEMENT("statement{}"),
+        MATCH("Match of {} found {} instead."),
+        TYPE_MISMATCH("type mismatch at {}"),
+        ARGUMENT_MISMATCH("Type mismatch in arguments for {}"),
+        CALL_MISMATCH("Type mismatch for arguments of {}");
+
+        private final String text;
+        private final boolean bare; // the message is printed on its own, without the severity and line around it
+
+        /**
+         * Creates a code whose message is printed with its severity and line.
+         *
+         * @param text The text of the message
+         */
+        Code(String text) {
+            this(text, false);
+        }
+
+        /**
+         * Creates a code.
+         *
+         * @param text The text of the message
+         * @param bare True if the message is printed on its own
+         */
+        Code(String text, boolean bare) {
+            this.text = text;
+            this.bare = bare;
+        }
+
+        /**
+         * Puts the arguments into the text of the message.
+         *
+         * @param args The arguments
+         * @return The message
+         */
+        String format(Object[] args) {
+            StringBuilder message = new StringBuilder(text.length() + 16);
+            int from = 0;
+            int arg = 0;
+            int at;
+            while ((at = text.indexOf("{}", from)) >= 0) {
+                message.append(text, from, at).append(arg < args.length ? args[arg++] : "{}");
+                from = at + 2;
+            }
+            return message.append(text, from, text.length()).toString();
+        }
+    }
+
+    /**
+     * One error or warning, with the arguments of its message. Diagnostics are Serializable so they can be kept with a
+     * parse on disk, their arguments are Strings and numbers.
+     */
+    public static final class Diagnostic implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Severity severity;
+        private final Code code;
+        private final int line;
+        private final int start;
+        private final int end;
+        private final Object[] args;
+
+        /**
+         * Creates a diagnostic.
+         *
+         * @param severity How bad it is
+         * @param code     What went wrong
+         * @param line     The line it was found on
+         * @param start    The offset where the text it was found at starts
+         * @param end      The offset after the end of that text
+         * @param args     The arguments of the message
+         */
+        Diagnostic(Severity severity, Code code, int line, int start, int end, Object[] args) {
+            this.severity = severity;
+            this.code = code;
+            this.line = line;
+            this.start = start;
+            this.end = end;
+            this.args = args;
+        }
+
+        /**
+         * Get the severity
+         *
+         * @return How bad the diagnostic is
+         */
+        public Severity getSeverity() {
+            return severity;
+        }
+
+        /**
+         * Get the code
+         *
+         * @return What went wrong
+         */
+        public Code getCode() {
+            return code;
+        }
+
+        /**
+         * Get the line
+         *
+         * @return The line it was found on
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * Get the start of the span
+         *
+         * @return The offset where the text it was found at starts
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * Get the end of the span
+         *
+         * @return The offset after the end of that text
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * Puts the message together from its code and arguments.
+         *
+         * @return The message, without the severity and line
+         */
+        public String getMessage() {
+            return code.format(args);
+        }
+
+        /**
+         * Puts the whole diagnostic together the way it is printed, such as "Error: x has not been declared Line: 3".
+         *
+         * @return The printed form of the diagnostic
+         */
+        @Override
+        public String toString() {
+            if (code.bare) return getMessage();
+            return (severity == Severity.ERROR ? "Error: " : "Warning: ") + getMessage() + " Line: " + line;
+        }
+    }
+
+    /**
+     * Thrown when the number of errors reaches the limit, to stop the parse.
+     */
+    public static final class TooManyErrors extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Creates the exception.
+         *
+         * @param limit The limit that was reached
+         */
+        TooManyErrors(int limit) {
+            super("Stopped after " + limit + " errors", null, false, false);
+        }
+    }
+}
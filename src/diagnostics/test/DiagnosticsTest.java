@@ -0,0 +1,166 @@
+package diagnostics.test;
+
+import diagnostics.Diagnostics;
+import diagnostics.Diagnostics.Code;
+import parser.Parser;
+import parser.TableParser;
+import scanner.ParallelLexer;
+import scanner.Source;
+import scanner.TokenStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class uses the JUnit framework to test the Diagnostics class: the messages put together from the codes, the
+ * spans, the error limit, and that a parser with a Diagnostics set collects the same errors it would print.
+ */
+class DiagnosticsTest {
+
+    /**
+     * Tests that the messages are put together the same way the parser printed them.
+     */
+    @org.junit.jupiter.api.Test
+    void messages() {
+        System.out.println("-----test Diagnostics messages-----");
+        Diagnostics diagnostics = new Diagnostics();
+        diagnostics.error(Code.ALREADY_EXISTS, 3, 10, 11, "x");
+        diagnostics.error(Code.MATCH, 4, 20, 23, "SEMI", "END");
+        diagnostics.error(Code.EXPECTED_STATEMENT, 5, 30, 31, "x");
+        diagnostics.error(Code.INVALID_CHARACTER, 6, 40, 41, 6);
+        List<Diagnostics.Diagnostic> list = diagnostics.getDiagnostics();
+        assertEquals(4, list.size());
+        assertEquals(4, diagnostics.getErrorCount());
+        assertEquals("Error: x already exists in symbol table Line: 3", list.get(0).toString());
+        assertEquals("Match of SEMI found END instead.", list.get(1).getMessage());
+        assertEquals("Error: statementx Line: 5", list.get(2).toString());
+        assertEquals("Invalid syntax found on line 6", list.get(3).toString());
+        assertEquals(20, list.get(1).getStart());
+        assertEquals(23, list.get(1).getEnd());
+        assertEquals(4, list.get(1).getLine());
+        assertEquals(Diagnostics.Severity.ERROR, list.get(1).getSeverity());
+        String n = System.lineSeparator();
+        assertTrue(diagnostics.toString().startsWith("Error: x already exists in symbol table Line: 3" + n));
+        diagnostics.clear();
+        assertTrue(diagnostics.isEmpty());
+        assertEquals(0, diagnostics.getErrorCount());
+        System.out.println("Message tests PASSED.\n");
+    }
+
+    /**
+     * Tests that reaching the error limit throws TooManyErrors, and that a check stops there.
+     */
+    @org.junit.jupiter.api.Test
+    void limit() {
+        System.out.println("-----test Diagnostics error limit-----");
+        Diagnostics diagnostics = new Diagnostics(2);
+        diagnostics.error(Code.TYPE_MISMATCH, 1, 0, 1, "x");
+        assertThrows(Diagnostics.TooManyErrors.class, () -> diagnostics.error(Code.TYPE_MISMATCH, 2, 0, 1, "y"));
+        assertEquals(2, diagnostics.getErrorCount());
+
+        StringBuilder program = new StringBuilder("program p; var x: integer; var r: real;\nbegin\n");
+        for (int i = 0; i < 100; i++) program.append("x := r;\n");
+        program.append("x := 1 end .");
+        for (int limit : new int[]{0, 1, 5}) {
+            Diagnostics limited = new Diagnostics(limit);
+            Parser parser = new Parser(TokenStream.lex(Source.of(program.toString())));
+            parser.setDiagnostics(limited);
+            parser.check();
+            assertEquals(limit == 0 ? 100 : limit, limited.getErrorCount());
+
+            Diagnostics table = new Diagnostics(limit);
+            TableParser tableParser = new TableParser(TokenStream.lex(Source.of(program.toString())));
+            tableParser.setDiagnostics(table);
+            tableParser.check();
+            assertEquals(limited.toString(), table.toString());
+        }
+        System.out.println("Error limit tests PASSED.\n");
+    }
+
+    /**
+     * Tests that a parser collecting its errors gets the same messages it prints by default, with the spans of the
+     * tokens they were found at, and the bad characters from its scanner.
+     */
+    @org.junit.jupiter.api.Test
+    void parserErrors() {
+        System.out.println("-----test Diagnostics parser errors-----");
+        String program = "program p; var x, x: integer; var r: real;\n" +
+                "procedure q(k: real); begin x := r end;\nbegin q(1); x := r end .";
+        PrintStream err = System.err;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(printed));
+        try {
+            new Parser(program).program();
+        } finally {
+            System.setErr(err);
+        }
+        Diagnostics diagnostics = new Diagnostics();
+        Parser parser = new Parser(program);
+        parser.setDiagnostics(diagnostics);
+        parser.program();
+        assertEquals(printed.toString(), diagnostics.toString());
+        assertEquals(4, diagnostics.getErrorCount());
+        Diagnostics.Diagnostic first = diagnostics.getDiagnostics().get(0);
+        assertEquals(Code.ALREADY_EXISTS, first.getCode());
+        // reported once the type has been read, at the ; after it
+        assertEquals(program.indexOf("; var r"), first.getStart());
+
+        // the bad character is found by the scanner while the parser looks ahead
+        Diagnostics scanned = new Diagnostics();
+        Parser badCharacter = new Parser("program p; var x: integer;\nbegin x := 1 ? end .");
+        badCharacter.setDiagnostics(scanned);
+        badCharacter.program();
+        assertEquals("Invalid syntax found on line 2", scanned.getDiagnostics().get(0).toString());
+        assertEquals(Code.INVALID_CHARACTER, scanned.getDiagnostics().get(0).getCode());
+        System.out.println("Parser error tests PASSED.\n");
+    }
+
+    /**
+     * Tests that the characters that do not start any token go to the Diagnostics when a program is lexed up front or
+     * in chunks, and are printed to standard error without one, and that a name that was never declared throws Stop
+     * out of both parsers even when their errors are printed.
+     */
+    @org.junit.jupiter.api.Test
+    void lexerErrorsAndStop() {
+        System.out.println("-----test Diagnostics lexer errors and Stop-----");
+        StringBuilder text = new StringBuilder("program p; var x: integer;\nbegin\n");
+        for (int i = 0; i < 200; i++) {
+            text.append(i % 50 == 7 ? "x := 1 ? x;\n" : "x := x + 1;\n");
+        }
+        Source source = Source.of(text.append("x := 0 end .").toString());
+        Diagnostics lexed = new Diagnostics();
+        TokenStream tokens = TokenStream.lex(source, lexed);
+        assertEquals(4, lexed.getErrorCount());
+        assertEquals("Invalid syntax found on line 10", lexed.getDiagnostics().get(0).toString());
+        Diagnostics chunked = new Diagnostics();
+        assertEquals(tokens.size(), ParallelLexer.lex(source, 4, ForkJoinPool.commonPool(), chunked).size());
+        assertEquals(lexed.toString(), chunked.toString());
+
+        PrintStream err = System.err;
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(printed));
+        System.setOut(new PrintStream(stdout));
+        try {
+            ParallelLexer.lex(source, 4, ForkJoinPool.commonPool());
+            assertEquals(lexed.toString(), printed.toString());
+            printed.reset();
+
+            String undeclared = "program p; var x: integer;\nbegin x := y end .";
+            assertThrows(Parser.Stop.class, () -> new Parser(undeclared).program());
+            assertThrows(Parser.Stop.class, () -> new TableParser(undeclared).program());
+            String message = "Error: y has not been declared Line: 2" + System.lineSeparator();
+            assertEquals(message + message, printed.toString());
+        } finally {
+            System.setErr(err);
+            System.setOut(out);
+        }
+        assertEquals(0, stdout.size());
+        System.out.println("Lexer error and Stop tests PASSED.\n");
+    }
+}
@@ -0,0 +1,189 @@
+package nameresolution;
+
+import symboltable.SymbolSnapshot;
+import symboltable.SymbolTable;
+import syntaxtree.*;
+
+/**
+ * Name resolution module of the Mini-Pascal Compiler. This class runs after parsing and binds every name in a Program
+ * tree to its symbol: each variable, array, function call, procedure call and subprogram is given the number of its
+ * Symbol in the SymbolTable. The phases after it read the symbols by those numbers, so they don't have to push the
+ * local tables of the subprograms onto the SymbolTable or look the names up again. The names are looked up in a
+ * SymbolSnapshot, so subprograms can be resolved on other threads while the parser is still filling the table.
+ * <p>
+ * Names are looked up the way the parser looked them up. The main body sees the global scope, and a function or
+ * procedure sees its own local table on top of the scopes of the subprograms it is declared in. A function or
+ * procedure that is called is found by kind, so inside a function the variable for its result doesn't hide the
+ * function itself. Names that aren't declared keep -1.
+ */
+public class NameResolution {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private SymbolSnapshot scope; // the scope names are looked up in, the local scope of the subprogram being resolved
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a name resolution over a snapshot of the global scope of a symbol table.
+     *
+     * @param symbolTable The symbol table filled by the parser
+     */
+    public NameResolution(SymbolTable symbolTable) {
+        this(symbolTable.snapshot());
+    }
+
+    /**
+     * Creates a name resolution over a snapshot of the global scope.
+     *
+     * @param globals The snapshot of the global scope
+     */
+    public NameResolution(SymbolSnapshot globals) {
+        scope = globals;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Method to be called to resolve the names in an entire program.
+     *
+     * @param program The ProgramNode to be resolved
+     * @return The same ProgramNode, resolved
+     */
+    public ProgramNode resolveProgram(ProgramNode program) {
+        for (SubProgramNode spn : program.getFunctions().getProcs()) {
+            resolveSubProgram(spn);
+        }
+        return resolveMain(program);
+    }
+
+    /**
+     * Method to resolve the global variables and the main body of a program whose functions and procedures are
+     * resolved one at a time with resolveSubProgram.
+     *
+     * @param program The ProgramNode to be resolved
+     * @return The same ProgramNode, resolved
+     */
+    public ProgramNode resolveMain(ProgramNode program) {
+        resolveDeclarations(program.getVariables());
+        resolveStatement(program.getMain());
+        return program;
+    }
+
+    /**
+     * Resolves the names in a function or procedure and in the subprograms declared inside it, in its local scope.
+     *
+     * @param subprogram The SubProgramNode to be resolved
+     * @return The same SubProgramNode, resolved
+     */
+    public SubProgramNode resolveSubProgram(SubProgramNode subprogram) {
+        int symbol = scope.idOfSubProgram(subprogram.getName());
+        subprogram.setSymbol(symbol);
+        if (symbol < 0) return subprogram;
+
+        SymbolSnapshot outer = scope;
+        scope = outer.local(symbol);
+        try {
+            if (subprogram.getArgs() != null) {
+                for (VariableNode arg : subprogram.getArgs()) {
+                    resolveVariable(arg);
+                }
+            }
+            resolveDeclarations(subprogram.getVariables());
+            for (SubProgramNode spn : subprogram.getFunctions().getProcs()) {
+                resolveSubProgram(spn);
+            }
+            resolveStatement(subprogram.getMain());
+        } finally {
+            scope = outer;
+        }
+        return subprogram;
+    }
+
+    /**
+     * Resolves the variables declared in a program or subprogram.
+     *
+     * @param declarations The DeclarationsNode with the variables
+     */
+    private void resolveDeclarations(DeclarationsNode declarations) {
+        for (VariableNode var : declarations.getVars()) {
+            resolveVariable(var);
+        }
+    }
+
+    /**
+     * Resolves the names in a StatementNode and the statements and expressions inside it.
+     *
+     * @param state The StatementNode to be resolved
+     */
+    private void resolveStatement(StatementNode state) {
+        if (state instanceof AssignmentStatementNode) {
+            AssignmentStatementNode asn = (AssignmentStatementNode) state;
+            resolveExpression(asn.getLValue());
+            resolveExpression(asn.getExpression());
+        } else if (state instanceof CompoundStatementNode) {
+            for (StatementNode sn : ((CompoundStatementNode) state).getStatements()) {
+                resolveStatement(sn);
+            }
+        } else if (state instanceof IfStatementNode) {
+            IfStatementNode ifState = (IfStatementNode) state;
+            resolveExpression(ifState.getTest());
+            resolveStatement(ifState.getThen());
+            resolveStatement(ifState.getElse());
+        } else if (state instanceof WhileStatementNode) {
+            WhileStatementNode whileState = (WhileStatementNode) state;
+            resolveExpression(whileState.getTest());
+            resolveStatement(whileState.getDo());
+        } else if (state instanceof ProcedureStatementNode) {
+            ProcedureStatementNode psn = (ProcedureStatementNode) state;
+            psn.setSymbol(scope.idOfSubProgram(psn.getName()));
+            for (ExpressionNode arg : psn.getArgs()) {
+                resolveExpression(arg);
+            }
+        } else if (state instanceof WriteNode) {
+            resolveExpression(((WriteNode) state).getData());
+        } else if (state instanceof ReadNode) {
+            resolveExpression(((ReadNode) state).getId());
+        }
+    }
+
+    /**
+     * Resolves the names in an ExpressionNode and the expressions inside it.
+     *
+     * @param ex The ExpressionNode to be resolved
+     */
+    private void resolveExpression(ExpressionNode ex) {
+        if (ex instanceof OperationNode) {
+            resolveExpression(((OperationNode) ex).getLeft());
+            resolveExpression(((OperationNode) ex).getRight());
+        } else if (ex instanceof UnaryOperationNode) {
+            resolveExpression(((UnaryOperationNode) ex).getExpression());
+        } else if (ex instanceof FunctionNode) {
+            FunctionNode fNode = (FunctionNode) ex;
+            fNode.setSymbol(scope.idOfSubProgram(fNode.getName()));
+            for (ExpressionNode arg : fNode.getArgs()) {
+                resolveExpression(arg);
+            }
+        } else if (ex instanceof ArrayNode) {
+            resolveVariable((ArrayNode) ex);
+            resolveExpression(((ArrayNode) ex).getExpNode());
+        } else if (ex instanceof VariableNode) {
+            resolveVariable((VariableNode) ex);
+        }
+    }
+
+    /**
+     * Binds a variable or array to the innermost symbol with its name.
+     *
+     * @param var The VariableNode to be resolved
+     */
+    private void resolveVariable(VariableNode var) {
+        var.setSymbol(scope.idOf(var.getName()));
+    }
+}
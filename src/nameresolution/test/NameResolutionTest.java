@@ -0,0 +1,171 @@
+package nameresolution.test;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import compiler.ProgramGenerator;
+import nameresolution.NameResolution;
+import parser.Parser;
+import parser.TableParser;
+import scanner.Source;
+import scanner.TokenStream;
+import symboltable.SymbolTable;
+import syntaxtree.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class uses the JUnit framework to test the NameResolution class. The names must be bound to the symbols the
+ * parser found for them, with local names hiding global ones and called functions found by kind, and a resolved tree
+ * must give the same assembly as one whose names code generation looks up itself.
+ */
+class NameResolutionTest {
+
+    /**
+     * Tests the symbols given to the names in a program with a recursive function, a nested procedure and an argument
+     * with the same name as a global variable.
+     */
+    @org.junit.jupiter.api.Test
+    void symbols() {
+        System.out.println("-----test NameResolution symbols-----");
+        Parser parser = new Parser("program p; var x: integer; var a: array [1:3] of integer;\n" +
+                "function f(n: integer): integer;\n" +
+                "  var y: integer;\n" +
+                "  procedure g; begin y := n end;\n" +
+                "  begin g; if n < 1 then f := 0 else f := f(n - 1) + y end;\n" +
+                "procedure q(x: integer); begin a[1] := f(x) end;\n" +
+                "begin x := f(3); q(4) end .");
+        ProgramNode program = parser.program();
+        SymbolTable table = parser.getSymbolTable();
+        String before = table.toString();
+        assertSame(program, new NameResolution(table).resolveProgram(program));
+        // the table is left with only its global scope
+        assertEquals(before, table.toString());
+
+        SubProgramNode f = program.getFunctions().getProcs().get(0);
+        SubProgramNode q = program.getFunctions().getProcs().get(1);
+        assertEquals(table.idOfSubProgram("f"), f.getSymbol());
+        assertEquals(table.idOfSubProgram("q"), q.getSymbol());
+        HashMap<String, SymbolTable.Symbol> fLocal = table.getLocalTable(f.getSymbol());
+        HashMap<String, SymbolTable.Symbol> qLocal = table.getLocalTable(q.getSymbol());
+
+        // g is declared inside f, and its body sees the variables of f
+        SubProgramNode g = f.getFunctions().getProcs().get(0);
+        assertEquals(fLocal.get("g").getNumber(), g.getSymbol());
+        HashMap<String, SymbolTable.Symbol> gLocal = table.getLocalTable(g.getSymbol());
+        AssignmentStatementNode yGetsN = (AssignmentStatementNode) g.getMain().getStatements().get(0);
+        assertEquals(fLocal.get("y").getNumber(), yGetsN.getLValue().getSymbol());
+        assertEquals(fLocal.get("n").getNumber(), ((VariableNode) yGetsN.getExpression()).getSymbol());
+        assertNotNull(gLocal);
+
+        // inside f, f is the variable for the result, but f(n - 1) calls the function
+        ProcedureStatementNode callG = (ProcedureStatementNode) f.getMain().getStatements().get(0);
+        assertEquals(g.getSymbol(), callG.getSymbol());
+        IfStatementNode ifState = (IfStatementNode) f.getMain().getStatements().get(1);
+        AssignmentStatementNode recursive = (AssignmentStatementNode) ifState.getElse();
+        assertEquals(fLocal.get("f").getNumber(), recursive.getLValue().getSymbol());
+        OperationNode sum = (OperationNode) recursive.getExpression();
+        assertEquals(f.getSymbol(), ((FunctionNode) sum.getLeft()).getSymbol());
+        assertEquals(fLocal.get("y").getNumber(), ((VariableNode) sum.getRight()).getSymbol());
+
+        // the argument x of q hides the global x
+        AssignmentStatementNode aGetsF = (AssignmentStatementNode) q.getMain().getStatements().get(0);
+        assertEquals(table.idOf("a"), aGetsF.getLValue().getSymbol());
+        VariableNode argument = (VariableNode) ((FunctionNode) aGetsF.getExpression()).getArgs().get(0);
+        assertEquals(qLocal.get("x").getNumber(), argument.getSymbol());
+        assertNotEquals(table.idOf("x"), argument.getSymbol());
+
+        AssignmentStatementNode xGetsF = (AssignmentStatementNode) program.getMain().getStatements().get(0);
+        assertEquals(table.idOf("x"), xGetsF.getLValue().getSymbol());
+        assertEquals(table.idOf("x"), program.getVariables().getVars().get(0).getSymbol());
+        assertEquals(q.getSymbol(), ((ProcedureStatementNode) program.getMain().getStatements().get(1)).getSymbol());
+        System.out.println("Symbol tests PASSED.\n");
+    }
+
+    /**
+     * Tests that the sample programs give the same assembly resolved and not, and that the parser had put the same
+     * symbols on the variables it looked up.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @org.junit.jupiter.api.Test
+    void samplePrograms() throws IOException {
+        System.out.println("-----test NameResolution sample programs-----");
+        File[] samples = new File("src/pascalfiles").listFiles((dir, name) -> name.endsWith(".pas"));
+        assertTrue(samples != null && samples.length > 0);
+        for (File sample : samples) {
+            assertSameCode(new String(Files.readAllBytes(sample.toPath())));
+        }
+        System.out.println("All sample program tests PASSED.\n");
+    }
+
+    /**
+     * Tests that generated programs with nested subprograms give the same assembly resolved and not, also when they
+     * are parsed with the table-driven parser.
+     */
+    @org.junit.jupiter.api.Test
+    void generatedPrograms() {
+        System.out.println("-----test NameResolution generated programs-----");
+        for (int seed = 0; seed < 10; seed++) {
+            ProgramGenerator generator = new ProgramGenerator(seed);
+            generator.setLines(300);
+            generator.setNestingDepth(seed % 3);
+            generator.setCallDensity((seed % 3) / 2.0);
+            String program = generator.generate();
+            assertSameCode(program);
+
+            TableParser parser = new TableParser(TokenStream.lex(Source.of(program)));
+            ProgramNode tree = parser.program();
+            new NameResolution(parser.getSymbolTable()).resolveProgram(tree);
+            new CodeFolding().foldProgram(tree);
+            assertEquals(compile(program, false), new CodeGeneration(tree, parser.getSymbolTable()).generateCode());
+        }
+        System.out.println("All generated program tests PASSED.\n");
+    }
+
+    /**
+     * Compiles a program with and without resolving its names, and checks that the assembly is the same.
+     *
+     * @param program The program text
+     */
+    private static void assertSameCode(String program) {
+        assertEquals(compile(program, false), compile(program, true));
+    }
+
+    /**
+     * Parses, folds and generates a program.
+     *
+     * @param program The program text
+     * @param resolve True to resolve the names after parsing
+     * @return The assembly
+     */
+    private static String compile(String program, boolean resolve) {
+        Parser parser = new Parser(program);
+        ProgramNode tree = parser.program();
+        if (resolve) {
+            AssignmentStatementNode first = firstAssignment(tree);
+            int parsed = first == null ? -1 : first.getLValue().getSymbol();
+            new NameResolution(parser.getSymbolTable()).resolveProgram(tree);
+            if (first != null) assertEquals(parsed, first.getLValue().getSymbol());
+        }
+        new CodeFolding().foldProgram(tree);
+        return new CodeGeneration(tree, parser.getSymbolTable()).generateCode();
+    }
+
+    /**
+     * Finds the first assignment at the top of the main body.
+     *
+     * @param tree The program
+     * @return The assignment, null if the main body starts with something else
+     */
+    private static AssignmentStatementNode firstAssignment(ProgramNode tree) {
+        for (StatementNode state : tree.getMain().getStatements()) {
+            if (state instanceof AssignmentStatementNode) return (AssignmentStatementNode) state;
+        }
+        return null;
+    }
+}
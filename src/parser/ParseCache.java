@@ -0,0 +1,494 @@
+package parser;
+
+import diagnostics.Diagnostics;
+import diagnostics.Diagnostics.Diagnostic;
+import scanner.Source;
+import scanner.TokenStream;
+import symboltable.SymbolTable;
+import syntaxtree.ProgramNode;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A cache in front of Parser.program() for sources that are compiled over and over without changing. Entries are
+ * keyed by the SHA-256 hash of the compiler version and the source text, and hold the ProgramNode, the SymbolTable
+ * and the errors of the parse, serialized. A hit skips scanning and parsing entirely and adds the same errors to the
+ * caller's Diagnostics that the parse added, for the caller to print or look at.
+ * <p>
+ * Entries are kept in memory, least recently used first out, up to a limit on their serialized size. With a directory
+ * the entries are also written there as files, which are read back when an entry is not in memory. The serialized
+ * classes declare a fixed serialVersionUID, so a change to them must also change VERSION to make the files written
+ * before it stale, and a file that still fails to deserialize is treated as a miss. Only the classes of a parse are
+ * deserialized, a file naming any other class is refused, so a file put in the directory by someone else can not
+ * create objects the compiler never wrote. A program that uses a name that was never declared is not cached, since
+ * its parse is stopped there.
+ * <p>
+ * Every hit deserializes its own copy of the tree and the symbol table, so a caller can fold its tree without changing
+ * the tree another caller got, and two threads can compile the same source at once.
+ */
+public class ParseCache {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    // Part of every key, change it whenever a change to the compiler should make the cached parses stale
+    public static final String VERSION = "mini-pascal 2026.10.1";
+
+    // The classes outside the syntaxtree package that a serialized parse is made of
+    private static final Set<String> ALLOWED = new HashSet<>(Arrays.asList(
+            Parsed.class.getName(),
+            "symboltable.SymbolTable", "symboltable.SymbolTable$Symbol", "symboltable.SymbolTable$Kind",
+            "symboltable.SymbolStore", "symboltable.SymbolStore$Page",
+            "scanner.Type",
+            "diagnostics.Diagnostics$Diagnostic", "diagnostics.Diagnostics$Code", "diagnostics.Diagnostics$Severity",
+            "java.lang.Object", "java.lang.String", "java.lang.Enum", "java.lang.Number", "java.lang.Integer",
+            "java.lang.Long", "java.lang.Double", "java.lang.Boolean",
+            "java.util.ArrayList", "java.util.HashMap"));
+
+    private final long maxBytes;
+    private final Path directory;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long diskHits;
+    private long misses;
+    private long evictions;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a cache that only keeps entries in memory.
+     *
+     * @param maxBytes The most memory the serialized entries may take
+     */
+    public ParseCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    /**
+     * Creates a cache that keeps entries in memory and in a directory.
+     *
+     * @param maxBytes  The most memory the serialized entries in memory may take
+     * @param directory The directory to keep entries in, created if it doesn't exist, or null for memory only
+     */
+    public ParseCache(long maxBytes, Path directory) {
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Parses a String, or gets its parse from the cache. The errors are only kept in the Parsed.
+     *
+     * @param text The program text
+     * @return The parse of the program
+     * @throws Parser.Stop if the program uses a name that was never declared
+     */
+    public Parsed parse(String text) {
+        return parse(Source.of(text), new Diagnostics());
+    }
+
+    /**
+     * Parses a Source, or gets its parse from the cache. The errors are only kept in the Parsed.
+     *
+     * @param source The program Source
+     * @return The parse of the program
+     * @throws Parser.Stop if the program uses a name that was never declared
+     */
+    public Parsed parse(Source source) {
+        return parse(source, new Diagnostics());
+    }
+
+    /**
+     * Parses a Source, or gets its parse from the cache. The errors of the parse are added to a Diagnostics either
+     * way, in the order the parse found them, so a printing Diagnostics prints them and one with a limit stops at it.
+     *
+     * @param source      The program Source
+     * @param diagnostics The Diagnostics to add the errors to
+     * @return The parse of the program
+     * @throws Parser.Stop                if the program uses a name that was never declared, after the errors up to it
+     *                                    are added
+     * @throws Diagnostics.TooManyErrors if the errors reach the limit of the Diagnostics
+     */
+    public Parsed parse(Source source, Diagnostics diagnostics) {
+        String key = key(source);
+        Parsed parsed = lookup(key);
+        if (parsed == null) {
+            parsed = parseSource(source, diagnostics);
+            byte[] entry = serialize(parsed);
+            if (entry != null) store(key, entry);
+        }
+        diagnostics.addAll(parsed.diagnostics);
+        return parsed;
+    }
+
+    /**
+     * Looks up a key in memory, then on disk, and deserializes a copy of the parse. A file that doesn't deserialize is
+     * deleted.
+     *
+     * @param key The hash of the source
+     * @return The cached parse, null on a miss
+     */
+    private Parsed lookup(String key) {
+        byte[] entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        Parsed parsed = entry == null ? null : deserialize(entry);
+        if (parsed != null) {
+            synchronized (this) {
+                hits++;
+            }
+            return parsed;
+        }
+        entry = read(key);
+        parsed = entry == null ? null : deserialize(entry);
+        if (entry != null && parsed == null) delete(key);
+        synchronized (this) {
+            if (parsed == null) {
+                misses++;
+                return null;
+            }
+            diskHits++;
+            put(key, entry);
+            return parsed;
+        }
+    }
+
+    /**
+     * Parses a Source with its errors collected. A program that uses a name that was never declared has its errors
+     * added to the caller's Diagnostics and throws Stop for the caller to handle, since there is no whole parse of it
+     * to cache.
+     *
+     * @param source      The program Source
+     * @param diagnostics The caller's Diagnostics
+     * @return The parse of the program
+     * @throws Parser.Stop if the program uses a name that was never declared
+     */
+    private static Parsed parseSource(Source source, Diagnostics diagnostics) {
+        Diagnostics errors = new Diagnostics();
+        Parser parser = new Parser(TokenStream.lex(source, errors));
+        parser.setDiagnostics(errors);
+        ProgramNode program;
+        try {
+            program = parser.program();
+        } catch (Parser.Stop stop) {
+            diagnostics.addAll(errors);
+            throw stop;
+        }
+        return new Parsed(program, parser.getSymbolTable(), errors.getDiagnostics());
+    }
+
+    /**
+     * Serializes a parse for an entry.
+     *
+     * @param parsed The parse
+     * @return The serialized parse, null if it can't be serialized
+     */
+    private static byte[] serialize(Parsed parsed) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(parsed);
+        } catch (IOException | StackOverflowError ex) {
+            // an expression nested too deeply for serialization to recurse through, the parse is not cached
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes an entry, refusing every class that is not part of a parse.
+     *
+     * @param entry The serialized parse
+     * @return The parse, null if the entry is not a parse written by this version of the compiler
+     */
+    private static Parsed deserialize(byte[] entry) {
+        try (ObjectInputStream in = new ParseInputStream(new ByteArrayInputStream(entry))) {
+            return (Parsed) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException | StackOverflowError ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Determines whether a class may be deserialized from an entry: the syntax tree nodes, the classes in ALLOWED,
+     * and arrays of them or of a primitive type.
+     *
+     * @param name The name of the class, as the serialized stream has it
+     * @return True if it may be deserialized
+     */
+    private static boolean isAllowed(String name) {
+        int dimensions = 0;
+        while (dimensions < name.length() && name.charAt(dimensions) == '[') dimensions++;
+        if (dimensions > 0) {
+            if (name.charAt(dimensions) != 'L') return true; // an array of a primitive type
+            name = name.substring(dimensions + 1, name.length() - 1);
+        }
+        return name.startsWith("syntaxtree.") || ALLOWED.contains(name);
+    }
+
+    /**
+     * Adds a new entry to memory and to the directory.
+     *
+     * @param key   The hash of the source
+     * @param entry The serialized parse
+     */
+    private void store(String key, byte[] entry) {
+        synchronized (this) {
+            put(key, entry);
+        }
+        write(key, entry);
+    }
+
+    /**
+     * Puts an entry in memory and evicts the least recently used entries until the rest fit. An entry larger than the
+     * whole limit is not kept.
+     *
+     * @param key   The hash of the source
+     * @param entry The serialized parse
+     */
+    private void put(String key, byte[] entry) {
+        if (entry.length > maxBytes) return;
+        byte[] old = entries.put(key, entry);
+        if (old != null) bytes -= old.length;
+        bytes += entry.length;
+        Iterator<byte[]> eldest = entries.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= eldest.next().length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Reads an entry from the directory.
+     *
+     * @param key The hash of the source
+     * @return The serialized parse, null if there is no directory or no file
+     */
+    private byte[] read(String key) {
+        if (directory == null) return null;
+        Path file = directory.resolve(key);
+        if (!Files.exists(file)) return null;
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException ex) {
+            delete(key);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes an entry from the directory that was written by another version of the compiler, cut short, or not
+     * written by the compiler at all.
+     *
+     * @param key The hash of the source
+     */
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(directory.resolve(key));
+        } catch (IOException ignored) {
+            // read again and missed again next time
+        }
+    }
+
+    /**
+     * Writes an entry to the directory. The file is written under a temporary name and then moved into place, so a
+     * reader never sees half of it. An entry that can't be written is only kept in memory.
+     *
+     * @param key   The hash of the source
+     * @param entry The serialized parse
+     */
+    private void write(String key, byte[] entry) {
+        if (directory == null) return;
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporary, entry);
+            Files.move(temporary, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            try {
+                if (temporary != null) Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // left for the next write of the same key to replace
+            }
+        }
+    }
+
+    /**
+     * Computes the key of a Source: the SHA-256 hash of the version and the UTF-8 bytes of the text.
+     *
+     * @param source The program Source
+     * @return The hash in hexadecimal
+     */
+    private static String key(Source source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        char[] text = source.getText();
+        int length = source.length();
+        int chunk = 8192;
+        for (int i = 0; i < length; i += chunk) {
+            String part = new String(text, i, Math.min(chunk, length - i));
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Get the number of parses found in memory
+     *
+     * @return The memory hits so far
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of parses read from the directory
+     *
+     * @return The disk hits so far
+     */
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    /**
+     * Get the number of sources that had to be parsed
+     *
+     * @return The misses so far
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of entries dropped from memory to stay under the size limit
+     *
+     * @return The evictions so far
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get the memory taken by the serialized entries in memory
+     *
+     * @return The size in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Get the number of entries in memory
+     *
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * An ObjectInputStream that only resolves the classes a parse is made of.
+     */
+    private static final class ParseInputStream extends ObjectInputStream {
+
+        /**
+         * Creates a stream reading a serialized parse.
+         *
+         * @param in The bytes of the entry
+         * @throws IOException if the stream header can't be read
+         */
+        ParseInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isAllowed(desc.getName())) throw new InvalidClassException(desc.getName(), "not part of a parse");
+            return super.resolveClass(desc);
+        }
+    }
+
+    /**
+     * The result of parsing a program: the syntax tree, the symbol table and the errors found.
+     */
+    public static final class Parsed implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final ProgramNode program;
+        private final SymbolTable symbolTable;
+        private final ArrayList<Diagnostic> diagnostics;
+
+        /**
+         * Creates the result of a parse.
+         *
+         * @param program     The syntax tree
+         * @param symbolTable The symbol table
+         * @param diagnostics The errors, in the order they were found
+         */
+        Parsed(ProgramNode program, SymbolTable symbolTable, List<Diagnostic> diagnostics) {
+            this.program = program;
+            this.symbolTable = symbolTable;
+            this.diagnostics = new ArrayList<>(diagnostics);
+        }
+
+        /**
+         * Get the syntax tree
+         *
+         * @return The ProgramNode of the program, this caller's own copy
+         */
+        public ProgramNode getProgram() {
+            return program;
+        }
+
+        /**
+         * Get the symbol table
+         *
+         * @return The SymbolTable filled by the parse, this caller's own copy
+         */
+        public SymbolTable getSymbolTable() {
+            return symbolTable;
+        }
+
+        /**
+         * Get the errors of the parse
+         *
+         * @return The errors in the order they were found, empty if there were none
+         */
+        public List<Diagnostic> getDiagnostics() {
+            return Collections.unmodifiableList(diagnostics);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package parser;
+
+import scanner.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An LL(1) parse table derived from a grammar written out as rules. Each rule is a nonterminal and its alternatives,
+ * and each alternative is a list of symbols separated by spaces: the name of a Type for a terminal, a lowercase name
+ * for a nonterminal, and #name for a semantic action, which takes no input and is left out of FIRST and FOLLOW. An
+ * empty alternative is lambda. *package-private*
+ * <p>
+ * The table is filled from the FIRST and FOLLOW sets of the grammar. A cell that two alternatives want is only allowed
+ * where the grammar says a predicate chooses between them, and is marked PREDICATE, otherwise building the table fails.
+ * Cells left empty take the alternative the recursive descent Parser falls back on: the only alternative, or the
+ * lambda one, and ERROR for the rest.
+ * <p>
+ * Symbols are encoded as ints. A terminal is the ordinal of its Type, with the end of the input as Type.values().length.
+ * A nonterminal is TERMINALS plus its index, and an action is -1 minus its ordinal. The right hand sides are stored
+ * backwards, ready to be pushed on a parse stack.
+ */
+final class ParseTable {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    static final int TERMINALS = Type.values().length + 1;
+    static final int EOF = TERMINALS - 1;
+    static final int ERROR = -1;
+    static final int PREDICATE = -2;
+
+    private final Class<? extends Enum<?>> actions;
+    private final ArrayList<String> names = new ArrayList<>();
+    private final HashMap<String, Integer> indexes = new HashMap<>();
+    private final ArrayList<String[]> rules = new ArrayList<>();
+    private final ArrayList<int[]> predicates = new ArrayList<>();
+
+    private int[] lefts; // nonterminal of each production
+    private int[][] productions; // right hand side of each production, backwards
+    private int[][] alternatives; // productions of each nonterminal, in the order of the rule
+    private int[][] table; // production for a nonterminal and the terminal in the lookahead
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates an empty grammar whose semantic actions are the constants of an enum.
+     *
+     * @param actions The enum of actions, named in the rules by their lowercase names
+     */
+    ParseTable(Class<? extends Enum<?>> actions) {
+        this.actions = actions;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Adds a rule to the grammar. The first rule added is the start symbol.
+     *
+     * @param nonterminal  The name of the nonterminal
+     * @param alternatives The alternatives, "" for lambda
+     * @return This table, to add more rules
+     */
+    ParseTable rule(String nonterminal, String... alternatives) {
+        if (indexes.containsKey(nonterminal)) throw new IllegalStateException("Rule " + nonterminal + " is defined twice");
+        indexes.put(nonterminal, names.size());
+        names.add(nonterminal);
+        rules.add(alternatives);
+        return this;
+    }
+
+    /**
+     * Lets a predicate choose the alternative of a nonterminal for a terminal in the lookahead. The predicate is
+     * asked whether or not the alternatives conflict there.
+     *
+     * @param nonterminal The name of the nonterminal
+     * @param terminal    The Type in the lookahead
+     * @return This table, to add more rules
+     */
+    ParseTable predicate(String nonterminal, Type terminal) {
+        predicates.add(new int[]{nonterminal(nonterminal), terminal.ordinal()});
+        return this;
+    }
+
+    /**
+     * Encodes the rules and fills in the table.
+     *
+     * @return This table
+     * @throws IllegalStateException if a symbol is unknown or the grammar is not LL(1) outside of its predicates
+     */
+    ParseTable build() {
+        int count = names.size();
+        alternatives = new int[count][];
+        ArrayList<int[]> rhs = new ArrayList<>();
+        ArrayList<Integer> lhs = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            String[] rule = rules.get(n);
+            alternatives[n] = new int[rule.length];
+            for (int a = 0; a < rule.length; a++) {
+                alternatives[n][a] = rhs.size();
+                rhs.add(encode(rule[a]));
+                lhs.add(n);
+            }
+        }
+        productions = rhs.toArray(new int[0][]);
+        lefts = new int[productions.length];
+        for (int p = 0; p < lefts.length; p++) lefts[p] = lhs.get(p);
+
+        boolean[] nullable = new boolean[count];
+        boolean[][] first = new boolean[count][TERMINALS];
+        boolean[][] follow = new boolean[count][TERMINALS];
+        follow[0][EOF] = true;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int p = 0; p < productions.length; p++) {
+                int left = lefts[p];
+                boolean[] sequence = new boolean[TERMINALS];
+                if (first(productions[p], productions[p].length - 1, nullable, first, sequence) && !nullable[left]) {
+                    nullable[left] = true;
+                    changed = true;
+                }
+                changed |= union(first[left], sequence);
+            }
+            for (int p = 0; p < productions.length; p++) {
+                int[] symbols = productions[p];
+                // symbols are stored backwards, so the rest of the production after symbols[i] is symbols[i - 1] down
+                for (int i = symbols.length - 1; i >= 0; i--) {
+                    if (!isNonterminal(symbols[i])) continue;
+                    boolean[] rest = new boolean[TERMINALS];
+                    boolean restNullable = first(symbols, i - 1, nullable, first, rest);
+                    int n = symbols[i] - TERMINALS;
+                    changed |= union(follow[n], rest);
+                    if (restNullable) changed |= union(follow[n], follow[lefts[p]]);
+                }
+            }
+        }
+
+        table = new int[count][TERMINALS];
+        for (int[] row : table) Arrays.fill(row, ERROR);
+        for (int p = 0; p < productions.length; p++) {
+            int left = lefts[p];
+            boolean[] predict = new boolean[TERMINALS];
+            if (first(productions[p], productions[p].length - 1, nullable, first, predict)) union(predict, follow[left]);
+            for (int t = 0; t < TERMINALS; t++) {
+                if (!predict[t]) continue;
+                if (table[left][t] == ERROR) table[left][t] = p;
+                else if (isPredicated(left, t)) table[left][t] = PREDICATE;
+                else throw new IllegalStateException("Grammar is not LL(1): " + names.get(left) + " at " + terminal(t));
+            }
+        }
+        for (int[] predicate : predicates) table[predicate[0]][predicate[1]] = PREDICATE;
+        for (int n = 0; n < count; n++) {
+            int fallback = ERROR;
+            if (alternatives[n].length == 1) fallback = alternatives[n][0];
+            else {
+                for (int p : alternatives[n]) {
+                    boolean[] unused = new boolean[TERMINALS];
+                    if (first(productions[p], productions[p].length - 1, nullable, first, unused)) fallback = p;
+                }
+            }
+            for (int t = 0; t < TERMINALS; t++) {
+                if (table[n][t] == ERROR) table[n][t] = fallback;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Encodes one alternative, backwards.
+     *
+     * @param alternative The symbols separated by spaces
+     * @return The encoded symbols
+     */
+    private int[] encode(String alternative) {
+        List<String> symbols = new ArrayList<>(Arrays.asList(alternative.trim().split("\\s+")));
+        symbols.remove("");
+        int[] encoded = new int[symbols.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            String symbol = symbols.get(i);
+            int code;
+            if (symbol.startsWith("#")) code = -1 - action(symbol.substring(1));
+            else if (Character.isUpperCase(symbol.charAt(0))) code = Type.valueOf(symbol).ordinal();
+            else code = TERMINALS + nonterminal(symbol);
+            encoded[encoded.length - 1 - i] = code;
+        }
+        return encoded;
+    }
+
+    /**
+     * Finds the ordinal of an action by its lowercase name.
+     *
+     * @param name The name of the action
+     * @return The ordinal of the enum constant
+     */
+    private int action(String name) {
+        for (Enum<?> action : actions.getEnumConstants()) {
+            if (action.name().equalsIgnoreCase(name)) return action.ordinal();
+        }
+        throw new IllegalStateException("Unknown action #" + name);
+    }
+
+    /**
+     * Finds the index of a nonterminal by its name.
+     *
+     * @param name The name of the nonterminal
+     * @return Its index
+     */
+    private int nonterminal(String name) {
+        Integer index = indexes.get(name);
+        if (index == null) throw new IllegalStateException("Unknown nonterminal " + name);
+        return index;
+    }
+
+    /**
+     * Adds the FIRST set of part of a production to a set.
+     *
+     * @param symbols  The encoded production, backwards
+     * @param from     The index of the first symbol to look at, going down
+     * @param nullable The nullable nonterminals found so far
+     * @param first    The FIRST sets found so far
+     * @param set      The set to add to
+     * @return True if that part of the production can derive lambda
+     */
+    private static boolean first(int[] symbols, int from, boolean[] nullable, boolean[][] first, boolean[] set) {
+        for (int i = from; i >= 0; i--) {
+            int symbol = symbols[i];
+            if (symbol < 0) continue;
+            if (symbol < TERMINALS) {
+                set[symbol] = true;
+                return false;
+            }
+            union(set, first[symbol - TERMINALS]);
+            if (!nullable[symbol - TERMINALS]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds a set to another.
+     *
+     * @param into The set to add to
+     * @param from The set to add
+     * @return True if anything was added
+     */
+    private static boolean union(boolean[] into, boolean[] from) {
+        boolean changed = false;
+        for (int t = 0; t < TERMINALS; t++) {
+            if (from[t] && !into[t]) {
+                into[t] = true;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Determines whether a predicate chooses the alternative for a cell.
+     *
+     * @param nonterminal The index of the nonterminal
+     * @param terminal    The terminal
+     * @return True if the cell has a predicate
+     */
+    private boolean isPredicated(int nonterminal, int terminal) {
+        for (int[] predicate : predicates) {
+            if (predicate[0] == nonterminal && predicate[1] == terminal) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether an encoded symbol is a nonterminal.
+     *
+     * @param symbol The encoded symbol
+     * @return True for a nonterminal
+     */
+    static boolean isNonterminal(int symbol) {
+        return symbol >= TERMINALS;
+    }
+
+    /**
+     * Get the name of a terminal.
+     *
+     * @param terminal The encoded terminal
+     * @return The name of its Type, or EOF
+     */
+    private static String terminal(int terminal) {
+        return terminal == EOF ? "EOF" : Type.values()[terminal].name();
+    }
+
+    /**
+     * Get the encoded symbol of a nonterminal, to start a parse with.
+     *
+     * @param name The name of the nonterminal
+     * @return The encoded symbol
+     */
+    int symbol(String name) {
+        return TERMINALS + nonterminal(name);
+    }
+
+    /**
+     * Get a production of a nonterminal, for a predicate to choose.
+     *
+     * @param name        The name of the nonterminal
+     * @param alternative The index of the alternative in its rule
+     * @return The production
+     */
+    int production(String name, int alternative) {
+        return alternatives[nonterminal(name)][alternative];
+    }
+
+    /**
+     * Get the name of a nonterminal.
+     *
+     * @param nonterminal The index of the nonterminal
+     * @return Its name
+     */
+    String name(int nonterminal) {
+        return names.get(nonterminal);
+    }
+
+    /**
+     * Get the table: the production for each nonterminal and lookahead, or ERROR or PREDICATE.
+     *
+     * @return The rows of the table by nonterminal index
+     */
+    int[][] getTable() {
+        return table;
+    }
+
+    /**
+     * Get the right hand sides of the productions, backwards.
+     *
+     * @return The encoded productions
+     */
+    int[][] getProductions() {
+        return productions;
+    }
+}
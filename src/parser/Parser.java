@@ -1,13 +1,26 @@
 package parser;
 
+import diagnostics.Diagnostics;
+import diagnostics.Diagnostics.Code;
+import scanner.LineMap;
 import scanner.MyScanner;
+import scanner.Source;
 import scanner.Token;
+import scanner.TokenStream;
 import scanner.Type;
+import symboltable.SymbolSnapshot;
 import symboltable.SymbolTable;
 import syntaxtree.*;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
 
 import static scanner.Type.*;
 
@@ -22,6 +35,26 @@ import static scanner.Type.*;
  * To use a parser, create an instance pointing at a file or a String of code, and then call the top-level function,
  * <code>program()</code>. If the functions returns without an error, the file contains an acceptable expression.
  * <p>
+ * A parser can also be created from a TokenStream that was scanned up front. It then walks the packed token arrays by
+ * index instead of asking the scanner for a Token at every match.
+ * <p>
+ * Given a ForkJoinPool, a parser reading a TokenStream parses the bodies of the top-level functions and procedures in
+ * parallel. A quick pass over the tokens finds where each subprogram ends by counting begin/end nesting, every header
+ * is then parsed and entered in the symbol table in order, and the bodies are parsed on the pool by parsers of their
+ * own that share the global scope. The SubProgramNodes are put together in source order and error messages are
+ * printed in source order, so a correct program gives the same tree and symbol table as parsing on one thread. The
+ * difference is that every header is declared before any body is parsed, so a body can call a subprogram declared
+ * after it.
+ * <p>
+ * In lazy mode a parser reading a TokenStream only finds the begin and end of each subprogram's main body and leaves
+ * it to be parsed the first time SubProgramNode.getMain is called. Everything that goes in the symbol table is still
+ * parsed right away, so the symbol table is complete as soon as program() returns. A body parsed later reports its
+ * errors then, and sees every name declared by then, the same as a parallel parse.
+ * <p>
+ * A SubprogramListener is told about each top-level function and procedure as soon as it has been parsed, with a
+ * snapshot of the global scope as it was then, so the subprogram can be folded and compiled while the rest of the program is
+ * still being parsed. Only a parser parsing on one thread without lazy mode tells the listener.
+ * <p>
  * The terminal symbols described in the grammar rule are denoted in <strong>bold</strong> and the non-terminal symbols are
  * regular text. Options are denoted with a vertical bar |. An empty option is denoted "lambda." See the grammar in
  * the documentation folder for more information on definitions.
@@ -35,8 +68,44 @@ public class Parser {
     ///////////////////////////////
 
     private Token lookahead;
+    private Type lookaheadType;
+    private String lookaheadLexeme; // created on demand, null until lexeme() is called for this lookahead
+    private int lookaheadLine; // line of the lookahead, shared keyword/symbol Tokens don't carry their own
+    private int lookaheadStart; // offsets of the lookahead's text in the source
+    private int lookaheadEnd;
+    private int previousEnd; // offset after the last token matched, where the node being parsed ends so far
     private MyScanner scanny;
+    private TokenStream tokens; // set when parsing a pre-scanned token stream instead of using the scanner
+    private int position; // index of the lookahead in tokens
     private SymbolTable symbolTable;
+    private ForkJoinPool pool; // parses the top-level subprogram bodies in parallel when set and reading tokens
+    private Diagnostics diagnostics = Diagnostics.printing(); // printed as they are found unless collected
+    private boolean lazy; // leaves the main bodies of subprograms to be parsed when first needed, when reading tokens
+    private Diagnostics lazyErrors; // where the errors of bodies parsed later go, if not to diagnostics
+    private SubprogramListener listener; // told about each top-level subprogram as soon as it is parsed
+    private ProgramNode tree; // the program being parsed, for the listener
+    private int nesting; // how many subprogram_declarations are being parsed inside each other
+
+    // Precedence of the operators waiting on the expression stack, and below END_LEVEL the markers of nested expressions
+    private static final int NOT_LEVEL = 4;
+    private static final int MULOP_LEVEL = 3;
+    private static final int ADDOP_LEVEL = 2;
+    private static final int SIGN_LEVEL = 1;
+    private static final int RELOP_LEVEL = 0;
+    private static final int END_LEVEL = -1;
+    private static final int PAREN_MARKER = -2;
+    private static final int INDEX_MARKER = -3;
+    private static final int CALL_MARKER = -4;
+
+    // The operand and operator stacks of expression(), kept from one expression to the next
+    private ExpressionNode[] operands = new ExpressionNode[16];
+    private int operandCount;
+    private int[] operatorKinds = new int[16];
+    private Type[] operatorTypes = new Type[16];
+    private ExpressionNode[] operatorNodes = new ExpressionNode[16];
+    private int[] operatorStarts = new int[16];
+    private int[] operatorData = new int[16]; // operand count at a call, whether a sign has its type
+    private int operatorCount;
 
     ///////////////////////////////
     //       Constructors
@@ -50,11 +119,19 @@ public class Parser {
     public Parser(String input) {
         scanny = new MyScanner(new StringReader(input));
 
-        try {
-            lookahead = scanny.nextToken();
-        } catch (IOException ex) {
-            error("Scan error");
-        }
+        advance();
+        symbolTable = new SymbolTable();
+    }
+
+    /**
+     * Creates a new Parser object to parse input from a Reader.
+     *
+     * @param input A Reader to parse
+     */
+    public Parser(Reader input) {
+        scanny = new MyScanner(input);
+
+        advance();
         symbolTable = new SymbolTable();
     }
 
@@ -70,20 +147,64 @@ public class Parser {
         try {
             fis = new FileInputStream(input);
         } catch (FileNotFoundException ex) {
-            error("File \"" + input + "\" not found. Check file name and path to ensure it exists.");
+            error(Code.FILE_NOT_FOUND, input);
         }
         assert fis != null;
         isr = new InputStreamReader(fis);
         scanny = new MyScanner(isr);
 
+        advance();
+        symbolTable = new SymbolTable();
+    }
+
+    /**
+     * Creates a new Parser object to parse a file through a memory-mapped view of its contents. The whole file is
+     * decoded once into a Source that the scanner works over directly, without a Reader or any refilling of the
+     * scanner buffer. Preferred over the File constructor for large inputs.
+     *
+     * @param input The Path of the file to parse
+     */
+    public Parser(Path input) {
+        Source source;
         try {
-            lookahead = scanny.nextToken();
+            source = Source.map(input);
         } catch (IOException ex) {
-            error("Scan error");
+            error(Code.FILE_UNREADABLE, input);
+            source = Source.of("");
         }
+        scanny = new MyScanner(source);
+
+        advance();
+        symbolTable = new SymbolTable();
+    }
+
+    /**
+     * Creates a new Parser object to parse a stream of tokens that has already been scanned. The stream is only read,
+     * so the same TokenStream can be parsed any number of times.
+     *
+     * @param input A TokenStream to parse
+     */
+    public Parser(TokenStream input) {
+        tokens = input;
+        position = -1;
+        advance();
         symbolTable = new SymbolTable();
     }
 
+    /**
+     * Creates a Parser for one subprogram body, reading the same tokens as the parser that found it.
+     *
+     * @param input       The TokenStream being parsed
+     * @param start       Index of the first token of the body
+     * @param symbolTable The globals with the subprogram's local scope on top
+     */
+    private Parser(TokenStream input, int start, SymbolTable symbolTable) {
+        tokens = input;
+        position = start - 1;
+        advance();
+        this.symbolTable = symbolTable;
+    }
+
     ///////////////////////////////
     //       Methods
     ///////////////////////////////
@@ -126,6 +247,147 @@ public class Parser {
         return t == ASTERISK || t == FSLASH || t == DIV || t == MOD || t == AND;
     }
 
+    /**
+     * Resets the parser to parse a new input from a Reader. The scanner, its buffer and the expression stacks are kept
+     * and reused, and the symbol table and the Diagnostics are cleared for the new input. The symbol table and tree of
+     * the previous parse must not be used after a reset.
+     *
+     * @param input A Reader to parse
+     */
+    public void reset(Reader input) {
+        if (scanny == null) scanny = new MyScanner(input);
+        else scanny.reset(input);
+        tokens = null;
+        restart();
+    }
+
+    /**
+     * Resets the parser to parse a new Source, reusing the scanner and the rest of the parser the same as
+     * reset(Reader).
+     *
+     * @param input The Source to parse
+     */
+    public void reset(Source input) {
+        if (scanny == null) scanny = new MyScanner(input);
+        else scanny.reset(input);
+        tokens = null;
+        restart();
+    }
+
+    /**
+     * Resets the parser to parse a stream of tokens that has already been scanned, reusing the rest of the parser the
+     * same as reset(Reader).
+     *
+     * @param input A TokenStream to parse
+     */
+    public void reset(TokenStream input) {
+        tokens = input;
+        position = -1;
+        restart();
+    }
+
+    /**
+     * Clears everything left from the last parse and reads the first token of the new input.
+     */
+    private void restart() {
+        lookahead = null;
+        lookaheadLexeme = null;
+        lookaheadStart = lookaheadEnd = previousEnd = 0;
+        // a parse stopped by an error can leave nodes on the expression stacks
+        Arrays.fill(operands, 0, operandCount, null);
+        Arrays.fill(operatorNodes, 0, operatorCount, null);
+        operandCount = operatorCount = 0;
+        nesting = 0;
+        diagnostics.clear();
+        setDiagnostics(diagnostics); // for a scanner created by the reset
+        symbolTable.clear();
+        advance();
+    }
+
+    /**
+     * Sets a ForkJoinPool to parse the bodies of the top-level subprograms on. Only a parser reading a TokenStream
+     * parses in parallel, any other parser ignores the pool.
+     *
+     * @param pool The pool to parse on, or null to parse on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Makes the parser collect its error messages instead of printing them. *package-private*
+     */
+    void collectErrors() {
+        setDiagnostics(new Diagnostics());
+    }
+
+    /**
+     * Get the error messages collected since collectErrors was called *package-private*
+     *
+     * @return The messages, one per line
+     */
+    String getErrors() {
+        return diagnostics.toString();
+    }
+
+    /**
+     * Sets where the errors of the parse go, along with the invalid characters found by the parser's scanner. A
+     * Diagnostics with an error limit stops the parse by throwing TooManyErrors.
+     *
+     * @param diagnostics The Diagnostics to add the errors to
+     */
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+        if (scanny != null) scanny.setDiagnostics(diagnostics);
+    }
+
+    /**
+     * Get the errors of the parse
+     *
+     * @return The Diagnostics the errors are added to, which prints them unless another one was set
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Parses the program only to find its errors, for checking a file without compiling it. The error messages are
+     * collected instead of printed, in the Diagnostics that was set or a new one, and a name that was never declared
+     * or reaching the error limit ends the check without throwing.
+     *
+     * @return The error messages, one per line, empty if the program has none
+     */
+    public String check() {
+        if (diagnostics.isPrinting()) collectErrors();
+        try {
+            program();
+        } catch (Stop | Diagnostics.TooManyErrors stop) {
+            // the rest of the program is not checked, the same as it is not compiled
+        }
+        return getErrors();
+    }
+
+    /**
+     * Turns lazy mode on or off. Only a parser reading a TokenStream leaves subprogram bodies to be parsed later, any
+     * other parser parses them right away. The errors in a body are added to this parser's Diagnostics when the body
+     * is parsed, and a name in it that was never declared throws Stop out of SubProgramNode.getMain.
+     *
+     * @param lazy True to parse the main bodies of subprograms when they are first needed
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * Sets a SubprogramListener to tell about each top-level subprogram as soon as it has been parsed. A parser that
+     * parses the bodies in parallel or lazily does not tell the listener.
+     *
+     * @param listener The listener, or null for none
+     */
+    public void setListener(SubprogramListener listener) {
+        this.listener = listener;
+    }
+
     /**
      * Get the symbol table from the parse
      *
@@ -135,6 +397,17 @@ public class Parser {
         return symbolTable;
     }
 
+    /**
+     * Get the line starts of the source, to turn the spans of syntax tree nodes into lines and columns. When the
+     * parser reads from a scanner the map only covers the text scanned so far.
+     *
+     * @return The LineMap of the source, null if it is not known
+     */
+    public LineMap getLineMap() {
+        if (tokens != null) return tokens.getLineMap();
+        return scanny.getLineMap();
+    }
+
     /**
      * A program contains the following:
      * <p>
@@ -147,18 +420,21 @@ public class Parser {
      * @return A ProgramNode of the whole program
      */
     public ProgramNode program() {
+        int start = lookaheadStart;
         match(PROGRAM);
-        String name = lookahead.getLexeme();
+        String name = lexeme();
         match(ID);
-        if (!symbolTable.addProgram(name)) error("Name already exists in symbol table");
+        if (!symbolTable.addProgram(name)) error(Code.PROGRAM_EXISTS);
         ProgramNode program = new ProgramNode(name);
+        tree = program;
         match(SEMI);
         program.setVariables(declarations());
-        program.setFunctions(subprogram_declarations());
+        if (pool != null && tokens != null) program.setFunctions(parallel_subprogram_declarations());
+        else program.setFunctions(subprogram_declarations());
         program.setMain(compound_statement());
         match(PERIOD);
 
-        return program;
+        return span(program, start);
     }
 
     /**
@@ -174,9 +450,9 @@ public class Parser {
      */
     private ArrayList<String> identifier_list() {
         ArrayList<String> idList = new ArrayList<>();
-        idList.add(lookahead.getLexeme());
+        idList.add(lexeme());
         match(ID);
-        if (lookahead.getType() == COMMA) {
+        if (lookaheadType == COMMA) {
             match(COMMA);
             idList.addAll(identifier_list());
         }
@@ -192,8 +468,9 @@ public class Parser {
      * @return A DeclarationsNode containing all the variables declared
      */
     private DeclarationsNode declarations() {
+        int start = lookaheadStart;
         DeclarationsNode dec = new DeclarationsNode();
-        if (lookahead.getType() == VAR) {
+        if (lookaheadType == VAR) {
             match(VAR);
             ArrayList<String> idList = identifier_list();
             match(COLON);
@@ -205,7 +482,7 @@ public class Parser {
             dec.addDeclarations(declarations());
         }
         // else lambda case
-        return dec;
+        return span(dec, start);
     }
 
     /**
@@ -219,27 +496,27 @@ public class Parser {
     private Type type(ArrayList<String> idList) {
         int beginidx, endidx;
         Type t = null;
-        if (lookahead.getType() == ARRAY) {
+        if (lookaheadType == ARRAY) {
             match(ARRAY);
             match(LBRACE);
-            beginidx = Integer.parseInt(lookahead.getLexeme());
+            beginidx = arrayBound();
             match(NUMBER);
             match(COLON);
-            endidx = Integer.parseInt(lookahead.getLexeme());
+            endidx = arrayBound();
             match(NUMBER);
             match(RBRACE);
             match(OF);
             t = standard_type();
             for (String anIdList : idList) {
                 if (!symbolTable.addArray(anIdList, t, beginidx, endidx))
-                    error(anIdList + " already exists in symbol table");
+                    error(Code.ALREADY_EXISTS, anIdList);
             }
-        } else if (lookahead.getType() == INTEGER || lookahead.getType() == REAL) {
+        } else if (lookaheadType == INTEGER || lookaheadType == REAL) {
             t = standard_type();
             for (String anIdList : idList) {
-                if (!symbolTable.addVariable(anIdList, t)) error(anIdList + " already exists in symbol table");
+                if (!symbolTable.addVariable(anIdList, t)) error(Code.ALREADY_EXISTS, anIdList);
             }
-        } else error("type");
+        } else error(Code.EXPECTED, "type");
         return t;
     }
 
@@ -252,13 +529,13 @@ public class Parser {
      */
     private Type standard_type() {
         Type t = null;
-        if (lookahead.getType() == INTEGER) {
+        if (lookaheadType == INTEGER) {
             t = INTEGER;
             match(INTEGER);
-        } else if (lookahead.getType() == REAL) {
+        } else if (lookaheadType == REAL) {
             t = REAL;
             match(REAL);
-        } else error("standard_type");
+        } else error(Code.EXPECTED, "standard_type");
         return t;
     }
 
@@ -270,14 +547,17 @@ public class Parser {
      * @return A SubProgramDeclarationsNode containing all the functions/procedures declared
      */
     private SubProgramDeclarationsNode subprogram_declarations() {
+        int start = lookaheadStart;
         SubProgramDeclarationsNode spdNode = new SubProgramDeclarationsNode();
-        if (lookahead.getType() == FUNCTION || lookahead.getType() == PROCEDURE) {
-            spdNode.addSubProgramDeclaration(subprogram_declaration());
+        if (lookaheadType == FUNCTION || lookaheadType == PROCEDURE) {
+            SubProgramNode spNode = subprogram_declaration();
+            spdNode.addSubProgramDeclaration(spNode);
+            if (listener != null && nesting == 0 && (!lazy || tokens == null)) listener.parsed(tree, spNode, symbolTable.snapshot());
             match(SEMI);
             spdNode.addall(subprogram_declarations().getProcs());
         }
         // else lambda case
-        return spdNode;
+        return span(spdNode, start);
     }
 
     /**
@@ -291,13 +571,137 @@ public class Parser {
      * @return A SubProgramNode for a function/procedure declared
      */
     private SubProgramNode subprogram_declaration() {
+        int start = lookaheadStart;
         SubProgramNode spNode = subprogram_head();
         spNode.setReturnType(symbolTable.getType(spNode.getName()));
+        nesting++;
+        subprogram_body(spNode);
+        nesting--;
+        symbolTable.setLocalTable(spNode.getName(), symbolTable.removeScope());
+        return span(spNode, start);
+    }
+
+    /**
+     * Parses what follows a subprogram_head:
+     * <p>
+     * declarations
+     * subprogram_declarations
+     * compound_statement
+     *
+     * @param spNode The SubProgramNode from the head
+     */
+    private void subprogram_body(SubProgramNode spNode) {
         spNode.setVariables(declarations());
         spNode.setFunctions(subprogram_declarations());
-        spNode.setMain(compound_statement());
-        symbolTable.setLocalTable(spNode.getName(), symbolTable.removeScope());
-        return spNode;
+        int end = lazy && tokens != null ? matchingEnd() : -1;
+        if (end < 0) spNode.setMain(compound_statement());
+        else {
+            // parse the body later with a parser of its own over the same scopes
+            Diagnostics errors = lazyErrors != null ? lazyErrors : diagnostics;
+            spNode.setLazyMain(new LazyBody(tokens, position, symbolTable.copy(), errors));
+            seek(end);
+            match(END);
+        }
+    }
+
+    /**
+     * Finds the end that closes the begin at the lookahead.
+     *
+     * @return Index of the end token, -1 if the lookahead is not begin or it is never closed
+     */
+    private int matchingEnd() {
+        if (lookaheadType != BEGIN) return -1;
+        int depth = 0;
+        for (int i = position; i < tokens.size(); i++) {
+            Type t = tokens.type(i);
+            if (t == BEGIN) depth++;
+            else if (t == END && --depth == 0) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the same subprogram_declarations as subprogram_declarations(), with the bodies parsed on the pool. Each
+     * head is parsed here in order and its local scope set aside, then each body is parsed by a Parser of its own over
+     * the global scope and that local scope. Falls back to subprogram_declarations() if the subprograms can't be told
+     * apart or there are fewer than two.
+     *
+     * @return A SubProgramDeclarationsNode containing all the functions/procedures declared
+     */
+    private SubProgramDeclarationsNode parallel_subprogram_declarations() {
+        int[] ends = subprogramEnds();
+        if (ends == null || ends.length < 2) return subprogram_declarations();
+        int start = lookaheadStart;
+        int count = ends.length;
+        int[] starts = new int[count];
+        Diagnostics[] headErrors = new Diagnostics[count];
+        Body[] bodies = new Body[count];
+        Diagnostics collected = diagnostics;
+        for (int i = 0; i < count; i++) {
+            starts[i] = lookaheadStart;
+            diagnostics = headErrors[i] = new Diagnostics();
+            SubProgramNode spNode = subprogram_head();
+            spNode.setReturnType(symbolTable.getType(spNode.getName()));
+            HashMap<String, SymbolTable.Symbol> local = symbolTable.removeScope();
+            Parser parser = new Parser(tokens, position, symbolTable.withLocalScope(local));
+            parser.diagnostics = new Diagnostics();
+            parser.lazy = lazy;
+            parser.lazyErrors = lazyErrors != null ? lazyErrors : collected;
+            bodies[i] = new Body(spNode, local, parser);
+            seek(ends[i] + 2);
+        }
+        diagnostics = collected;
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(bodies);
+            }
+        });
+
+        SubProgramDeclarationsNode spdNode = new SubProgramDeclarationsNode();
+        for (int i = 0; i < count; i++) {
+            Body body = bodies[i];
+            diagnostics.addAll(headErrors[i]);
+            diagnostics.addAll(body.parser.diagnostics);
+            if (body.stopped) throw new Stop();
+            if (body.failure != null) throw body.failure;
+            symbolTable.setLocalTable(body.spNode.getName(), body.local);
+            body.spNode.setSpan(starts[i], Math.max(starts[i], body.parser.previousEnd));
+            spdNode.addSubProgramDeclaration(body.spNode);
+            // match the ; from wherever the body ended, the same as subprogram_declarations()
+            seek(body.parser.position);
+            match(SEMI);
+        }
+        return span(spdNode, start);
+    }
+
+    /**
+     * Finds where each of the subprograms starting at the lookahead ends, by counting begin/end nesting. A function or
+     * procedure outside any begin opens a subprogram, nested ones included, and an end that closes the outermost
+     * begin closes one.
+     *
+     * @return Index of the end token of each top-level subprogram, null if one doesn't end with end ;
+     */
+    private int[] subprogramEnds() {
+        int[] ends = new int[16];
+        int count = 0;
+        int i = position;
+        while (i < tokens.size() && (tokens.type(i) == FUNCTION || tokens.type(i) == PROCEDURE)) {
+            int open = 0; // subprograms started but not ended
+            int depth = 0; // begin nesting
+            for (; ; i++) {
+                if (i == tokens.size()) return null;
+                Type t = tokens.type(i);
+                if (depth == 0 && (t == FUNCTION || t == PROCEDURE)) open++;
+                else if (t == BEGIN) depth++;
+                else if (t == END && depth > 0 && --depth == 0 && --open == 0) break;
+            }
+            if (i + 1 == tokens.size() || tokens.type(i + 1) != SEMI) return null;
+            if (count == ends.length) ends = Arrays.copyOf(ends, count * 2);
+            ends[count++] = i;
+            i += 2;
+        }
+        return Arrays.copyOf(ends, count);
     }
 
     /**
@@ -310,10 +714,10 @@ public class Parser {
      */
     private SubProgramNode subprogram_head() {
         SubProgramNode spNode = null;
-        if (lookahead.getType() == FUNCTION) {
+        if (lookaheadType == FUNCTION) {
             match(FUNCTION);
-            String funcName = lookahead.getLexeme();
-            if (!symbolTable.addFunction(funcName, null)) error(funcName + " already exists in symbol table");
+            String funcName = lexeme();
+            if (!symbolTable.addFunction(funcName, null)) error(Code.ALREADY_EXISTS, funcName);
             spNode = new SubProgramNode(funcName);
             match(ID);
             symbolTable.addNewScope();
@@ -321,9 +725,7 @@ public class Parser {
 
             ArrayList<Type> argTypes = new ArrayList<>();
             for (VariableNode var : args) {
-                Type t = var.getType();
-                symbolTable.get(funcName).addArg(t);
-                argTypes.add(t);
+                argTypes.add(var.getType());
             }
             symbolTable.get(funcName).setArgs(argTypes);
             match(COLON);
@@ -333,24 +735,22 @@ public class Parser {
             symbolTable.setType(funcName, t);
             symbolTable.addVariable(funcName, t);
             match(SEMI);
-        } else if (lookahead.getType() == PROCEDURE) {
+        } else if (lookaheadType == PROCEDURE) {
             match(PROCEDURE);
-            String procName = lookahead.getLexeme();
+            String procName = lexeme();
             spNode = new SubProgramNode(procName);
-            if (!symbolTable.addProcedure(procName)) error(procName + " already exists in symbol table");
+            if (!symbolTable.addProcedure(procName)) error(Code.ALREADY_EXISTS, procName);
             match(ID);
             symbolTable.addNewScope();
             ArrayList<VariableNode> args = arguments();
             ArrayList<Type> argTypes = new ArrayList<>();
             for (VariableNode var : args) {
-                Type t = var.getType();
-                symbolTable.get(procName).addArg(t);
-                argTypes.add(t);
+                argTypes.add(var.getType());
             }
             symbolTable.get(procName).setArgs(argTypes);
             spNode.setArgs(args);
             match(SEMI);
-        } else error("subprogram_head");
+        } else error(Code.EXPECTED, "subprogram_head");
         return spNode;
     }
 
@@ -361,7 +761,7 @@ public class Parser {
      */
     private ArrayList<VariableNode> arguments() {
         ArrayList<VariableNode> args = new ArrayList<>();
-        if (lookahead.getType() == LPAREN) {
+        if (lookaheadType == LPAREN) {
             match(LPAREN);
             args = parameter_list();
             match(RPAREN);
@@ -385,7 +785,7 @@ public class Parser {
         for (String id : idList) {
             args.add(new VariableNode(id, t));
         }
-        if (lookahead.getType() == SEMI) {
+        if (lookaheadType == SEMI) {
             match(SEMI);
             args.addAll(parameter_list());
         }
@@ -400,11 +800,12 @@ public class Parser {
      * @return A CompoundStatementNode for the body of the function/procedure
      */
     private CompoundStatementNode compound_statement() {
+        int start = lookaheadStart;
         CompoundStatementNode comp;
         match(BEGIN);
         comp = optional_statements();
         match(END);
-        return comp;
+        return span(comp, start);
     }
 
     /**
@@ -416,7 +817,7 @@ public class Parser {
      */
     private CompoundStatementNode optional_statements() {
         CompoundStatementNode comp = new CompoundStatementNode();
-        if (lookahead.getType() == ID || lookahead.getType() == BEGIN || lookahead.getType() == IF || lookahead.getType() == WHILE || lookahead.getType() == READ || lookahead.getType() == WRITE)
+        if (lookaheadType == ID || lookaheadType == BEGIN || lookaheadType == IF || lookaheadType == WHILE || lookaheadType == READ || lookaheadType == WRITE)
             comp.addAll(statement_list());
         // else lambda case
         return comp;
@@ -432,7 +833,7 @@ public class Parser {
     private ArrayList<StatementNode> statement_list() {
         ArrayList<StatementNode> nodes = new ArrayList<>();
         nodes.add(statement());
-        if (lookahead.getType() == SEMI) {
+        if (lookaheadType == SEMI) {
             match(SEMI);
             nodes.addAll(statement_list());
         }
@@ -457,26 +858,34 @@ public class Parser {
      * @return A StatementNode for a single statement
      */
     private StatementNode statement() {
+        int start = lookaheadStart;
+        StatementNode state = statementBody();
+        return state == null ? null : span(state, start);
+    }
+
+    /**
+     * Parses the alternatives of statement, which sets the span of the result.
+     *
+     * @return A StatementNode for a single statement
+     */
+    private StatementNode statementBody() {
         StatementNode state = null;
-        if (lookahead.getType() == ID) {
-            if (!symbolTable.doesExist(lookahead.getLexeme())) {
-                error(lookahead.getLexeme() + " has not been declared");
-                System.exit(1);
-            }
-            if (symbolTable.isVariableName(lookahead.getLexeme()) || symbolTable.isArrayName((lookahead.getLexeme()))) {
+        if (lookaheadType == ID) {
+            if (!symbolTable.doesExist(lexeme())) undeclared(lexeme());
+            if (symbolTable.isVariableName(lexeme()) || symbolTable.isArrayName((lexeme()))) {
                 AssignmentStatementNode assign = new AssignmentStatementNode();
                 VariableNode varNode = variable();
                 assign.setLvalue(varNode);
                 match(ASSIGN);
                 ExpressionNode expNode = expression();
                 assign.setExpression(expNode);
-                if (varNode.getType() != expNode.getType()) error("type mismatch at " + varNode.getName());
+                if (varNode.getType() != expNode.getType()) error(Code.TYPE_MISMATCH, varNode.getName());
                 return assign;
-            } else if (symbolTable.isProcedureName(lookahead.getLexeme())) {
+            } else if (symbolTable.isProcedureName(lexeme())) {
                 return procedure_statement();
-            } else error(lookahead.getLexeme() + " not found in symbol table.");
-        } else if (lookahead.getType() == BEGIN) state = compound_statement();
-        else if (lookahead.getType() == IF) {
+            } else error(Code.NOT_FOUND, lexeme());
+        } else if (lookaheadType == BEGIN) state = compound_statement();
+        else if (lookaheadType == IF) {
             IfStatementNode ifState = new IfStatementNode();
             match(IF);
             ifState.setTest(expression());
@@ -485,29 +894,29 @@ public class Parser {
             match(ELSE);
             ifState.setElseStatement(statement());
             return ifState;
-        } else if (lookahead.getType() == WHILE) {
+        } else if (lookaheadType == WHILE) {
             WhileStatementNode whileState = new WhileStatementNode();
             match(WHILE);
             whileState.setTest(expression());
             match(DO);
             whileState.setDoStatement(statement());
             return whileState;
-        } else if (lookahead.getType() == READ) {
+        } else if (lookaheadType == READ) {
             match(Type.READ);
             match(Type.LPAREN);
-            String varName = lookahead.getLexeme();
-            if (!symbolTable.isVariableName(varName)) error(varName + " has not been declared");
+            String varName = lexeme();
+            if (!symbolTable.isVariableName(varName)) error(Code.NOT_DECLARED, varName);
             match(Type.ID);
             match(Type.RPAREN);
             return new ReadNode(new VariableNode(varName));
-        } else if (lookahead.getType() == WRITE) {
+        } else if (lookaheadType == WRITE) {
             match(Type.WRITE);
             match(Type.LPAREN);
             WriteNode write = new WriteNode(expression());
             match(Type.RPAREN);
             return write;
         } else {
-            error("statement" + lookahead.getLexeme());
+            error(Code.EXPECTED_STATEMENT, lexeme());
         }
         return state;
     }
@@ -521,23 +930,27 @@ public class Parser {
      * @return A VariableNode holding a variable
      */
     private VariableNode variable() {
-        String varName = lookahead.getLexeme();
-        if (!symbolTable.doesExist(varName)) error(varName + " has not been declared");
+        int start = lookaheadStart;
+        String varName = lexeme();
+        int symbol = symbolTable.idOf(varName);
+        if (symbol < 0) error(Code.NOT_DECLARED, varName);
         if (!symbolTable.isArrayName(varName)) {
             VariableNode var = new VariableNode(varName);
-            var.setType(symbolTable.getType(varName));
+            var.setType(symbolTable.getType(symbol));
+            var.setSymbol(symbol);
             match(ID);
-            return var;
+            return span(var, start);
         } else {
             ArrayNode var = new ArrayNode(varName);
-            var.setType(symbolTable.getType(varName));
+            var.setType(symbolTable.getType(symbol));
+            var.setSymbol(symbol);
             match(ID);
-            if (lookahead.getType() == LBRACE) {
+            if (lookaheadType == LBRACE) {
                 match(LBRACE);
                 var.setExpNode(expression());
                 match(RBRACE);
             }
-            return var;
+            return span(var, start);
         }
     }
 
@@ -553,19 +966,12 @@ public class Parser {
      * @return A ProcedureStatementNode for a procedure call
      */
     private ProcedureStatementNode procedure_statement() {
-        ProcedureStatementNode psNode = new ProcedureStatementNode(lookahead.getLexeme());
+        ProcedureStatementNode psNode = new ProcedureStatementNode(lexeme());
         match(ID);
-        if (lookahead.getType() == LPAREN) {
-            ArrayList<Type> argTypes = symbolTable.get(psNode.getName()).getArgs();
+        if (lookaheadType == LPAREN) {
             match(LPAREN);
             ArrayList<ExpressionNode> expList = expression_list();
-            for (int i = 0; i < argTypes.size(); i++) {
-                Type expectedArg = argTypes.get(i);
-                Type actualArg = expList.get(i).getType();
-                if (!expectedArg.equals(actualArg)) {
-                    error("Type mismatch in arguments for " + psNode.getName());
-                }
-            }
+            checkArgs(psNode.getName(), expList, Code.ARGUMENT_MISMATCH);
             psNode.addAllExpNode(expList);
             match(RPAREN);
         }
@@ -582,9 +988,9 @@ public class Parser {
     private ArrayList<ExpressionNode> expression_list() {
         ArrayList<ExpressionNode> exNodeList = new ArrayList<>();
         exNodeList.add(expression());
-        if (lookahead.getType() == COMMA) {
+        while (lookaheadType == COMMA) {
             match(COMMA);
-            exNodeList.addAll(expression_list());
+            exNodeList.add(expression());
         }
         return exNodeList;
     }
@@ -592,221 +998,601 @@ public class Parser {
     /**
      * An expression contains the following:
      * <p>
-     * simple_expression | simple_expression <strong>relop</strong> simple_expression
+     * expression: simple_expression | simple_expression <strong>relop</strong> simple_expression
+     * <p>
+     * simple_expression: term simple_part | sign term simple_part
+     * <p>
+     * simple_part: <strong>addop</strong> term simple_part | lambda
+     * <p>
+     * term: factor term_part
+     * <p>
+     * term_part: <strong>mulop</strong> factor term_part | lambda
+     * <p>
+     * factor: <strong>id</strong> | <strong>id [</strong> expression <strong>]</strong> | <strong>id (</strong>
+     * expression_list <strong>)</strong> | <strong>num</strong> | <strong>(</strong> expression <strong>)</strong> |
+     * <strong>not</strong> factor
+     * <p>
+     * sign: <strong>+</strong> | <strong>-</strong>
+     * <p>
+     * Instead of a function per rule, which takes Java stack frames for every operator and every level of parentheses,
+     * the whole expression is parsed in one loop by precedence climbing over an explicit stack of operands and pending
+     * operators. A pending operator is applied once an operator that binds no tighter comes along, so a + b - c is
+     * built as a + (b - c), the same right-leaning tree the grammar rules make, with the same types and spans.
+     * Parentheses, array indexes and function arguments push a marker and parse their expression on top of the same
+     * stacks, so only the stacks grow with long or deeply nested expressions.
      *
      * @return A single ExpressionNode
      */
     private ExpressionNode expression() {
-        ExpressionNode left = simple_expression();
-        Type leftType = left.getType();
-        if (isRelOp(lookahead.getType())) {
-            OperationNode opNode = new OperationNode(lookahead.getType());
-            if (leftType.equals(Type.REAL)) opNode.setType(Type.REAL);
-            else opNode.setType(Type.INTEGER);
-            opNode.setLeft(left);
-            match(lookahead.getType());
-            opNode.setRight(simple_expression());
-            return opNode;
+        int operatorBase = operatorCount;
+        boolean expectOperand = true;
+        while (true) {
+            if (expectOperand) {
+                expectOperand = !operand(operatorBase);
+                continue;
+            }
+            Type operator = lookaheadType;
+            if (isMulOp(operator)) {
+                // nothing binds tighter than a mulop, so nothing is applied yet
+                pushOperator(MULOP_LEVEL, operator, null, 0, 0);
+                match(operator);
+                expectOperand = true;
+            } else if (isAddOp(operator)) {
+                reduce(ADDOP_LEVEL, operatorBase);
+                typeSign(operatorBase);
+                pushOperator(ADDOP_LEVEL, operator, null, 0, 0);
+                match(operator);
+                expectOperand = true;
+            } else if (isRelOp(operator) && !relOpPending(operatorBase)) {
+                reduce(RELOP_LEVEL, operatorBase);
+                ExpressionNode left = popOperand();
+                OperationNode opNode = new OperationNode(operator);
+                if (left.getType() == Type.REAL) opNode.setType(Type.REAL);
+                else opNode.setType(Type.INTEGER);
+                opNode.setLeft(left);
+                match(operator);
+                pushOperator(RELOP_LEVEL, operator, opNode, 0, 0);
+                expectOperand = true;
+            } else {
+                // The innermost expression can't go on, finish it and close its marker
+                reduce(END_LEVEL, operatorBase);
+                if (operatorCount == operatorBase) return popOperand();
+                expectOperand = closeMarker();
+            }
         }
-        return left;
     }
 
     /**
-     * A simple_expression contains the following:
-     * <p>
-     * term simple_part | sign term simple_part
+     * Parses the start of a factor, or the sign at the start of a simple_expression. A number or variable is pushed as
+     * an operand, anything that has to be followed by more of the expression is pushed as an operator.
      *
-     * @return A single ExpressionNode
+     * @param operatorBase Number of operators pending when the expression started
+     * @return True if an operand was pushed, false if an operand is still to come
      */
-    private ExpressionNode simple_expression() {
-        ExpressionNode expNode = null;
-        if (lookahead.getType() == ID || lookahead.getType() == NUMBER || lookahead.getType() == LPAREN || lookahead.getType() == NOT) {
-            expNode = term();
-            expNode = simple_part(expNode);
-        } else if (lookahead.getType() == PLUS || lookahead.getType() == MINUS) {
-            UnaryOperationNode uoNode = sign();
-            expNode = term();
-            uoNode.setType(expNode.getType());
-            uoNode.setExpression(simple_part(expNode));
-            return uoNode;
-        } else error("simple_expression");
-        return expNode;
+    private boolean operand(int operatorBase) {
+        int start = lookaheadStart;
+        if (operatorCount == operatorBase || operatorKinds[operatorCount - 1] <= RELOP_LEVEL) {
+            // The start of a simple_expression
+            if (lookaheadType == PLUS || lookaheadType == MINUS) {
+                pushOperator(SIGN_LEVEL, lookaheadType, new UnaryOperationNode(lookaheadType), start, 0);
+                match(lookaheadType);
+                return false;
+            } else if (lookaheadType != ID && lookaheadType != NUMBER && lookaheadType != LPAREN && lookaheadType != NOT) {
+                error(Code.EXPECTED, "simple_expression");
+                pushOperand(missingOperand());
+                return true;
+            }
+        }
+        if (lookaheadType == ID) {
+            String name = lexeme();
+            int symbol = symbolTable.idOf(name);
+            if (symbol < 0) undeclared(name);
+            match(ID);
+            Type t = symbolTable.getType(symbol);
+            if (lookaheadType == LBRACE) {
+                ArrayNode aNode = new ArrayNode(name);
+                aNode.setType(t);
+                aNode.setSymbol(symbol);
+                match(LBRACE);
+                pushOperator(INDEX_MARKER, null, aNode, start, 0);
+                return false;
+            } else if (lookaheadType == LPAREN) {
+                FunctionNode fNode = new FunctionNode(name);
+                fNode.setType(t);
+                match(LPAREN);
+                // the arguments pile up on the operand stack above this point
+                pushOperator(CALL_MARKER, null, fNode, start, operandCount);
+                return false;
+            }
+            VariableNode vNode = new VariableNode(name);
+            vNode.setType(t);
+            vNode.setSymbol(symbol);
+            pushOperand(span(vNode, start));
+        } else if (lookaheadType == NUMBER) {
+            ValueNode valNode = number();
+            match(NUMBER);
+            pushOperand(span(valNode, start));
+        } else if (lookaheadType == LPAREN) {
+            match(LPAREN);
+            pushOperator(PAREN_MARKER, null, null, start, 0);
+            return false;
+        } else if (lookaheadType == NOT) {
+            match(NOT);
+            pushOperator(NOT_LEVEL, NOT, new UnaryOperationNode(NOT), start, 0);
+            return false;
+        } else {
+            error(Code.EXPECTED, "factor");
+            pushOperand(missingOperand());
+        }
+        return true;
     }
 
     /**
-     * A simple_part contains the following:
-     * <p>
-     * <strong>addop</strong> term simple_part | lambda
+     * Closes the marker on top of the operator stack once the expression inside it is finished. A comma inside a
+     * function call starts the next argument instead.
      *
-     * @return A single ExpressionNode
+     * @return True if the next argument is expected, false if the closed factor was pushed as an operand
      */
-    private ExpressionNode simple_part(ExpressionNode posLeft) {
-
-        if (isAddOp(lookahead.getType())) {
-            OperationNode op = new OperationNode(lookahead.getType());
-            match(lookahead.getType());
-            ExpressionNode right = term();
-            op.setLeft(posLeft);
-            op.setRight(simple_part(right));
-            return op;
+    private boolean closeMarker() {
+        int marker = operatorCount - 1;
+        int kind = operatorKinds[marker];
+        if (kind == CALL_MARKER && lookaheadType == COMMA) {
+            match(COMMA);
+            return true;
         }
-        // else lambda case
-        return posLeft;
+        ExpressionNode node = operatorNodes[marker];
+        int start = operatorStarts[marker];
+        operatorNodes[marker] = null;
+        operatorCount--;
+        if (kind == PAREN_MARKER) {
+            ExpressionNode ex = popOperand();
+            match(RPAREN);
+            // the span of a parenthesized expression takes in the parentheses
+            pushOperand(span(ex, start));
+        } else if (kind == INDEX_MARKER) {
+            ArrayNode aNode = (ArrayNode) node;
+            aNode.setExpNode(popOperand());
+            match(RBRACE);
+            pushOperand(span(aNode, start));
+        } else {
+            FunctionNode fNode = (FunctionNode) node;
+            int base = operatorData[marker];
+            ArrayList<ExpressionNode> actualArgs = new ArrayList<>(operandCount - base);
+            for (int i = base; i < operandCount; i++) {
+                actualArgs.add(operands[i]);
+                operands[i] = null;
+            }
+            operandCount = base;
+            checkArgs(fNode.getName(), actualArgs, Code.CALL_MISMATCH);
+            fNode.setArgs(actualArgs);
+            match(RPAREN);
+            pushOperand(span(fNode, start));
+        }
+        return false;
     }
 
     /**
-     * A term contains the following:
-     * <p>
-     * factor term_part
+     * Checks the types of the arguments of a call against the types the function or procedure was declared with. The
+     * function is found by kind, so inside a function a recursive call isn't checked against the variable for its
+     * result. A call with more or fewer arguments than were declared, or to a name that isn't a function or
+     * procedure, is a mismatch too.
      *
-     * @return A single ExpressionNode
+     * @param name       The name of the function or procedure
+     * @param actualArgs The arguments of the call
+     * @param code       The error to report for a mismatch
      */
-    private ExpressionNode term() {
-        ExpressionNode left = factor();
-        return term_part(left);
+    private void checkArgs(String name, ArrayList<ExpressionNode> actualArgs, Code code) {
+        int id = symbolTable.idOfSubProgram(name);
+        List<Type> argTypes = id < 0 ? null : symbolTable.getArgs(id);
+        if (argTypes == null || argTypes.size() != actualArgs.size()) {
+            error(code, name);
+            return;
+        }
+        for (int i = 0; i < argTypes.size(); i++) {
+            if (argTypes.get(i) != actualArgs.get(i).getType()) error(code, name);
+        }
     }
 
     /**
-     * A term_part contains the following:
-     * <p>
-     * <strong>mulop</strong> factor term_part | lambda
+     * Makes the operand put in place of one that is missing, an integer 0 at the lookahead, so the expression around
+     * it can still be built and the parse can go on to find more errors.
      *
-     * @return A single ExpressionNode
+     * @return The placeholder operand
      */
-    private ExpressionNode term_part(ExpressionNode posLeft) {
-        if (isMulOp(lookahead.getType())) {
-            OperationNode op = new OperationNode(lookahead.getType());
-            match(lookahead.getType());
-            ExpressionNode right = factor();
-            op.setLeft(posLeft);
-            op.setRight(term_part(right));
-            return op;
-        }
-        // else lambda case
-        return posLeft;
+    private ValueNode missingOperand() {
+        ValueNode placeholder = new ValueNode("0", 0L);
+        placeholder.setSpan(lookaheadStart, lookaheadStart);
+        return placeholder;
     }
 
     /**
-     * A factor contains the following:
-     * <p>
-     * <strong>id</strong> | <strong>id [</strong> expression <strong>]</strong> | <strong>id (</strong> expression_list <strong>)</strong> |
-     * <strong>num</strong> | <strong>(</strong> expression <strong>)</strong> | <strong>not</strong> factor
+     * Applies the pending operators that bind tighter than the given precedence, from the top of the stack down to
+     * the nearest marker.
      *
-     * @return A single ExpressionNode
+     * @param precedence   Operators with a higher precedence than this are applied
+     * @param operatorBase Number of operators pending when the expression started
      */
-    private ExpressionNode factor() {
-        ExpressionNode ex = null;
-        if (lookahead.getType() == ID) {
-            String name = lookahead.getLexeme();
-            if (!symbolTable.doesExist(name)) {
-                error(name + " has not been declared");
-                System.exit(1);
-            }
-            match(ID);
-            Type t = symbolTable.getType(name);
-            if (lookahead.getType() == LBRACE) {
-                ArrayNode aNode = new ArrayNode(name);
-                aNode.setType(t);
-                match(LBRACE);
-                ExpressionNode temp = expression();
-                aNode.setExpNode(temp);
-                match(RBRACE);
-                return aNode;
-            } else if (lookahead.getType() == LPAREN) {
-                // check arg types here
-                FunctionNode fNode = new FunctionNode(name);
-                ArrayList<Type> argTypes = symbolTable.get(name).getArgs();
-                fNode.setType(t);
-                match(LPAREN);
-                ArrayList<ExpressionNode> actualArgs = expression_list();
-                for (int i = 0; i < argTypes.size(); i++) {
-                    Type expected = argTypes.get(i);
-                    Type actual = actualArgs.get(i).getType();
-                    if (!expected.equals(actual)) {
-                        error("Type mismatch for arguments of " + name);
-                    }
-                }
-                fNode.setArgs(actualArgs);
-                match(RPAREN);
-                return fNode;
+    private void reduce(int precedence, int operatorBase) {
+        while (operatorCount > operatorBase && operatorKinds[operatorCount - 1] > precedence) {
+            int top = --operatorCount;
+            int kind = operatorKinds[top];
+            ExpressionNode right = popOperand();
+            if (kind == SIGN_LEVEL) {
+                UnaryOperationNode uoNode = (UnaryOperationNode) operatorNodes[top];
+                // without any addop the whole simple_expression is its first term
+                if (operatorData[top] == 0) uoNode.setType(right.getType());
+                uoNode.setExpression(right);
+                pushOperand(span(uoNode, operatorStarts[top]));
+            } else if (kind == RELOP_LEVEL) {
+                OperationNode opNode = (OperationNode) operatorNodes[top];
+                opNode.setRight(right);
+                pushOperand(span(opNode, opNode.getLeft().getStart()));
             } else {
-                VariableNode vNode = new VariableNode(name);
-                vNode.setType(t);
-                return vNode;
+                ExpressionNode left = popOperand();
+                OperationNode op = new OperationNode(operatorTypes[top]);
+                op.setLeft(left);
+                op.setRight(right);
+                pushOperand(span(op, left.getStart()));
             }
-        } else if (lookahead.getType() == NUMBER) {
-            Type t;
-            String num = lookahead.getLexeme();
-            if (num.contains(".")) t = Type.REAL;
-            else t = Type.INTEGER;
-            ValueNode valNode = new ValueNode(num);
-            valNode.setType(t);
-            match(NUMBER);
-            return valNode;
-        } else if (lookahead.getType() == LPAREN) {
-            match(LPAREN);
-            ex = expression();
-            match(RPAREN);
-        } else if (lookahead.getType() == NOT) {
-            UnaryOperationNode uoNode = new UnaryOperationNode(NOT);
-            match(NOT);
-            ex = factor();
-            uoNode.setExpression(ex);
-            uoNode.setType(ex.getType());
-            return uoNode;
-        } else error("factor");
-        return ex;
+            operatorNodes[top] = null;
+        }
     }
 
     /**
-     * A sign contains the following:
-     * <p>
-     * <strong>+</strong> | <strong>-</strong>
+     * Gives a sign the type of the first term of its simple_expression, when the first addop after it comes along
+     * and that term is on top of the operand stack.
+     *
+     * @param operatorBase Number of operators pending when the expression started
+     */
+    private void typeSign(int operatorBase) {
+        int top = operatorCount - 1;
+        if (top >= operatorBase && operatorKinds[top] == SIGN_LEVEL && operatorData[top] == 0) {
+            operatorNodes[top].setType(operands[operandCount - 1].getType());
+            operatorData[top] = 1;
+        }
+    }
+
+    /**
+     * Determines whether the innermost expression already has its relop, in which case another relop ends it.
      *
-     * @return A UnaryOperationNode holding not, + or - and the expression
+     * @param operatorBase Number of operators pending when the expression started
+     * @return True if a relop is pending above the nearest marker
      */
-    private UnaryOperationNode sign() {
-        UnaryOperationNode uoNode = null;
-        if (lookahead.getType() == PLUS) {
-            uoNode = new UnaryOperationNode(PLUS);
-            match(PLUS);
-        } else if (lookahead.getType() == MINUS) {
-            uoNode = new UnaryOperationNode(MINUS);
-            match(MINUS);
-        } else error("sign");
-        return uoNode;
+    private boolean relOpPending(int operatorBase) {
+        for (int i = operatorCount - 1; i >= operatorBase && operatorKinds[i] >= RELOP_LEVEL; i--) {
+            if (operatorKinds[i] == RELOP_LEVEL) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Pushes a finished operand. Any not in front of it applies to it alone and is applied right away.
+     *
+     * @param node The operand
+     */
+    private void pushOperand(ExpressionNode node) {
+        while (operatorCount > 0 && operatorKinds[operatorCount - 1] == NOT_LEVEL) {
+            int top = --operatorCount;
+            UnaryOperationNode uoNode = (UnaryOperationNode) operatorNodes[top];
+            operatorNodes[top] = null;
+            uoNode.setExpression(node);
+            uoNode.setType(node.getType());
+            node = span(uoNode, operatorStarts[top]);
+        }
+        if (operandCount == operands.length) operands = Arrays.copyOf(operands, operandCount * 2);
+        operands[operandCount++] = node;
+    }
+
+    /**
+     * Pops the operand on top of the stack.
+     *
+     * @return The operand
+     */
+    private ExpressionNode popOperand() {
+        ExpressionNode node = operands[--operandCount];
+        operands[operandCount] = null;
+        return node;
+    }
+
+    /**
+     * Pushes a pending operator or a marker.
+     *
+     * @param kind  The precedence of an operator, or the kind of marker
+     * @param type  The Type of the operator's token
+     * @param node  The node the operator fills in, if it has one
+     * @param start Offset where the node starts
+     * @param data  The operand count for a call, 0 for anything else
+     */
+    private void pushOperator(int kind, Type type, ExpressionNode node, int start, int data) {
+        if (operatorCount == operatorKinds.length) {
+            int length = operatorCount * 2;
+            operatorKinds = Arrays.copyOf(operatorKinds, length);
+            operatorTypes = Arrays.copyOf(operatorTypes, length);
+            operatorNodes = Arrays.copyOf(operatorNodes, length);
+            operatorStarts = Arrays.copyOf(operatorStarts, length);
+            operatorData = Arrays.copyOf(operatorData, length);
+        }
+        operatorKinds[operatorCount] = kind;
+        operatorTypes[operatorCount] = type;
+        operatorNodes[operatorCount] = node;
+        operatorStarts[operatorCount] = start;
+        operatorData[operatorCount] = data;
+        operatorCount++;
     }
 
     /**
      * Matches the expected token. If the current token in the input stream from the scanner matches the token that is
      * expected, the current token is consumed and the scanner will move on to the next token in the input.
-     * The null at the end of the file returned by the scanner is replaced with a fake token containing no
-     * type.
      *
      * @param expected The expected token type.
      */
     private void match(Type expected) {
-        if (this.lookahead.getType() == expected) {
+        if (this.lookaheadType == expected) {
+            advance();
+        } else {
+            error(Code.MATCH, expected, this.lookaheadType);
+        }
+    }
+
+    /**
+     * Moves the lookahead to the next token, either the next index of the token stream or the next Token from the
+     * scanner. The end of the file is a lookahead with no type and the lexeme "End of File".
+     */
+    private void advance() {
+        this.lookaheadLexeme = null;
+        this.previousEnd = this.lookaheadEnd;
+        if (tokens != null) {
+            position++;
+            if (position < tokens.size()) {
+                this.lookaheadType = tokens.type(position);
+                this.lookaheadLine = tokens.line(position);
+                this.lookaheadStart = tokens.start(position);
+                this.lookaheadEnd = lookaheadStart + tokens.length(position);
+            } else {
+                position = tokens.size();
+                this.lookaheadType = null;
+                this.lookaheadLine = 0;
+                this.lookaheadStart = this.lookaheadEnd = previousEnd;
+            }
+            return;
+        }
+        try {
+            this.lookahead = scanny.nextToken();
+            this.lookaheadLine = scanny.getLineNumber();
+            this.lookaheadStart = scanny.getTokenStart();
+            this.lookaheadEnd = lookaheadStart + scanny.yylength();
+            if (this.lookahead == null) {
+                this.lookahead = new Token("End of File", null, 0);
+                this.lookaheadLine = 0;
+                this.lookaheadStart = this.lookaheadEnd = previousEnd;
+            }
+            this.lookaheadType = lookahead.getType();
+        } catch (IOException ex) {
+            error(Code.SCANNER_EXCEPTION);
+        }
+    }
+
+    /**
+     * Moves the lookahead to a token of the token stream.
+     *
+     * @param index Index of the new lookahead
+     */
+    private void seek(int index) {
+        position = index - 1;
+        advance();
+    }
+
+    /**
+     * Sets the span of a node from where it started to the end of the last token matched.
+     *
+     * @param node  The node that was just parsed
+     * @param start Offset of the node's first token
+     * @param <T>   The type of node
+     * @return The node
+     */
+    private <T extends SyntaxTreeNode> T span(T node, int start) {
+        node.setSpan(start, Math.max(start, previousEnd));
+        return node;
+    }
+
+    /**
+     * Get the lexeme of the lookahead. The String is only created the first time it is asked for.
+     *
+     * @return The lexeme of the current token
+     */
+    private String lexeme() {
+        if (lookaheadLexeme == null) {
+            if (tokens == null) lookaheadLexeme = lookahead.getLexeme();
+            else if (position < tokens.size()) lookaheadLexeme = tokens.lexeme(position);
+            else lookaheadLexeme = "End of File";
+        }
+        return lookaheadLexeme;
+    }
+
+    /**
+     * Creates a ValueNode for the NUMBER lookahead, with the value read straight from the token.
+     *
+     * @return A ValueNode holding the number
+     */
+    private ValueNode number() {
+        if (tokens != null) {
+            if (tokens.isReal(position)) return new ValueNode(lexeme(), tokens.doubleValue(position));
+            return new ValueNode(lexeme(), tokens.longValue(position));
+        }
+        // Read the value before lexeme(), which lets the token drop its buffer
+        if (lookahead.isReal()) {
+            double value = lookahead.doubleValue();
+            return new ValueNode(lexeme(), value);
+        }
+        long value = lookahead.longValue();
+        return new ValueNode(lexeme(), value);
+    }
+
+    /**
+     * Reads the array bound at the lookahead. A bound that isn't a whole number is reported and read as 0, and one
+     * that isn't a number at all is left for match to report, so the declaration can still be finished.
+     *
+     * @return The bound
+     */
+    private int arrayBound() {
+        if (lookaheadType != NUMBER) return 0;
+        try {
+            return Integer.parseInt(lexeme());
+        } catch (NumberFormatException ex) {
+            error(Code.EXPECTED, "integer");
+            return 0;
+        }
+    }
+
+    /**
+     * Errors out of the parser. Adds an error at the lookahead to the Diagnostics, which prints it to standard error
+     * unless the errors are collected.
+     *
+     * @param code The kind of error
+     * @param args The arguments of the message
+     */
+    private void error(Code code, Object... args) {
+        diagnostics.error(code, lookaheadLine, lookaheadStart, lookaheadEnd, args);
+    }
+
+    /**
+     * Errors out of the parser for a name that was never declared and stops the parse by throwing Stop. A parser for a
+     * subprogram body stops only itself, and the parse that started it stops once the errors before it have been
+     * added.
+     *
+     * @param name The name that has not been declared
+     * @throws Stop always
+     */
+    private void undeclared(String name) {
+        error(Code.NOT_DECLARED, name);
+        throw new Stop();
+    }
+
+    /**
+     * A subprogram body to parse on the pool, with the node from its head and its local scope.
+     */
+    private static final class Body extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SubProgramNode spNode;
+        private final HashMap<String, SymbolTable.Symbol> local;
+        private final Parser parser;
+        private boolean stopped; // set if the body used a name that was never declared
+        private RuntimeException failure; // thrown while parsing the body, rethrown once the errors before it are printed
+
+        /**
+         * Creates the task for one body.
+         *
+         * @param spNode The SubProgramNode from the head
+         * @param local  The local scope from the head
+         * @param parser The parser positioned at the start of the body
+         */
+        Body(SubProgramNode spNode, HashMap<String, SymbolTable.Symbol> local, Parser parser) {
+            this.spNode = spNode;
+            this.local = local;
+            this.parser = parser;
+        }
+
+        /**
+         * Parses the body into the SubProgramNode.
+         */
+        @Override
+        protected void compute() {
             try {
-                this.lookahead = scanny.nextToken();
-                if (this.lookahead == null) {
-                    this.lookahead = new Token("End of File", null, 0);
+                parser.subprogram_body(spNode);
+            } catch (Stop stop) {
+                stopped = true;
+            } catch (RuntimeException ex) {
+                failure = ex;
+            }
+        }
+    }
+
+    /**
+     * The main body of a subprogram left to be parsed the first time it is needed. It is parsed by a Parser of its own
+     * that collects its errors, and they are added to the Diagnostics of the parse that left it once the body is
+     * done, so they are printed then if that Diagnostics prints. A name that was never declared throws Stop out of
+     * SubProgramNode.getMain, and again each time the body is asked for.
+     */
+    private static final class LazyBody implements Supplier<CompoundStatementNode> {
+        private final TokenStream input;
+        private final int start; // index of the begin of the body
+        private final SymbolTable scopes;
+        private final Diagnostics errors;
+        private Stop stopped; // set if the body used a name that was never declared
+
+        /**
+         * Creates the body.
+         *
+         * @param input  The tokens of the program
+         * @param start  Index of the begin of the body
+         * @param scopes The scopes the body sees
+         * @param errors Where the errors of the body go
+         */
+        LazyBody(TokenStream input, int start, SymbolTable scopes, Diagnostics errors) {
+            this.input = input;
+            this.start = start;
+            this.scopes = scopes;
+            this.errors = errors;
+        }
+
+        /**
+         * Parses the body. Only called by SubProgramNode.getMain, which holds the lock of the node.
+         *
+         * @return The main body
+         * @throws Stop if the body uses a name that was never declared
+         */
+        @Override
+        public CompoundStatementNode get() {
+            if (stopped != null) throw stopped;
+            Parser parser = new Parser(input, start, scopes);
+            parser.diagnostics = new Diagnostics();
+            try {
+                return parser.compound_statement();
+            } catch (Stop stop) {
+                stopped = stop;
+                throw stop;
+            } finally {
+                // bodies can be parsed on any thread
+                synchronized (errors) {
+                    errors.addAll(parser.diagnostics);
                 }
-            } catch (IOException ex) {
-                error("Scanner exception");
             }
-        } else {
-            error("Match of " + expected + " found " + this.lookahead.getType() + " instead.");
         }
     }
 
     /**
-     * Errors out of the parser. Prints an error message to standard error.
-     *
-     * @param message The error message to print.
+     * Told about each top-level function and procedure as soon as the parser has finished it.
      */
-    private void error(String message) {
-        System.err.println("Error: " + message + " Line: " + lookahead.getLineNumber());
+    public interface SubprogramListener {
+
+        /**
+         * Called after a top-level subprogram has been parsed, on the thread that is parsing.
+         *
+         * @param program    The program being parsed, with its variables declared but without its subprograms or main
+         *                   body set yet
+         * @param subprogram The subprogram that was parsed
+         * @param globals    A snapshot of the global scope with every name declared so far, which can be read on
+         *                   any thread
+         */
+        void parsed(ProgramNode program, SubProgramNode subprogram, SymbolSnapshot globals);
+    }
+
+    /**
+     * Thrown to stop the parse at a name that was never declared, for the caller to stop compiling the program. The
+     * error itself is in the Diagnostics of the parse. Also thrown out of SubProgramNode.getMain for a body left to be
+     * parsed later.
+     */
+    public static final class Stop extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Creates the exception. *package-private*
+         */
+        Stop() {
+            super("Stopped at a name that was never declared", null, false, false);
+        }
     }
 
 }
@@ -0,0 +1,816 @@
+package parser;
+
+import diagnostics.Diagnostics;
+import diagnostics.Diagnostics.Code;
+import scanner.LineMap;
+import scanner.Source;
+import scanner.TokenStream;
+import scanner.Type;
+import symboltable.SymbolTable;
+import syntaxtree.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static scanner.Type.*;
+
+/**
+ * A second parser for the same Mini-Pascal grammar as Parser, driven by an LL(1) parse table instead of a function per
+ * rule. The grammar below is the one Parser implements by hand, with semantic actions (#name) where Parser builds
+ * nodes and fills in the symbol table. The table is derived from it once, when the class is loaded.
+ * <p>
+ * Parsing runs in one loop over an explicit stack of symbols. A terminal on top is matched, a nonterminal is replaced
+ * by the production the table gives for the lookahead, and an action works on a stack of values: names, lists, types
+ * and the nodes being built. Nothing recurses on the Java stack, so statements and expressions can be nested as deeply
+ * as memory allows.
+ * <p>
+ * The grammar is LL(1) except for a statement starting with an id, which is an assignment or a procedure call
+ * depending on what the id was declared as. A predicate looks it up in the symbol table, the same as Parser, and
+ * another one only lets an array variable take an index. The actions run in the same order as the code in Parser, so a
+ * program gives the same tree, spans, types, symbol table and error messages with either parser.
+ * <p>
+ * A TableParser reads a TokenStream and has no parallel or lazy mode. To compile with it instead of Parser, run
+ * CompilerMain with -Dparser=table.
+ */
+public class TableParser {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private static final ParseTable GRAMMAR = new ParseTable(Action.class)
+            .rule("program", "#mark PROGRAM #name ID #add_program SEMI declarations #set_variables " +
+                    "subprogram_declarations #set_functions compound_statement #set_main PERIOD #span")
+            .rule("identifier_list", "#new_list #name ID #add identifier_tail")
+            .rule("identifier_tail", "COMMA #name ID #add identifier_tail", "")
+            .rule("declarations", "#mark #new_declarations declaration_part #span")
+            .rule("declaration_part", "VAR identifier_list COLON type #declare SEMI declarations #add_declarations", "")
+            .rule("type", "ARRAY LBRACE #number NUMBER COLON #number NUMBER RBRACE OF standard_type #add_arrays",
+                    "standard_type #add_variables")
+            .rule("standard_type", "INTEGER #integer", "REAL #real")
+            .rule("subprogram_declarations", "#mark #new_subprograms subprogram_part #span")
+            .rule("subprogram_part", "subprogram_declaration #add_subprogram SEMI subprogram_declarations #add_subprograms", "")
+            .rule("subprogram_declaration", "#mark subprogram_head #return_type declarations #set_variables " +
+                    "subprogram_declarations #set_functions compound_statement #set_main #local_table #span")
+            .rule("subprogram_head", "FUNCTION #name #add_function ID #new_scope arguments #arg_types COLON standard_type " +
+                            "#function_type SEMI",
+                    "PROCEDURE #name #add_procedure ID #new_scope arguments #arg_types #procedure_args SEMI")
+            .rule("arguments", "LPAREN parameter_list RPAREN", "#new_list")
+            .rule("parameter_list", "identifier_list COLON type #parameters parameter_tail")
+            .rule("parameter_tail", "SEMI parameter_list #add_all", "")
+            .rule("compound_statement", "#mark BEGIN #new_compound optional_statements END #span")
+            .rule("optional_statements", "statement_list", "")
+            .rule("statement_list", "statement #add_statement statement_tail")
+            .rule("statement_tail", "SEMI statement_list", "")
+            .rule("statement", "#mark statement_body #span_statement")
+            .rule("statement_body", "assignment", "procedure_statement", "compound_statement",
+                    "#new_if IF expression #set_test THEN statement #set_then ELSE statement #set_else",
+                    "#new_while WHILE expression #set_test DO statement #set_do",
+                    "READ LPAREN #read_name ID RPAREN #read",
+                    "WRITE LPAREN expression RPAREN #write")
+            .rule("assignment", "#new_assignment variable #set_lvalue ASSIGN expression #set_expression")
+            .rule("variable", "#mark #variable ID variable_tail #span")
+            .rule("variable_tail", "LBRACE expression #set_index RBRACE", "")
+            .rule("procedure_statement", "#new_call ID call_arguments")
+            .rule("call_arguments", "LPAREN expression_list #call_args RPAREN", "")
+            .rule("expression_list", "#new_list expression #add expression_tail")
+            .rule("expression_tail", "COMMA expression #add expression_tail", "")
+            .rule("expression", "simple_expression relation")
+            .rule("relation", "#operation relop #relation simple_expression #set_right", "")
+            .rule("relop", "EQUAL", "NOTEQ", "LTHAN", "LTHANEQ", "GTHAN", "GTHANEQ")
+            .rule("simple_expression", "term simple_part",
+                    "#mark #sign sign term #sign_type simple_part #set_sign #span")
+            .rule("sign", "PLUS", "MINUS")
+            .rule("simple_part", "#operation addop term #set_left simple_part #set_right", "")
+            .rule("addop", "PLUS", "MINUS", "OR")
+            .rule("term", "factor term_part")
+            .rule("term_part", "#operation mulop factor #set_left term_part #set_right", "")
+            .rule("mulop", "ASTERISK", "FSLASH", "DIV", "MOD", "AND")
+            .rule("factor", "#mark #factor_name ID factor_tail #span", "#mark #value NUMBER #span",
+                    "#mark LPAREN expression RPAREN #span", "#mark #not NOT factor #set_not #span")
+            .rule("factor_tail", "#array_node LBRACE expression #set_index RBRACE",
+                    "#function_node LPAREN expression_list #function_args RPAREN", "#variable_node")
+            .predicate("statement_body", ID)
+            .predicate("variable_tail", LBRACE)
+            .build();
+
+    private static final int[][] TABLE = GRAMMAR.getTable();
+    private static final int[][] PRODUCTIONS = GRAMMAR.getProductions();
+    private static final Action[] ACTIONS = Action.values();
+    private static final Type[] TYPES = Type.values();
+    private static final int START = GRAMMAR.symbol("program");
+    private static final int STATEMENT_BODY = GRAMMAR.symbol("statement_body") - ParseTable.TERMINALS;
+    private static final int EXPRESSION = GRAMMAR.symbol("expression") - ParseTable.TERMINALS;
+    private static final int SIMPLE_EXPRESSION = GRAMMAR.symbol("simple_expression") - ParseTable.TERMINALS;
+    private static final int TERM = GRAMMAR.symbol("term") - ParseTable.TERMINALS;
+    private static final int FACTOR = GRAMMAR.symbol("factor") - ParseTable.TERMINALS;
+    private static final int ASSIGNMENT = GRAMMAR.production("statement_body", 0);
+    private static final int PROCEDURE_STATEMENT = GRAMMAR.production("statement_body", 1);
+    private static final int INDEX = GRAMMAR.production("variable_tail", 0);
+    private static final int NO_INDEX = GRAMMAR.production("variable_tail", 1);
+    private static final int HANDLED = -3; // a predicate that reported an error instead of choosing a production
+
+    private final TokenStream tokens;
+    private final SymbolTable symbolTable = new SymbolTable();
+    private Type lookaheadType;
+    private String lookaheadLexeme; // created on demand, null until lexeme() is called for this lookahead
+    private int lookaheadLine;
+    private int lookaheadStart; // offsets of the lookahead's text in the source
+    private int lookaheadEnd;
+    private int previousEnd; // offset after the last token matched
+    private int position = -1; // index of the lookahead in tokens
+    private Diagnostics diagnostics = Diagnostics.printing(); // printed as they are found unless collected
+
+    private int[] symbols = new int[64]; // the parse stack
+    private int symbolCount;
+    private Object[] values = new Object[64]; // what the actions build
+    private int valueCount;
+    private int[] starts = new int[64]; // offsets where the nodes being built start
+    private int startCount;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a new TableParser to parse a String input, which is scanned up front.
+     *
+     * @param input A String to parse
+     */
+    public TableParser(String input) {
+        this(TokenStream.lex(Source.of(input)));
+    }
+
+    /**
+     * Creates a new TableParser to parse a stream of tokens that has already been scanned.
+     *
+     * @param input A TokenStream to parse
+     */
+    public TableParser(TokenStream input) {
+        tokens = input;
+        advance();
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Get the symbol table filled in by the parse
+     *
+     * @return The SymbolTable
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * Sets where the errors of the parse go, the same as Parser.setDiagnostics.
+     *
+     * @param diagnostics The Diagnostics to add the errors to
+     */
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Get the errors of the parse
+     *
+     * @return The Diagnostics the errors are added to, which prints them unless another one was set
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Get the LineMap of the source being parsed, to find the line and column of any offset in it
+     *
+     * @return The LineMap of the source
+     */
+    public LineMap getLineMap() {
+        return tokens.getLineMap();
+    }
+
+    /**
+     * Parses a whole program, from <strong>program</strong> to the final <strong>.</strong>
+     *
+     * @return A ProgramNode of the whole program
+     */
+    public ProgramNode program() {
+        push(START);
+        while (symbolCount > 0) {
+            int symbol = symbols[--symbolCount];
+            if (symbol < 0) perform(ACTIONS[-1 - symbol]);
+            else if (symbol < ParseTable.TERMINALS) match(TYPES[symbol]);
+            else expand(symbol - ParseTable.TERMINALS);
+        }
+        return (ProgramNode) pop();
+    }
+
+    /**
+     * Parses the program only to find its errors, for checking a file without compiling it. The error messages are
+     * collected instead of printed, in the Diagnostics that was set or a new one, and a name that was never declared
+     * or reaching the error limit ends the check without throwing.
+     *
+     * @return The error messages, one per line, empty if the program has none
+     */
+    public String check() {
+        if (diagnostics.isPrinting()) diagnostics = new Diagnostics();
+        try {
+            program();
+        } catch (Parser.Stop | Diagnostics.TooManyErrors stop) {
+            // the rest of the program is not checked, the same as it is not compiled
+        }
+        return diagnostics.toString();
+    }
+
+    /**
+     * Replaces a nonterminal on the parse stack with the production for the lookahead.
+     *
+     * @param nonterminal The index of the nonterminal
+     */
+    private void expand(int nonterminal) {
+        int column = lookaheadType == null ? ParseTable.EOF : lookaheadType.ordinal();
+        int production = TABLE[nonterminal][column];
+        if (production == ParseTable.PREDICATE) production = predict(nonterminal);
+        if (production == ParseTable.ERROR) {
+            missing(nonterminal);
+            return;
+        }
+        if (production == HANDLED) return;
+        int[] rhs = PRODUCTIONS[production];
+        if (symbolCount + rhs.length > symbols.length) symbols = Arrays.copyOf(symbols, (symbolCount + rhs.length) * 2);
+        System.arraycopy(rhs, 0, symbols, symbolCount, rhs.length);
+        symbolCount += rhs.length;
+    }
+
+    /**
+     * Chooses a production where the grammar alone can't.
+     * <p>
+     * A statement starting with an id is an assignment to a variable or array, or a call to a procedure. Only an array
+     * variable takes an index.
+     *
+     * @param nonterminal The index of the nonterminal
+     * @return The production, or HANDLED if there is none and an error was reported
+     */
+    private int predict(int nonterminal) {
+        if (nonterminal == STATEMENT_BODY) {
+            String name = lexeme();
+            if (!symbolTable.doesExist(name)) undeclared(name);
+            if (symbolTable.isVariableName(name) || symbolTable.isArrayName(name)) return ASSIGNMENT;
+            if (symbolTable.isProcedureName(name)) return PROCEDURE_STATEMENT;
+            error(Code.NOT_FOUND, name);
+            pushValue(null);
+            return HANDLED;
+        }
+        return peek() instanceof ArrayNode ? INDEX : NO_INDEX;
+    }
+
+    /**
+     * Reports a lookahead that none of a nonterminal's alternatives can start with. A missing expression is replaced
+     * by an integer 0 at the lookahead, so the expression around it can still be built and the parse can go on to
+     * find more errors, the same as Parser. Anything else leaves nothing in place of the nonterminal.
+     *
+     * @param nonterminal The index of the nonterminal
+     */
+    private void missing(int nonterminal) {
+        if (nonterminal == STATEMENT_BODY) error(Code.EXPECTED_STATEMENT, lexeme());
+        else error(Code.EXPECTED, GRAMMAR.name(nonterminal));
+        if (nonterminal == EXPRESSION || nonterminal == SIMPLE_EXPRESSION || nonterminal == TERM || nonterminal == FACTOR) {
+            ValueNode placeholder = new ValueNode("0", 0L);
+            placeholder.setSpan(lookaheadStart, lookaheadStart);
+            pushValue(placeholder);
+        } else {
+            pushValue(null);
+        }
+    }
+
+    /**
+     * Reads the array bound at the lookahead. A bound that isn't a whole number is reported and read as 0, and one
+     * that isn't a number at all is left for match to report, so the declaration can still be finished.
+     *
+     * @return The bound
+     */
+    private int arrayBound() {
+        if (lookaheadType != NUMBER) return 0;
+        try {
+            return Integer.parseInt(lexeme());
+        } catch (NumberFormatException ex) {
+            error(Code.EXPECTED, "integer");
+            return 0;
+        }
+    }
+
+    /**
+     * Checks the types of the arguments of a call against the types the function or procedure was declared with. The
+     * function is found by kind, so inside a function a recursive call isn't checked against the variable for its
+     * result. A call with more or fewer arguments than were declared, or to a name that isn't a function or
+     * procedure, is a mismatch too.
+     *
+     * @param name       The name of the function or procedure
+     * @param actualArgs The arguments of the call
+     * @param code       The error to report for a mismatch
+     */
+    private void checkArgs(String name, ArrayList<ExpressionNode> actualArgs, Code code) {
+        int id = symbolTable.idOfSubProgram(name);
+        List<Type> argTypes = id < 0 ? null : symbolTable.getArgs(id);
+        if (argTypes == null || argTypes.size() != actualArgs.size()) {
+            error(code, name);
+            return;
+        }
+        for (int i = 0; i < argTypes.size(); i++) {
+            if (argTypes.get(i) != actualArgs.get(i).getType()) error(code, name);
+        }
+    }
+
+    /**
+     * Runs a semantic action on the value stack.
+     *
+     * @param action The action
+     */
+    @SuppressWarnings("unchecked")
+    private void perform(Action action) {
+        switch (action) {
+            case MARK:
+                if (startCount == starts.length) starts = Arrays.copyOf(starts, startCount * 2);
+                starts[startCount++] = lookaheadStart;
+                break;
+            case SPAN:
+                span((SyntaxTreeNode) peek(), starts[--startCount]);
+                break;
+            case NAME:
+                pushValue(lexeme());
+                break;
+            case NEW_LIST:
+                pushValue(new ArrayList<>());
+                break;
+            case ADD: {
+                Object item = pop();
+                ((ArrayList<Object>) peek()).add(item);
+                break;
+            }
+            case ADD_ALL: {
+                ArrayList<Object> rest = (ArrayList<Object>) pop();
+                ((ArrayList<Object>) peek()).addAll(rest);
+                break;
+            }
+            case ADD_PROGRAM: {
+                String name = (String) pop();
+                if (!symbolTable.addProgram(name)) error(Code.PROGRAM_EXISTS);
+                pushValue(new ProgramNode(name));
+                break;
+            }
+            case SET_VARIABLES: {
+                DeclarationsNode dec = (DeclarationsNode) pop();
+                ((ProgramNode) peek()).setVariables(dec);
+                break;
+            }
+            case SET_FUNCTIONS: {
+                SubProgramDeclarationsNode spdNode = (SubProgramDeclarationsNode) pop();
+                ((ProgramNode) peek()).setFunctions(spdNode);
+                break;
+            }
+            case SET_MAIN: {
+                CompoundStatementNode comp = (CompoundStatementNode) pop();
+                ((ProgramNode) peek()).setMain(comp);
+                break;
+            }
+            case NEW_DECLARATIONS:
+                pushValue(new DeclarationsNode());
+                break;
+            case DECLARE: {
+                Type t = (Type) pop();
+                ArrayList<String> idList = (ArrayList<String>) pop();
+                DeclarationsNode dec = (DeclarationsNode) peek();
+                for (String id : idList) {
+                    dec.addVariable(new VariableNode(id, t));
+                }
+                break;
+            }
+            case ADD_DECLARATIONS: {
+                DeclarationsNode dec = (DeclarationsNode) pop();
+                ((DeclarationsNode) peek()).addDeclarations(dec);
+                break;
+            }
+            case NUMBER:
+                pushValue(arrayBound());
+                break;
+            case ADD_ARRAYS: {
+                Type t = (Type) pop();
+                int endidx = (Integer) pop();
+                int beginidx = (Integer) pop();
+                for (String id : (ArrayList<String>) peek()) {
+                    if (!symbolTable.addArray(id, t, beginidx, endidx)) error(Code.ALREADY_EXISTS, id);
+                }
+                pushValue(t);
+                break;
+            }
+            case ADD_VARIABLES: {
+                Type t = (Type) peek();
+                for (String id : (ArrayList<String>) values[valueCount - 2]) {
+                    if (!symbolTable.addVariable(id, t)) error(Code.ALREADY_EXISTS, id);
+                }
+                break;
+            }
+            case INTEGER:
+                pushValue(INTEGER);
+                break;
+            case REAL:
+                pushValue(REAL);
+                break;
+            case NEW_SUBPROGRAMS:
+                pushValue(new SubProgramDeclarationsNode());
+                break;
+            case ADD_SUBPROGRAM: {
+                SubProgramNode spNode = (SubProgramNode) pop();
+                ((SubProgramDeclarationsNode) peek()).addSubProgramDeclaration(spNode);
+                break;
+            }
+            case ADD_SUBPROGRAMS: {
+                SubProgramDeclarationsNode spdNode = (SubProgramDeclarationsNode) pop();
+                ((SubProgramDeclarationsNode) peek()).addall(spdNode.getProcs());
+                break;
+            }
+            case RETURN_TYPE: {
+                SubProgramNode spNode = (SubProgramNode) peek();
+                spNode.setReturnType(symbolTable.getType(spNode.getName()));
+                break;
+            }
+            case LOCAL_TABLE:
+                symbolTable.setLocalTable(((SubProgramNode) peek()).getName(), symbolTable.removeScope());
+                break;
+            case ADD_FUNCTION: {
+                String funcName = (String) pop();
+                if (!symbolTable.addFunction(funcName, null)) error(Code.ALREADY_EXISTS, funcName);
+                pushValue(new SubProgramNode(funcName));
+                break;
+            }
+            case ADD_PROCEDURE: {
+                String procName = (String) pop();
+                SubProgramNode spNode = new SubProgramNode(procName);
+                if (!symbolTable.addProcedure(procName)) error(Code.ALREADY_EXISTS, procName);
+                pushValue(spNode);
+                break;
+            }
+            case NEW_SCOPE:
+                symbolTable.addNewScope();
+                break;
+            case ARG_TYPES: {
+                String name = ((SubProgramNode) values[valueCount - 2]).getName();
+                ArrayList<Type> argTypes = new ArrayList<>();
+                for (VariableNode var : (ArrayList<VariableNode>) peek()) {
+                    argTypes.add(var.getType());
+                }
+                symbolTable.get(name).setArgs(argTypes);
+                break;
+            }
+            case FUNCTION_TYPE: {
+                Type t = (Type) pop();
+                ArrayList<VariableNode> args = (ArrayList<VariableNode>) pop();
+                SubProgramNode spNode = (SubProgramNode) peek();
+                String funcName = spNode.getName();
+                args.add(new VariableNode(funcName, t));
+                spNode.setArgs(args);
+                symbolTable.setType(funcName, t);
+                symbolTable.addVariable(funcName, t);
+                break;
+            }
+            case PROCEDURE_ARGS: {
+                ArrayList<VariableNode> args = (ArrayList<VariableNode>) pop();
+                ((SubProgramNode) peek()).setArgs(args);
+                break;
+            }
+            case PARAMETERS: {
+                Type t = (Type) pop();
+                ArrayList<String> idList = (ArrayList<String>) pop();
+                ArrayList<VariableNode> args = new ArrayList<>();
+                for (String id : idList) {
+                    args.add(new VariableNode(id, t));
+                }
+                pushValue(args);
+                break;
+            }
+            case NEW_COMPOUND:
+                pushValue(new CompoundStatementNode());
+                break;
+            case ADD_STATEMENT: {
+                StatementNode state = (StatementNode) pop();
+                ((CompoundStatementNode) peek()).addStatement(state);
+                break;
+            }
+            case SPAN_STATEMENT: {
+                int start = starts[--startCount];
+                if (peek() != null) span((StatementNode) peek(), start);
+                break;
+            }
+            case NEW_IF:
+                pushValue(new IfStatementNode());
+                break;
+            case NEW_WHILE:
+                pushValue(new WhileStatementNode());
+                break;
+            case SET_TEST: {
+                ExpressionNode test = (ExpressionNode) pop();
+                if (peek() instanceof IfStatementNode) ((IfStatementNode) peek()).setTest(test);
+                else ((WhileStatementNode) peek()).setTest(test);
+                break;
+            }
+            case SET_THEN: {
+                StatementNode state = (StatementNode) pop();
+                ((IfStatementNode) peek()).setThenStatement(state);
+                break;
+            }
+            case SET_ELSE: {
+                StatementNode state = (StatementNode) pop();
+                ((IfStatementNode) peek()).setElseStatement(state);
+                break;
+            }
+            case SET_DO: {
+                StatementNode state = (StatementNode) pop();
+                ((WhileStatementNode) peek()).setDoStatement(state);
+                break;
+            }
+            case READ_NAME: {
+                String varName = lexeme();
+                if (!symbolTable.isVariableName(varName)) error(Code.NOT_DECLARED, varName);
+                pushValue(varName);
+                break;
+            }
+            case READ:
+                pushValue(new ReadNode(new VariableNode((String) pop())));
+                break;
+            case WRITE:
+                pushValue(new WriteNode((ExpressionNode) pop()));
+                break;
+            case NEW_ASSIGNMENT:
+                pushValue(new AssignmentStatementNode());
+                break;
+            case SET_LVALUE: {
+                VariableNode varNode = (VariableNode) pop();
+                ((AssignmentStatementNode) peek()).setLvalue(varNode);
+                break;
+            }
+            case SET_EXPRESSION: {
+                ExpressionNode expNode = (ExpressionNode) pop();
+                AssignmentStatementNode assign = (AssignmentStatementNode) peek();
+                assign.setExpression(expNode);
+                VariableNode varNode = assign.getLValue();
+                if (varNode.getType() != expNode.getType()) error(Code.TYPE_MISMATCH, varNode.getName());
+                break;
+            }
+            case VARIABLE: {
+                String varName = lexeme();
+                int symbol = symbolTable.idOf(varName);
+                if (symbol < 0) error(Code.NOT_DECLARED, varName);
+                VariableNode var = symbolTable.isArrayName(varName) ? new ArrayNode(varName) : new VariableNode(varName);
+                var.setType(symbolTable.getType(symbol));
+                var.setSymbol(symbol);
+                pushValue(var);
+                break;
+            }
+            case SET_INDEX: {
+                ExpressionNode index = (ExpressionNode) pop();
+                ((ArrayNode) peek()).setExpNode(index);
+                break;
+            }
+            case NEW_CALL:
+                pushValue(new ProcedureStatementNode(lexeme()));
+                break;
+            case CALL_ARGS: {
+                ArrayList<ExpressionNode> expList = (ArrayList<ExpressionNode>) pop();
+                ProcedureStatementNode psNode = (ProcedureStatementNode) peek();
+                checkArgs(psNode.getName(), expList, Code.ARGUMENT_MISMATCH);
+                psNode.addAllExpNode(expList);
+                break;
+            }
+            case OPERATION:
+                pushValue(new OperationNode(lookaheadType));
+                break;
+            case RELATION: {
+                OperationNode opNode = (OperationNode) pop();
+                ExpressionNode left = (ExpressionNode) pop();
+                if (left.getType() == Type.REAL) opNode.setType(Type.REAL);
+                else opNode.setType(Type.INTEGER);
+                opNode.setLeft(left);
+                pushValue(opNode);
+                break;
+            }
+            case SET_LEFT: {
+                ExpressionNode right = (ExpressionNode) pop();
+                OperationNode op = (OperationNode) pop();
+                op.setLeft((ExpressionNode) pop());
+                pushValue(op);
+                pushValue(right);
+                break;
+            }
+            case SET_RIGHT: {
+                ExpressionNode right = (ExpressionNode) pop();
+                OperationNode op = (OperationNode) peek();
+                op.setRight(right);
+                span(op, op.getLeft().getStart());
+                break;
+            }
+            case SIGN:
+                pushValue(new UnaryOperationNode(lookaheadType));
+                break;
+            case SIGN_TYPE:
+                ((UnaryOperationNode) values[valueCount - 2]).setType(((ExpressionNode) peek()).getType());
+                break;
+            case SET_SIGN: {
+                ExpressionNode expNode = (ExpressionNode) pop();
+                ((UnaryOperationNode) peek()).setExpression(expNode);
+                break;
+            }
+            case FACTOR_NAME: {
+                String name = lexeme();
+                if (!symbolTable.doesExist(name)) undeclared(name);
+                pushValue(name);
+                break;
+            }
+            case ARRAY_NODE: {
+                String name = (String) pop();
+                ArrayNode aNode = new ArrayNode(name);
+                aNode.setType(symbolTable.getType(name));
+                pushValue(aNode);
+                break;
+            }
+            case FUNCTION_NODE: {
+                String name = (String) pop();
+                FunctionNode fNode = new FunctionNode(name);
+                fNode.setType(symbolTable.getType(name));
+                pushValue(fNode);
+                break;
+            }
+            case FUNCTION_ARGS: {
+                ArrayList<ExpressionNode> actualArgs = (ArrayList<ExpressionNode>) pop();
+                FunctionNode fNode = (FunctionNode) peek();
+                checkArgs(fNode.getName(), actualArgs, Code.CALL_MISMATCH);
+                fNode.setArgs(actualArgs);
+                break;
+            }
+            case VARIABLE_NODE: {
+                String name = (String) pop();
+                VariableNode vNode = new VariableNode(name);
+                vNode.setType(symbolTable.getType(name));
+                pushValue(vNode);
+                break;
+            }
+            case VALUE:
+                pushValue(number());
+                break;
+            case NOT:
+                pushValue(new UnaryOperationNode(NOT));
+                break;
+            case SET_NOT: {
+                ExpressionNode ex = (ExpressionNode) pop();
+                UnaryOperationNode uoNode = (UnaryOperationNode) peek();
+                uoNode.setExpression(ex);
+                uoNode.setType(ex.getType());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Pushes an encoded symbol on the parse stack.
+     *
+     * @param symbol The symbol
+     */
+    private void push(int symbol) {
+        if (symbolCount == symbols.length) symbols = Arrays.copyOf(symbols, symbolCount * 2);
+        symbols[symbolCount++] = symbol;
+    }
+
+    /**
+     * Pushes a value for the actions that follow.
+     *
+     * @param value The value
+     */
+    private void pushValue(Object value) {
+        if (valueCount == values.length) values = Arrays.copyOf(values, valueCount * 2);
+        values[valueCount++] = value;
+    }
+
+    /**
+     * Pops the value on top of the value stack.
+     *
+     * @return The value
+     */
+    private Object pop() {
+        Object value = values[--valueCount];
+        values[valueCount] = null;
+        return value;
+    }
+
+    /**
+     * Get the value on top of the value stack without popping it.
+     *
+     * @return The value
+     */
+    private Object peek() {
+        return values[valueCount - 1];
+    }
+
+    /**
+     * Matches the expected token. If the lookahead is the expected Type it is consumed, otherwise an error is printed
+     * and the lookahead is left for what comes next.
+     *
+     * @param expected The expected token type.
+     */
+    private void match(Type expected) {
+        if (lookaheadType == expected) {
+            advance();
+        } else {
+            error(Code.MATCH, expected, lookaheadType);
+        }
+    }
+
+    /**
+     * Moves the lookahead to the next token of the stream. The end of the stream is a lookahead with no type and the
+     * lexeme "End of File".
+     */
+    private void advance() {
+        lookaheadLexeme = null;
+        previousEnd = lookaheadEnd;
+        position++;
+        if (position < tokens.size()) {
+            lookaheadType = tokens.type(position);
+            lookaheadLine = tokens.line(position);
+            lookaheadStart = tokens.start(position);
+            lookaheadEnd = lookaheadStart + tokens.length(position);
+        } else {
+            position = tokens.size();
+            lookaheadType = null;
+            lookaheadLine = 0;
+            lookaheadStart = lookaheadEnd = previousEnd;
+        }
+    }
+
+    /**
+     * Sets the span of a node from where it started to the end of the last token matched.
+     *
+     * @param node  The node that was just parsed
+     * @param start Offset of the node's first token
+     */
+    private void span(SyntaxTreeNode node, int start) {
+        node.setSpan(start, Math.max(start, previousEnd));
+    }
+
+    /**
+     * Get the lexeme of the lookahead. The String is only created the first time it is asked for.
+     *
+     * @return The lexeme of the current token
+     */
+    private String lexeme() {
+        if (lookaheadLexeme == null) {
+            lookaheadLexeme = position < tokens.size() ? tokens.lexeme(position) : "End of File";
+        }
+        return lookaheadLexeme;
+    }
+
+    /**
+     * Creates a ValueNode for the NUMBER lookahead, with the value read straight from the token.
+     *
+     * @return A ValueNode holding the number
+     */
+    private ValueNode number() {
+        if (tokens.isReal(position)) return new ValueNode(lexeme(), tokens.doubleValue(position));
+        return new ValueNode(lexeme(), tokens.longValue(position));
+    }
+
+    /**
+     * Errors out of the parser. Adds an error at the lookahead to the Diagnostics, which prints it to standard error
+     * unless the errors are collected.
+     *
+     * @param code The kind of error
+     * @param args The arguments of the message
+     */
+    private void error(Code code, Object... args) {
+        diagnostics.error(code, lookaheadLine, lookaheadStart, lookaheadEnd, args);
+    }
+
+    /**
+     * Errors out of the parser for a name that was never declared and stops the parse by throwing Parser.Stop.
+     *
+     * @param name The name that has not been declared
+     * @throws Parser.Stop always
+     */
+    private void undeclared(String name) {
+        error(Code.NOT_DECLARED, name);
+        throw new Parser.Stop();
+    }
+
+    /**
+     * The semantic actions of the grammar, named in the rules by their lowercase names.
+     */
+    private enum Action {
+        MARK, SPAN, NAME, NEW_LIST, ADD, ADD_ALL, ADD_PROGRAM, SET_VARIABLES, SET_FUNCTIONS, SET_MAIN,
+        NEW_DECLARATIONS, DECLARE, ADD_DECLARATIONS, NUMBER, ADD_ARRAYS, ADD_VARIABLES, INTEGER, REAL,
+        NEW_SUBPROGRAMS, ADD_SUBPROGRAM, ADD_SUBPROGRAMS, RETURN_TYPE, LOCAL_TABLE, ADD_FUNCTION, ADD_PROCEDURE,
+        NEW_SCOPE, ARG_TYPES, FUNCTION_TYPE, PROCEDURE_ARGS, PARAMETERS, NEW_COMPOUND, ADD_STATEMENT, SPAN_STATEMENT,
+        NEW_IF, NEW_WHILE, SET_TEST, SET_THEN, SET_ELSE, SET_DO, READ_NAME, READ, WRITE, NEW_ASSIGNMENT, SET_LVALUE,
+        SET_EXPRESSION, VARIABLE, SET_INDEX, NEW_CALL, CALL_ARGS, OPERATION, RELATION, SET_LEFT, SET_RIGHT, SIGN,
+        SIGN_TYPE, SET_SIGN, FACTOR_NAME, ARRAY_NODE, FUNCTION_NODE, FUNCTION_ARGS, VARIABLE_NODE, VALUE, NOT, SET_NOT
+    }
+}
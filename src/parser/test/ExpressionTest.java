@@ -0,0 +1,138 @@
+package parser.test;
+
+import diagnostics.Diagnostics;
+import parser.Parser;
+import parser.TableParser;
+import scanner.Source;
+import scanner.TokenStream;
+import syntaxtree.AssignmentStatementNode;
+import syntaxtree.ExpressionNode;
+import syntaxtree.OperationNode;
+import syntaxtree.ProgramNode;
+import syntaxtree.UnaryOperationNode;
+import syntaxtree.ValueNode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class uses the JUnit framework to test how the Parser builds expressions. The trees must lean right the way
+ * the grammar rules build them, and expressions far too long or too deeply nested for a Java stack frame per
+ * operator must still parse.
+ */
+class ExpressionTest {
+
+    /**
+     * Tests the tree of an expression using every level of precedence: a sign, addops, mulops, parentheses, not and a
+     * relop, along with the span of the parenthesized part.
+     */
+    @org.junit.jupiter.api.Test
+    void expressionTree() {
+        System.out.println("-----test expression tree-----");
+        String program = "program p; var a, b, c: integer; begin a := -a + b * c - (c div 2) < a mod not b end .";
+        ExpressionNode expression = assignment(new Parser(program).program(), 0).getExpression();
+        String expected = "|-- Operation: LTHAN, Type: INTEGER\n" +
+                "|-- --- Unary Operation: MINUS, Type: INTEGER\n" +
+                "|-- --- --- Operation: PLUS, Type: INTEGER\n" +
+                "|-- --- --- --- Name: a, Type: INTEGER\n" +
+                "|-- --- --- --- Operation: MINUS, Type: INTEGER\n" +
+                "|-- --- --- --- --- Operation: ASTERISK, Type: INTEGER\n" +
+                "|-- --- --- --- --- --- Name: b, Type: INTEGER\n" +
+                "|-- --- --- --- --- --- Name: c, Type: INTEGER\n" +
+                "|-- --- --- --- --- Operation: DIV, Type: INTEGER\n" +
+                "|-- --- --- --- --- --- Name: c, Type: INTEGER\n" +
+                "|-- --- --- --- --- --- Value: 2, Type: INTEGER\n" +
+                "|-- --- Operation: MOD, Type: INTEGER\n" +
+                "|-- --- --- Name: a, Type: INTEGER\n" +
+                "|-- --- --- Unary Operation: NOT, Type: INTEGER\n" +
+                "|-- --- --- --- Name: b, Type: INTEGER\n";
+        assertEquals(expected, expression.indentedToString(1));
+
+        UnaryOperationNode sign = (UnaryOperationNode) ((OperationNode) expression).getLeft();
+        OperationNode minus = (OperationNode) ((OperationNode) sign.getExpression()).getRight();
+        ExpressionNode parenthesized = minus.getRight();
+        assertEquals("(c div 2)", program.substring(parenthesized.getStart(), parenthesized.getEnd()));
+        assertEquals("-a + b * c - (c div 2) < a mod not b", program.substring(expression.getStart(), expression.getEnd()));
+        System.out.println("Expression tree test PASSED.\n");
+    }
+
+    /**
+     * Tests that a sum of a hundred thousand terms and an expression nested twenty thousand deep in parentheses, array
+     * indexes and function calls parse on the normal thread stack.
+     */
+    @org.junit.jupiter.api.Test
+    void longExpressions() {
+        System.out.println("-----test long expressions-----");
+        int terms = 100_000;
+        int depth = 20_000;
+        StringBuilder program = new StringBuilder("program p; var x: integer; var b: array[0:9] of integer;\n");
+        program.append("function f(y: integer): integer; begin f := y end;\nbegin\nx := ");
+        for (int i = 0; i < terms; i++) {
+            program.append("x + ");
+        }
+        program.append("1;\nx := ");
+        for (int i = 0; i < depth; i++) {
+            program.append(i % 3 == 0 ? "(" : i % 3 == 1 ? "b[" : "f(");
+        }
+        program.append('x');
+        for (int i = depth - 1; i >= 0; i--) {
+            program.append(i % 3 == 0 ? ")" : i % 3 == 1 ? "]" : ")");
+        }
+        program.append("\nend\n.");
+
+        ProgramNode tree = new Parser(program.toString()).program();
+        ExpressionNode sum = assignment(tree, 0).getExpression();
+        int count = 1;
+        while (sum instanceof OperationNode) {
+            sum = ((OperationNode) sum).getRight();
+            count++;
+        }
+        assertEquals(terms + 1, count);
+        ExpressionNode nested = assignment(tree, 1).getExpression();
+        assertTrue(nested.getEnd() - nested.getStart() > depth * 2);
+        System.out.println("Long expression tests PASSED.\n");
+    }
+
+    /**
+     * Tests that expressions with a missing operand, or calls with the wrong number of arguments, are reported and
+     * the parse goes on to the statements after them, with Parser and TableParser alike.
+     */
+    @org.junit.jupiter.api.Test
+    void syntaxErrors() {
+        System.out.println("-----test expression syntax errors-----");
+        String program = "program p; var x: integer;\nfunction f(n: integer): integer; begin f := f(n) end;\n" +
+                "begin x := 1 +;\nx := (1 < );\nx := not;\nx := -;\nx := f();\nx := f(1, 2);\nx := 1 x := 2 end .";
+        String expected = "Error: factor Line: 3\n" +
+                "Error: simple_expression Line: 4\n" +
+                "Error: factor Line: 5\n" +
+                "Error: factor Line: 6\n" +
+                "Error: simple_expression Line: 7\n" +
+                "Error: Type mismatch for arguments of f Line: 8\n" +
+                "Error: Match of END found ID instead. Line: 9\n" +
+                "Error: Match of PERIOD found ID instead. Line: 9\n";
+        Parser parser = new Parser(program);
+        parser.setDiagnostics(new Diagnostics());
+        assertEquals(expected, parser.check().replace(System.lineSeparator(), "\n"));
+        TableParser tableParser = new TableParser(TokenStream.lex(Source.of(program)));
+        tableParser.setDiagnostics(new Diagnostics());
+        assertEquals(expected, tableParser.check().replace(System.lineSeparator(), "\n"));
+
+        // the placeholder for a missing operand keeps the expression around it whole
+        ProgramNode tree = new Parser(program).program();
+        OperationNode sum = (OperationNode) assignment(tree, 0).getExpression();
+        assertTrue(sum.getRight() instanceof ValueNode);
+        assertEquals(0, ((ValueNode) sum.getRight()).getLongValue());
+        System.out.println("Expression syntax error tests PASSED.\n");
+    }
+
+    /**
+     * Gets an assignment from the main body of a program.
+     *
+     * @param program The parsed program
+     * @param index   Which statement
+     * @return The assignment
+     */
+    private static AssignmentStatementNode assignment(ProgramNode program, int index) {
+        return (AssignmentStatementNode) program.getMain().getStatements().get(index);
+    }
+}
@@ -0,0 +1,123 @@
+package parser.test;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import compiler.ProgramGenerator;
+import diagnostics.Diagnostics;
+import parser.Parser;
+import scanner.Source;
+import scanner.TokenStream;
+import syntaxtree.ProgramNode;
+import syntaxtree.SubProgramNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class uses the JUnit framework to test lazy parsing of subprogram bodies. The symbol table must be complete
+ * without any body being parsed, and once the bodies are parsed everything must be the same as an eager parse.
+ */
+class LazyParseTest {
+
+    /**
+     * Parses generated programs lazily and eagerly and compares the symbol tables, trees and assembly code.
+     */
+    @org.junit.jupiter.api.Test
+    void sameAsEager() {
+        System.out.println("-----test lazy parse of generated programs-----");
+        for (int seed = 0; seed < 20; seed++) {
+            ProgramGenerator generator = new ProgramGenerator(seed);
+            generator.setLines(500);
+            generator.setNestingDepth(seed % 4);
+            TokenStream tokens = TokenStream.lex(Source.of(generator.generate()));
+
+            Parser eager = new Parser(tokens);
+            ProgramNode expected = eager.program();
+            Parser lazy = new Parser(tokens);
+            lazy.setLazy(true);
+            ProgramNode actual = lazy.program();
+
+            assertEquals(eager.getSymbolTable().toString(), lazy.getSymbolTable().toString());
+            for (SubProgramNode subprogram : actual.getFunctions().getProcs()) {
+                assertFalse(subprogram.isMainParsed());
+            }
+            assertEquals(expected.indentedToString(0), actual.indentedToString(0));
+            new CodeFolding().foldProgram(expected);
+            new CodeFolding().foldProgram(actual);
+            assertEquals(new CodeGeneration(expected, eager.getSymbolTable()).generateCode(),
+                    new CodeGeneration(actual, lazy.getSymbolTable()).generateCode());
+        }
+        System.out.println("All lazy parse tests PASSED.\n");
+    }
+
+    /**
+     * Tests that a body is only parsed, and its errors only reported, when it is asked for, and only once.
+     */
+    @org.junit.jupiter.api.Test
+    void parsedOnDemand() {
+        System.out.println("-----test lazy parse on demand-----");
+        String program = "program p; var x: integer; var r: real;\n" +
+                "function f(m: integer): integer; begin f := r; begin m := 1 end end;\n" +
+                "procedure q; begin x := 1 end;\nbegin x := 2 end .";
+        Parser parser = new Parser(TokenStream.lex(Source.of(program)));
+        parser.setLazy(true);
+        PrintStream err = System.err;
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errors));
+        try {
+            ProgramNode tree = parser.program();
+            assertEquals("", errors.toString());
+            assertEquals(1, parser.getSymbolTable().get("f").getArgs().size());
+            SubProgramNode f = tree.getFunctions().getProcs().get(0);
+            SubProgramNode q = tree.getFunctions().getProcs().get(1);
+            assertEquals("function f(m: integer): integer; begin f := r; begin m := 1 end end",
+                    program.substring(f.getStart(), f.getEnd()));
+
+            assertEquals(2, f.getMain().getStatements().size());
+            assertEquals("Error: type mismatch at f Line: 2" + System.lineSeparator(), errors.toString());
+            assertEquals("begin f := r; begin m := 1 end end",
+                    program.substring(f.getMain().getStart(), f.getMain().getEnd()));
+            assertTrue(f.isMainParsed());
+            assertFalse(q.isMainParsed());
+            f.getMain();
+            assertEquals("Error: type mismatch at f Line: 2" + System.lineSeparator(), errors.toString());
+        } finally {
+            System.setErr(err);
+        }
+        System.out.println("On demand test PASSED.\n");
+    }
+
+    /**
+     * Tests that a name that was never declared in a body parsed later throws out of getMain, every time it is asked
+     * for, and leaves its error in the Diagnostics of the parse instead of stopping the compiler.
+     */
+    @org.junit.jupiter.api.Test
+    void undeclaredName() {
+        System.out.println("-----test lazy parse of an undeclared name-----");
+        String program = "program p; var x: integer;\n" +
+                "procedure q; begin x := y end;\nprocedure s; begin x := 1 end;\nbegin x := 2 end .";
+        for (boolean parallel : new boolean[]{false, true}) {
+            Parser parser = new Parser(TokenStream.lex(Source.of(program)));
+            parser.setLazy(true);
+            if (parallel) parser.setPool(ForkJoinPool.commonPool());
+            Diagnostics diagnostics = new Diagnostics();
+            parser.setDiagnostics(diagnostics);
+            ProgramNode tree = parser.program();
+            assertTrue(diagnostics.isEmpty());
+
+            SubProgramNode q = tree.getFunctions().getProcs().get(0);
+            assertThrows(Parser.Stop.class, q::getMain);
+            assertEquals("Error: y has not been declared Line: 2" + System.lineSeparator(), diagnostics.toString());
+            assertThrows(Parser.Stop.class, q::getMain);
+            assertEquals(1, diagnostics.getErrorCount());
+            assertEquals(1, tree.getFunctions().getProcs().get(1).getMain().getStatements().size());
+        }
+        System.out.println("Lazy undeclared name test PASSED.\n");
+    }
+}
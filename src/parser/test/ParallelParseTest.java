@@ -0,0 +1,126 @@
+package parser.test;
+
+import compiler.ProgramGenerator;
+import parser.Parser;
+import scanner.Source;
+import scanner.TokenStream;
+import syntaxtree.ProgramNode;
+import syntaxtree.SubProgramNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class uses the JUnit framework to test parsing subprogram bodies in parallel. The tree, spans, symbol table and
+ * error messages must all be the same as when the program is parsed on one thread.
+ */
+class ParallelParseTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    /**
+     * Parses generated programs with nested subprograms and calls both ways and compares the results.
+     */
+    @org.junit.jupiter.api.Test
+    void generatedPrograms() {
+        System.out.println("-----test parallel parse of generated programs-----");
+        for (int seed = 0; seed < 20; seed++) {
+            ProgramGenerator generator = new ProgramGenerator(seed);
+            generator.setLines(500);
+            generator.setNestingDepth(seed % 4);
+            generator.setCallDensity((seed % 3) / 2.0);
+            assertSameParse(generator.generate());
+        }
+        System.out.println("All generated program tests PASSED.\n");
+    }
+
+    /**
+     * Tests that errors in headers and bodies are printed in source order, and that a body missing the ; after it
+     * is left to the usual error.
+     */
+    @org.junit.jupiter.api.Test
+    void errorsInOrder() {
+        System.out.println("-----test parallel parse errors-----");
+        String globals = "program p; var x, y: integer; var r: real;\n";
+        assertSameParse(globals + "function f(m: integer): integer; begin f := r end;\n" +
+                "procedure q; begin x := r; y := 1.5 end;\nprocedure f; begin x := 2 end;\n" +
+                "procedure z; var k: integer; procedure w; begin k := 2.5 end; begin k := 1 end;\nbegin x := 1 end .");
+        assertSameParse(globals + "function f(m: integer): integer; begin f := m end;\n" +
+                "procedure q; begin x := 1 end\nprocedure z; begin x := 1 end;\nbegin x := 1 end .");
+        System.out.println("All error tests PASSED.\n");
+    }
+
+    /**
+     * Tests that the subprograms keep their source order and spans.
+     */
+    @org.junit.jupiter.api.Test
+    void sourceOrder() {
+        System.out.println("-----test parallel parse order-----");
+        StringBuilder program = new StringBuilder("program p; var x: integer;\n");
+        for (int i = 0; i < 200; i++) {
+            program.append("procedure p").append(i).append("; begin x := ").append(i).append(" end;\n");
+        }
+        program.append("begin x := 0 end .");
+        Parser parser = new Parser(TokenStream.lex(Source.of(program.toString())));
+        parser.setPool(POOL);
+        ProgramNode tree = parser.program();
+        assertEquals(200, tree.getFunctions().getProcs().size());
+        for (int i = 0; i < 200; i++) {
+            SubProgramNode procedure = tree.getFunctions().getProcs().get(i);
+            assertEquals("p" + i, procedure.getName());
+            assertEquals("procedure p" + i + "; begin x := " + i + " end",
+                    program.substring(procedure.getStart(), procedure.getEnd()));
+        }
+        System.out.println("Order test PASSED.\n");
+    }
+
+    /**
+     * Parses a program on one thread and in parallel and checks that the tree, symbol table and errors are the same.
+     *
+     * @param program The program text
+     */
+    private static void assertSameParse(String program) {
+        TokenStream tokens = TokenStream.lex(Source.of(program));
+        assertEquals(parse(new Parser(tokens)), parse(parallel(tokens)));
+    }
+
+    /**
+     * Creates a parser that parses subprogram bodies on the test's pool.
+     *
+     * @param tokens The tokens to parse
+     * @return The parser
+     */
+    private static Parser parallel(TokenStream tokens) {
+        Parser parser = new Parser(tokens);
+        parser.setPool(POOL);
+        return parser;
+    }
+
+    /**
+     * Parses a program and describes the result.
+     *
+     * @param parser The parser to use
+     * @return The tree with the span of every subprogram, the symbol table and the errors printed
+     */
+    private static String parse(Parser parser) {
+        PrintStream err = System.err;
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errors));
+        StringBuilder result = new StringBuilder();
+        try {
+            ProgramNode tree = parser.program();
+            result.append(tree.indentedToString(0));
+            for (SubProgramNode procedure : tree.getFunctions().getProcs()) {
+                result.append(procedure.getStart()).append('-').append(procedure.getEnd()).append('\n');
+            }
+            result.append(tree.getFunctions().getEnd()).append('\n');
+            result.append(parser.getSymbolTable());
+        } finally {
+            System.setErr(err);
+        }
+        return result + "\n" + errors;
+    }
+}
@@ -0,0 +1,240 @@
+package parser.test;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import compiler.ProgramGenerator;
+import diagnostics.Diagnostics;
+import parser.ParseCache;
+import parser.Parser;
+import scanner.Source;
+import syntaxtree.ProgramNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class uses the JUnit framework to test the ParseCache class: hits and misses, copies, eviction, the disk tier,
+ * refused files and the errors of cached parses.
+ */
+class ParseCacheTest {
+
+    /**
+     * Tests that the second parse of a source is a hit that returns its own copy of the tree, and that compiling it
+     * more than once gives the same code as a fresh parse.
+     */
+    @org.junit.jupiter.api.Test
+    void memoryHits() {
+        System.out.println("-----test ParseCache memory hits-----");
+        ParseCache cache = new ParseCache(1 << 24);
+        String program = generate(1, 300);
+        ParseCache.Parsed first = cache.parse(program);
+        ParseCache.Parsed second = cache.parse(program);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertTrue(first.getProgram() != second.getProgram());
+        assertTrue(first.getSymbolTable() != second.getSymbolTable());
+        assertEquals(first.getProgram().indentedToString(0), second.getProgram().indentedToString(0));
+
+        Parser parser = new Parser(program);
+        ProgramNode tree = new CodeFolding().foldProgram(parser.program());
+        String expected = new CodeGeneration(tree, parser.getSymbolTable()).generateCode();
+        for (int i = 0; i < 2; i++) {
+            ParseCache.Parsed parsed = cache.parse(program);
+            new CodeFolding().foldProgram(parsed.getProgram());
+            assertEquals(expected, new CodeGeneration(parsed.getProgram(), parsed.getSymbolTable()).generateCode());
+        }
+        cache.parse(program + " ");
+        assertEquals(2, cache.getMisses());
+        System.out.println("Memory hit tests PASSED.\n");
+    }
+
+    /**
+     * Tests that the least recently used entries are evicted to stay under the size limit.
+     */
+    @org.junit.jupiter.api.Test
+    void eviction() {
+        System.out.println("-----test ParseCache eviction-----");
+        // the same program with a different comment at the end, so every entry is the same size
+        String program = generate(0, 200);
+        ParseCache single = new ParseCache(1 << 24);
+        single.parse(program + "{9}");
+        long entrySize = single.getBytes();
+
+        ParseCache cache = new ParseCache(entrySize * 3 + entrySize / 2);
+        for (int i = 0; i < 5; i++) {
+            cache.parse(program + "{" + i + "}");
+        }
+        assertEquals(2, cache.getEvictions());
+        assertEquals(3, cache.size());
+        assertTrue(cache.getBytes() <= entrySize * 3 + entrySize / 2);
+        cache.parse(program + "{4}");
+        cache.parse(program + "{0}");
+        assertEquals(1, cache.getHits());
+        assertEquals(6, cache.getMisses());
+        System.out.println("Eviction tests PASSED.\n");
+    }
+
+    /**
+     * Tests that a parse written to disk by one cache is read back by another with the same tree and symbol table.
+     *
+     * @throws IOException if the temporary directory can not be used
+     */
+    @org.junit.jupiter.api.Test
+    void diskTier() throws IOException {
+        System.out.println("-----test ParseCache disk tier-----");
+        Path directory = Files.createTempDirectory("parsecache");
+        try {
+            String program = generate(2, 300);
+            ParseCache.Parsed written = new ParseCache(1 << 24, directory).parse(program);
+            ParseCache cache = new ParseCache(1 << 24, directory);
+            ParseCache.Parsed read = cache.parse(program);
+            assertEquals(1, cache.getDiskHits());
+            assertEquals(0, cache.getMisses());
+            assertEquals(written.getProgram().indentedToString(0), read.getProgram().indentedToString(0));
+            assertEquals(written.getSymbolTable().toString(), read.getSymbolTable().toString());
+            cache.parse(program);
+            assertEquals(1, cache.getHits());
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.delete(directory);
+        }
+        System.out.println("Disk tier tests PASSED.\n");
+    }
+
+    /**
+     * Tests that folding the tree of one hit leaves the tree of the next hit as the parse made it.
+     */
+    @org.junit.jupiter.api.Test
+    void copies() {
+        System.out.println("-----test ParseCache copies-----");
+        String program = "program p; var x: integer; begin x := 2 + 3 * 4 end .";
+        ParseCache cache = new ParseCache(1 << 20);
+        String parsed = cache.parse(program).getProgram().indentedToString(0);
+        String folded = new CodeFolding().foldProgram(cache.parse(program).getProgram()).indentedToString(0);
+        assertNotEquals(parsed, folded);
+        assertEquals(parsed, cache.parse(program).getProgram().indentedToString(0));
+        assertEquals(2, cache.getHits());
+        System.out.println("Copy tests PASSED.\n");
+    }
+
+    /**
+     * Tests that a file in the directory holding a class that is not part of a parse is refused without creating it,
+     * deleted, and parsed again.
+     *
+     * @throws IOException if the temporary directory can not be used
+     */
+    @org.junit.jupiter.api.Test
+    void refused() throws IOException {
+        System.out.println("-----test ParseCache refused file-----");
+        Path directory = Files.createTempDirectory("parsecache");
+        try {
+            String program = generate(3, 50);
+            new ParseCache(1 << 20, directory).parse(program);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(new HashSet<>(Collections.singleton(new Date())));
+            }
+            Path file;
+            try (Stream<Path> files = Files.list(directory)) {
+                file = files.findFirst().orElseThrow(IllegalStateException::new);
+            }
+            Files.write(file, bytes.toByteArray());
+
+            ParseCache cache = new ParseCache(1 << 20, directory);
+            ParseCache.Parsed parsed = cache.parse(program);
+            assertEquals(0, cache.getDiskHits());
+            assertEquals(1, cache.getMisses());
+            assertEquals(new Parser(program).program().indentedToString(0), parsed.getProgram().indentedToString(0));
+            // the parse replaced the refused file
+            ParseCache again = new ParseCache(1 << 20, directory);
+            again.parse(program);
+            assertEquals(1, again.getDiskHits());
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.delete(directory);
+        }
+        System.out.println("Refused file tests PASSED.\n");
+    }
+
+    /**
+     * Tests that a hit adds the same errors to the caller's Diagnostics as the parse did, and that the cache prints
+     * none of them itself.
+     */
+    @org.junit.jupiter.api.Test
+    void errors() {
+        System.out.println("-----test ParseCache errors-----");
+        String program = "program p; var x: integer; var r: real; begin x := r; x := 1 end .";
+        ParseCache cache = new ParseCache(1 << 20);
+        Parser parser = new Parser(program);
+        Diagnostics expected = new Diagnostics();
+        parser.setDiagnostics(expected);
+        parser.program();
+        assertEquals(1, expected.getErrorCount());
+        PrintStream err = System.err;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(printed));
+        try {
+            for (int i = 0; i < 2; i++) {
+                Diagnostics diagnostics = new Diagnostics();
+                ParseCache.Parsed parsed = cache.parse(Source.of(program), diagnostics);
+                assertEquals(expected.toString(), diagnostics.toString());
+                assertEquals(expected.getDiagnostics().get(0).getCode(), diagnostics.getDiagnostics().get(0).getCode());
+                assertEquals(1, parsed.getDiagnostics().size());
+            }
+            assertEquals(1, cache.getHits());
+            assertEquals("", printed.toString());
+        } finally {
+            System.setErr(err);
+        }
+        System.out.println("Error tests PASSED.\n");
+    }
+
+    /**
+     * Tests that a program using a name that was never declared adds its errors to the caller's Diagnostics and
+     * throws Stop instead of stopping the compiler, and is parsed again every time since it is not cached.
+     */
+    @org.junit.jupiter.api.Test
+    void undeclared() {
+        System.out.println("-----test ParseCache undeclared name-----");
+        String program = "program p; var x: integer; begin x := 1;\ny := x end .";
+        ParseCache cache = new ParseCache(1 << 20);
+        for (int i = 1; i <= 2; i++) {
+            Diagnostics diagnostics = new Diagnostics();
+            assertThrows(Parser.Stop.class, () -> cache.parse(Source.of(program), diagnostics));
+            assertEquals("Error: y has not been declared Line: 2" + System.lineSeparator(), diagnostics.toString());
+            assertEquals(i, cache.getMisses());
+            assertEquals(0, cache.size());
+        }
+        System.out.println("Undeclared name tests PASSED.\n");
+    }
+
+    /**
+     * Generates a program.
+     *
+     * @param seed  The seed
+     * @param lines About how many lines
+     * @return The program text
+     */
+    private static String generate(long seed, int lines) {
+        ProgramGenerator generator = new ProgramGenerator(seed);
+        generator.setLines(lines);
+        return generator.generate();
+    }
+}
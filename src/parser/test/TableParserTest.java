@@ -0,0 +1,172 @@
+package parser.test;
+
+import compiler.ProgramGenerator;
+import parser.Parser;
+import parser.TableParser;
+import scanner.Source;
+import scanner.TokenStream;
+import symboltable.SymbolTable;
+import syntaxtree.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class uses the JUnit framework to test the TableParser class. Every program must give the same tree, spans,
+ * symbol table and error messages as the recursive descent Parser, and nesting must not be limited by the Java stack.
+ */
+class TableParserTest {
+
+    /**
+     * Parses the sample programs with both parsers and compares the results.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @org.junit.jupiter.api.Test
+    void samplePrograms() throws IOException {
+        System.out.println("-----test TableParser sample programs-----");
+        File[] samples = new File("src/pascalfiles").listFiles((dir, name) -> name.endsWith(".pas"));
+        assertTrue(samples != null && samples.length > 0);
+        for (File sample : samples) {
+            assertSameParse(new String(Files.readAllBytes(sample.toPath())));
+        }
+        System.out.println("All sample program tests PASSED.\n");
+    }
+
+    /**
+     * Parses generated programs with nested subprograms, calls and deep expressions with both parsers.
+     */
+    @org.junit.jupiter.api.Test
+    void generatedPrograms() {
+        System.out.println("-----test TableParser generated programs-----");
+        for (int seed = 0; seed < 20; seed++) {
+            ProgramGenerator generator = new ProgramGenerator(seed);
+            generator.setLines(500);
+            generator.setNestingDepth(seed % 4);
+            generator.setExpressionDepth(seed % 8);
+            generator.setCallDensity((seed % 3) / 2.0);
+            assertSameParse(generator.generate());
+        }
+        System.out.println("All generated program tests PASSED.\n");
+    }
+
+    /**
+     * Tests that type errors, names declared twice and syntax errors give the same messages as Parser.
+     */
+    @org.junit.jupiter.api.Test
+    void errors() {
+        System.out.println("-----test TableParser errors-----");
+        String globals = "program p; var x, y: integer; var r: real; var a: array[0:9] of integer;\n";
+        assertSameParse(globals + "function f(m: integer): integer; begin f := r end;\n" +
+                "procedure q(k: real); begin x := r; y := 1.5 end;\nprocedure f; begin x := 2 end;\n" +
+                "begin q(1); x := f(2.5); read(z); x := a[1 end .");
+        assertSameParse(globals + "var x: real;\nbegin if x < 1 then y := 1 else y := 2.5; while y do begin x := (1 end end");
+        assertSameParse(globals + "begin x := x + (-y) * (r < 1); a[2] := not x; y := r end .");
+        System.out.println("All error tests PASSED.\n");
+    }
+
+    /**
+     * Parses deeply nested statements and parentheses on a thread with a small stack.
+     *
+     * @throws InterruptedException if the thread is interrupted
+     */
+    @org.junit.jupiter.api.Test
+    void deepNesting() throws InterruptedException {
+        System.out.println("-----test TableParser deep nesting-----");
+        int depth = 100000;
+        StringBuilder program = new StringBuilder("program p; var x: integer; begin ");
+        for (int i = 0; i < depth; i++) program.append("while x < 1 do begin ");
+        program.append("x := ");
+        for (int i = 0; i < depth; i++) program.append('(');
+        program.append('1');
+        for (int i = 0; i < depth; i++) program.append(')');
+        for (int i = 0; i < depth; i++) program.append(" end");
+        program.append(" end .");
+
+        ProgramNode[] tree = new ProgramNode[1];
+        Thread thread = new Thread(null, () -> tree[0] = new TableParser(program.toString()).program(), "deep", 1 << 18);
+        thread.start();
+        thread.join();
+
+        StatementNode statement = tree[0].getMain().getStatements().get(0);
+        int whiles = 0;
+        while (statement instanceof WhileStatementNode) {
+            whiles++;
+            statement = ((CompoundStatementNode) ((WhileStatementNode) statement).getDo()).getStatements().get(0);
+        }
+        assertEquals(depth, whiles);
+        AssignmentStatementNode assign = (AssignmentStatementNode) statement;
+        assertEquals(program.indexOf("("), assign.getExpression().getStart());
+        assertEquals(program.lastIndexOf(")") + 1, assign.getExpression().getEnd());
+        System.out.println("Deep nesting test PASSED.\n");
+    }
+
+    /**
+     * Parses a program with both parsers and checks that the tree, spans, symbol table and errors are the same.
+     *
+     * @param program The program text
+     */
+    private static void assertSameParse(String program) {
+        TokenStream tokens = TokenStream.lex(Source.of(program));
+        Parser parser = new Parser(tokens);
+        TableParser tableParser = new TableParser(tokens);
+        assertEquals(parse(parser::program, parser::getSymbolTable), parse(tableParser::program, tableParser::getSymbolTable));
+    }
+
+    /**
+     * Parses a program and describes the result.
+     *
+     * @param program     Parses the program
+     * @param symbolTable Gets the symbol table after the parse
+     * @return The tree with the span of every statement and subprogram, the symbol table and the errors printed
+     */
+    private static String parse(Supplier<ProgramNode> program, Supplier<SymbolTable> symbolTable) {
+        PrintStream err = System.err;
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errors));
+        StringBuilder result = new StringBuilder();
+        try {
+            ProgramNode tree = program.get();
+            result.append(tree.indentedToString(0));
+            for (SubProgramNode procedure : tree.getFunctions().getProcs()) {
+                result.append(procedure.getStart()).append('-').append(procedure.getEnd()).append('\n');
+                spans(procedure.getMain(), result);
+            }
+            spans(tree.getMain(), result);
+            result.append(tree.getVariables().getEnd()).append(' ').append(tree.getFunctions().getEnd()).append('\n');
+            result.append(symbolTable.get());
+        } finally {
+            System.setErr(err);
+        }
+        return result + "\n" + errors;
+    }
+
+    /**
+     * Describes the spans of a compound statement and the statements and expressions in it.
+     *
+     * @param compound The compound statement
+     * @param result   Where the spans are added
+     */
+    private static void spans(CompoundStatementNode compound, StringBuilder result) {
+        result.append(compound.getStart()).append('-').append(compound.getEnd()).append('\n');
+        for (StatementNode statement : compound.getStatements()) {
+            if (statement == null) continue;
+            result.append(statement.getStart()).append('-').append(statement.getEnd()).append(' ');
+            if (statement instanceof AssignmentStatementNode) {
+                AssignmentStatementNode assign = (AssignmentStatementNode) statement;
+                result.append(assign.getLValue().getStart()).append(' ').append(assign.getExpression().getStart())
+                        .append('-').append(assign.getExpression().getEnd());
+            } else if (statement instanceof CompoundStatementNode) {
+                spans((CompoundStatementNode) statement, result);
+            }
+            result.append('\n');
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package scanner;
+
+/**
+ * The character class table of MyScanner, which translates each character to the column of ZZ_TRANS the scanner
+ * looks at next. JFlex unpacks the packed table into one char for every Unicode code point, over 2 MB, when the
+ * scanner class is loaded. This table keeps a 128 entry byte table for ASCII, unpacked when it is created, and splits
+ * everything else into blocks of 256 characters where the blocks that only map to class 0 share one array. The blocks
+ * are only unpacked the first time a character outside ASCII is looked up.
+ * <p>
+ * MyScanner creates it from the packed string JFlex generates, see Scanner.flex for the lines of MyScanner that use it
+ * in place of the generated table. *package-private*
+ */
+final class CharClasses {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private final String packed;
+    private final byte[] ascii;
+    private volatile char[][] blocks;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates the table from the packed character translation table of a generated scanner: pairs of a run length and
+     * a character class, covering every code point in order. *package-private*
+     *
+     * @param packed The packed character translation table
+     */
+    CharClasses(String packed) {
+        this.packed = packed;
+        this.ascii = unpackAscii(packed);
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Translates a character to its character class. *package-private*
+     *
+     * @param input The code point of the character
+     * @return The character class
+     */
+    int get(int input) {
+        if (input < 128) return ascii[input];
+        char[][] table = blocks;
+        if (table == null) table = unpackBlocks();
+        return table[input >> 8][input & 0xFF];
+    }
+
+    /**
+     * Unpacks the ASCII part of the packed table.
+     *
+     * @param packed The packed character translation table
+     * @return The character classes of the first 128 characters
+     */
+    private static byte[] unpackAscii(String packed) {
+        byte[] map = new byte[128];
+        int i = 0;  /* index in packed string  */
+        int j = 0;  /* index in unpacked array */
+        while (j < 128) {
+            int count = packed.charAt(i++);
+            byte value = (byte) packed.charAt(i++);
+            do map[j++] = value; while (--count > 0 && j < 128);
+        }
+        return map;
+    }
+
+    /**
+     * Unpacks the whole packed table into blocks of 256 characters, once. Runs of class 0 are skipped, so blocks that
+     * are never written keep pointing at the shared empty block.
+     *
+     * @return The blocks of the table, indexed by the character shifted right 8 bits
+     */
+    private synchronized char[][] unpackBlocks() {
+        if (blocks != null) return blocks;
+        char[][] table = new char[0x1100][];
+        java.util.Arrays.fill(table, new char[256]);
+        char[] empty = table[0];
+        int i = 0;  /* index in packed string  */
+        int j = 0;  /* index in unpacked table */
+        int l = packed.length();
+        while (i < l) {
+            int count = packed.charAt(i++);
+            char value = packed.charAt(i++);
+            if (value == 0) {
+                j += count;
+                continue;
+            }
+            do {
+                if (table[j >> 8] == empty) table[j >> 8] = new char[256];
+                table[j >> 8][j & 0xFF] = value;
+                j++;
+            } while (--count > 0);
+        }
+        return blocks = table;
+    }
+}
@@ -0,0 +1,207 @@
+package scanner;
+
+import java.io.IOException;
+
+/**
+ * This class updates a TokenStream after an edit to its Source without scanning the whole file again. Scanning
+ * restarts at the end of the last token before the edit, which is never inside a { } comment, and stops as soon as
+ * the scanner starts a token at the same place as an old token after the edit. From there on the text is unchanged,
+ * so the rest of the old tokens are reused with their offsets and line numbers moved.
+ * <p>
+ * An edit that adds or removes a brace can reach back further, since it can close a { that used to be left open or
+ * open one that used to be closed; then the text is searched back for the nearest { and scanning restarts before it.
+ * <p>
+ * Only the scanning is bounded by the edit, not the whole update. A Source is one char array that MyScanner scans in
+ * place, and a TokenStream keeps the absolute offset and line of every token, so every edit still copies the whole
+ * text into a new Source and copies the token arrays into a new TokenStream, adding the change in length and lines to
+ * every token after the edit. That part grows with the size of the file; it is a few array copies and one pass over
+ * the offsets and lines, much cheaper than scanning the file again but not free. IncrementalLexerBenchmark measures
+ * both against a full scan.
+ */
+public final class IncrementalLexer {
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Only static methods, never instantiated.
+     */
+    private IncrementalLexer() {
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Applies an edit to the Source of a TokenStream and scans again only the tokens the edit can have changed. The
+     * time taken grows with the size of the file as well as with the size of the edit, see the class comment.
+     *
+     * @param previous      The tokens of the text before the edit
+     * @param offset        Offset of the edit in the old text
+     * @param removedLength Number of characters removed at offset
+     * @param inserted      The text inserted at offset
+     * @return The new tokens and the range of them that changed
+     */
+    public static Result relex(TokenStream previous, int offset, int removedLength, String inserted) {
+        Source source = previous.getSource().replace(offset, removedLength, inserted);
+        int delta = inserted.length() - removedLength;
+        int editEnd = offset + inserted.length();
+
+        // The scanner reads up to two characters past the end of a token before giving up on a longer number, as in
+        // "12E+", so a token that ends that close to the edit may change even though none of its characters did
+        int first = firstEndingAfter(previous, offset - 3);
+        if (hasBrace(inserted, 0, inserted.length()) || hasBrace(previous.getSource(), offset, offset + removedLength)) {
+            // A { scans up to the next brace, as a comment if that is a } or as a bad character if not, so adding or
+            // removing a brace can change how the nearest { before the edit scans. Restart before that { if there is one
+            int open = openBrace(previous.getSource(), offset);
+            if (open >= 0) first = Math.min(first, firstEndingAfter(previous, open));
+        }
+        int restart = first == 0 ? 0 : previous.start(first - 1) + previous.length(first - 1);
+        int restartLine = first == 0 ? 1 : previous.line(first - 1);
+
+        TokenStream stream = new TokenStream(source, previous.size() + 16);
+        stream.addAll(previous, 0, first, 0, 0);
+
+        MyScanner scanner = new MyScanner(source, restart, restartLine);
+        scanner.positionsOnly = true;
+        int oldEnd = previous.size();
+        int lineDelta = 0;
+        try {
+            Token token = scanner.nextToken();
+            while (token != null) {
+                int start = scanner.getTokenStart();
+                if (start >= editEnd) {
+                    int match = previous.indexOfStart(start - delta, first);
+                    if (match >= 0) {
+                        oldEnd = match;
+                        lineDelta = scanner.getLineNumber() - previous.line(match);
+                        break;
+                    }
+                }
+                stream.add(token.getType(), start, scanner.yylength(), scanner.getLineNumber());
+                token = scanner.nextToken();
+            }
+        } catch (IOException ex) {
+            // A Source is already in memory, the scanner never reads from a Reader
+            throw new IllegalStateException(ex);
+        }
+        int newEnd = stream.size();
+        stream.addAll(previous, oldEnd, previous.size(), delta, lineDelta);
+        return new Result(stream, first, oldEnd, newEnd);
+    }
+
+    /**
+     * Finds the first token that ends after an offset.
+     *
+     * @param tokens The tokens to search
+     * @param offset The offset
+     * @return The index of the first token whose last character is at or after offset, or size() if there is none
+     */
+    private static int firstEndingAfter(TokenStream tokens, int offset) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.start(middle) + tokens.length(middle) <= offset) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Determines whether part of some text contains a { or a }.
+     *
+     * @param text  The text to search
+     * @param start Offset of the first character to search
+     * @param end   Offset after the last character to search
+     * @return True if there is a brace between start and end, false otherwise
+     */
+    private static boolean hasBrace(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '{' || c == '}') return true;
+        }
+        return false;
+    }
+
+    /**
+     * Looks back from an offset for the nearest brace.
+     *
+     * @param source The text to search
+     * @param offset The offset to look back from
+     * @return The offset of the nearest brace if it is a {, or -1 if it is a } or there is none
+     */
+    private static int openBrace(Source source, int offset) {
+        char[] text = source.getText();
+        for (int i = offset - 1; i >= 0; i--) {
+            if (text[i] == '}') return -1;
+            if (text[i] == '{') return i;
+        }
+        return -1;
+    }
+
+    /**
+     * The outcome of an incremental scan. Tokens first to oldEnd of the old stream were replaced by tokens first to
+     * newEnd of the new one, every other token is the same apart from its offset and line number.
+     */
+    public static final class Result {
+
+        private final TokenStream tokens;
+        private final int first;
+        private final int oldEnd;
+        private final int newEnd;
+
+        /**
+         * Creates a Result
+         *
+         * @param tokens The tokens of the edited text
+         * @param first  Index of the first changed token
+         * @param oldEnd Index after the last replaced token in the old stream
+         * @param newEnd Index after the last new token in the new stream
+         */
+        Result(TokenStream tokens, int first, int oldEnd, int newEnd) {
+            this.tokens = tokens;
+            this.first = first;
+            this.oldEnd = oldEnd;
+            this.newEnd = newEnd;
+        }
+
+        /**
+         * Get the tokens of the edited text
+         *
+         * @return The new TokenStream
+         */
+        public TokenStream getTokens() {
+            return tokens;
+        }
+
+        /**
+         * Get the index of the first changed token, the same in the old and the new stream
+         *
+         * @return The index of the first changed token
+         */
+        public int getFirst() {
+            return first;
+        }
+
+        /**
+         * Get the end of the replaced tokens in the old stream
+         *
+         * @return The index after the last replaced token
+         */
+        public int getOldEnd() {
+            return oldEnd;
+        }
+
+        /**
+         * Get the end of the new tokens in the new stream
+         *
+         * @return The index after the last new token
+         */
+        public int getNewEnd() {
+            return newEnd;
+        }
+    }
+}
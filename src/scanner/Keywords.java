@@ -0,0 +1,137 @@
+package scanner;
+
+/**
+ * This class decides whether an identifier lexeme is a Mini-Pascal keyword. The keyword set is fixed, so instead of a
+ * HashMap the lookup switches on the length and first character of the lexeme and then compares the remaining
+ * characters of the one or two candidates. The lexeme is read straight from the scanner buffer, no String is created.
+ * <p>
+ * Keywords are case sensitive and written in lower case.
+ */
+public final class Keywords {
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Only static methods, never instantiated.
+     */
+    private Keywords() {
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Classifies an identifier lexeme.
+     *
+     * @param buffer The buffer holding the lexeme
+     * @param start  Offset of the first character of the lexeme
+     * @param length Number of characters in the lexeme
+     * @return The keyword Type, or null if the lexeme is not a keyword
+     */
+    public static Type lookup(char[] buffer, int start, int length) {
+        switch (length) {
+            case 2:
+                switch (buffer[start]) {
+                    case 'd':
+                        return rest(buffer, start, "do", Type.DO);
+                    case 'i':
+                        return rest(buffer, start, "if", Type.IF);
+                    case 'o':
+                        char second = buffer[start + 1];
+                        if (second == 'f') return Type.OF;
+                        if (second == 'r') return Type.OR;
+                        return null;
+                    default:
+                        return null;
+                }
+            case 3:
+                switch (buffer[start]) {
+                    case 'a':
+                        return rest(buffer, start, "and", Type.AND);
+                    case 'd':
+                        return rest(buffer, start, "div", Type.DIV);
+                    case 'e':
+                        return rest(buffer, start, "end", Type.END);
+                    case 'm':
+                        return rest(buffer, start, "mod", Type.MOD);
+                    case 'n':
+                        return rest(buffer, start, "not", Type.NOT);
+                    case 'v':
+                        return rest(buffer, start, "var", Type.VAR);
+                    default:
+                        return null;
+                }
+            case 4:
+                switch (buffer[start]) {
+                    case 'e':
+                        return rest(buffer, start, "else", Type.ELSE);
+                    case 'r':
+                        // real and read only differ in the last character
+                        if (buffer[start + 1] != 'e' || buffer[start + 2] != 'a') return null;
+                        if (buffer[start + 3] == 'l') return Type.REAL;
+                        if (buffer[start + 3] == 'd') return Type.READ;
+                        return null;
+                    case 't':
+                        return rest(buffer, start, "then", Type.THEN);
+                    default:
+                        return null;
+                }
+            case 5:
+                switch (buffer[start]) {
+                    case 'a':
+                        return rest(buffer, start, "array", Type.ARRAY);
+                    case 'b':
+                        return rest(buffer, start, "begin", Type.BEGIN);
+                    case 'w':
+                        if (buffer[start + 1] == 'h') return rest(buffer, start, "while", Type.WHILE);
+                        return rest(buffer, start, "write", Type.WRITE);
+                    default:
+                        return null;
+                }
+            case 7:
+                switch (buffer[start]) {
+                    case 'i':
+                        return rest(buffer, start, "integer", Type.INTEGER);
+                    case 'p':
+                        return rest(buffer, start, "program", Type.PROGRAM);
+                    default:
+                        return null;
+                }
+            case 8:
+                return buffer[start] == 'f' ? rest(buffer, start, "function", Type.FUNCTION) : null;
+            case 9:
+                return buffer[start] == 'p' ? rest(buffer, start, "procedure", Type.PROCEDURE) : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Classifies a lexeme held in a String.
+     *
+     * @param lexeme An identifier lexeme
+     * @return The keyword Type, or null if the lexeme is not a keyword
+     */
+    public static Type lookup(String lexeme) {
+        return lookup(lexeme.toCharArray(), 0, lexeme.length());
+    }
+
+    /**
+     * Compares the characters after the first one with a keyword of the same length.
+     *
+     * @param buffer  The buffer holding the lexeme
+     * @param start   Offset of the first character of the lexeme
+     * @param keyword The candidate keyword, already known to have the same length and first character
+     * @param type    The Type of the keyword
+     * @return type if the lexeme is the keyword, null otherwise
+     */
+    private static Type rest(char[] buffer, int start, String keyword, Type type) {
+        for (int i = 1; i < keyword.length(); i++) {
+            if (buffer[start + i] != keyword.charAt(i)) return null;
+        }
+        return type;
+    }
+}
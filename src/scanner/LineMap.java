@@ -0,0 +1,108 @@
+package scanner;
+
+import java.util.Arrays;
+
+/**
+ * This class records the offset each line of a source starts at. The scanner adds an entry every time it passes a
+ * line break, so tokens and syntax tree nodes only need to keep offsets. The line and column of an offset are found
+ * when they are needed by a binary search over the line starts.
+ * <p>
+ * Lines and columns are numbered from 1, offsets from 0.
+ */
+public final class LineMap {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private int[] starts;
+    private int count;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a LineMap with only line 1, which starts at offset 0.
+     */
+    public LineMap() {
+        starts = new int[64];
+        count = 1;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Builds the LineMap of a whole text without scanning it.
+     *
+     * @param text The text to find the line breaks in
+     * @return The LineMap of the text
+     */
+    public static LineMap of(Source text) {
+        LineMap map = new LineMap();
+        char[] chars = text.getText();
+        for (int i = 0; i < text.length(); i++) {
+            if (chars[i] == '\n') map.add(i + 1);
+        }
+        return map;
+    }
+
+    /**
+     * Records the start of the next line.
+     *
+     * @param offset Offset of the first character after the line break
+     */
+    void add(int offset) {
+        if (count == starts.length) starts = Arrays.copyOf(starts, count * 2);
+        starts[count++] = offset;
+    }
+
+    /**
+     * Get the number of lines recorded
+     *
+     * @return The number of lines
+     */
+    public int lineCount() {
+        return count;
+    }
+
+    /**
+     * Get the offset a line starts at
+     *
+     * @param line A line number from 1 to lineCount()
+     * @return The offset of the first character of the line
+     */
+    public int lineStart(int line) {
+        return starts[line - 1];
+    }
+
+    /**
+     * Finds the line an offset is on.
+     *
+     * @param offset An offset in the source
+     * @return The line number of the offset
+     */
+    public int line(int offset) {
+        int low = 0;
+        int high = count - 1;
+        // Find the last line that starts at or before offset
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= offset) low = middle;
+            else high = middle - 1;
+        }
+        return low + 1;
+    }
+
+    /**
+     * Finds the column an offset is at.
+     *
+     * @param offset An offset in the source
+     * @return The column of the offset in its line
+     */
+    public int column(int offset) {
+        return offset - starts[line(offset) - 1] + 1;
+    }
+}
@@ -1,4 +1,5 @@
 /* The following code was generated by JFlex 1.6.1 */
+/* A few lines were then changed by hand to read the character class table through CharClasses, see Scanner.flex */
 
 /**
  * Bob Laskowski,
@@ -11,9 +12,8 @@
 
 package scanner;
 
-/* Import statements */
-
-import java.util.HashMap;
+import diagnostics.Diagnostics;
+import diagnostics.Diagnostics.Code;
 
 /**
  * This class is a scanner generated by
@@ -50,7 +50,7 @@ public class MyScanner {
     /**
      * Translates characters to character classes
      */
-    private static final char[] ZZ_CMAP = zzUnpackCMap(ZZ_CMAP_PACKED);
+    private static final CharClasses ZZ_CMAP = new CharClasses(ZZ_CMAP_PACKED);
     private static final String ZZ_ACTION_PACKED_0 = "\1\0\1\1\1\2\1\3\1\4\3\5\1\1\3\0" + "\2\4\1\0";
     /**
      * Translates DFA states to action switch labels.
@@ -78,6 +78,8 @@ public class MyScanner {
      */
     private static final int[] ZZ_ATTRIBUTE = zzUnpackAttribute();
     int lineNumber = 1;
+    // Offsets of the line starts passed so far, null when scanning starts in the middle of a Source
+    private LineMap lineMap = new LineMap();
     /**
      * the input device
      */
@@ -145,8 +147,17 @@ public class MyScanner {
      */
     private int zzFinalHighSurrogate = 0;
     /* user code: */
-    // Hash map to hold all token types for lookup
-    private HashMap<String, Type> tokenTypes;
+    // The whole input when scanning a Source, null when reading from a Reader
+    private Source source;
+    // The scan buffer for Readers, kept while scanning a Source so a reset can go back to it
+    private char[] readerBuffer;
+    // Set when building a TokenStream, which only needs the Type and position of IDs and NUMBERs *package-private*
+    boolean positionsOnly;
+    // Set by ParallelLexer to collect the offset and line of each bad character instead of printing it *package-private*
+    int[] badCharacters;
+    int badCharacterCount;
+    // Collects the bad characters as errors instead of printing them when set
+    private Diagnostics diagnostics;
 
     /**
      * Creates a new scanner
@@ -154,51 +165,201 @@ public class MyScanner {
      * @param in the java.io.Reader to read input from.
      */
     public MyScanner(java.io.Reader in) {
-        tokenTypes = new HashMap<>();
-        tokenTypes.put("and", Type.AND);
-        tokenTypes.put("array", Type.ARRAY);
-        tokenTypes.put("begin", Type.BEGIN);
-        tokenTypes.put("div", Type.DIV);
-        tokenTypes.put("do", Type.DO);
-        tokenTypes.put("else", Type.ELSE);
-        tokenTypes.put("end", Type.END);
-        tokenTypes.put("function", Type.FUNCTION);
-        tokenTypes.put("if", Type.IF);
-        tokenTypes.put("integer", Type.INTEGER);
-        tokenTypes.put("mod", Type.MOD);
-        tokenTypes.put("not", Type.NOT);
-        tokenTypes.put("of", Type.OF);
-        tokenTypes.put("or", Type.OR);
-        tokenTypes.put("procedure", Type.PROCEDURE);
-        tokenTypes.put("program", Type.PROGRAM);
-        tokenTypes.put("real", Type.REAL);
-        tokenTypes.put("then", Type.THEN);
-        tokenTypes.put("var", Type.VAR);
-        tokenTypes.put("while", Type.WHILE);
-        tokenTypes.put(";", Type.SEMI);
-        tokenTypes.put(",", Type.COMMA);
-        tokenTypes.put(".", Type.PERIOD);
-        tokenTypes.put(":", Type.COLON);
-        tokenTypes.put("[", Type.LBRACE);
-        tokenTypes.put("]", Type.RBRACE);
-        tokenTypes.put("(", Type.LPAREN);
-        tokenTypes.put(")", Type.RPAREN);
-        tokenTypes.put("+", Type.PLUS);
-        tokenTypes.put("-", Type.MINUS);
-        tokenTypes.put("=", Type.EQUAL);
-        tokenTypes.put("<>", Type.NOTEQ);
-        tokenTypes.put("<", Type.LTHAN);
-        tokenTypes.put("<=", Type.LTHANEQ);
-        tokenTypes.put(">", Type.GTHAN);
-        tokenTypes.put(">=", Type.GTHANEQ);
-        tokenTypes.put("*", Type.ASTERISK);
-        tokenTypes.put("/", Type.FSLASH);
-        tokenTypes.put(":=", Type.ASSIGN);
-        tokenTypes.put("read", Type.READ);
-        tokenTypes.put("write", Type.WRITE);
         this.zzReader = in;
     }
 
+    /**
+     * Creates a new scanner that works directly over the whole text of a Source. The Source array becomes the scan
+     * buffer, so the input is never refilled or compacted and offsets into the buffer are offsets into the source.
+     *
+     * @param source the Source to scan
+     */
+    public MyScanner(Source source) {
+        this((java.io.Reader) null);
+        this.source = source;
+        this.zzBuffer = source.getText();
+        this.zzEndRead = source.length();
+        this.zzAtEOF = true;
+    }
+
+    /**
+     * Creates a new scanner over a Source that starts scanning at an offset instead of at the beginning. The offset
+     * has to be a place where the scanner would start a new match when scanning from the beginning, such as the end
+     * of a token, and lineNumber the line the scanner would be on there.
+     *
+     * @param source     the Source to scan
+     * @param start      the offset to start scanning at
+     * @param lineNumber the line number at that offset
+     */
+    public MyScanner(Source source, int start, int lineNumber) {
+        this(source);
+        this.zzStartRead = this.zzCurrentPos = this.zzMarkedPos = this.yychar = start;
+        this.lineNumber = lineNumber;
+        this.lineMap = null;
+    }
+
+    /**
+     * Sets a Diagnostics to add an error to for every character that does not start any token. Without one the errors
+     * go to a printing Diagnostics, which prints them to standard error.
+     *
+     * @param diagnostics the Diagnostics, or null to print the errors
+     */
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Resets the scanner to scan a new Reader from the beginning, the same as a new scanner would but keeping the
+     * scan buffer. A batch of inputs can be scanned one after another with the same scanner this way.
+     *
+     * @param in the java.io.Reader to read input from
+     */
+    public void reset(java.io.Reader in) {
+        if (source != null) {
+            // go back to the buffer used for Readers instead of refilling into the Source array
+            zzBuffer = readerBuffer != null ? readerBuffer : new char[ZZ_BUFFERSIZE];
+            source = null;
+        }
+        yyreset(in);
+        lineNumber = 1;
+        lineMap = new LineMap();
+        badCharacterCount = 0;
+    }
+
+    /**
+     * Resets the scanner to scan a new Source from the beginning. The buffer used for Readers is kept for the next
+     * reset to a Reader.
+     *
+     * @param source the Source to scan
+     */
+    public void reset(Source source) {
+        reset((java.io.Reader) null);
+        readerBuffer = zzBuffer;
+        this.source = source;
+        this.zzBuffer = source.getText();
+        this.zzEndRead = source.length();
+        this.zzAtEOF = true;
+    }
+
+    /**
+     * Get the line number of the token most recently returned by nextToken. Flyweight keyword and symbol Tokens do
+     * not carry a line number, so this is where to find it.
+     *
+     * @return The current line number
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Get the offset of the token most recently returned by nextToken, counted in characters from the start of the
+     * input.
+     *
+     * @return The offset of the first character of the last matched text
+     */
+    public int getTokenStart() {
+        return yychar;
+    }
+
+    /**
+     * Get the line starts the scanner has passed so far. Once nextToken has returned null this covers the whole
+     * input.
+     *
+     * @return The LineMap of the input, null for a scanner that started in the middle of a Source
+     */
+    public LineMap getLineMap() {
+        return lineMap;
+    }
+
+    /**
+     * Counts the line breaks in the whitespace or comment that was just matched.
+     */
+    private void countLines() {
+        for (int i = zzStartRead; i < zzMarkedPos; i++) {
+            if (zzBuffer[i] == '\n') {
+                lineNumber++;
+                if (lineMap != null) lineMap.add(yychar + i - zzStartRead + 1);
+            }
+        }
+    }
+
+    /**
+     * Creates the Token for an ID or NUMBER lexeme that was just matched. When scanning a Source the Token only
+     * records where the lexeme is in the buffer. A Reader buffer gets compacted and refilled, so then the text has to
+     * be copied out right away, along with its offset in the input.
+     *
+     * @param type ID or NUMBER
+     * @return A new Token for the matched text
+     */
+    private Token token(Type type) {
+        if (positionsOnly) return type == Type.ID ? Token.ID_MARKER : Token.NUMBER_MARKER;
+        if (source != null) return new Token(type, zzBuffer, zzStartRead, zzMarkedPos - zzStartRead, lineNumber);
+        return new Token(yytext(), type, lineNumber, yychar);
+    }
+
+    /**
+     * Reports a character that does not start any token, or records it when bad characters are being collected.
+     */
+    private void badCharacter() {
+        if (badCharacters == null) {
+            int end = yychar + zzMarkedPos - zzStartRead;
+            if (diagnostics == null) diagnostics = Diagnostics.printing();
+            diagnostics.error(Code.INVALID_CHARACTER, lineNumber, yychar, end, lineNumber);
+            return;
+        }
+        if (badCharacterCount == badCharacters.length)
+            badCharacters = java.util.Arrays.copyOf(badCharacters, badCharacters.length * 2);
+        badCharacters[badCharacterCount++] = zzStartRead;
+        badCharacters[badCharacterCount++] = lineNumber;
+    }
+
+    /**
+     * Classifies the symbol that was just matched straight from the buffer.
+     *
+     * @return The Type of the symbol
+     */
+    private Type symbolType() {
+        char first = zzBuffer[zzStartRead];
+        if (zzMarkedPos - zzStartRead == 2) {
+            // one of := <= <> >=
+            if (first == ':') return Type.ASSIGN;
+            if (first == '>') return Type.GTHANEQ;
+            return zzBuffer[zzStartRead + 1] == '=' ? Type.LTHANEQ : Type.NOTEQ;
+        }
+        switch (first) {
+            case ';':
+                return Type.SEMI;
+            case ',':
+                return Type.COMMA;
+            case '.':
+                return Type.PERIOD;
+            case ':':
+                return Type.COLON;
+            case '[':
+                return Type.LBRACE;
+            case ']':
+                return Type.RBRACE;
+            case '(':
+                return Type.LPAREN;
+            case ')':
+                return Type.RPAREN;
+            case '+':
+                return Type.PLUS;
+            case '-':
+                return Type.MINUS;
+            case '=':
+                return Type.EQUAL;
+            case '<':
+                return Type.LTHAN;
+            case '>':
+                return Type.GTHAN;
+            case '*':
+                return Type.ASTERISK;
+            default:
+                return Type.FSLASH;
+        }
+    }
+
     private static int[] zzUnpackAction() {
         int[] result = new int[15];
         int offset = 0;
@@ -275,24 +436,6 @@ public class MyScanner {
         return j;
     }
 
-    /**
-     * Unpacks the compressed character translation table.
-     *
-     * @param packed the packed character translation table
-     * @return the unpacked character translation table
-     */
-    private static char[] zzUnpackCMap(String packed) {
-        char[] map = new char[0x110000];
-        int i = 0;  /* index in packed string  */
-        int j = 0;  /* index in unpacked array */
-        while (i < 110) {
-            int count = packed.charAt(i++);
-            char value = packed.charAt(i++);
-            do map[j++] = value; while (--count > 0);
-        }
-        return map;
-    }
-
     /**
      * Refills the input buffer.
      *
@@ -383,7 +526,9 @@ public class MyScanner {
         zzFinalHighSurrogate = 0;
         yyline = yychar = yycolumn = 0;
         zzLexicalState = YYINITIAL;
-        if (zzBuffer.length > ZZ_BUFFERSIZE) zzBuffer = new char[ZZ_BUFFERSIZE];
+        // never refill into the array of a Source that was being scanned
+        if (zzBuffer.length > ZZ_BUFFERSIZE || source != null) zzBuffer = new char[ZZ_BUFFERSIZE];
+        source = null;
     }
 
     /**
@@ -485,7 +630,7 @@ public class MyScanner {
         int zzMarkedPosL;
         int zzEndReadL = zzEndRead;
         char[] zzBufferL = zzBuffer;
-        char[] zzCMapL = ZZ_CMAP;
+        CharClasses zzCMapL = ZZ_CMAP;
 
         int[] zzTransL = ZZ_TRANS;
         int[] zzRowMapL = ZZ_ROWMAP;
@@ -494,6 +639,8 @@ public class MyScanner {
         while (true) {
             zzMarkedPosL = zzMarkedPos;
 
+            yychar += zzMarkedPosL - zzStartRead;
+
             zzAction = -1;
 
             zzCurrentPosL = zzCurrentPos = zzStartRead = zzMarkedPosL;
@@ -514,6 +661,8 @@ public class MyScanner {
                         zzInput = Character.codePointAt(zzBufferL, zzCurrentPosL, zzEndReadL);
                         zzCurrentPosL += Character.charCount(zzInput);
                     } else if (zzAtEOF) {
+                        // store back the position, so a token that runs up to the end of a Source is not lost
+                        zzCurrentPos = zzCurrentPosL;
                         zzInput = YYEOF;
                         break zzForAction;
                     } else {
@@ -534,7 +683,7 @@ public class MyScanner {
                             zzCurrentPosL += Character.charCount(zzInput);
                         }
                     }
-                    int zzNext = zzTransL[zzRowMapL[zzState] + zzCMapL[zzInput]];
+                    int zzNext = zzTransL[zzRowMapL[zzState] + zzCMapL.get(zzInput)];
                     if (zzNext == -1) break zzForAction;
                     zzState = zzNext;
 
@@ -559,32 +708,31 @@ public class MyScanner {
             } else {
                 switch (zzAction < 0 ? zzAction : ZZ_ACTION[zzAction]) {
                     case 1: { /* Display an error message and exit program when error found */
-                        System.out.println("Invalid syntax found on line " + lineNumber);
+                        badCharacter();
                     }
                     case 6:
                         break;
-                    case 2: { /* Ignore Whitespace */
-                        if (yytext().equals("\n")) lineNumber++;
+                    case 2: { /* Ignore Whitespace, but count the line breaks in it */
+                        countLines();
                     }
                     case 7:
                         break;
                     case 3: {
-                        String lexeme = yytext();
-                        Type type = tokenTypes.get(lexeme);
-                        // If lexeme found in hashmap, lexeme is a keyword
-                        if (type != null) return (new Token(lexeme, type, lineNumber));
+                        Type type = Keywords.lookup(zzBuffer, zzStartRead, zzMarkedPos - zzStartRead);
+                        // If lexeme is found in the keyword table, lexeme is a keyword
+                        if (type != null) return Token.forType(type);
                         // Otherwise lexeme is an ID
-                        return (new Token(lexeme, Type.ID, lineNumber));
+                        return token(Type.ID);
                     }
                     case 8:
                         break;
                     case 4: {
-                        return (new Token(yytext(), Type.NUMBER, lineNumber));
+                        return token(Type.NUMBER);
                     }
                     case 9:
                         break;
                     case 5: {
-                        return (new Token(yytext(), tokenTypes.get(yytext()), lineNumber));
+                        return Token.forType(symbolType());
                     }
                     case 10:
                         break;
@@ -0,0 +1,107 @@
+package scanner;
+
+/**
+ * This class turns the text of a NUMBER token into its value, reading straight from the buffer the token was scanned
+ * from. A number with a fraction or an exponent is a REAL, anything else is an INTEGER. Integers are read digit by
+ * digit into a long. Reals with at most 15 significant digits and a small exponent are computed with a single
+ * multiplication or division, which rounds the same as Double.parseDouble; longer ones fall back to it.
+ */
+public final class NumberLiteral {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    // Every power of ten that a double holds exactly
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Only static methods, never instantiated.
+     */
+    private NumberLiteral() {
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Determines whether a number is a REAL, one with a fraction or an exponent.
+     *
+     * @param text   The buffer holding the number
+     * @param start  Offset of the first character of the number
+     * @param length Number of characters in the number
+     * @return True for a REAL, false for an INTEGER
+     */
+    public static boolean isReal(char[] text, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (text[i] == '.' || text[i] == 'E') return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads an INTEGER. Values too large for a long are clamped to Long.MAX_VALUE.
+     *
+     * @param text   The buffer holding the digits
+     * @param start  Offset of the first digit
+     * @param length Number of digits
+     * @return The value of the number
+     */
+    public static long longValue(char[] text, int start, int length) {
+        long value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = text[i] - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) return Long.MAX_VALUE;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Reads a number as a REAL.
+     *
+     * @param text   The buffer holding the number
+     * @param start  Offset of the first character of the number
+     * @param length Number of characters in the number
+     * @return The value of the number
+     */
+    public static double doubleValue(char[] text, int start, int length) {
+        int end = start + length;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        int i = start;
+        for (; i < end && text[i] != 'E'; i++) {
+            if (text[i] == '.') {
+                fraction = true;
+                continue;
+            }
+            // Leading zeros do not count as significant digits
+            if (mantissa != 0 || text[i] != '0') digits++;
+            if (fraction) fractionDigits++;
+            mantissa = mantissa * 10 + (text[i] - '0');
+        }
+        int exponent = 0;
+        if (i < end) {
+            boolean negative = text[i + 1] == '-';
+            int j = text[i + 1] == '-' || text[i + 1] == '+' ? i + 2 : i + 1;
+            for (; j < end && exponent < 1000; j++) {
+                exponent = exponent * 10 + (text[j] - '0');
+            }
+            if (negative) exponent = -exponent;
+        }
+        exponent -= fractionDigits;
+        if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+            // Both the mantissa and the power of ten are exact, so one operation rounds correctly
+            return exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        }
+        return Double.parseDouble(new String(text, start, length));
+    }
+}
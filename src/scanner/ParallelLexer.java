@@ -0,0 +1,273 @@
+package scanner;
+
+import diagnostics.Diagnostics;
+import diagnostics.Diagnostics.Code;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class scans a large Source on several threads. The text is cut into chunks at line breaks and every chunk is
+ * scanned on a ForkJoinPool as if a token started at its first character and it were on line 1. Those guesses are
+ * wrong when a chunk starts inside a { } comment or in the middle of a token, so the chunks are then stitched
+ * together from left to right: the previous chunk tells where the next real token starts and on which line, and the
+ * chunk's tokens are used from the first one that starts at that same place. If none does, the chunk is scanned
+ * again from that place until it lines up with its own tokens or reaches the next chunk.
+ * <p>
+ * The result is the same TokenStream, line numbers included, that TokenStream.lex builds, and bad characters are
+ * added to the Diagnostics in the same order once the chunks are stitched.
+ */
+public final class ParallelLexer {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    // Below this many characters per chunk the threads cost more than they save
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Only static methods, never instantiated.
+     */
+    private ParallelLexer() {
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Scans a Source on the common ForkJoinPool, with a few chunks per thread, printing an error for every character
+     * that does not start any token. Small sources are scanned on the calling thread.
+     *
+     * @param source The Source to scan
+     * @return The tokens of the Source
+     */
+    public static TokenStream lex(Source source) {
+        return lex(source, null);
+    }
+
+    /**
+     * Scans a Source on the common ForkJoinPool, with a few chunks per thread. Small sources are scanned on the
+     * calling thread.
+     *
+     * @param source      The Source to scan
+     * @param diagnostics The Diagnostics for the characters that do not start any token, or null to print them
+     * @return The tokens of the Source
+     */
+    public static TokenStream lex(Source source, Diagnostics diagnostics) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int chunks = Math.min(pool.getParallelism() * 4, source.length() / MIN_CHUNK_SIZE);
+        if (chunks < 2) return TokenStream.lex(source, diagnostics);
+        return lex(source, chunks, pool, diagnostics);
+    }
+
+    /**
+     * Scans a Source in a given number of chunks on a ForkJoinPool, printing an error for every character that does
+     * not start any token.
+     *
+     * @param source The Source to scan
+     * @param chunks How many chunks to cut the Source into
+     * @param pool   The pool to scan the chunks on
+     * @return The tokens of the Source
+     */
+    public static TokenStream lex(Source source, int chunks, ForkJoinPool pool) {
+        return lex(source, chunks, pool, null);
+    }
+
+    /**
+     * Scans a Source in a given number of chunks on a ForkJoinPool.
+     *
+     * @param source      The Source to scan
+     * @param chunks      How many chunks to cut the Source into
+     * @param pool        The pool to scan the chunks on
+     * @param diagnostics The Diagnostics for the characters that do not start any token, or null to print them
+     * @return The tokens of the Source
+     */
+    public static TokenStream lex(Source source, int chunks, ForkJoinPool pool, Diagnostics diagnostics) {
+        Chunk[] parts = split(source, Math.max(1, chunks));
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(parts);
+            }
+        });
+        return stitch(source, parts, diagnostics != null ? diagnostics : Diagnostics.printing());
+    }
+
+    /**
+     * Cuts a Source into chunks of about the same size. Every chunk but the first starts after a line break, where a
+     * token is most likely to start.
+     *
+     * @param source The Source to cut
+     * @param count  How many chunks to make
+     * @return The chunks, in order, without any empty ones
+     */
+    private static Chunk[] split(Source source, int count) {
+        char[] text = source.getText();
+        int length = source.length();
+        int[] bounds = new int[count + 1];
+        int size = 1;
+        for (int i = 1; i < count; i++) {
+            int bound = Math.max((int) ((long) length * i / count), bounds[size - 1] + 1);
+            while (bound < length && text[bound - 1] != '\n') bound++;
+            if (bound > bounds[size - 1] && bound < length) bounds[size++] = bound;
+        }
+        bounds[size] = length;
+        Chunk[] parts = new Chunk[size];
+        for (int i = 0; i < size; i++) {
+            parts[i] = new Chunk(source, bounds[i], bounds[i + 1]);
+        }
+        return parts;
+    }
+
+    /**
+     * Joins the chunks into one TokenStream, scanning again wherever a chunk's guess was wrong, and reports the bad
+     * characters that a scan from the beginning would have found.
+     *
+     * @param source      The Source that was scanned
+     * @param parts       The scanned chunks, in order
+     * @param diagnostics The Diagnostics for the bad characters
+     * @return The tokens of the whole Source
+     */
+    private static TokenStream stitch(Source source, Chunk[] parts, Diagnostics diagnostics) {
+        int expected = 0;
+        for (Chunk part : parts) {
+            expected += part.tokens.size();
+        }
+        TokenStream stream = new TokenStream(source, expected + 16);
+        // Where the next real token starts and the line it is on, the first chunk always guesses right
+        int next = parts[0].start;
+        int line = 1;
+        for (Chunk part : parts) {
+            if (next < 0) break;
+            if (next >= part.end) continue;
+
+            int sync = part.tokens.indexOfStart(next, 0);
+            int lineDelta = 0;
+            if (sync >= 0) {
+                lineDelta = line - part.tokens.line(sync);
+            } else {
+                // The chunk started inside a comment or a token, scan from the real start until the two line up
+                MyScanner scanner = new MyScanner(source, next, line);
+                scanner.positionsOnly = true;
+                scanner.badCharacters = new int[16];
+                next = -1;
+                try {
+                    for (Token token = scanner.nextToken(); token != null; token = scanner.nextToken()) {
+                        int start = scanner.getTokenStart();
+                        if (start >= part.end) {
+                            next = start;
+                            line = scanner.getLineNumber();
+                            break;
+                        }
+                        sync = part.tokens.indexOfStart(start, 0);
+                        if (sync >= 0) {
+                            lineDelta = scanner.getLineNumber() - part.tokens.line(sync);
+                            break;
+                        }
+                        stream.add(token.getType(), start, scanner.yylength(), scanner.getLineNumber());
+                    }
+                } catch (IOException ex) {
+                    // A Source is already in memory, the scanner never reads from a Reader
+                    throw new IllegalStateException(ex);
+                }
+                report(diagnostics, source, scanner.badCharacters, scanner.badCharacterCount, 0, 0);
+                if (sync < 0) continue;
+            }
+
+            // From the first matching token on the chunk's own scan is right, apart from its line numbers
+            int from = part.tokens.start(sync);
+            stream.addAll(part.tokens, sync, part.tokens.size(), 0, lineDelta);
+            report(diagnostics, source, part.badCharacters, part.badCharacterCount, from, lineDelta);
+            next = part.next;
+            line = part.nextLine + lineDelta;
+        }
+        return stream;
+    }
+
+    /**
+     * Adds the bad characters found from an offset on to a Diagnostics, with the same error the scanner adds.
+     *
+     * @param diagnostics   The Diagnostics for the errors
+     * @param source        The Source that was scanned
+     * @param badCharacters Pairs of offset and line number
+     * @param count         Number of ints in use
+     * @param from          Offset of the first character to report
+     * @param lineDelta     Amount added to every line number
+     */
+    private static void report(Diagnostics diagnostics, Source source, int[] badCharacters, int count, int from,
+                               int lineDelta) {
+        for (int i = 0; i < count; i += 2) {
+            int start = badCharacters[i];
+            if (start < from) continue;
+            int line = badCharacters[i + 1] + lineDelta;
+            int end = start + Character.charCount(Character.codePointAt(source.getText(), start));
+            diagnostics.error(Code.INVALID_CHARACTER, line, start, end, line);
+        }
+    }
+
+    /**
+     * One chunk of the Source and its speculative scan. The scan starts at the chunk's first character on line 1 and
+     * keeps every token that starts inside the chunk, then remembers where the first token after the chunk starts.
+     */
+    private static final class Chunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Source source;
+        private final int start;
+        private final int end;
+        private TokenStream tokens;
+        private int[] badCharacters;
+        private int badCharacterCount;
+        // Offset and line of the first token starting at or after end, -1 if the scan reached the end of the Source
+        private int next = -1;
+        private int nextLine;
+
+        /**
+         * Creates a Chunk
+         *
+         * @param source The Source the chunk is part of
+         * @param start  Offset of the first character of the chunk
+         * @param end    Offset after the last character of the chunk
+         */
+        Chunk(Source source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Scans the chunk.
+         */
+        @Override
+        protected void compute() {
+            tokens = new TokenStream(source, (end - start) / 6 + 16);
+            MyScanner scanner = new MyScanner(source, start, 1);
+            scanner.positionsOnly = true;
+            scanner.badCharacters = new int[16];
+            try {
+                for (Token token = scanner.nextToken(); token != null; token = scanner.nextToken()) {
+                    int tokenStart = scanner.getTokenStart();
+                    if (tokenStart >= end) {
+                        next = tokenStart;
+                        nextLine = scanner.getLineNumber();
+                        break;
+                    }
+                    tokens.add(token.getType(), tokenStart, scanner.yylength(), scanner.getLineNumber());
+                }
+            } catch (IOException ex) {
+                // A Source is already in memory, the scanner never reads from a Reader
+                throw new IllegalStateException(ex);
+            }
+            badCharacters = scanner.badCharacters;
+            badCharacterCount = scanner.badCharacterCount;
+        }
+    }
+}
@@ -43,7 +43,9 @@ public class ScannerMain {
         do {
             try {
                 aToken = scanner.nextToken();
-                if (aToken != null) System.out.println("Token - " + aToken);
+                // Keyword and symbol Tokens are shared and have no line, the scanner knows which line they were found on
+                if (aToken != null)
+                    System.out.println("Token - Type: " + aToken.getType() + ", Lexeme: " + aToken.getLexeme() + ", Line number: " + scanner.getLineNumber());
             } catch (Exception e) {
                 e.printStackTrace();
             }
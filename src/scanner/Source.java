@@ -0,0 +1,200 @@
+package scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class holds the entire text of a Mini-Pascal source in a single char array. A MyScanner created from a Source
+ * works directly over that array, so the input never has to be refilled or compacted while scanning. Files are read
+ * through a memory-mapped view and decoded in one pass straight into the array.
+ */
+public final class Source implements CharSequence {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private final char[] text;
+    private final int length;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a Source over the first length characters of a char array. The array is not copied.
+     *
+     * @param text   The characters of the source
+     * @param length The number of characters in use
+     */
+    public Source(char[] text, int length) {
+        this.text = text;
+        this.length = length;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Creates a Source holding the characters of a String.
+     *
+     * @param input The program text
+     * @return A Source over a copy of the String
+     */
+    public static Source of(String input) {
+        return new Source(input.toCharArray(), input.length());
+    }
+
+    /**
+     * Creates a Source from a file by memory-mapping it and decoding the mapped bytes with the platform charset, the
+     * same charset an InputStreamReader would use. ASCII bytes are widened directly into the char array and only the
+     * remainder after the first non-ASCII byte goes through the charset decoder.
+     *
+     * @param path The file to read
+     * @return A Source holding the whole file
+     * @throws IOException if the file can not be read or is too large to hold in one array
+     */
+    public static Source map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) throw new IOException("File \"" + path + "\" is too large to scan");
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return decode(bytes, Charset.defaultCharset());
+        }
+    }
+
+    /**
+     * Decodes a buffer of bytes into a Source.
+     *
+     * @param bytes   The encoded program text
+     * @param charset The charset the bytes are encoded in
+     * @return A Source holding the decoded text
+     */
+    static Source decode(ByteBuffer bytes, Charset charset) {
+        int base = bytes.position();
+        int size = bytes.remaining();
+        char[] text = new char[size];
+        int n = 0;
+        if (isAsciiCompatible(charset)) {
+            while (n < size) {
+                byte b = bytes.get(base + n);
+                if (b < 0) break;
+                text[n++] = (char) b;
+            }
+            if (n == size) return new Source(text, n);
+        }
+        // Non-ASCII input, decode whatever is left after the ASCII prefix
+        bytes.position(base + n);
+        CharBuffer rest = charset.decode(bytes);
+        if (n + rest.remaining() > text.length) {
+            char[] larger = new char[n + rest.remaining()];
+            System.arraycopy(text, 0, larger, 0, n);
+            text = larger;
+        }
+        int restLength = rest.remaining();
+        rest.get(text, n, restLength);
+        return new Source(text, n + restLength);
+    }
+
+    /**
+     * Creates a new Source with a part of this one replaced, as after an edit. The whole text is copied into the new
+     * Source and this Source is left unchanged.
+     *
+     * @param offset        Offset of the first character to replace
+     * @param removedLength Number of characters removed at offset
+     * @param inserted      The text inserted at offset
+     * @return A Source holding the edited text
+     */
+    public Source replace(int offset, int removedLength, String inserted) {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > length)
+            throw new IndexOutOfBoundsException("offset " + offset + ", removed " + removedLength + ", length " + length);
+        int tail = length - offset - removedLength;
+        char[] edited = new char[offset + inserted.length() + tail];
+        System.arraycopy(text, 0, edited, 0, offset);
+        inserted.getChars(0, inserted.length(), edited, offset);
+        System.arraycopy(text, offset + removedLength, edited, offset + inserted.length(), tail);
+        return new Source(edited, edited.length);
+    }
+
+    /**
+     * Determines whether bytes below 0x80 decode to the same char in the given charset.
+     *
+     * @param charset The charset to check
+     * @return True if ASCII bytes can be copied directly, false otherwise
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Get the array holding the text. Only the first length() characters are part of the source.
+     *
+     * @return The backing char array
+     */
+    public char[] getText() {
+        return text;
+    }
+
+    /**
+     * Get the number of characters in the source
+     *
+     * @return The length of the source
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Get the character at an offset in the source
+     *
+     * @param index Offset of the character
+     * @return The character at that offset
+     */
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        return text[index];
+    }
+
+    /**
+     * Get a part of the source
+     *
+     * @param start Offset of the first character, inclusive
+     * @param end   Offset of the last character, exclusive
+     * @return The characters between start and end
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end - start);
+    }
+
+    /**
+     * Creates a String from a part of the source
+     *
+     * @param start Offset of the first character
+     * @param count Number of characters
+     * @return A String with the characters
+     */
+    public String substring(int start, int count) {
+        if (start < 0 || count < 0 || start + count > length)
+            throw new IndexOutOfBoundsException("start " + start + ", count " + count + ", length " + length);
+        return new String(text, start, count);
+    }
+
+    /**
+     * @return The whole source as a String
+     */
+    @Override
+    public String toString() {
+        return new String(text, 0, length);
+    }
+}
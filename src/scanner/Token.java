@@ -9,6 +9,14 @@ package scanner;
  * This class contains the definition of a Token object. A token represents one lexeme of the file being parsed. Each
  * token has a lexeme which contains a string with the actual contents and a Type which is a value from the enum
  * class Type.
+ * <p>
+ * Tokens scanned from a Source only store the offset and length of their lexeme in the shared source buffer, the
+ * String is created the first time getLexeme() is called. Keywords and symbols always have the same text, so the
+ * scanner returns one shared flyweight Token per Type for them (see forType). A flyweight has no position and no line
+ * number of its own, getLineNumber returns 0 for it and only the scanner that returned it knows where it was found.
+ * <p>
+ * getLexeme is not thread-safe for a Token scanned from a Source, since it fills in the lexeme String the first time it
+ * is called. A Token shared between threads must have its lexeme read once before it is handed over.
  *
  * @author Bob Laskowski
  */
@@ -18,9 +26,20 @@ public class Token {
     //    Instance Variables
     ///////////////////////////////
 
+    // Lexemes of the Types that are always spelled the same, indexed by Type ordinal
+    private static final String[] FIXED_LEXEMES = createFixedLexemes();
+    // Shared Tokens for the Types that always have the same lexeme, indexed by Type ordinal
+    private static final Token[] FLYWEIGHTS = createFlyweights();
+    // Placeholders for ID and NUMBER when only the position of a token is wanted *package-private*
+    static final Token ID_MARKER = new Token("", Type.ID, 0);
+    static final Token NUMBER_MARKER = new Token("", Type.NUMBER, 0);
+
     private String lexeme;
     private Type type;
     private int lineNumber;
+    private char[] buffer; // Source buffer holding the lexeme, null once the lexeme String exists
+    private int start = -1;
+    private int length;
 
     ///////////////////////////////
     //       Constructors
@@ -39,19 +58,215 @@ public class Token {
         this.lineNumber = lineNumber;
     }
 
+    /**
+     * Creates a token object with a name, type, line number and the offset of the name in the input
+     *
+     * @param input      The name of the Token
+     * @param t          The Type of the Token
+     * @param lineNumber The line number the token is on
+     * @param start      Offset of the first character of the name in the input
+     */
+    public Token(String input, Type t, int lineNumber, int start) {
+        this(input, t, lineNumber);
+        this.start = start;
+        this.length = input.length();
+    }
+
+    /**
+     * Creates a token object whose lexeme is a region of a source buffer. The lexeme String is only created if it is
+     * asked for.
+     *
+     * @param t          The Type of the Token
+     * @param buffer     The buffer holding the whole source
+     * @param start      Offset of the first character of the lexeme in the buffer
+     * @param length     Number of characters in the lexeme
+     * @param lineNumber The line number the token is on
+     */
+    public Token(Type t, char[] buffer, int start, int length, int lineNumber) {
+        this.type = t;
+        this.buffer = buffer;
+        this.start = start;
+        this.length = length;
+        this.lineNumber = lineNumber;
+    }
+
     ///////////////////////////////
     //       Methods
     ///////////////////////////////
 
     /**
-     * Returns the String the Token holds
+     * Builds the table of flyweight Tokens for every keyword and symbol Type.
+     *
+     * @return An array of Tokens indexed by Type ordinal, null for ID and NUMBER
+     */
+    private static Token[] createFlyweights() {
+        Token[] tokens = new Token[Type.values().length];
+        for (Type t : Type.values()) {
+            String text = FIXED_LEXEMES[t.ordinal()];
+            if (text != null) tokens[t.ordinal()] = new Token(text, t, 0);
+        }
+        return tokens;
+    }
+
+    /**
+     * Builds the table of lexemes for every keyword and symbol Type.
+     *
+     * @return An array of lexemes indexed by Type ordinal, null for ID and NUMBER
+     */
+    private static String[] createFixedLexemes() {
+        String[] lexemes = new String[Type.values().length];
+        for (Type t : Type.values()) {
+            lexemes[t.ordinal()] = spelling(t);
+        }
+        return lexemes;
+    }
+
+    /**
+     * Get the text every token of a Type has
+     *
+     * @param t A Type from the Type Enum
+     * @return The lexeme of a keyword or symbol, null for ID and NUMBER
+     */
+    public static String fixedLexeme(Type t) {
+        return FIXED_LEXEMES[t.ordinal()];
+    }
+
+    /**
+     * Spells out a keyword or symbol Type
+     *
+     * @param t A Type from the Type Enum
+     * @return The lexeme of a keyword or symbol, null for ID and NUMBER
+     */
+    private static String spelling(Type t) {
+        switch (t) {
+            case ID:
+            case NUMBER:
+                return null;
+            case SEMI:
+                return ";";
+            case COMMA:
+                return ",";
+            case PERIOD:
+                return ".";
+            case COLON:
+                return ":";
+            case LBRACE:
+                return "[";
+            case RBRACE:
+                return "]";
+            case LPAREN:
+                return "(";
+            case RPAREN:
+                return ")";
+            case PLUS:
+                return "+";
+            case MINUS:
+                return "-";
+            case EQUAL:
+                return "=";
+            case NOTEQ:
+                return "<>";
+            case LTHAN:
+                return "<";
+            case LTHANEQ:
+                return "<=";
+            case GTHAN:
+                return ">";
+            case GTHANEQ:
+                return ">=";
+            case ASTERISK:
+                return "*";
+            case FSLASH:
+                return "/";
+            case ASSIGN:
+                return ":=";
+            default:
+                // Keywords, READ and WRITE are spelled like their Type
+                return t.name().toLowerCase();
+        }
+    }
+
+    /**
+     * Get the shared Token for a keyword or symbol Type.
+     *
+     * @param t A keyword or symbol Type
+     * @return The flyweight Token for that Type, null for ID and NUMBER
+     */
+    public static Token forType(Type t) {
+        return FLYWEIGHTS[t.ordinal()];
+    }
+
+    /**
+     * Returns the String the Token holds. For a Token scanned from a Source the String is created and kept by the first
+     * call, so this is not thread-safe until it has been called once.
      *
      * @return The String the Token holds
      */
     public String getLexeme() {
+        if (this.lexeme == null && this.buffer != null) {
+            this.lexeme = new String(buffer, start, length);
+            this.buffer = null;
+        }
         return this.lexeme;
     }
 
+    /**
+     * Get the offset of the lexeme in the source it was scanned from
+     *
+     * @return The offset of the first character, -1 if the token does not know its position
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Get the offset just past the end of the lexeme in the source it was scanned from
+     *
+     * @return The offset after the last character, -1 if the token does not know its position
+     */
+    public int getEnd() {
+        return start < 0 ? -1 : start + length;
+    }
+
+    /**
+     * Get the number of characters in the lexeme
+     *
+     * @return The length of the lexeme
+     */
+    public int getLength() {
+        return start < 0 ? getLexeme().length() : length;
+    }
+
+    /**
+     * Determines whether a NUMBER token is a REAL, one with a fraction or an exponent
+     *
+     * @return True for a REAL, false for an INTEGER
+     */
+    public boolean isReal() {
+        if (buffer != null) return NumberLiteral.isReal(buffer, start, length);
+        return NumberLiteral.isReal(lexeme.toCharArray(), 0, lexeme.length());
+    }
+
+    /**
+     * Get the value of an INTEGER NUMBER token
+     *
+     * @return The value of the number
+     */
+    public long longValue() {
+        if (buffer != null) return NumberLiteral.longValue(buffer, start, length);
+        return NumberLiteral.longValue(lexeme.toCharArray(), 0, lexeme.length());
+    }
+
+    /**
+     * Get the value of a REAL NUMBER token
+     *
+     * @return The value of the number
+     */
+    public double doubleValue() {
+        if (buffer != null) return NumberLiteral.doubleValue(buffer, start, length);
+        return NumberLiteral.doubleValue(lexeme.toCharArray(), 0, lexeme.length());
+    }
+
     /**
      * Gets the Type the Token holds from the Type Enum
      *
@@ -64,8 +279,12 @@ public class Token {
     /**
      * Get the linenumber of the input file the scanner is on. For error reporting purposes.
      *
-     * @return An integer representing the line number
+     * @return An integer representing the line number, 0 for a shared keyword or symbol Token
+     * @deprecated Keywords and symbols are returned as shared Tokens (see forType), which have no line of their own and
+     * always return 0. Ask the scanner with MyScanner.getLineNumber() right after nextToken, or a TokenStream with
+     * line(index), for the line a token was found on.
      */
+    @Deprecated
     public int getLineNumber() {
         return lineNumber;
     }
@@ -77,7 +296,7 @@ public class Token {
      */
     @Override
     public String toString() {
-        return "Type: " + this.type + ", Lexeme: " + this.lexeme + ", Line number: " + lineNumber;
+        return "Type: " + this.type + ", Lexeme: " + getLexeme() + ", Line number: " + lineNumber;
     }
 
     /**
@@ -95,6 +314,6 @@ public class Token {
             return false;
         }
         final Token other = (Token) obj;
-        return this.lexeme.equals(other.getLexeme()) && this.type.equals(other.getType());
+        return this.getLexeme().equals(other.getLexeme()) && this.type == other.getType();
     }
 }
\ No newline at end of file
@@ -0,0 +1,282 @@
+package scanner;
+
+import diagnostics.Diagnostics;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This class holds every token of a compilation unit, scanned up front. Instead of a Token object per lexeme the
+ * tokens are packed into parallel arrays: the Type ordinal, the offset and length of the lexeme in the Source and the
+ * line number. Tokens are read back by index, and lexemes are only turned into Strings when asked for.
+ * <p>
+ * A TokenStream is never changed once it has been built, so it can be kept around and handed to a new Parser every
+ * time the same source is compiled again.
+ */
+public final class TokenStream {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private static final Type[] TYPES = Type.values();
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Source source;
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int size;
+    private LineMap lineMap;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates an empty TokenStream for a Source. Tokens are added with add().
+     *
+     * @param source         The Source the tokens are scanned from
+     * @param expectedTokens How many tokens to make room for
+     */
+    TokenStream(Source source, int expectedTokens) {
+        int capacity = Math.max(expectedTokens, 16);
+        this.source = source;
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Scans a whole Source into a new TokenStream, printing an error for every character that does not start any
+     * token.
+     *
+     * @param source The Source to scan
+     * @return The tokens of the Source
+     */
+    public static TokenStream lex(Source source) {
+        return lex(source, null);
+    }
+
+    /**
+     * Scans a whole Source into a new TokenStream, adding an error to a Diagnostics for every character that does not
+     * start any token.
+     *
+     * @param source      The Source to scan
+     * @param diagnostics The Diagnostics for the errors, or null to print them
+     * @return The tokens of the Source
+     */
+    public static TokenStream lex(Source source, Diagnostics diagnostics) {
+        // Roughly one token for every six characters of typical Mini-Pascal
+        TokenStream stream = new TokenStream(source, Math.max(INITIAL_CAPACITY, source.length() / 6));
+        MyScanner scanner = new MyScanner(source);
+        scanner.positionsOnly = true;
+        scanner.setDiagnostics(diagnostics);
+        try {
+            Token token = scanner.nextToken();
+            while (token != null) {
+                stream.add(token.getType(), scanner.getTokenStart(), scanner.yylength(), scanner.getLineNumber());
+                token = scanner.nextToken();
+            }
+        } catch (IOException ex) {
+            // A Source is already in memory, the scanner never reads from a Reader
+            throw new IllegalStateException(ex);
+        }
+        stream.lineMap = scanner.getLineMap();
+        return stream;
+    }
+
+    /**
+     * Appends a token to the end of the stream.
+     *
+     * @param type   The Type of the token
+     * @param start  Offset of the lexeme in the Source
+     * @param length Number of characters in the lexeme
+     * @param line   The line number the token is on
+     */
+    void add(Type type, int start, int length, int line) {
+        if (size == types.length) grow();
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        size++;
+    }
+
+    /**
+     * Appends a run of tokens from another stream, moving their offsets and line numbers.
+     *
+     * @param from       The stream to copy from
+     * @param begin      Index of the first token to copy
+     * @param end        Index after the last token to copy
+     * @param startDelta Amount added to every offset
+     * @param lineDelta  Amount added to every line number
+     */
+    void addAll(TokenStream from, int begin, int end, int startDelta, int lineDelta) {
+        int count = end - begin;
+        while (size + count > types.length) grow();
+        System.arraycopy(from.types, begin, types, size, count);
+        System.arraycopy(from.lengths, begin, lengths, size, count);
+        System.arraycopy(from.starts, begin, starts, size, count);
+        System.arraycopy(from.lines, begin, lines, size, count);
+        if (startDelta != 0 || lineDelta != 0) {
+            for (int i = size; i < size + count; i++) {
+                starts[i] += startDelta;
+                lines[i] += lineDelta;
+            }
+        }
+        size += count;
+    }
+
+    /**
+     * Finds the token that starts at an offset.
+     *
+     * @param offset The offset to look for
+     * @param from   Index of the first token to search
+     * @return The index of the token starting at offset, or -1 if no token starts there
+     */
+    int indexOfStart(int offset, int from) {
+        int index = Arrays.binarySearch(starts, from, size, offset);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * Doubles the room in every array.
+     */
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+    }
+
+    /**
+     * Get the number of tokens in the stream
+     *
+     * @return The number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the Source the tokens were scanned from
+     *
+     * @return The Source of the tokens
+     */
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * Get the line starts of the Source. Streams built by TokenStream.lex get them from the scanner, others find them
+     * the first time they are asked for.
+     *
+     * @return The LineMap of the Source
+     */
+    public LineMap getLineMap() {
+        if (lineMap == null) lineMap = LineMap.of(source);
+        return lineMap;
+    }
+
+    /**
+     * Get the Type of a token
+     *
+     * @param index Index of the token
+     * @return The Type of the token
+     */
+    public Type type(int index) {
+        return TYPES[types[index]];
+    }
+
+    /**
+     * Get the offset of a token's lexeme in the Source
+     *
+     * @param index Index of the token
+     * @return The offset of the first character
+     */
+    public int start(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Get the length of a token's lexeme
+     *
+     * @param index Index of the token
+     * @return The number of characters in the lexeme
+     */
+    public int length(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Get the line number of a token
+     *
+     * @param index Index of the token
+     * @return The line the token is on
+     */
+    public int line(int index) {
+        return lines[index];
+    }
+
+    /**
+     * Determines whether a NUMBER token is a REAL, one with a fraction or an exponent
+     *
+     * @param index Index of the token
+     * @return True for a REAL, false for an INTEGER
+     */
+    public boolean isReal(int index) {
+        return NumberLiteral.isReal(source.getText(), starts[index], lengths[index]);
+    }
+
+    /**
+     * Get the value of an INTEGER NUMBER token
+     *
+     * @param index Index of the token
+     * @return The value of the number
+     */
+    public long longValue(int index) {
+        return NumberLiteral.longValue(source.getText(), starts[index], lengths[index]);
+    }
+
+    /**
+     * Get the value of a REAL NUMBER token
+     *
+     * @param index Index of the token
+     * @return The value of the number
+     */
+    public double doubleValue(int index) {
+        return NumberLiteral.doubleValue(source.getText(), starts[index], lengths[index]);
+    }
+
+    /**
+     * Creates the String for a token's lexeme. Keywords and symbols return their shared text.
+     *
+     * @param index Index of the token
+     * @return The lexeme of the token
+     */
+    public String lexeme(int index) {
+        String fixed = Token.fixedLexeme(type(index));
+        if (fixed != null) return fixed;
+        return new String(source.getText(), starts[index], lengths[index]);
+    }
+
+    /**
+     * Creates a Token object for one entry of the stream, for callers that still work with Tokens.
+     *
+     * @param index Index of the token
+     * @return A Token for the entry
+     */
+    public Token token(int index) {
+        Type t = type(index);
+        if (Token.fixedLexeme(t) != null) return Token.forType(t);
+        return new Token(t, source.getText(), starts[index], lengths[index], lines[index]);
+    }
+}
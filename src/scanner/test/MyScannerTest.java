@@ -1,12 +1,21 @@
 package scanner.test;
 
+import scanner.IncrementalLexer;
+import scanner.Keywords;
+import scanner.LineMap;
 import scanner.MyScanner;
+import scanner.ParallelLexer;
+import scanner.Source;
 import scanner.Token;
+import scanner.TokenStream;
 import scanner.Type;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -203,4 +212,201 @@ class MyScannerTest {
         System.out.println("All nextToken tests PASSED.\n");
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that a scanner working over a memory-mapped Source returns the same tokens, with the same line numbers, as
+     * a scanner reading the file through an InputStreamReader.
+     *
+     * @throws IOException if any I/O-Error occurs
+     */
+    @org.junit.jupiter.api.Test
+    void nextTokenFromSource() throws IOException {
+        System.out.println("-----test nextToken from Source-----");
+        MyScanner mapped = new MyScanner(Source.map(Paths.get(filename)));
+        Token expRes;
+        Token result;
+        do {
+            expRes = scanner.nextToken();
+            result = mapped.nextToken();
+            System.out.println("Expected result: " + expRes);
+            System.out.println("Actual result:   " + result);
+            assertEquals(expRes, result);
+            assertEquals(scanner.getLineNumber(), mapped.getLineNumber());
+        } while (expRes != null);
+
+        System.out.println("All nextToken from Source tests PASSED.\n");
+    }
+
+    /**
+     * Tests that a TokenStream holds the same tokens, in the same order and on the same lines, as the scanner returns
+     * one at a time.
+     *
+     * @throws IOException if any I/O-Error occurs
+     */
+    @org.junit.jupiter.api.Test
+    void tokenStream() throws IOException {
+        System.out.println("-----test TokenStream-----");
+        TokenStream stream = TokenStream.lex(Source.map(Paths.get(filename)));
+        for (int i = 0; i < stream.size(); i++) {
+            Token expRes = scanner.nextToken();
+            System.out.println("Expected result: " + expRes);
+            System.out.println("Actual result:   " + stream.type(i) + " " + stream.lexeme(i));
+            assertEquals(expRes.getType(), stream.type(i));
+            assertEquals(expRes.getLexeme(), stream.lexeme(i));
+            assertEquals(scanner.getLineNumber(), stream.line(i));
+        }
+        assertEquals(null, scanner.nextToken());
+
+        System.out.println("All TokenStream tests PASSED.\n");
+    }
+
+    /**
+     * Tests that re-scanning only around an edit gives the same tokens, offsets and line numbers as scanning the
+     * edited text from the beginning.
+     *
+     * @throws IOException if the file can not be read
+     */
+    @org.junit.jupiter.api.Test
+    void incrementalLexer() throws IOException {
+        System.out.println("-----test IncrementalLexer-----");
+        TokenStream stream = TokenStream.lex(Source.map(Paths.get(filename)));
+        String text = stream.getSource().toString();
+        int middle = text.indexOf("begin");
+        // {offset, removed length} paired with the inserted text: new lines, a longer word, an opened comment, a delete
+        int[][] edits = {{middle, 0}, {middle + 2, 0}, {middle, 0}, {0, text.length() / 2}};
+        String[] inserted = {"\n\n", "xy", "{ ", ""};
+        for (int e = 0; e < edits.length; e++) {
+            IncrementalLexer.Result result = IncrementalLexer.relex(stream, edits[e][0], edits[e][1], inserted[e]);
+            TokenStream expected = TokenStream.lex(stream.getSource().replace(edits[e][0], edits[e][1], inserted[e]));
+            TokenStream actual = result.getTokens();
+            System.out.println("Edit " + e + " changed tokens " + result.getFirst() + " to " + result.getNewEnd());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.type(i), actual.type(i));
+                assertEquals(expected.start(i), actual.start(i));
+                assertEquals(expected.lexeme(i), actual.lexeme(i));
+                assertEquals(expected.line(i), actual.line(i));
+            }
+            assertEquals(expected.size() - stream.size(), result.getNewEnd() - result.getOldEnd());
+        }
+        System.out.println("All IncrementalLexer tests PASSED.\n");
+    }
+
+    /**
+     * Tests that scanning a Source in chunks on several threads gives the same tokens and line numbers as scanning it
+     * from the beginning, also when chunks start inside comments.
+     *
+     * @throws IOException if the file can not be read
+     */
+    @org.junit.jupiter.api.Test
+    void parallelLexer() throws IOException {
+        System.out.println("-----test ParallelLexer-----");
+        String text = Source.map(Paths.get(filename)).toString();
+        StringBuilder program = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            program.append(i % 7 == 0 ? "{\n comment\n spanning lines\n}\n" : text);
+        }
+        Source source = Source.of(program.toString());
+        TokenStream expected = TokenStream.lex(source);
+        for (int chunks = 1; chunks <= 64; chunks *= 4) {
+            TokenStream actual = ParallelLexer.lex(source, chunks, ForkJoinPool.commonPool());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.type(i), actual.type(i));
+                assertEquals(expected.start(i), actual.start(i));
+                assertEquals(expected.line(i), actual.line(i));
+            }
+        }
+        System.out.println("All ParallelLexer tests PASSED.\n");
+    }
+
+    /**
+     * Tests that characters outside ASCII, which skip the ASCII table, still get their character classes: an accented
+     * letter or a character outside the Basic Multilingual Plane is not part of an identifier.
+     *
+     * @throws IOException never, the input is a String
+     */
+    @org.junit.jupiter.api.Test
+    void nonAsciiInput() throws IOException {
+        System.out.println("-----test non-ASCII input-----");
+        MyScanner unicode = new MyScanner(Source.of("ab\u00e9cd\ud835\udc00ef"));
+        String[] expected = {"ab", "cd", "ef"};
+        for (String lexeme : expected) {
+            Token token = unicode.nextToken();
+            assertEquals(Type.ID, token.getType());
+            assertEquals(lexeme, token.getLexeme());
+        }
+        assertEquals(null, unicode.nextToken());
+        System.out.println("All non-ASCII tests PASSED.\n");
+    }
+
+    /**
+     * Tests that NUMBER tokens know their kind and value without going through a String.
+     *
+     * @throws IOException never, the input is a String
+     */
+    @org.junit.jupiter.api.Test
+    void numberValues() throws IOException {
+        System.out.println("-----test number values-----");
+        MyScanner numbers = new MyScanner(Source.of("42 3.25 1E3 2.5E-2 007"));
+        Token token = numbers.nextToken();
+        assertEquals(false, token.isReal());
+        assertEquals(42L, token.longValue());
+        String[] reals = {"3.25", "1E3", "2.5E-2"};
+        for (String real : reals) {
+            token = numbers.nextToken();
+            assertEquals(true, token.isReal());
+            assertEquals(Double.parseDouble(real), token.doubleValue());
+        }
+        token = numbers.nextToken();
+        assertEquals(7L, token.longValue());
+        System.out.println("All number value tests PASSED.\n");
+    }
+
+    /**
+     * Tests that the line starts the scanner records give back the line number of every token, and that a scanner
+     * reading from a Reader reports the same token offsets as one over a Source.
+     *
+     * @throws IOException if the file can not be read
+     */
+    @org.junit.jupiter.api.Test
+    void lineMap() throws IOException {
+        System.out.println("-----test LineMap-----");
+        Source source = Source.of("{ a comment\n over two lines }\nprogram foo;\n\n  begin x := 1\nend\n.");
+        MyScanner fromSource = new MyScanner(source);
+        MyScanner fromReader = new MyScanner(new StringReader(source.toString()));
+        Token token = fromSource.nextToken();
+        while (token != null) {
+            assertEquals(token, fromReader.nextToken());
+            assertEquals(fromSource.getTokenStart(), fromReader.getTokenStart());
+            assertEquals(fromSource.getLineNumber(), fromSource.getLineMap().line(fromSource.getTokenStart()));
+            token = fromSource.nextToken();
+        }
+        LineMap lines = fromSource.getLineMap();
+        assertEquals(7, lines.lineCount());
+        int begin = source.toString().indexOf("begin");
+        assertEquals(5, lines.line(begin));
+        assertEquals(3, lines.column(begin));
+        System.out.println("All LineMap tests PASSED.\n");
+    }
+
+    /**
+     * Tests that every keyword is classified as its Type and that identifiers that only look like keywords are not.
+     */
+    @org.junit.jupiter.api.Test
+    void keywords() {
+        System.out.println("-----test keywords-----");
+        for (Type t : Type.values()) {
+            String lexeme = Token.fixedLexeme(t);
+            if (lexeme != null && Character.isLetter(lexeme.charAt(0))) {
+                System.out.println("Expected result: " + t);
+                assertEquals(t, Keywords.lookup(lexeme));
+            }
+        }
+        String[] identifiers = {"x", "d", "dd", "of1", "ord", "ends", "reap", "rea", "Begin", "writ", "whale", "integers", "programs", "proc", "functionx"};
+        for (String id : identifiers) {
+            System.out.println("Expected result: " + id + " is not a keyword");
+            assertEquals(null, Keywords.lookup(id));
+        }
+        System.out.println("All keyword tests PASSED.\n");
+    }
+}
@@ -0,0 +1,250 @@
+package symboltable;
+
+import java.util.Arrays;
+
+/**
+ * An immutable map from names to symbol numbers. Adding a name gives a new map and leaves this one as it was, and the
+ * new map shares everything but the path to the name with the old one, so the map for a local scope can be made by
+ * adding the local names to the map of the global scope without copying it. *package-private*
+ * <p>
+ * The map is a hash array mapped trie. Each level uses five bits of the hash of a name to pick one of 32 branches,
+ * and keeps only the branches in use, packed in an array with a bitmap of which ones they are. A branch holds a name
+ * and its number, or the next level down if more than one name hashes to it. Names whose hashes are the same all the
+ * way down share a list at the bottom.
+ */
+final class NameMap {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    static final NameMap EMPTY = new NameMap(new Branches(0, new Object[0], new int[0]), 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a map over a trie.
+     *
+     * @param root The top level of the trie
+     * @param size The number of names in it
+     */
+    private NameMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Get the number a name maps to
+     *
+     * @param name The name
+     * @return The number, -1 if the name is not in the map
+     */
+    int get(String name) {
+        return root.get(name, name.hashCode(), 0);
+    }
+
+    /**
+     * Makes a map with a name added, or mapped to another number if it is already in this one.
+     *
+     * @param name   The name
+     * @param symbol The number it maps to
+     * @return The new map
+     */
+    NameMap plus(String name, int symbol) {
+        boolean[] added = new boolean[1];
+        Node node = root.plus(name, name.hashCode(), 0, symbol, added);
+        if (node == root) return this;
+        return new NameMap(node, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Get the number of names in the map
+     *
+     * @return The number of names
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Makes the level below a branch that two different names hash to.
+     *
+     * @param name1   The name already in the branch
+     * @param hash1   Its hash
+     * @param symbol1 Its number
+     * @param name2   The name being added
+     * @param hash2   Its hash
+     * @param symbol2 Its number
+     * @param shift   The bit of the hash the new level starts at
+     * @return The new level
+     */
+    private static Node pair(String name1, int hash1, int symbol1, String name2, int hash2, int symbol2, int shift) {
+        if (shift >= 32) return new Collisions(new String[]{name1, name2}, new int[]{symbol1, symbol2});
+        int branch1 = (hash1 >>> shift) & MASK;
+        int branch2 = (hash2 >>> shift) & MASK;
+        if (branch1 == branch2) {
+            Node below = pair(name1, hash1, symbol1, name2, hash2, symbol2, shift + BITS);
+            return new Branches(1 << branch1, new Object[]{below}, new int[1]);
+        }
+        if (branch1 < branch2)
+            return new Branches((1 << branch1) | (1 << branch2), new Object[]{name1, name2}, new int[]{symbol1, symbol2});
+        return new Branches((1 << branch1) | (1 << branch2), new Object[]{name2, name1}, new int[]{symbol2, symbol1});
+    }
+
+    /**
+     * One level of the trie.
+     */
+    private abstract static class Node {
+
+        /**
+         * Finds the number of a name at or below this level.
+         *
+         * @param name  The name
+         * @param hash  Its hash
+         * @param shift The bit of the hash this level starts at
+         * @return The number, -1 if the name is not there
+         */
+        abstract int get(String name, int hash, int shift);
+
+        /**
+         * Makes this level with a name added or mapped to another number.
+         *
+         * @param name   The name
+         * @param hash   Its hash
+         * @param shift  The bit of the hash this level starts at
+         * @param symbol The number it maps to
+         * @param added  Set to true if the name was not at this level or below before
+         * @return The new level, this one if the name already maps to the number
+         */
+        abstract Node plus(String name, int hash, int shift, int symbol, boolean[] added);
+    }
+
+    /**
+     * A level with the branches in use packed into an array. An entry is a name, with its number at the same index
+     * of the numbers, or the Node for the level below.
+     */
+    private static final class Branches extends Node {
+        private final int bitmap;
+        private final Object[] entries;
+        private final int[] symbols;
+
+        /**
+         * Creates a level.
+         *
+         * @param bitmap  Which of the 32 branches are in use
+         * @param entries A name or Node for each branch in use, in order
+         * @param symbols The number of each name
+         */
+        Branches(int bitmap, Object[] entries, int[] symbols) {
+            this.bitmap = bitmap;
+            this.entries = entries;
+            this.symbols = symbols;
+        }
+
+        @Override
+        int get(String name, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) return -1;
+            int index = Integer.bitCount(bitmap & (bit - 1));
+            Object entry = entries[index];
+            if (entry instanceof Node) return ((Node) entry).get(name, hash, shift + BITS);
+            return name.equals(entry) ? symbols[index] : -1;
+        }
+
+        @Override
+        Node plus(String name, int hash, int shift, int symbol, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int index = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                // a new branch
+                int count = entries.length;
+                Object[] newEntries = new Object[count + 1];
+                int[] newSymbols = new int[count + 1];
+                System.arraycopy(entries, 0, newEntries, 0, index);
+                System.arraycopy(symbols, 0, newSymbols, 0, index);
+                newEntries[index] = name;
+                newSymbols[index] = symbol;
+                System.arraycopy(entries, index, newEntries, index + 1, count - index);
+                System.arraycopy(symbols, index, newSymbols, index + 1, count - index);
+                added[0] = true;
+                return new Branches(bitmap | bit, newEntries, newSymbols);
+            }
+            Object entry = entries[index];
+            Object[] newEntries = entries;
+            int[] newSymbols = symbols;
+            if (entry instanceof Node) {
+                Node below = ((Node) entry).plus(name, hash, shift + BITS, symbol, added);
+                if (below == entry) return this;
+                newEntries = entries.clone();
+                newEntries[index] = below;
+            } else if (name.equals(entry)) {
+                if (symbols[index] == symbol) return this;
+                newSymbols = symbols.clone();
+                newSymbols[index] = symbol;
+            } else {
+                String other = (String) entry;
+                newEntries = entries.clone();
+                newEntries[index] = pair(other, other.hashCode(), symbols[index], name, hash, symbol, shift + BITS);
+                added[0] = true;
+            }
+            return new Branches(bitmap, newEntries, newSymbols);
+        }
+    }
+
+    /**
+     * The bottom of the trie, for names whose hashes are all the same.
+     */
+    private static final class Collisions extends Node {
+        private final String[] names;
+        private final int[] symbols;
+
+        /**
+         * Creates the list.
+         *
+         * @param names   The names
+         * @param symbols The number of each name
+         */
+        Collisions(String[] names, int[] symbols) {
+            this.names = names;
+            this.symbols = symbols;
+        }
+
+        @Override
+        int get(String name, int hash, int shift) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) return symbols[i];
+            }
+            return -1;
+        }
+
+        @Override
+        Node plus(String name, int hash, int shift, int symbol, boolean[] added) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    if (symbols[i] == symbol) return this;
+                    int[] newSymbols = symbols.clone();
+                    newSymbols[i] = symbol;
+                    return new Collisions(names, newSymbols);
+                }
+            }
+            String[] newNames = Arrays.copyOf(names, names.length + 1);
+            int[] newSymbols = Arrays.copyOf(symbols, symbols.length + 1);
+            newNames[names.length] = name;
+            newSymbols[names.length] = symbol;
+            added[0] = true;
+            return new Collisions(newNames, newSymbols);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package symboltable;
+
+import scanner.Type;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A SymbolTable saved in a compact binary file, so the interface of a program can be loaded again without parsing it.
+ * The table is written with write, which streams it out, and read back with map, which maps the file into memory.
+ * A SymbolFile answers questions about the symbols straight from the mapped bytes, so loading one costs no more than
+ * reading its header, and toSymbolTable rebuilds the whole SymbolTable when one is needed.
+ * <p>
+ * The symbols keep the numbers they had in the table. The file starts with a header of eight ints: the magic number
+ * "PSYM", the version, the number of symbols, the number of global names, the number of local names, the number of
+ * argument types and the length of the string pool, and a zero. Then come, in order:
+ * <ul>
+ * <li>a record of 36 bytes for each symbol, by number: the offset and length of its name in the pool, its kind and
+ * type as bytes (-1 for no type) and two bytes of padding, the begin and end index of an array, the index and count
+ * of its argument types (-1 for an array) and the index and count of its local names (-1 if it has no local
+ * table)</li>
+ * <li>the numbers of the symbols in the global scope, sorted by name</li>
+ * <li>the numbers of the symbols in each local table, each table sorted by name</li>
+ * <li>the argument types, one byte each</li>
+ * <li>the string pool, every name once in UTF-8</li>
+ * </ul>
+ * Every int is big-endian. Names are sorted by their UTF-8 bytes, so a name is found with a binary search over the
+ * records without decoding any other name.
+ */
+public final class SymbolFile {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private static final int MAGIC = 0x5053594D; // "PSYM"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 36;
+    private static final SymbolTable.Kind[] KINDS = SymbolTable.Kind.values();
+    private static final Type[] TYPES = Type.values();
+
+    private final ByteBuffer buffer;
+    private final int size; // number of symbols
+    private final int globalCount; // number of names in the global scope
+    private final int globals; // offset of the global names
+    private final int members; // offset of the local names
+    private final int args; // offset of the argument types
+    private final int pool; // offset of the string pool
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a SymbolFile over the bytes of a file and checks its header.
+     *
+     * @param buffer The bytes, starting at the header
+     * @throws IOException if the bytes are not a symbol file of this version or are cut short
+     */
+    private SymbolFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) throw new IOException("Not a symbol file");
+        if (buffer.getInt(4) != VERSION) throw new IOException("Unsupported symbol file version " + buffer.getInt(4));
+        size = buffer.getInt(8);
+        globalCount = buffer.getInt(12);
+        int memberCount = buffer.getInt(16);
+        int argCount = buffer.getInt(20);
+        int poolLength = buffer.getInt(24);
+        if ((size | globalCount | memberCount | argCount | poolLength) < 0)
+            throw new IOException("Corrupt symbol file");
+        long end = HEADER_SIZE + (long) RECORD_SIZE * size + 4L * globalCount + 4L * memberCount + argCount + poolLength;
+        if (end > buffer.limit()) throw new IOException("Truncated symbol file");
+        globals = HEADER_SIZE + RECORD_SIZE * size;
+        members = globals + 4 * globalCount;
+        args = members + 4 * memberCount;
+        pool = args + argCount;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Writes the global scope of a SymbolTable and every symbol numbered in it to a stream. The names, local tables
+     * and argument types are gathered first, then everything is written in one pass. The stream is flushed but not
+     * closed.
+     *
+     * @param table The SymbolTable
+     * @param out   The stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    public static void write(SymbolTable table, OutputStream out) throws IOException {
+        SymbolStore store = table.getStore();
+        int size = store.size();
+
+        // the pool, with each name once
+        byte[][] names = new byte[size][];
+        int[] nameOffsets = new int[size];
+        HashMap<String, Integer> pooled = new HashMap<>();
+        ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        for (int id = 0; id < size; id++) {
+            String name = store.name(id);
+            names[id] = name.getBytes(StandardCharsets.UTF_8);
+            Integer offset = pooled.get(name);
+            if (offset == null) {
+                offset = pool.size();
+                pooled.put(name, offset);
+                pool.write(names[id], 0, names[id].length);
+            }
+            nameOffsets[id] = offset;
+        }
+
+        // the local names and argument types, in the order of the symbols they belong to
+        int[] memberStarts = new int[size];
+        int[] argStarts = new int[size];
+        ByteArrayOutputStream memberBytes = new ByteArrayOutputStream();
+        DataOutputStream memberData = new DataOutputStream(memberBytes);
+        ByteArrayOutputStream argBytes = new ByteArrayOutputStream();
+        int memberCount = 0;
+        for (int id = 0; id < size; id++) {
+            HashMap<String, SymbolTable.Symbol> local = store.localTable(id);
+            if (local == null) {
+                memberStarts[id] = -1;
+            } else {
+                memberStarts[id] = memberCount;
+                for (int member : sorted(local, names)) {
+                    memberData.writeInt(member);
+                }
+                memberCount += local.size();
+            }
+            Type[] types = store.args(id);
+            if (types == null) {
+                argStarts[id] = -1;
+            } else {
+                argStarts[id] = argBytes.size();
+                for (Type type : types) {
+                    argBytes.write(type.ordinal());
+                }
+            }
+        }
+        int[] globals = sorted(table.getGlobalScope(), names);
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(size);
+        data.writeInt(globals.length);
+        data.writeInt(memberCount);
+        data.writeInt(argBytes.size());
+        data.writeInt(pool.size());
+        data.writeInt(0);
+        for (int id = 0; id < size; id++) {
+            Type type = store.type(id);
+            Type[] types = store.args(id);
+            HashMap<String, SymbolTable.Symbol> local = store.localTable(id);
+            data.writeInt(nameOffsets[id]);
+            data.writeInt(names[id].length);
+            data.writeByte(store.kind(id).ordinal());
+            data.writeByte(type == null ? -1 : type.ordinal());
+            data.writeShort(0);
+            data.writeInt(store.begin(id));
+            data.writeInt(store.end(id));
+            data.writeInt(argStarts[id]);
+            data.writeInt(types == null ? 0 : types.length);
+            data.writeInt(memberStarts[id]);
+            data.writeInt(local == null ? 0 : local.size());
+        }
+        for (int global : globals) {
+            data.writeInt(global);
+        }
+        memberBytes.writeTo(data);
+        argBytes.writeTo(data);
+        pool.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Maps a symbol file into memory. Nothing but the header is read until a symbol is asked for.
+     *
+     * @param path The path of the file
+     * @return The SymbolFile
+     * @throws IOException if the file can't be mapped or is not a symbol file
+     */
+    public static SymbolFile map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a symbol file that is already in memory, from the position of the buffer to its limit.
+     *
+     * @param buffer The bytes of the file
+     * @return The SymbolFile
+     * @throws IOException if the bytes are not a symbol file
+     */
+    public static SymbolFile read(ByteBuffer buffer) throws IOException {
+        return new SymbolFile(buffer.slice());
+    }
+
+    /**
+     * Get the number of symbols in the file. Every number below it is the number of a symbol.
+     *
+     * @return The number of symbols
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of the Symbol with a name in the global scope
+     *
+     * @param name The name
+     * @return The number of the Symbol or -1 if not found
+     */
+    public int idOf(String name) {
+        return search(globals, globalCount, name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the number of the Symbol with a name in the local table of a function or procedure. The names outside it
+     * are not searched.
+     *
+     * @param id   The number of the function or procedure
+     * @param name The name
+     * @return The number of the Symbol or -1 if not found or there is no local table
+     */
+    public int idOfLocal(int id, String name) {
+        int start = buffer.getInt(record(id) + 28);
+        if (start < 0) return -1;
+        return search(members + 4 * start, getLocalCount(id), name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the name of a Symbol
+     *
+     * @param id The number of the Symbol
+     * @return Its name
+     */
+    public String getName(int id) {
+        int record = record(id);
+        byte[] bytes = new byte[buffer.getInt(record + 4)];
+        ByteBuffer name = buffer.duplicate();
+        name.position(pool + buffer.getInt(record));
+        name.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the Type of a Symbol
+     *
+     * @param id The number of the Symbol, -1 for none
+     * @return The Type of the Symbol, null if it has none or there is no Symbol
+     */
+    public Type getType(int id) {
+        if (id < 0) return null;
+        byte type = buffer.get(record(id) + 9);
+        return type < 0 ? null : TYPES[type];
+    }
+
+    /**
+     * Checks whether a Symbol is an array
+     *
+     * @param id The number of the Symbol
+     * @return True if it is an array
+     */
+    public boolean isArray(int id) {
+        return kind(id) == SymbolTable.Kind.ARRAY;
+    }
+
+    /**
+     * Checks whether a Symbol is a function
+     *
+     * @param id The number of the Symbol
+     * @return True if it is a function
+     */
+    public boolean isFunction(int id) {
+        return kind(id) == SymbolTable.Kind.FUNCTION;
+    }
+
+    /**
+     * Checks whether a Symbol is a procedure
+     *
+     * @param id The number of the Symbol
+     * @return True if it is a procedure
+     */
+    public boolean isProcedure(int id) {
+        return kind(id) == SymbolTable.Kind.PROCEDURE;
+    }
+
+    /**
+     * Get the length of an array
+     *
+     * @param id The number of the array
+     * @return The end index minus the begin index
+     */
+    public int getArrayLength(int id) {
+        int record = record(id);
+        return buffer.getInt(record + 16) - buffer.getInt(record + 12);
+    }
+
+    /**
+     * Get the argument types of a function or procedure
+     *
+     * @param id The number of the Symbol
+     * @return An unmodifiable list of the argument Types, null for an array
+     */
+    public List<Type> getArgs(int id) {
+        Type[] types = argTypes(id);
+        return types == null ? null : Collections.unmodifiableList(Arrays.asList(types));
+    }
+
+    /**
+     * Get the number of names in the local table of a function or procedure
+     *
+     * @param id The number of the function or procedure
+     * @return The number of local names, 0 if it has no local table
+     */
+    public int getLocalCount(int id) {
+        return buffer.getInt(record(id) + 32);
+    }
+
+    /**
+     * Rebuilds the SymbolTable the file was written from. The symbols are given the same numbers, and each scope gets
+     * its names in the order of their numbers, which is the order they were declared in, so the HashMaps list them
+     * the same way and toString comes out the same as for the table that was written.
+     *
+     * @return A new SymbolTable with the global scope of the file
+     */
+    public SymbolTable toSymbolTable() {
+        SymbolTable table = new SymbolTable();
+        SymbolStore store = table.getStore();
+        for (int id = 0; id < size; id++) {
+            int record = record(id);
+            store.add(getName(id), kind(id), getType(id), buffer.getInt(record + 12), buffer.getInt(record + 16));
+            Type[] types = argTypes(id);
+            if (types != null) store.setArgs(id, types);
+        }
+
+        // the scope each symbol is declared in: -2 for the global scope, else the number of its subprogram
+        int[] owners = new int[size];
+        Arrays.fill(owners, -1);
+        for (int i = 0; i < globalCount; i++) {
+            owners[buffer.getInt(globals + 4 * i)] = -2;
+        }
+        for (int id = 0; id < size; id++) {
+            int start = buffer.getInt(record(id) + 28);
+            if (start < 0) continue;
+            store.setLocalTable(id, new HashMap<>());
+            for (int i = 0, count = getLocalCount(id); i < count; i++) {
+                owners[buffer.getInt(members + 4 * (start + i))] = id;
+            }
+        }
+        for (int id = 0; id < size; id++) {
+            SymbolTable.Symbol symbol = new SymbolTable.Symbol(store, id);
+            if (owners[id] == -2) table.getGlobalScope().put(store.name(id), symbol);
+            else if (owners[id] >= 0) store.localTable(owners[id]).put(store.name(id), symbol);
+        }
+        return table;
+    }
+
+    /**
+     * Finds the offset of the record of a symbol.
+     *
+     * @param id The number of the symbol
+     * @return The offset of its record
+     */
+    private int record(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("No symbol " + id);
+        return HEADER_SIZE + RECORD_SIZE * id;
+    }
+
+    /**
+     * Get the kind of a symbol
+     *
+     * @param id The number of the symbol
+     * @return Its kind
+     */
+    private SymbolTable.Kind kind(int id) {
+        return KINDS[buffer.get(record(id) + 8)];
+    }
+
+    /**
+     * Reads the argument types of a symbol.
+     *
+     * @param id The number of the symbol
+     * @return A new array of the argument types, null for an array
+     */
+    private Type[] argTypes(int id) {
+        int record = record(id);
+        int start = buffer.getInt(record + 20);
+        if (start < 0) return null;
+        Type[] types = new Type[buffer.getInt(record + 24)];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = TYPES[buffer.get(args + start + i)];
+        }
+        return types;
+    }
+
+    /**
+     * Finds a name in a list of symbol numbers sorted by name, with a binary search.
+     *
+     * @param offset The offset of the list
+     * @param count  The number of symbols in it
+     * @param name   The UTF-8 bytes of the name
+     * @return The number of the symbol with the name, -1 if it is not in the list
+     */
+    private int search(int offset, int count, byte[] name) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = buffer.getInt(offset + 4 * middle);
+            int comparison = compareName(id, name);
+            if (comparison < 0) low = middle + 1;
+            else if (comparison > 0) high = middle - 1;
+            else return id;
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the name of a symbol in the pool with a name, byte by byte.
+     *
+     * @param id   The number of the symbol
+     * @param name The UTF-8 bytes of the other name
+     * @return Less than 0, 0 or more than 0 as the name of the symbol sorts before, with or after the other name
+     */
+    private int compareName(int id, byte[] name) {
+        int record = record(id);
+        int start = pool + buffer.getInt(record);
+        int length = buffer.getInt(record + 4);
+        for (int i = 0, n = Math.min(length, name.length); i < n; i++) {
+            int comparison = (buffer.get(start + i) & 0xff) - (name[i] & 0xff);
+            if (comparison != 0) return comparison;
+        }
+        return length - name.length;
+    }
+
+    /**
+     * Lists the numbers of the symbols in a scope, sorted by the UTF-8 bytes of their names.
+     *
+     * @param scope The HashMap of the scope
+     * @param names The UTF-8 bytes of every name, by number
+     * @return The numbers, sorted
+     */
+    private static int[] sorted(HashMap<String, SymbolTable.Symbol> scope, byte[][] names) {
+        Integer[] ids = new Integer[scope.size()];
+        int i = 0;
+        for (SymbolTable.Symbol symbol : scope.values()) {
+            ids[i++] = symbol.getNumber();
+        }
+        Arrays.sort(ids, (a, b) -> compare(names[a], names[b]));
+        int[] sorted = new int[ids.length];
+        for (i = 0; i < ids.length; i++) {
+            sorted[i] = ids[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * Compares two names by their UTF-8 bytes, as unsigned values.
+     *
+     * @param a The bytes of one name
+     * @param b The bytes of the other
+     * @return Less than 0, 0 or more than 0 as a sorts before, with or after b
+     */
+    private static int compare(byte[] a, byte[] b) {
+        for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+            int comparison = (a[i] & 0xff) - (b[i] & 0xff);
+            if (comparison != 0) return comparison;
+        }
+        return a.length - b.length;
+    }
+}
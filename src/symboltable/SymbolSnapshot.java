@@ -0,0 +1,184 @@
+package symboltable;
+
+import scanner.Type;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A frozen view of a SymbolTable that can't be changed, made with SymbolTable.snapshot. Nothing in a snapshot is
+ * written after it is made, so any number of threads can look names up in one at the same time without locks.
+ * <p>
+ * A snapshot of the global scope maps the names declared in it to the numbers of their symbols in a NameMap, which
+ * the SymbolTable keeps up to date as globals are declared, so making one doesn't copy anything. The snapshot of the
+ * local scope of a function or procedure is made from the snapshot of the scope it is declared in by adding its local
+ * names to that map, so the two share everything but the paths to the local names.
+ * <p>
+ * The attributes of the symbols are read from the SymbolStore of the table. A symbol's attributes are all set by the
+ * time its declaration has been parsed, and only the symbols numbered before the snapshot was made are in it, so
+ * reading them needs no copy either. Memory addresses are not part of a snapshot: a pass that gives the symbols
+ * addresses or other annotations keeps them in tables of its own, by number.
+ */
+public final class SymbolSnapshot {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private final SymbolStore store;
+    private final int size; // the symbols numbered below this are in the snapshot
+    private final NameMap names; // every name seen from this scope, with the innermost symbol for each
+    private final SymbolSnapshot outer; // the scope this one is declared in, null for the global scope
+
+    ///////////////////////////////
+    //       Constructors
+    ///////////////////////////////
+
+    /**
+     * Creates a snapshot. *package-private*
+     *
+     * @param store The store of the table
+     * @param size  The number of symbols in the store when the snapshot is made
+     * @param names The names seen from the scope
+     * @param outer The snapshot of the scope this one is declared in, null for the global scope
+     */
+    SymbolSnapshot(SymbolStore store, int size, NameMap names, SymbolSnapshot outer) {
+        this.store = store;
+        this.size = size;
+        this.names = names;
+        this.outer = outer;
+    }
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Makes the snapshot of the local scope of a function or procedure declared in this scope. The local names hide
+     * the names outside with the same name.
+     *
+     * @param id The number of the function or procedure
+     * @return The snapshot of its local scope, with only the names of this scope if it has no local table
+     */
+    public SymbolSnapshot local(int id) {
+        HashMap<String, SymbolTable.Symbol> localTable = store.localTable(id);
+        NameMap local = names;
+        if (localTable != null) {
+            for (SymbolTable.Symbol symbol : localTable.values()) {
+                local = local.plus(symbol.getId(), symbol.getNumber());
+            }
+        }
+        return new SymbolSnapshot(store, size, local, this);
+    }
+
+    /**
+     * Get the number of symbols in the snapshot. Every number below it is the number of a symbol.
+     *
+     * @return The number of symbols
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of the innermost Symbol with a name, of any kind
+     *
+     * @param name The name
+     * @return The number of the Symbol or -1 if not found
+     */
+    public int idOf(String name) {
+        return names.get(name);
+    }
+
+    /**
+     * Get the number of the function or procedure a name stands for. A symbol of another kind with the same name in
+     * an inner scope does not hide it.
+     *
+     * @param name The name of the function or procedure
+     * @return The number of its Symbol or -1 if not found
+     */
+    public int idOfSubProgram(String name) {
+        for (SymbolSnapshot scope = this; scope != null; scope = scope.outer) {
+            int id = scope.names.get(name);
+            if (id < 0) return -1;
+            SymbolTable.Kind kind = store.kind(id);
+            if (kind == SymbolTable.Kind.FUNCTION || kind == SymbolTable.Kind.PROCEDURE) return id;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the name of a Symbol
+     *
+     * @param id The number of the Symbol
+     * @return Its name
+     */
+    public String getName(int id) {
+        return store.name(id);
+    }
+
+    /**
+     * Get the Type of a Symbol
+     *
+     * @param id The number of the Symbol, -1 for none
+     * @return The Type of the Symbol, null if it has none or there is no Symbol
+     */
+    public Type getType(int id) {
+        return id < 0 ? null : store.type(id);
+    }
+
+    /**
+     * Checks whether a Symbol is an array
+     *
+     * @param id The number of the Symbol
+     * @return True if it is an array
+     */
+    public boolean isArray(int id) {
+        return store.kind(id) == SymbolTable.Kind.ARRAY;
+    }
+
+    /**
+     * Checks whether a Symbol is a function
+     *
+     * @param id The number of the Symbol
+     * @return True if it is a function
+     */
+    public boolean isFunction(int id) {
+        return store.kind(id) == SymbolTable.Kind.FUNCTION;
+    }
+
+    /**
+     * Get the length of an array
+     *
+     * @param id The number of the array
+     * @return The end index minus the begin index
+     */
+    public int getArrayLength(int id) {
+        return store.end(id) - store.begin(id);
+    }
+
+    /**
+     * Get the argument types of a function or procedure
+     *
+     * @param id The number of the Symbol
+     * @return An unmodifiable list of the argument Types, null for an array
+     */
+    public List<Type> getArgs(int id) {
+        Type[] args = store.args(id);
+        return args == null ? null : Collections.unmodifiableList(Arrays.asList(args));
+    }
+
+    /**
+     * Get the number of names in the local table of a function or procedure, its arguments and variables and the
+     * subprograms declared in it
+     *
+     * @param id The number of the function or procedure
+     * @return The number of local names, 0 if it has no local table
+     */
+    public int getLocalCount(int id) {
+        HashMap<String, SymbolTable.Symbol> localTable = store.localTable(id);
+        return localTable == null ? 0 : localTable.size();
+    }
+}
@@ -0,0 +1,233 @@
+package symboltable;
+
+import scanner.Type;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Holds the attributes of every symbol declared in a program, numbered in the order they were declared. The name,
+ * kind, type, array bounds, argument types, memory address and local table of a symbol are kept in parallel arrays at
+ * its number, so finding an attribute of a symbol whose number is known is an array load instead of a hash lookup,
+ * and a Symbol only has to keep its number. *package-private*
+ * <p>
+ * The arrays are split into pages of a fixed size. When the symbols fill the last page another page is added, and
+ * only the array of pages is copied, so the attributes of a symbol stay where they are. The SymbolTables made from
+ * one another share a store, and the parallel body parsers declare symbols at the same time, so numbers are handed
+ * out under a lock. The attributes of a symbol are only changed by the thread working on it.
+ * <p>
+ * The attributes are read without the lock, by the body parsers and by the threads that fold and generate code while
+ * the parser is still declaring symbols. So the array of pages is never changed once it is in use: a new page is put
+ * in a copy of the array, and the copy is published through a volatile field. A reader sees the old array or the new
+ * one with the page already in it, never a page that isn't there.
+ */
+final class SymbolStore implements Serializable {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_BITS = 6;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final Type[] NO_ARGS = {};
+    private static final SymbolTable.Kind[] KINDS = SymbolTable.Kind.values();
+
+    private volatile Page[] pages = new Page[4]; // replaced, never changed, when a page is added
+    private int size; // number of symbols declared
+
+    ///////////////////////////////
+    //       Methods
+    ///////////////////////////////
+
+    /**
+     * Declares a symbol and gives it the next number. Arrays have no argument types, every other kind starts with
+     * none.
+     *
+     * @param name  The name of the symbol
+     * @param kind  The kind of the symbol
+     * @param type  The type of the symbol, null if it has none
+     * @param begin The beginning index of an array
+     * @param end   The ending index of an array
+     * @return The number of the symbol
+     */
+    synchronized int add(String name, SymbolTable.Kind kind, Type type, int begin, int end) {
+        int number = size++;
+        int index = number >>> PAGE_BITS;
+        Page[] current = pages;
+        if (index == current.length || current[index] == null) {
+            // fill in the copy before publishing it
+            Page[] added = Arrays.copyOf(current, index == current.length ? index * 2 : current.length);
+            added[index] = new Page();
+            pages = current = added;
+        }
+        Page page = current[index];
+        int slot = number & PAGE_MASK;
+        page.names[slot] = name;
+        page.kinds[slot] = (byte) kind.ordinal();
+        page.types[slot] = type;
+        page.begins[slot] = begin;
+        page.ends[slot] = end;
+        page.args[slot] = kind == SymbolTable.Kind.ARRAY ? null : NO_ARGS;
+        return number;
+    }
+
+    /**
+     * Get the number of symbols declared
+     *
+     * @return The number of symbols
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Finds the page a symbol is on.
+     *
+     * @param number The number of the symbol
+     * @return The page
+     */
+    private Page page(int number) {
+        return pages[number >>> PAGE_BITS];
+    }
+
+    /**
+     * Get the name of a symbol
+     *
+     * @param number The number of the symbol
+     * @return The name
+     */
+    String name(int number) {
+        return page(number).names[number & PAGE_MASK];
+    }
+
+    /**
+     * Get the kind of a symbol
+     *
+     * @param number The number of the symbol
+     * @return The kind
+     */
+    SymbolTable.Kind kind(int number) {
+        return KINDS[page(number).kinds[number & PAGE_MASK]];
+    }
+
+    /**
+     * Get the type of a symbol
+     *
+     * @param number The number of the symbol
+     * @return The type, null if it has none
+     */
+    Type type(int number) {
+        return page(number).types[number & PAGE_MASK];
+    }
+
+    /**
+     * Set the type of a symbol
+     *
+     * @param number The number of the symbol
+     * @param type   The type
+     */
+    void setType(int number, Type type) {
+        page(number).types[number & PAGE_MASK] = type;
+    }
+
+    /**
+     * Get the beginning index of an array
+     *
+     * @param number The number of the symbol
+     * @return The beginning index
+     */
+    int begin(int number) {
+        return page(number).begins[number & PAGE_MASK];
+    }
+
+    /**
+     * Get the ending index of an array
+     *
+     * @param number The number of the symbol
+     * @return The ending index
+     */
+    int end(int number) {
+        return page(number).ends[number & PAGE_MASK];
+    }
+
+    /**
+     * Get the argument types of a symbol. The array is shared, so it must not be changed.
+     *
+     * @param number The number of the symbol
+     * @return The argument types, null for an array
+     */
+    Type[] args(int number) {
+        return page(number).args[number & PAGE_MASK];
+    }
+
+    /**
+     * Set the argument types of a symbol
+     *
+     * @param number The number of the symbol
+     * @param args   The argument types, not changed afterwards
+     */
+    void setArgs(int number, Type[] args) {
+        page(number).args[number & PAGE_MASK] = args.length == 0 ? NO_ARGS : args;
+    }
+
+    /**
+     * Get the memory address of a symbol
+     *
+     * @param number The number of the symbol
+     * @return The memory address for MIPS reference
+     */
+    String address(int number) {
+        return page(number).addresses[number & PAGE_MASK];
+    }
+
+    /**
+     * Set the memory address of a symbol
+     *
+     * @param number  The number of the symbol
+     * @param address The memory address for MIPS reference
+     */
+    void setAddress(int number, String address) {
+        page(number).addresses[number & PAGE_MASK] = address;
+    }
+
+    /**
+     * Get the local table of a function or procedure
+     *
+     * @param number The number of the symbol
+     * @return The local table, null if it has none
+     */
+    @SuppressWarnings("unchecked")
+    HashMap<String, SymbolTable.Symbol> localTable(int number) {
+        return (HashMap<String, SymbolTable.Symbol>) page(number).localTables[number & PAGE_MASK];
+    }
+
+    /**
+     * Set the local table of a function or procedure
+     *
+     * @param number The number of the symbol
+     * @param local  The local table
+     */
+    void setLocalTable(int number, HashMap<String, SymbolTable.Symbol> local) {
+        page(number).localTables[number & PAGE_MASK] = local;
+    }
+
+    /**
+     * One page of the parallel arrays.
+     */
+    private static final class Page implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] names = new String[PAGE_SIZE];
+        private final byte[] kinds = new byte[PAGE_SIZE];
+        private final Type[] types = new Type[PAGE_SIZE];
+        private final int[] begins = new int[PAGE_SIZE];
+        private final int[] ends = new int[PAGE_SIZE];
+        private final Type[][] args = new Type[PAGE_SIZE][];
+        private final String[] addresses = new String[PAGE_SIZE];
+        private final Object[] localTables = new Object[PAGE_SIZE];
+    }
+}
@@ -2,10 +2,13 @@ package symboltable;
 
 import scanner.Type;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Objects;
-import java.util.Stack;
 
 /**
  * Bob Laskowski,
@@ -18,16 +21,33 @@ import java.util.Stack;
  * symbol stores a Type enum. Programs store the program name. Variables store the variable name and type (real or int).
  * Arrays store the name, type, begin and end index. Functions store the name, return type and an ArrayList of the
  * arguments.
+ * <p>
+ * The global scope and the local scopes of the functions and procedures being parsed or compiled are HashMaps kept in
+ * an array, the global scope first, which grows when more scopes are pushed than it has room for. Lookups go from the
+ * innermost scope out with one get per scope, and a symbol is only added to the innermost scope. The array is not
+ * synchronized, so a SymbolTable is only for one thread at a time.
+ * <p>
+ * Every symbol is given a number when it is declared, and its attributes are kept in a SymbolStore at that number,
+ * shared by this table and the tables copied from it. The scopes map names to Symbols that only hold the number, so
+ * a phase that has looked a name up once can keep the number and read the attributes by it without another lookup.
+ * <p>
+ * The names in the global scope are also kept in an immutable NameMap, so a SymbolSnapshot of the table can be made
+ * at any time without copying, for passes that read the table on other threads while it is still being filled.
  *
  * @author Bob Laskowski
  */
-public class SymbolTable {
+public class SymbolTable implements Serializable {
 
     ///////////////////////////////
     //    Instance Variables
     ///////////////////////////////
 
-    private Stack<HashMap<String, Symbol>> symbTable;
+    private static final long serialVersionUID = 1L;
+
+    private HashMap<String, Symbol>[] scopes; // the global scope first, the innermost local scope last
+    private int depth; // number of scopes in use
+    private SymbolStore store; // the attributes of every symbol, by number
+    private transient NameMap globalNames = NameMap.EMPTY; // the names in the global scope, for snapshots
 
     ///////////////////////////////
     //       Constructors
@@ -37,14 +57,27 @@ public class SymbolTable {
      * Creates a new symbol table and initializes the HashMap.
      */
     public SymbolTable() {
-        symbTable = new Stack<>();
-        symbTable.push(new HashMap<>());
+        scopes = newScopes(4);
+        scopes[0] = new HashMap<>();
+        depth = 1;
+        store = new SymbolStore();
     }
 
     ///////////////////////////////
     //       Methods
     ///////////////////////////////
 
+    /**
+     * Creates an array for the scope chain.
+     *
+     * @param length The length of the array
+     * @return An array of empty slots
+     */
+    @SuppressWarnings("unchecked")
+    private static HashMap<String, Symbol>[] newScopes(int length) {
+        return (HashMap<String, Symbol>[]) new HashMap<?, ?>[length];
+    }
+
     /**
      * Returns a String representation of a SymbolTable
      *
@@ -52,11 +85,8 @@ public class SymbolTable {
      */
     @Override
     public String toString() {
-        String text = "";
-        for (HashMap<String, Symbol> idTable : symbTable) {
-            text = idTable.toString().replaceAll("[=]", " = ").replaceAll("\n,", "\n");
-            text += "\n";
-        }
+        String text = scopes[depth - 1].toString().replaceAll("[=]", " = ").replaceAll("\n,", "\n");
+        text += "\n";
         return "SymbolTable { \n" + "Global Table = \n" + text + '}';
     }
 
@@ -64,7 +94,7 @@ public class SymbolTable {
      * Add a new HashMap to the stack for local variables inside functions/procedures
      */
     public void addNewScope() {
-        symbTable.push(new HashMap<>());
+        pushLocalTable(new HashMap<>());
     }
 
     /**
@@ -74,12 +104,28 @@ public class SymbolTable {
      * @return Return the HashMap removed from the list, null if nothing removed
      */
     public HashMap<String, Symbol> removeScope() {
-        if (symbTable.size() > 1) {
-            return symbTable.pop();
+        if (depth > 1) {
+            HashMap<String, Symbol> scope = scopes[--depth];
+            scopes[depth] = null;
+            return scope;
         }
         return null;
     }
 
+    /**
+     * Empties the symbol table so it can be filled again for another program. Every local scope is removed and the
+     * global HashMap is replaced rather than cleared, since a HashMap that has grown lists its symbols in a different
+     * order and toString has to come out the same as for a new SymbolTable. The numbers start over in a new store,
+     * so tables copied from this one before keep theirs.
+     */
+    public void clear() {
+        Arrays.fill(scopes, 1, depth, null);
+        scopes[0] = new HashMap<>();
+        depth = 1;
+        store = new SymbolStore();
+        globalNames = NameMap.EMPTY;
+    }
+
     /**
      * Get a Symbol from the HashMap. Searches map on top of Stack first and goes down until found. Null if not found.
      *
@@ -87,12 +133,57 @@ public class SymbolTable {
      * @return The Symbol with a matching name or null if not found
      */
     public Symbol get(String name) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name)) return symbTable.elementAt(i).get(name);
+        // a scope never maps a name to null, so one get per scope tells whether the name is there
+        for (int i = depth - 1; i >= 0; i--) {
+            Symbol symbol = scopes[i].get(name);
+            if (symbol != null) return symbol;
         }
         return null;
     }
 
+    /**
+     * Get the number of the Symbol a name stands for. Searches the innermost scope first, the same way get does.
+     *
+     * @param name Name of Symbol we are looking for
+     * @return The number of the Symbol or -1 if not found
+     */
+    public int idOf(String name) {
+        Symbol symbol = get(name);
+        return symbol == null ? -1 : symbol.getNumber();
+    }
+
+    /**
+     * Get the number of the function or procedure a name stands for. A variable with the same name in an inner scope,
+     * such as the variable for the result inside a function, does not hide it.
+     *
+     * @param name Name of the function or procedure
+     * @return The number of its Symbol or -1 if not found
+     */
+    public int idOfSubProgram(String name) {
+        Symbol symbol = find(name, Kind.FUNCTION, Kind.PROCEDURE);
+        return symbol == null ? -1 : symbol.getNumber();
+    }
+
+    /**
+     * Declares a symbol in the innermost scope, unless its name is already there. A name that is already there is
+     * not given a number.
+     *
+     * @param name  The name of the symbol
+     * @param kind  The kind of the symbol
+     * @param type  The type of the symbol, null if it has none
+     * @param begin The beginning index of an array
+     * @param end   The ending index of an array
+     * @return true if added, false if already exists
+     */
+    private boolean add(String name, Kind kind, Type type, int begin, int end) {
+        // one probe of the scope, the symbol is only numbered once it is known to be new
+        Symbol symbol = new Symbol(store, -1);
+        if (scopes[depth - 1].putIfAbsent(name, symbol) != null) return false;
+        int number = symbol.number = store.add(name, kind, type, begin, end);
+        if (depth == 1 && globalNames != null) globalNames = globalNames.plus(name, number);
+        return true;
+    }
+
     /**
      * Add a program symbol to the symbol table.
      *
@@ -100,14 +191,7 @@ public class SymbolTable {
      * @return true if added, false if already exists
      */
     public boolean addProgram(String name) {
-        HashMap<String, Symbol> currentTable = symbTable.pop();
-        if (!currentTable.containsKey(name)) {
-            currentTable.put(name, new Symbol(name, Kind.PROGRAM));
-            symbTable.push(currentTable);
-            return true;
-        }
-        symbTable.push(currentTable);
-        return false;
+        return add(name, Kind.PROGRAM, null, 0, 0);
     }
 
     /**
@@ -118,14 +202,7 @@ public class SymbolTable {
      * @return true if added, false if already exists
      */
     public boolean addVariable(String name, Type type) {
-        HashMap<String, Symbol> currentTable = symbTable.pop();
-        if (!currentTable.containsKey(name)) {
-            currentTable.put(name, new Symbol(name, Kind.VARIABLE, type));
-            symbTable.push(currentTable);
-            return true;
-        }
-        symbTable.push(currentTable);
-        return false;
+        return add(name, Kind.VARIABLE, type, 0, 0);
     }
 
     /**
@@ -138,14 +215,7 @@ public class SymbolTable {
      * @return true if added, false if already exists
      */
     public boolean addArray(String name, Type type, int begin, int end) {
-        HashMap<String, Symbol> currentTable = symbTable.pop();
-        if (!currentTable.containsKey(name)) {
-            currentTable.put(name, new Symbol(name, Kind.ARRAY, type, begin, end));
-            symbTable.push(currentTable);
-            return true;
-        }
-        symbTable.push(currentTable);
-        return false;
+        return add(name, Kind.ARRAY, type, begin, end);
     }
 
     /**
@@ -159,14 +229,7 @@ public class SymbolTable {
      * @return true if added, false if already exists
      */
     public boolean addFunction(String name, Type type) {
-        HashMap<String, Symbol> currentTable = symbTable.pop();
-        if (!currentTable.containsKey(name)) {
-            currentTable.put(name, new Symbol(name, Kind.FUNCTION, type));
-            symbTable.push(currentTable);
-            return true;
-        }
-        symbTable.push(currentTable);
-        return false;
+        return add(name, Kind.FUNCTION, type, 0, 0);
     }
 
     /**
@@ -177,14 +240,24 @@ public class SymbolTable {
      * @return true if added, false if already exists
      */
     public boolean addProcedure(String name) {
-        HashMap<String, Symbol> currentTable = symbTable.pop();
-        if (!currentTable.containsKey(name)) {
-            currentTable.put(name, new Symbol(name, Kind.PROCEDURE));
-            symbTable.push(currentTable);
-            return true;
+        return add(name, Kind.PROCEDURE, null, 0, 0);
+    }
+
+    /**
+     * Finds the innermost Symbol with a name and one of two kinds. A Symbol of another kind with the same name in an
+     * inner scope does not hide one of the right kind further out.
+     *
+     * @param name  name of the symbol
+     * @param kind  the kind it has to be
+     * @param other another kind it may be instead, or the same kind again
+     * @return the Symbol, null if there is none of those kinds
+     */
+    private Symbol find(String name, Kind kind, Kind other) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Symbol symbol = scopes[i].get(name);
+            if (symbol != null && (symbol.getKind() == kind || symbol.getKind() == other)) return symbol;
         }
-        symbTable.push(currentTable);
-        return false;
+        return null;
     }
 
     /**
@@ -194,11 +267,7 @@ public class SymbolTable {
      * @return return true if symbol exists and is a program, false if not or does not exist
      */
     public boolean isProgramName(String name) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name) && symbTable.elementAt(i).get(name).getKind() == Kind.PROGRAM)
-                return true;
-        }
-        return false;
+        return find(name, Kind.PROGRAM, Kind.PROGRAM) != null;
     }
 
     /**
@@ -208,11 +277,7 @@ public class SymbolTable {
      * @return return true if symbol exists and is a variable, false if not or does not exist
      */
     public boolean isVariableName(String name) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name) && symbTable.elementAt(i).get(name).getKind() == Kind.VARIABLE)
-                return true;
-        }
-        return false;
+        return find(name, Kind.VARIABLE, Kind.VARIABLE) != null;
     }
 
     /**
@@ -222,11 +287,7 @@ public class SymbolTable {
      * @return return true if symbol exists and is an array, false if not or does not exist
      */
     public boolean isArrayName(String name) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name) && symbTable.elementAt(i).get(name).getKind() == Kind.ARRAY)
-                return true;
-        }
-        return false;
+        return find(name, Kind.ARRAY, Kind.ARRAY) != null;
     }
 
     /**
@@ -236,11 +297,7 @@ public class SymbolTable {
      * @return return true if symbol exists and is a function, false if not or does not exist
      */
     public boolean isFunctionName(String name) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name) && symbTable.elementAt(i).get(name).getKind() == Kind.FUNCTION)
-                return true;
-        }
-        return false;
+        return find(name, Kind.FUNCTION, Kind.FUNCTION) != null;
     }
 
     /**
@@ -250,11 +307,7 @@ public class SymbolTable {
      * @return return true if symbol exists and is a function, false if not or does not exist
      */
     public boolean isProcedureName(String name) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name) && symbTable.elementAt(i).get(name).getKind() == Kind.PROCEDURE)
-                return true;
-        }
-        return false;
+        return find(name, Kind.PROCEDURE, Kind.PROCEDURE) != null;
     }
 
     /**
@@ -264,10 +317,89 @@ public class SymbolTable {
      * @return The Symbol found or null if not found
      */
     public Type getType(String name) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name)) return symbTable.elementAt(i).get(name).getType();
-        }
-        return null;
+        Symbol symbol = get(name);
+        return symbol == null ? null : symbol.getType();
+    }
+
+    /**
+     * Get the Type of a Symbol by its number
+     *
+     * @param id The number of the Symbol, -1 for none
+     * @return The Type of the Symbol, null if it has none or there is no Symbol
+     */
+    public Type getType(int id) {
+        return id < 0 ? null : store.type(id);
+    }
+
+    /**
+     * Checks whether the Symbol with a number is an array
+     *
+     * @param id The number of the Symbol
+     * @return True if it is an array
+     */
+    public boolean isArray(int id) {
+        return store.kind(id) == Kind.ARRAY;
+    }
+
+    /**
+     * Checks whether the Symbol with a number is a function
+     *
+     * @param id The number of the Symbol
+     * @return True if it is a function
+     */
+    public boolean isFunction(int id) {
+        return store.kind(id) == Kind.FUNCTION;
+    }
+
+    /**
+     * Get the local table of a function or procedure by its number
+     *
+     * @param id The number of the function or procedure
+     * @return The local table HashMap, null if it has none
+     */
+    public HashMap<String, Symbol> getLocalTable(int id) {
+        return store.localTable(id);
+    }
+
+    /**
+     * Get the length of an array by its number
+     *
+     * @param id The number of the array
+     * @return The end index minus the begin index
+     */
+    public int getArrayLength(int id) {
+        return store.end(id) - store.begin(id);
+    }
+
+    /**
+     * Get the argument types of a function or procedure by its number
+     *
+     * @param id The number of the function or procedure
+     * @return An unmodifiable list of the argument Types, null for an array
+     */
+    public List<Type> getArgs(int id) {
+        Type[] args = store.args(id);
+        return args == null ? null : Collections.unmodifiableList(Arrays.asList(args));
+    }
+
+    /**
+     * Get the memory address of a Symbol by its number
+     *
+     * @param id The number of the Symbol
+     * @return The memory address for MIPS reference
+     */
+    public String getMemAddress(int id) {
+        return store.address(id);
+    }
+
+    /**
+     * Set the memory address of a Symbol by its number
+     *
+     * @param id      The number of the Symbol
+     * @param address The memory address for MIPS reference
+     */
+    public void setMemAddress(int id, String address) {
+        store.setAddress(id, address);
     }
 
     /**
@@ -277,12 +409,8 @@ public class SymbolTable {
      * @param localTable The HashMap to set as the local table
      */
     public void setLocalTable(String name, HashMap<String, Symbol> localTable) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name) && (symbTable.elementAt(i).get(name).getKind() == Kind.FUNCTION || symbTable.elementAt(i).get(name).getKind() == Kind.PROCEDURE)) {
-                symbTable.elementAt(i).get(name).setLocalTable(localTable);
-                return;
-            }
-        }
+        Symbol symbol = find(name, Kind.FUNCTION, Kind.PROCEDURE);
+        if (symbol != null) symbol.setLocalTable(localTable);
     }
 
     /**
@@ -292,11 +420,8 @@ public class SymbolTable {
      * @return The local table HashMap
      */
     public HashMap<String, Symbol> getLocalTable(String name) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name) && (symbTable.elementAt(i).get(name).getKind() == Kind.FUNCTION || symbTable.elementAt(i).get(name).getKind() == Kind.PROCEDURE))
-                return symbTable.elementAt(i).get(name).getLocalTable();
-        }
-        return null;
+        Symbol symbol = find(name, Kind.FUNCTION, Kind.PROCEDURE);
+        return symbol == null ? null : symbol.getLocalTable();
     }
 
     /**
@@ -306,12 +431,8 @@ public class SymbolTable {
      * @param t    Type to set
      */
     public void setType(String name, Type t) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name)) {
-                symbTable.elementAt(i).get(name).setType(t);
-                return;
-            }
-        }
+        Symbol symbol = get(name);
+        if (symbol != null) symbol.setType(t);
     }
 
     /**
@@ -321,10 +442,7 @@ public class SymbolTable {
      * @return True if it exists, false otherwise
      */
     public boolean doesExist(String name) {
-        for (int i = symbTable.size() - 1; i >= 0; i--) {
-            if (symbTable.elementAt(i).containsKey(name)) return true;
-        }
-        return false;
+        return get(name) != null;
     }
 
     /**
@@ -333,7 +451,92 @@ public class SymbolTable {
      * @param local The HashMap to be pushed
      */
     public void pushLocalTable(HashMap<String, Symbol> local) {
-        symbTable.push(local);
+        if (depth == scopes.length) scopes = Arrays.copyOf(scopes, depth * 2);
+        scopes[depth++] = local;
+    }
+
+    /**
+     * Creates a SymbolTable with the same scopes as this one, sharing their HashMaps. Scopes added to or removed from
+     * either table afterwards don't change the other.
+     *
+     * @return A SymbolTable over the same scopes
+     */
+    public SymbolTable copy() {
+        SymbolTable table = new SymbolTable();
+        table.scopes = Arrays.copyOf(scopes, scopes.length);
+        table.depth = depth;
+        table.store = store;
+        table.globalNames = globalNames;
+        return table;
+    }
+
+    /**
+     * Creates a SymbolTable with a copy of this table's global HashMap and the same Symbols in it. Names added to
+     * this table afterwards are not added to the copy, so the copy can be used on another thread while this one is
+     * still being filled.
+     *
+     * @return A SymbolTable with only the global scope
+     */
+    public SymbolTable copyGlobals() {
+        SymbolTable table = new SymbolTable();
+        table.scopes[0] = new HashMap<>(scopes[0]);
+        table.store = store;
+        table.globalNames = globalNames;
+        return table;
+    }
+
+    /**
+     * Makes a frozen snapshot of the global scope and the symbols declared so far, which can be read on any number of
+     * threads while this table goes on being filled. The local scopes pushed on this table are not part of it; the
+     * snapshot of the local scope of a function or procedure is made from it with SymbolSnapshot.local.
+     *
+     * @return A snapshot of the global scope
+     */
+    public SymbolSnapshot snapshot() {
+        if (globalNames == null || globalNames.size() != scopes[0].size()) {
+            // globals were declared through a copy sharing the global HashMap, or the table was deserialized
+            NameMap names = NameMap.EMPTY;
+            for (Symbol symbol : scopes[0].values()) {
+                names = names.plus(symbol.getId(), symbol.getNumber());
+            }
+            globalNames = names;
+        }
+        return new SymbolSnapshot(store, store.size(), globalNames, null);
+    }
+
+    /**
+     * Creates a SymbolTable that shares this table's global HashMap and has the given HashMap as its local scope. Used
+     * to parse a subprogram body on its own thread, so the global HashMap must not change while the new table is in
+     * use.
+     *
+     * @param local The local scope of the subprogram
+     * @return A SymbolTable with the same globals and the local scope on top
+     */
+    public SymbolTable withLocalScope(HashMap<String, Symbol> local) {
+        SymbolTable table = new SymbolTable();
+        table.scopes[0] = scopes[0];
+        table.store = store;
+        table.globalNames = globalNames;
+        table.pushLocalTable(local);
+        return table;
+    }
+
+    /**
+     * Get the store with the attributes of the symbols, for SymbolFile. *package-private*
+     *
+     * @return The SymbolStore of the table
+     */
+    SymbolStore getStore() {
+        return store;
+    }
+
+    /**
+     * Get the global scope, for SymbolFile. *package-private*
+     *
+     * @return The HashMap of the global scope
+     */
+    HashMap<String, Symbol> getGlobalScope() {
+        return scopes[0];
     }
 
     /**
@@ -344,83 +547,57 @@ public class SymbolTable {
     }
 
     /**
-     * A data structure to store each symbol in the symbol table. A symbol always has a name and a kind. Depending on
-     * the type of symbol different constructors will be called. The different constructors take in different
-     * information and store it in a symbol object. Class is protected so it can be accessed for testing.
+     * A handle on a symbol in the symbol table. A symbol always has a name and a kind, and depending on its kind a
+     * type, array bounds, argument types, a memory address or a local table. Those are kept in the SymbolStore at the
+     * number the symbol was given when it was declared, so a Symbol only holds its store and its number. Class is
+     * public so it can be accessed for testing.
      */
-    public class Symbol {
+    public static class Symbol implements Serializable {
 
         ///////////////////////////////
         //    Instance Variables
         ///////////////////////////////
 
-        private String id;
-        private Type type;
-        private Kind kind;
-        private int beginidx, endidx;
-        private HashMap<String, Symbol> localTable;
-        private ArrayList<Type> args;
-        private String memAddress;
+        private static final long serialVersionUID = 1L;
+
+        private final SymbolStore store;
+        private int number; // set once by add, before the symbol can be looked up
 
         ///////////////////////////////
         //       Constructors
         ///////////////////////////////
 
         /**
-         * Creates a Symbol to store a program or procedure symbol. Programs store the id name and the kind.
+         * Creates a handle on a symbol that has been declared in a store. *package private*
          *
-         * @param i id of the program
-         * @param k Kind enum (PROGRAM)
+         * @param store  The store the symbol was declared in
+         * @param number The number it was given, -1 until add has numbered it
          */
-        public Symbol(String i, Kind k) {
-            id = i;
-            kind = k;
-            args = new ArrayList<>();
+        Symbol(SymbolStore store, int number) {
+            this.store = store;
+            this.number = number;
         }
 
-        /**
-         * Creates a symbol to store a variable or function symbol. Variables store the variable id, kind and type (int/real).
-         *
-         * @param i id of the variable
-         * @param k Kind enum (VARIABLE)
-         * @param t type of the variable (int/real)
-         */
-        public Symbol(String i, Kind k, Type t) {
-            id = i;
-            kind = k;
-            type = t;
-            args = new ArrayList<>();
-        }
+        ///////////////////////////////
+        //       Methods
+        ///////////////////////////////
 
         /**
-         * Creates a symbol to store an array symbol. Arrays store the array id, kind, begin index, end index and type
-         * (int/real).
+         * Gets the number the symbol was given when it was declared
          *
-         * @param i     id of the array
-         * @param k     Kind enum (ARRAY)
-         * @param t     type of the array (int/real)
-         * @param begin beginning index
-         * @param end   ending index
+         * @return The number of the symbol in its table
          */
-        public Symbol(String i, Kind k, Type t, int begin, int end) {
-            id = i;
-            kind = k;
-            type = t;
-            beginidx = begin;
-            endidx = end;
+        public int getNumber() {
+            return number;
         }
 
-        ///////////////////////////////
-        //       Methods
-        ///////////////////////////////
-
         /**
          * Gets the kind of the symbol
          *
          * @return A Kind enum, either PROGRAM, ARRAY, VARIABLE or FUNCTION
          */
         public Kind getKind() {
-            return kind;
+            return store.kind(number);
         }
 
         /**
@@ -429,7 +606,7 @@ public class SymbolTable {
          * @return A String with the symbol id
          */
         public String getId() {
-            return id;
+            return store.name(number);
         }
 
         /**
@@ -438,7 +615,7 @@ public class SymbolTable {
          * @return A Type enum of return type or variable type
          */
         public Type getType() {
-            return type;
+            return store.type(number);
         }
 
         /**
@@ -447,16 +624,18 @@ public class SymbolTable {
          * @param t Type to be set
          */
         public void setType(Type t) {
-            type = t;
+            store.setType(number, t);
         }
 
         /**
-         * Get the array list of argument types for a Symbol, applies only to functions and procedures
+         * Get the argument types for a Symbol, applies only to functions and procedures. The list is a copy, so
+         * changing it does not change the Symbol.
          *
-         * @return ArrayList of argument Types
+         * @return ArrayList of argument Types, null for an array
          */
         public ArrayList<Type> getArgs() {
-            return args;
+            Type[] args = store.args(number);
+            return args == null ? null : new ArrayList<>(Arrays.asList(args));
         }
 
         /**
@@ -465,7 +644,7 @@ public class SymbolTable {
          * @param types An ArrayList of Types
          */
         public void setArgs(ArrayList<Type> types) {
-            args = types;
+            store.setArgs(number, types.toArray(new Type[0]));
         }
 
         /**
@@ -474,7 +653,7 @@ public class SymbolTable {
          * @return The memory address for MIPS reference
          */
         public String getMemAddress() {
-            return memAddress;
+            return store.address(number);
         }
 
         /**
@@ -483,7 +662,7 @@ public class SymbolTable {
          * @param address The memory address for MIPS reference
          */
         public void setMemAddress(String address) {
-            memAddress = address;
+            store.setAddress(number, address);
         }
 
         /**
@@ -492,7 +671,7 @@ public class SymbolTable {
          * @return beginning index of an array
          */
         int getBeginidx() {
-            return beginidx;
+            return store.begin(number);
         }
 
         /**
@@ -501,16 +680,19 @@ public class SymbolTable {
          * @return ending index of an array
          */
         int getEndidx() {
-            return endidx;
+            return store.end(number);
         }
 
         /**
-         * Add an argument to the ArrayList of arg Types
+         * Add an argument to the arg Types
          *
          * @param t The Type of argument to add
          */
         public void addArg(Type t) {
-            args.add(t);
+            Type[] args = store.args(number);
+            Type[] added = Arrays.copyOf(args, args.length + 1);
+            added[args.length] = t;
+            store.setArgs(number, added);
         }
 
         /**
@@ -519,11 +701,11 @@ public class SymbolTable {
          * @return The length of the array
          */
         public int getArrayLength() {
-            return endidx - beginidx;
+            return getEndidx() - getBeginidx();
         }
 
         public boolean isArray() {
-            if (kind.equals(Kind.ARRAY))
+            if (getKind().equals(Kind.ARRAY))
                 return true;
             return false;
         }
@@ -534,7 +716,7 @@ public class SymbolTable {
          * @return An ArrayList of function arguments
          */
         HashMap<String, Symbol> getLocalTable() {
-            return localTable;
+            return store.localTable(number);
         }
 
         /**
@@ -543,7 +725,7 @@ public class SymbolTable {
          * @param local The HashMap of the local symbol table
          */
         void setLocalTable(HashMap<String, Symbol> local) {
-            localTable = local;
+            store.setLocalTable(number, local);
         }
 
         /**
@@ -552,22 +734,24 @@ public class SymbolTable {
         @Override
         public String toString() {
             StringBuilder str = new StringBuilder("( id=");
-            str.append(id);
+            str.append(getId());
             str.append(", Kind=");
-            str.append(kind);
+            str.append(getKind());
             str.append(", Type=");
-            str.append(type);
+            str.append(getType());
             str.append(", startIndex=");
-            str.append(beginidx);
+            str.append(getBeginidx());
             str.append(", endIndex=");
-            str.append(endidx);
+            str.append(getEndidx());
+            Type[] args = store.args(number);
             if (args != null) {
                 str.append(", args: ");
-                str.append(args.toString());
+                str.append(Arrays.toString(args));
             }
+            HashMap<String, Symbol> localTable = getLocalTable();
             if (localTable != null) {
                 str.append("\n\t\t\t");
-                str.append(id);
+                str.append(getId());
                 str.append(" local table:\n\t\t\t");
                 str.append(localTable.toString().replaceAll("\n", "\n\t\t\t").replaceAll("\t,", "\t"));
             }
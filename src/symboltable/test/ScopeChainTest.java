@@ -0,0 +1,85 @@
+package symboltable.test;
+
+import scanner.Type;
+import symboltable.SymbolTable;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class uses the JUnit framework to test the scopes of the SymbolTable class: names in inner scopes hide the
+ * same names further out, scopes can be pushed deeper than the table starts out with, and copies of a table don't
+ * change each other's scopes.
+ */
+class ScopeChainTest {
+
+    /**
+     * Tests lookups through eight scopes, with names hidden by inner scopes.
+     */
+    @org.junit.jupiter.api.Test
+    void nestedScopes() {
+        System.out.println("-----test SymbolTable nested scopes-----");
+        SymbolTable table = new SymbolTable();
+        assertTrue(table.addVariable("x", Type.INTEGER));
+        assertTrue(table.addProcedure("p"));
+        for (int depth = 1; depth < 8; depth++) {
+            table.addNewScope();
+            assertTrue(table.addVariable("v" + depth, Type.REAL));
+        }
+        assertTrue(table.addVariable("x", Type.REAL));
+        assertFalse(table.addVariable("x", Type.INTEGER));
+        assertTrue(table.addArray("p", Type.INTEGER, 0, 3));
+
+        assertEquals(Type.REAL, table.getType("x"));
+        assertEquals(Type.REAL, table.getType("v1"));
+        assertTrue(table.isArrayName("p"));
+        // the procedure further out is still found by kind
+        assertTrue(table.isProcedureName("p"));
+        assertFalse(table.doesExist("y"));
+
+        for (int depth = 7; depth > 0; depth--) {
+            assertNotNull(table.removeScope());
+        }
+        assertNull(table.removeScope());
+        assertEquals(Type.INTEGER, table.getType("x"));
+        assertFalse(table.doesExist("v1"));
+        assertFalse(table.isArrayName("p"));
+        System.out.println("Nested scope tests PASSED.\n");
+    }
+
+    /**
+     * Tests that a copy shares the HashMaps of the scopes but not the chain of them, and that clear starts over.
+     */
+    @org.junit.jupiter.api.Test
+    void copies() {
+        System.out.println("-----test SymbolTable copies-----");
+        SymbolTable table = new SymbolTable();
+        table.addFunction("f", Type.INTEGER);
+        HashMap<String, SymbolTable.Symbol> local = new HashMap<>();
+        table.pushLocalTable(local);
+        table.addVariable("a", Type.INTEGER);
+        assertSame(local.get("a"), table.get("a"));
+        table.setLocalTable("f", local);
+        assertSame(local, table.getLocalTable("f"));
+
+        SymbolTable copy = table.copy();
+        copy.removeScope();
+        assertTrue(table.doesExist("a"));
+        assertFalse(copy.doesExist("a"));
+        copy.addVariable("g", Type.REAL);
+        assertTrue(table.doesExist("g"));
+
+        SymbolTable globals = table.copyGlobals();
+        table.removeScope();
+        table.addVariable("h", Type.REAL);
+        assertFalse(globals.doesExist("h"));
+        assertTrue(globals.isFunctionName("f"));
+
+        String empty = new SymbolTable().toString();
+        table.clear();
+        assertEquals(empty, table.toString());
+        assertFalse(table.doesExist("f"));
+        System.out.println("Copy tests PASSED.\n");
+    }
+}
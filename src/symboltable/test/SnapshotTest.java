@@ -0,0 +1,143 @@
+package symboltable.test;
+
+import scanner.Type;
+import symboltable.SymbolSnapshot;
+import symboltable.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class uses the JUnit framework to test the SymbolSnapshot class: a snapshot doesn't see what is declared after
+ * it was made, local scopes hide the global names without changing the global snapshot, and many threads can read a
+ * snapshot while the table goes on being filled.
+ */
+class SnapshotTest {
+
+    /**
+     * Tests that a snapshot keeps the names it was made with, including many names and names with the same hash.
+     */
+    @org.junit.jupiter.api.Test
+    void frozen() {
+        System.out.println("-----test SymbolSnapshot frozen-----");
+        SymbolTable table = new SymbolTable();
+        // these all have the same hashCode
+        String[] same = {"AaAa", "AaBB", "BBAa", "BBBB"};
+        for (String name : same) {
+            assertTrue(table.addVariable(name, Type.INTEGER));
+        }
+        for (int i = 0; i < 5000; i++) {
+            table.addVariable("v" + i, i % 2 == 0 ? Type.INTEGER : Type.REAL);
+        }
+        table.addArray("a", Type.REAL, 2, 7);
+        SymbolSnapshot snapshot = table.snapshot();
+        table.addVariable("late", Type.REAL);
+
+        assertEquals(table.idOf("late"), snapshot.size());
+        assertEquals(-1, snapshot.idOf("late"));
+        assertTrue(table.snapshot().idOf("late") >= 0);
+        for (String name : same) {
+            assertEquals(table.idOf(name), snapshot.idOf(name));
+            assertEquals(name, snapshot.getName(snapshot.idOf(name)));
+        }
+        for (int i = 0; i < 5000; i++) {
+            int id = snapshot.idOf("v" + i);
+            assertEquals(table.idOf("v" + i), id);
+            assertEquals(i % 2 == 0 ? Type.INTEGER : Type.REAL, snapshot.getType(id));
+        }
+        int a = snapshot.idOf("a");
+        assertTrue(snapshot.isArray(a));
+        assertEquals(5, snapshot.getArrayLength(a));
+        assertNull(snapshot.getArgs(a));
+        assertEquals(-1, snapshot.idOf("missing"));
+        assertNull(snapshot.getType(-1));
+        System.out.println("Frozen snapshot tests PASSED.\n");
+    }
+
+    /**
+     * Tests the snapshot of a function's local scope.
+     */
+    @org.junit.jupiter.api.Test
+    void localScopes() {
+        System.out.println("-----test SymbolSnapshot local scopes-----");
+        SymbolTable table = new SymbolTable();
+        table.addVariable("x", Type.INTEGER);
+        table.addVariable("g", Type.INTEGER);
+        table.addFunction("f", Type.REAL);
+        table.get("f").setArgs(new ArrayList<>(Arrays.asList(Type.REAL, Type.INTEGER)));
+        HashMap<String, SymbolTable.Symbol> local = new HashMap<>();
+        table.pushLocalTable(local);
+        table.addVariable("x", Type.REAL);
+        table.addVariable("f", Type.REAL);
+        table.removeScope();
+        table.setLocalTable("f", local);
+
+        SymbolSnapshot globals = table.snapshot();
+        int f = globals.idOfSubProgram("f");
+        assertEquals(globals.idOf("f"), f);
+        assertTrue(globals.isFunction(f));
+        assertEquals(Arrays.asList(Type.REAL, Type.INTEGER), globals.getArgs(f));
+        assertThrows(UnsupportedOperationException.class, () -> globals.getArgs(f).clear());
+        assertEquals(2, globals.getLocalCount(f));
+
+        SymbolSnapshot inside = globals.local(f);
+        assertEquals(local.get("x").getNumber(), inside.idOf("x"));
+        assertEquals(Type.REAL, inside.getType(inside.idOf("x")));
+        assertEquals(table.idOf("g"), inside.idOf("g"));
+        // the variable for the result hides the function from idOf, but not from idOfSubProgram
+        assertEquals(local.get("f").getNumber(), inside.idOf("f"));
+        assertFalse(inside.isFunction(inside.idOf("f")));
+        assertEquals(f, inside.idOfSubProgram("f"));
+        assertEquals(-1, inside.idOfSubProgram("x"));
+        // the global snapshot is unchanged
+        assertEquals(table.idOf("x"), globals.idOf("x"));
+        assertEquals(Type.INTEGER, globals.getType(globals.idOf("x")));
+
+        // globals declared through a copy that shares the global HashMap are seen too
+        SymbolTable copy = table.copy();
+        copy.addVariable("y", Type.REAL);
+        assertEquals(copy.idOf("y"), table.snapshot().idOf("y"));
+        System.out.println("Local scope tests PASSED.\n");
+    }
+
+    /**
+     * Tests that threads reading one snapshot find every name in it while the table is being filled.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @org.junit.jupiter.api.Test
+    void concurrentReads() throws InterruptedException {
+        System.out.println("-----test SymbolSnapshot concurrent reads-----");
+        SymbolTable table = new SymbolTable();
+        for (int i = 0; i < 1000; i++) {
+            table.addVariable("v" + i, Type.INTEGER);
+        }
+        SymbolSnapshot snapshot = table.snapshot();
+        AtomicInteger wrong = new AtomicInteger();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                for (int round = 0; round < 20; round++) {
+                    for (int i = 0; i < 1000; i++) {
+                        int id = snapshot.idOf("v" + i);
+                        if (id < 0 || !snapshot.getName(id).equals("v" + i) || snapshot.getType(id) != Type.INTEGER)
+                            wrong.incrementAndGet();
+                    }
+                    if (snapshot.idOf("w0") >= 0) wrong.incrementAndGet();
+                }
+            });
+            readers[t].start();
+        }
+        for (int i = 0; i < 5000; i++) {
+            table.addVariable("w" + i, Type.REAL);
+        }
+        for (Thread reader : readers) reader.join();
+        assertEquals(0, wrong.get());
+        assertEquals(1000, snapshot.size());
+        System.out.println("Concurrent read tests PASSED.\n");
+    }
+}
@@ -0,0 +1,164 @@
+package symboltable.test;
+
+import codefolding.CodeFolding;
+import codegeneration.CodeGeneration;
+import nameresolution.NameResolution;
+import parser.Parser;
+import scanner.Type;
+import symboltable.SymbolFile;
+import symboltable.SymbolTable;
+import syntaxtree.ProgramNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class uses the JUnit framework to test the SymbolFile class: a symbol table written to a file and read back
+ * answers the same questions by the same numbers, rebuilds into a table with the same text and the same assembly, and
+ * bytes that aren't a whole symbol file are refused.
+ */
+class SymbolFileTest {
+
+    /**
+     * Tests the lookups in a file mapped from disk, with arrays, argument types, a local table and names that aren't
+     * ASCII.
+     *
+     * @throws IOException if the file can not be written or mapped
+     */
+    @org.junit.jupiter.api.Test
+    void lookups() throws IOException {
+        System.out.println("-----test SymbolFile lookups-----");
+        SymbolTable table = new SymbolTable();
+        table.addProgram("p");
+        table.addVariable("x", Type.INTEGER);
+        table.addVariable("gr\u00f6\u00dfe", Type.REAL);
+        table.addArray("a", Type.REAL, 2, 7);
+        table.addFunction("f", Type.REAL);
+        table.get("f").setArgs(new ArrayList<>(Arrays.asList(Type.REAL, Type.INTEGER)));
+        table.addProcedure("q");
+        HashMap<String, SymbolTable.Symbol> local = new HashMap<>();
+        table.pushLocalTable(local);
+        table.addVariable("x", Type.REAL);
+        table.addVariable("f", Type.REAL);
+        table.removeScope();
+        table.setLocalTable("f", local);
+
+        Path path = Files.createTempFile("symbols", ".symbols");
+        try {
+            try (OutputStream out = Files.newOutputStream(path)) {
+                SymbolFile.write(table, out);
+            }
+            SymbolFile file = SymbolFile.map(path);
+            assertEquals(8, file.size());
+            for (String name : new String[]{"p", "x", "gr\u00f6\u00dfe", "a", "f", "q"}) {
+                assertEquals(table.idOf(name), file.idOf(name));
+                assertEquals(name, file.getName(file.idOf(name)));
+                assertEquals(table.getType(table.idOf(name)), file.getType(file.idOf(name)));
+            }
+            assertEquals(-1, file.idOf("missing"));
+            assertEquals(-1, file.idOf("gr\u00f6ss"));
+            assertNull(file.getType(-1));
+
+            int a = file.idOf("a");
+            assertTrue(file.isArray(a));
+            assertEquals(5, file.getArrayLength(a));
+            assertNull(file.getArgs(a));
+
+            int f = file.idOf("f");
+            assertTrue(file.isFunction(f));
+            assertTrue(file.isProcedure(file.idOf("q")));
+            assertEquals(Arrays.asList(Type.REAL, Type.INTEGER), file.getArgs(f));
+            assertEquals(0, file.getArgs(file.idOf("q")).size());
+            assertEquals(2, file.getLocalCount(f));
+            assertEquals(local.get("x").getNumber(), file.idOfLocal(f, "x"));
+            assertEquals(Type.REAL, file.getType(file.idOfLocal(f, "x")));
+            assertEquals(local.get("f").getNumber(), file.idOfLocal(f, "f"));
+            assertEquals(-1, file.idOfLocal(f, "a"));
+            assertEquals(-1, file.idOfLocal(a, "x"));
+            assertEquals(0, file.getLocalCount(a));
+
+            assertEquals(table.toString(), file.toSymbolTable().toString());
+        } finally {
+            Files.delete(path);
+        }
+        System.out.println("Lookup tests PASSED.\n");
+    }
+
+    /**
+     * Tests that the tables of the sample programs come back with the same text, the same numbers and the same
+     * assembly generated from them.
+     *
+     * @throws IOException if a sample can not be read
+     */
+    @org.junit.jupiter.api.Test
+    void samplePrograms() throws IOException {
+        System.out.println("-----test SymbolFile sample programs-----");
+        File[] samples = new File("src/pascalfiles").listFiles((dir, name) -> name.endsWith(".pas"));
+        assertTrue(samples != null && samples.length > 0);
+        for (File sample : samples) {
+            Parser parser = new Parser(new String(Files.readAllBytes(sample.toPath())));
+            ProgramNode tree = parser.program();
+            SymbolTable table = parser.getSymbolTable();
+            SymbolFile file = SymbolFile.read(ByteBuffer.wrap(bytes(table)));
+            for (int id = 0; id < file.size(); id++) {
+                String name = file.getName(id);
+                assertEquals(table.idOf(name), file.idOf(name), sample.getName());
+            }
+            SymbolTable loaded = file.toSymbolTable();
+            assertEquals(table.toString(), loaded.toString(), sample.getName());
+            // writing the rebuilt table gives the same bytes
+            assertArrayEquals(bytes(table), bytes(loaded));
+
+            new NameResolution(table).resolveProgram(tree);
+            new CodeFolding().foldProgram(tree);
+            assertEquals(new CodeGeneration(tree, table).generateCode(), new CodeGeneration(tree, loaded).generateCode());
+        }
+        System.out.println("All sample program tests PASSED.\n");
+    }
+
+    /**
+     * Tests that bytes that aren't a symbol file, or are cut short, are refused.
+     */
+    @org.junit.jupiter.api.Test
+    void badFiles() {
+        System.out.println("-----test SymbolFile bad files-----");
+        SymbolTable table = new SymbolTable();
+        table.addVariable("x", Type.INTEGER);
+        byte[] bytes = bytes(table);
+        assertThrows(IOException.class, () -> SymbolFile.read(ByteBuffer.wrap(new byte[4])));
+        byte[] text = table.toString().getBytes();
+        assertThrows(IOException.class, () -> SymbolFile.read(ByteBuffer.wrap(text)));
+        byte[] shortened = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(IOException.class, () -> SymbolFile.read(ByteBuffer.wrap(shortened)));
+        byte[] newer = bytes.clone();
+        newer[7] = 2;
+        assertThrows(IOException.class, () -> SymbolFile.read(ByteBuffer.wrap(newer)));
+        System.out.println("Bad file tests PASSED.\n");
+    }
+
+    /**
+     * Writes a table to an array.
+     *
+     * @param table The SymbolTable
+     * @return The bytes of its symbol file
+     */
+    private static byte[] bytes(SymbolTable table) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            SymbolFile.write(table, out);
+        } catch (IOException ex) {
+            throw new AssertionError(ex);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,142 @@
+package symboltable.test;
+
+import parser.Parser;
+import scanner.Type;
+import symboltable.SymbolTable;
+import syntaxtree.AssignmentStatementNode;
+import syntaxtree.ProgramNode;
+import syntaxtree.VariableNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class uses the JUnit framework to test the numbers the SymbolTable gives its symbols: they are handed out in
+ * the order the symbols are declared, the attributes read by number are the ones of the Symbol, the tables copied from
+ * a table share them, and the parser puts them on the variables it looks up.
+ */
+class SymbolNumberTest {
+
+    /**
+     * Tests that symbols are numbered in order and that their attributes can be read and changed by number.
+     */
+    @org.junit.jupiter.api.Test
+    void numbers() {
+        System.out.println("-----test SymbolTable numbers-----");
+        SymbolTable table = new SymbolTable();
+        assertTrue(table.addProgram("p"));
+        assertTrue(table.addVariable("x", Type.INTEGER));
+        assertTrue(table.addArray("a", Type.REAL, 1, 10));
+        assertFalse(table.addVariable("x", Type.REAL));
+        assertTrue(table.addFunction("f", null));
+        assertEquals(0, table.idOf("p"));
+        assertEquals(1, table.idOf("x"));
+        assertEquals(2, table.idOf("a"));
+        // the second x was not declared, so it was not given a number
+        assertEquals(3, table.idOf("f"));
+        assertEquals(-1, table.idOf("y"));
+
+        int a = table.idOf("a");
+        assertTrue(table.isArray(a));
+        assertFalse(table.isArray(table.idOf("x")));
+        assertEquals(9, table.getArrayLength(a));
+        assertEquals(Type.REAL, table.getType(a));
+        assertNull(table.getType(-1));
+        table.setMemAddress(a, "a");
+        assertEquals("a", table.get("a").getMemAddress());
+        table.get("x").setMemAddress("4($sp)");
+        assertEquals("4($sp)", table.getMemAddress(table.idOf("x")));
+
+        SymbolTable.Symbol f = table.get("f");
+        f.setArgs(new ArrayList<>(Arrays.asList(Type.INTEGER, Type.REAL)));
+        f.addArg(Type.INTEGER);
+        f.getArgs().clear();
+        assertEquals(Arrays.asList(Type.INTEGER, Type.REAL, Type.INTEGER), f.getArgs());
+        assertEquals(0, table.get("x").getArgs().size());
+        assertNull(table.get("a").getArgs());
+        assertTrue(f.toString().contains("args: [INTEGER, REAL, INTEGER]"));
+        assertTrue(table.get("x").toString().contains("args: []"));
+        assertFalse(table.get("a").toString().contains("args"));
+        System.out.println("Number tests PASSED.\n");
+    }
+
+    /**
+     * Tests that tables made from a table give numbers from the same store, also when subprogram bodies are declared
+     * on several threads at once, and that clear starts the numbers over.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @org.junit.jupiter.api.Test
+    void sharedNumbers() throws InterruptedException {
+        System.out.println("-----test SymbolTable shared numbers-----");
+        SymbolTable table = new SymbolTable();
+        table.addVariable("g", Type.INTEGER);
+        Thread[] threads = new Thread[4];
+        SymbolTable[] locals = new SymbolTable[threads.length];
+        for (int t = 0; t < threads.length; t++) {
+            SymbolTable local = table.withLocalScope(new HashMap<>());
+            locals[t] = local;
+            String prefix = "t" + t + "v";
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    local.addVariable(prefix + i, i % 2 == 0 ? Type.INTEGER : Type.REAL);
+                }
+            });
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        boolean[] used = new boolean[1 + threads.length * 500];
+        used[table.idOf("g")] = true;
+        for (int t = 0; t < threads.length; t++) {
+            for (int i = 0; i < 500; i++) {
+                String name = "t" + t + "v" + i;
+                int id = locals[t].idOf(name);
+                assertFalse(used[id]);
+                used[id] = true;
+                assertEquals(name, locals[t].get(name).getId());
+                assertEquals(i % 2 == 0 ? Type.INTEGER : Type.REAL, table.getType(id));
+            }
+        }
+
+        SymbolTable globals = table.copyGlobals();
+        assertEquals(table.idOf("g"), globals.idOf("g"));
+        table.clear();
+        table.addVariable("h", Type.REAL);
+        assertEquals(0, table.idOf("h"));
+        assertEquals(Type.INTEGER, globals.getType(globals.idOf("g")));
+        System.out.println("Shared number tests PASSED.\n");
+    }
+
+    /**
+     * Tests that the parser puts the number of the symbol on the variables it looks up.
+     */
+    @org.junit.jupiter.api.Test
+    void parsedVariables() {
+        System.out.println("-----test SymbolTable numbers of parsed variables-----");
+        Parser parser = new Parser("program p; var x: integer; var a: array [1:5] of real;\n" +
+                "function f(x: real): real; begin f := x end;\nbegin x := 3; a[1] := f(a[2]) end .");
+        ProgramNode program = parser.program();
+        SymbolTable table = parser.getSymbolTable();
+        VariableNode x = ((AssignmentStatementNode) program.getMain().getStatements().get(0)).getLValue();
+        VariableNode a = ((AssignmentStatementNode) program.getMain().getStatements().get(1)).getLValue();
+        assertEquals(table.idOf("x"), x.getSymbol());
+        assertEquals(table.idOf("a"), a.getSymbol());
+        assertTrue(table.isArray(a.getSymbol()));
+
+        // inside f, x is the argument and f is the variable for its result
+        VariableNode result = ((AssignmentStatementNode) program.getFunctions().getProcs().get(0).getMain()
+                .getStatements().get(0)).getLValue();
+        VariableNode argument = (VariableNode) ((AssignmentStatementNode) program.getFunctions().getProcs().get(0)
+                .getMain().getStatements().get(0)).getExpression();
+        HashMap<String, SymbolTable.Symbol> local = table.getLocalTable("f");
+        assertEquals(local.get("f").getNumber(), result.getSymbol());
+        assertEquals(local.get("x").getNumber(), argument.getSymbol());
+        assertNotEquals(x.getSymbol(), argument.getSymbol());
+        assertEquals(Type.REAL, table.getType(argument.getSymbol()));
+        System.out.println("Parsed variable tests PASSED.\n");
+    }
+}
@@ -15,6 +15,8 @@ public class ArrayNode extends VariableNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode expNode;
 
     ///////////////////////////////
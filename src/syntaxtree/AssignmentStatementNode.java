@@ -18,6 +18,8 @@ public class AssignmentStatementNode extends StatementNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     private VariableNode lvalue; // The variable the value is being assigned to
     private ExpressionNode expression; // The value being assigned
 
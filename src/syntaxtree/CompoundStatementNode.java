@@ -19,6 +19,8 @@ public class CompoundStatementNode extends StatementNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     // Stores all the statements in the Compound Statement
     private ArrayList<StatementNode> statements = new ArrayList<>();
 
@@ -18,6 +18,8 @@ public class DeclarationsNode extends SyntaxTreeNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     // The variables declared in this declaration
     private ArrayList<VariableNode> vars = new ArrayList<>();
 
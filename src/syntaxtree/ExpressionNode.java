@@ -18,6 +18,8 @@ public abstract class ExpressionNode extends SyntaxTreeNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     // The data type of this expression, either REAL or INTEGER *package-private*
     Type type;
 
@@ -20,6 +20,8 @@ public class FunctionNode extends VariableNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     // The name of the arguments associated with this node
     private ArrayList<ExpressionNode> args;
 
@@ -17,6 +17,8 @@ public class IfStatementNode extends StatementNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     // The test of the if statement
     private ExpressionNode test;
     // What to do if the test is true
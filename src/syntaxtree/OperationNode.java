@@ -18,6 +18,8 @@ public class OperationNode extends ExpressionNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode left; // The left operator of this operation.
     private ExpressionNode right; // The right operator of this operation.
     private Type operation; // Operation to be performed such as plus or minus
@@ -18,10 +18,14 @@ public class ProcedureStatementNode extends StatementNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     // The function variable
     private String name;
     // An ArrayList of the Argument Expressions
     private ArrayList<ExpressionNode> args = new ArrayList<>();
+    // The number of the procedure symbol, -1 until it is known
+    private int symbol = -1;
 
     ///////////////////////////////
     //       Constructors
@@ -40,6 +44,24 @@ public class ProcedureStatementNode extends StatementNode {
     //       Methods
     ///////////////////////////////
 
+    /**
+     * Returns the number of the procedure symbol in the symbol table that this call is to.
+     *
+     * @return The number of the symbol, -1 if it has not been looked up
+     */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Sets the number of the procedure symbol in the symbol table that this call is to.
+     *
+     * @param symbol The number of the symbol, -1 if it is not known
+     */
+    public void setSymbol(int symbol) {
+        this.symbol = symbol;
+    }
+
     /**
      * Add an ArrayList of ExpressionNodes for the function arguments
      *
@@ -16,6 +16,8 @@ public class ProgramNode extends SyntaxTreeNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     String name; // Name of the program *package-private*
     DeclarationsNode variables; // Declarations made in the program *package-private*
     SubProgramDeclarationsNode functions; // Functions/procedures declared in the program *package-private*
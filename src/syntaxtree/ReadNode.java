@@ -16,6 +16,8 @@ public class ReadNode extends StatementNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     private VariableNode id;
 
     ///////////////////////////////
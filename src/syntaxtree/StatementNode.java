@@ -12,4 +12,5 @@ package syntaxtree;
  */
 public abstract class StatementNode extends SyntaxTreeNode {
 
+    private static final long serialVersionUID = 1L;
 }
@@ -18,6 +18,8 @@ public class SubProgramDeclarationsNode extends SyntaxTreeNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     // ArrayList containing all the functions/procedures declared
     private ArrayList<SubProgramNode> procs = new ArrayList<>();
 
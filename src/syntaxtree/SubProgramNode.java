@@ -2,7 +2,10 @@ package syntaxtree;
 
 import scanner.Type;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.function.Supplier;
 
 /**
  * Bob Laskowski,
@@ -11,6 +14,8 @@ import java.util.ArrayList;
  * April 27th, 2017
  * <p>
  * Represents a single subprogram declarations
+ * <p>
+ * The main body can be left to be parsed later. It is then parsed the first time getMain is called and kept.
  *
  * @author Bob Laskowski
  */
@@ -20,8 +25,12 @@ public class SubProgramNode extends ProgramNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     private Type returnType; // Return type of the subprogram (REAL/INTEGER for functions, NULL for procedures)
     private ArrayList<VariableNode> args; // Function arguments
+    private int symbol = -1; // Number of the function or procedure symbol in the symbol table, -1 until it is known
+    private transient Supplier<CompoundStatementNode> body; // Parses the main body when it is first needed, null once it has been
 
     ///////////////////////////////
     //       Constructors
@@ -50,11 +59,34 @@ public class SubProgramNode extends ProgramNode {
     }
 
     /**
-     * Gets the main function of the subprogram
+     * Get the number of the function or procedure symbol in the symbol table
+     *
+     * @return The number of the symbol, -1 if it has not been looked up
+     */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Set the number of the function or procedure symbol in the symbol table
+     *
+     * @param symbol The number of the symbol, -1 if it is not known
+     */
+    public void setSymbol(int symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Gets the main function of the subprogram. A main body left to be parsed later is parsed here, and whatever its
+     * parse throws, such as Parser.Stop for a name that was never declared, is thrown from here.
      *
      * @return A CompoundStatementNode representing the main function of the subprogram
      */
-    public CompoundStatementNode getMain() {
+    public synchronized CompoundStatementNode getMain() {
+        if (body != null) {
+            main = body.get();
+            body = null;
+        }
         return main;
     }
 
@@ -63,8 +95,28 @@ public class SubProgramNode extends ProgramNode {
      *
      * @param main A CompoundStatementNode with the main body of the program
      */
-    public void setMain(CompoundStatementNode main) {
+    public synchronized void setMain(CompoundStatementNode main) {
         this.main = main;
+        this.body = null;
+    }
+
+    /**
+     * Set the main body of the SubProgram to be parsed the first time it is asked for
+     *
+     * @param body Parses and returns the main body
+     */
+    public synchronized void setLazyMain(Supplier<CompoundStatementNode> body) {
+        this.main = null;
+        this.body = body;
+    }
+
+    /**
+     * Tells whether the main body has been parsed yet
+     *
+     * @return False if the main body is still waiting to be parsed
+     */
+    public synchronized boolean isMainParsed() {
+        return body == null;
     }
 
     /**
@@ -130,6 +182,17 @@ public class SubProgramNode extends ProgramNode {
         this.args = args;
     }
 
+    /**
+     * Parses the main body if it hasn't been yet before the node is serialized, since the parse can't be.
+     *
+     * @param out The stream the node is written to
+     * @throws IOException if the stream can not be written
+     */
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        getMain();
+        out.defaultWriteObject();
+    }
+
     /**
      * Print out the node with proper indentation to build a visual syntax tree
      *
@@ -151,7 +214,7 @@ public class SubProgramNode extends ProgramNode {
         answer.append(")\n");
         answer.append(variables.indentedToString(level + 1));
         answer.append(functions.indentedToString(level + 1));
-        answer.append(main.indentedToString(level + 1));
+        answer.append(getMain().indentedToString(level + 1));
         return answer.toString();
     }
 }
@@ -1,21 +1,64 @@
 package syntaxtree;
 
+import java.io.Serializable;
+
 /**
  * Bob Laskowski,
  * Compilers II,
  * Dr. Erik Steinmetz,
  * April 27th, 2017
  * <p>
- * The base class for all nodes in a syntax tree.
+ * The base class for all nodes in a syntax tree. A node parsed from source text knows the span of text it came from,
+ * as offsets into the source. The line and column of an offset can be found with the LineMap of the source.
+ * <p>
+ * Nodes are Serializable so parsed trees can be stored on disk by the ParseCache.
  *
  * @author Bob Laskowski
  */
-public abstract class SyntaxTreeNode {
+public abstract class SyntaxTreeNode implements Serializable {
+
+    ///////////////////////////////
+    //    Instance Variables
+    ///////////////////////////////
+
+    private static final long serialVersionUID = 1L;
+
+    private int start = -1; // Offset of the first character of the node's text, -1 if unknown
+    private int end = -1; // Offset after the last character of the node's text, -1 if unknown
 
     ///////////////////////////////
     //       Methods
     ///////////////////////////////
 
+    /**
+     * Get the offset the text of this node starts at
+     *
+     * @return The offset of the first character, -1 if the node was not parsed from source text
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Get the offset the text of this node ends at
+     *
+     * @return The offset after the last character, -1 if the node was not parsed from source text
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Set the span of source text this node was parsed from
+     *
+     * @param start Offset of the first character
+     * @param end   Offset after the last character
+     */
+    public void setSpan(int start, int end) {
+        this.start = start;
+        this.end = end;
+    }
+
     /**
      * Creates a String representation of this node and its children.
      *
@@ -18,6 +18,8 @@ public class UnaryOperationNode extends ExpressionNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode expression; // The right operator of this operation.
     private Type operation; // The kind of operation.
 
@@ -1,5 +1,6 @@
 package syntaxtree;
 
+import scanner.NumberLiteral;
 import scanner.Type;
 
 /**
@@ -8,7 +9,9 @@ import scanner.Type;
  * Dr. Erik Steinmetz,
  * April 27th, 2017
  * <p>
- * Represents a value or number in an expression.
+ * Represents a value or number in an expression. The value is held as a long for an INTEGER or a double for a REAL,
+ * parsed once when the node is created. The attribute text is the number as written in the program, or for a value
+ * made by code folding it is only formatted when it is asked for.
  *
  * @author Bob Laskowski
  */
@@ -18,7 +21,12 @@ public class ValueNode extends ExpressionNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     private String attribute; // The attribute associated with this node.
+    private final Type kind; // INTEGER or REAL, the kind of number held. The type may still be widened to REAL.
+    private final long longValue;
+    private final double doubleValue;
 
     ///////////////////////////////
     //       Constructors
@@ -31,8 +39,67 @@ public class ValueNode extends ExpressionNode {
      */
     public ValueNode(String attr) {
         this.attribute = attr;
-        if (attribute.contains(".")) type = Type.REAL;
-        else type = Type.INTEGER;
+        boolean negative = attr.startsWith("-");
+        char[] digits = attr.toCharArray();
+        int start = negative ? 1 : 0;
+        if (NumberLiteral.isReal(digits, start, digits.length - start)) {
+            double value = NumberLiteral.doubleValue(digits, start, digits.length - start);
+            this.kind = Type.REAL;
+            this.doubleValue = negative ? -value : value;
+            this.longValue = (long) this.doubleValue;
+        } else {
+            long value = NumberLiteral.longValue(digits, start, digits.length - start);
+            this.kind = Type.INTEGER;
+            this.longValue = negative ? -value : value;
+            this.doubleValue = this.longValue;
+        }
+        type = kind;
+    }
+
+    /**
+     * Creates an INTEGER ValueNode for a number literal.
+     *
+     * @param attr  The number as written in the program
+     * @param value The value of the number
+     */
+    public ValueNode(String attr, long value) {
+        this(value);
+        this.attribute = attr;
+    }
+
+    /**
+     * Creates a REAL ValueNode for a number literal.
+     *
+     * @param attr  The number as written in the program
+     * @param value The value of the number
+     */
+    public ValueNode(String attr, double value) {
+        this(value);
+        this.attribute = attr;
+    }
+
+    /**
+     * Creates an INTEGER ValueNode for a computed value.
+     *
+     * @param value The value
+     */
+    public ValueNode(long value) {
+        this.kind = Type.INTEGER;
+        this.longValue = value;
+        this.doubleValue = value;
+        type = kind;
+    }
+
+    /**
+     * Creates a REAL ValueNode for a computed value.
+     *
+     * @param value The value
+     */
+    public ValueNode(double value) {
+        this.kind = Type.REAL;
+        this.doubleValue = value;
+        this.longValue = (long) value;
+        type = kind;
     }
 
     ///////////////////////////////
@@ -45,9 +112,49 @@ public class ValueNode extends ExpressionNode {
      * @return The attribute of this ValueNode.
      */
     public String getAttribute() {
+        if (attribute == null) attribute = kind == Type.REAL ? Double.toString(doubleValue) : Long.toString(longValue);
         return (this.attribute);
     }
 
+    /**
+     * Get the kind of number this node holds, which unlike the type is never widened
+     *
+     * @return Type INTEGER or REAL
+     */
+    public Type getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the value as a long, truncated if the node holds a REAL
+     *
+     * @return The value of this node
+     */
+    public long getLongValue() {
+        return longValue;
+    }
+
+    /**
+     * Get the value as a double
+     *
+     * @return The value of this node
+     */
+    public double getDoubleValue() {
+        return doubleValue;
+    }
+
+    /**
+     * Creates a ValueNode with the opposite sign.
+     *
+     * @return A new ValueNode holding the negated value
+     */
+    public ValueNode negate() {
+        String text = getAttribute();
+        text = text.startsWith("-") ? text.substring(1) : "-" + text;
+        if (kind == Type.REAL) return new ValueNode(text, -doubleValue);
+        return new ValueNode(text, -longValue);
+    }
+
     /**
      * Returns the attribute as the description of this node.
      *
@@ -55,7 +162,7 @@ public class ValueNode extends ExpressionNode {
      */
     @Override
     public String toString() {
-        return (attribute);
+        return getAttribute();
     }
 
     /**
@@ -67,12 +174,12 @@ public class ValueNode extends ExpressionNode {
     @Override
     public String indentedToString(int level) {
         String answer = this.indentation(level);
-        answer += "Value: " + this.attribute + ", Type: " + type + "\n";
+        answer += "Value: " + getAttribute() + ", Type: " + type + "\n";
         return answer;
     }
 
     /**
-     * Determines if two ValueNodes are equal. They are equal if they have the same attribute
+     * Determines if two ValueNodes are equal. They are equal if they hold the same kind of number with the same value
      *
      * @param o Another ValueNode
      * @return True if equal, False otherwise
@@ -82,7 +189,8 @@ public class ValueNode extends ExpressionNode {
         boolean answer = false;
         if (o instanceof ValueNode) {
             ValueNode other = (ValueNode) o;
-            if (this.attribute.equals(other.attribute)) answer = true;
+            if (this.kind == other.kind && this.longValue == other.longValue && Double.compare(this.doubleValue, other.doubleValue) == 0)
+                answer = true;
         }
         return answer;
     }
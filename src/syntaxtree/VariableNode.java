@@ -18,7 +18,10 @@ public class VariableNode extends ExpressionNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     private String name; // The name of the variable associated with this node.
+    private int symbol = -1; // The number of the symbol the name stands for, -1 until it is known.
 
     ///////////////////////////////
     //       Constructors
@@ -57,6 +60,25 @@ public class VariableNode extends ExpressionNode {
         return (this.name);
     }
 
+    /**
+     * Returns the number of the symbol in the symbol table that the name of this node stands for.
+     *
+     * @return The number of the symbol, -1 if it has not been looked up
+     */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Sets the number of the symbol in the symbol table that the name of this node stands for, so it doesn't have to
+     * be looked up by name again.
+     *
+     * @param symbol The number of the symbol, -1 if it is not known
+     */
+    public void setSymbol(int symbol) {
+        this.symbol = symbol;
+    }
+
     /**
      * Returns the name of the variable as the description of this node.
      *
@@ -16,6 +16,8 @@ public class WhileStatementNode extends StatementNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode test; // The test to be checked on each iteration of the while loop
     private StatementNode doStatement; // The statement to be executed on each iteration
 
@@ -16,6 +16,8 @@ public class WriteNode extends StatementNode {
     //    Instance Variables
     ///////////////////////////////
 
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode data;
 
     ///////////////////////////////